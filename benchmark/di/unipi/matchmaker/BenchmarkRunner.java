@@ -0,0 +1,29 @@
+package di.unipi.matchmaker;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runnable launcher of the matchmaking benchmarks, with the GC (allocation) profiler enabled.
+ * <br>
+ * The (optional) argument is a regular expression selecting the benchmarks to be run.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "di\\.unipi\\.matchmaker\\..*Benchmark")
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
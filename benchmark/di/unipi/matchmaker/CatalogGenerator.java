@@ -0,0 +1,205 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which generates synthetic TOSCA definitions to benchmark the matchmakers.
+ * <br>
+ * The generator creates a NodeType (to be matched) and ServiceTemplate(s) that may match it.
+ * Its shape is controlled by the depth of the type hierarchies, by the width of the boundaries
+ * (number of capabilities, requirements and properties) and by the number of interfaces and
+ * of operations per interface. A generated ServiceTemplate can be a "hit" (exactly matching or,
+ * if derived, only plug-in matching the NodeType) or a "miss" (differing from a hit in a single
+ * randomly chosen element).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class CatalogGenerator {
+	private Random random;
+	private int width;
+	private int interfaces;
+	private int operations;
+
+	/**
+	 * It stores the chain of capability types (each one derived from the previous one).
+	 */
+	private List<CapabilityType> capabilityTypes;
+	/**
+	 * It stores the chain of requirement types (each one derived from the previous one).
+	 */
+	private List<RequirementType> requirementTypes;
+	/**
+	 * It stores the NodeType to be matched.
+	 */
+	private NodeType nodeType;
+	/**
+	 * It stores a policy applicable to the NodeType.
+	 */
+	private Policy policy;
+
+	/**
+	 * Constructor.
+	 * @param seed Seed of the pseudo-random choices of the generator.
+	 * @param depth Depth of the capability and requirement type hierarchies.
+	 * @param width Number of capabilities, requirements and properties.
+	 * @param interfaces Number of interfaces.
+	 * @param operations Number of operations of each interface.
+	 */
+	public CatalogGenerator(long seed, int depth, int width, int interfaces, int operations) {
+		this.random = new Random(seed);
+		this.width = width;
+		this.interfaces = interfaces;
+		this.operations = operations;
+
+		capabilityTypes = new ArrayList<CapabilityType>();
+		requirementTypes = new ArrayList<RequirementType>();
+		capabilityTypes.add(new CapabilityType("CapabilityType0"));
+		requirementTypes.add(new RequirementType("RequirementType0"));
+		for(int i = 1; i <= depth; i++) {
+			capabilityTypes.add(new CapabilityType(capabilityTypes.get(i - 1), "CapabilityType" + i));
+			requirementTypes.add(new RequirementType(requirementTypes.get(i - 1), "RequirementType" + i));
+		}
+
+		try {
+			nodeType = new NodeType("GeneratedNodeType");
+			for(int i = 0; i < width; i++) {
+				nodeType.getCapabilityDefinitions().addDefinition("Capability" + i, capabilityTypes.get(0));
+				nodeType.getRequirementDefinitions().addDefinition("Requirement" + i, requirementTypes.get(depth));
+				nodeType.getPropertiesDefinition().addDefinition("Property" + i, String.class);
+			}
+			for(int i = 0; i < interfaces; i++)
+				nodeType.getInterfaces().add(new Interface("Interface" + i, operations(i, null)));
+
+			PolicyType policyType = new PolicyType("GeneratedPolicyType");
+			policyType.setApplicableTo(nodeType);
+			policy = new Policy("GeneratedPolicy", policyType);
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method which provides access to the NodeType to be matched.
+	 * @return The generated NodeType.
+	 */
+	public NodeType getNodeType() {
+		return nodeType;
+	}
+
+	/**
+	 * Method which provides access to the generated capability types.
+	 * @return The List of CapabilityType(s), from the base one.
+	 */
+	public List<CapabilityType> getCapabilityTypes() {
+		return capabilityTypes;
+	}
+
+	/**
+	 * Method which provides access to the generated requirement types.
+	 * @return The List of RequirementType(s), from the base one.
+	 */
+	public List<RequirementType> getRequirementTypes() {
+		return requirementTypes;
+	}
+
+	/**
+	 * Method which generates a catalog of ServiceTemplate(s).
+	 *
+	 * @param size Number of ServiceTemplate(s) to be generated.
+	 * @param hitRatio Fraction of the ServiceTemplate(s) matching the NodeType.
+	 * @param derived Whether the hits only plug-in match the NodeType.
+	 *
+	 * @return The List of generated ServiceTemplate(s).
+	 */
+	public List<ServiceTemplate> catalog(int size, double hitRatio, boolean derived) {
+		List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>(size);
+		for(int i = 0; i < size; i++)
+			sts.add(template("GeneratedServiceTemplate" + i, random.nextDouble() < hitRatio, derived));
+		return sts;
+	}
+
+	/**
+	 * Method which generates a ServiceTemplate.
+	 *
+	 * @param name Name of the ServiceTemplate.
+	 * @param hit Whether the ServiceTemplate matches the NodeType.
+	 * @param derived Whether the ServiceTemplate only plug-in matches the NodeType.
+	 *
+	 * @return The generated ServiceTemplate.
+	 */
+	public ServiceTemplate template(String name, boolean hit, boolean derived) {
+		//A miss differs from a hit in a single element (of a randomly chosen kind),
+		//or it exposes an additional requirement if there is no element to be changed.
+		int missKind = -1;
+		if(!hit) {
+			if(width > 0 && interfaces > 0 && operations > 0)
+				missKind = random.nextInt(4);
+			else if(width > 0)
+				missKind = random.nextInt(3);
+			else
+				missKind = (interfaces > 0 && operations > 0 ? 3 : 4);
+		}
+		int missIndex = random.nextInt(Math.max(1, (missKind == 3 ? interfaces : width)));
+		int depth = capabilityTypes.size() - 1;
+
+		ServiceTemplate st = new ServiceTemplate(name);
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		try {
+			for(int i = 0; i < width; i++) {
+				String suffix = (i == missIndex ? "Missing" : "");
+				bounds.add(new Capability("Capability" + i + (missKind == 0 ? suffix : ""),
+						capabilityTypes.get(derived ? depth : 0)));
+				bounds.add(new Requirement("Requirement" + i + (missKind == 1 ? suffix : ""),
+						requirementTypes.get(derived ? 0 : depth)));
+				bounds.add(new Property("Property" + i + (missKind == 2 ? suffix : ""),
+						(derived ? CharSequence.class : String.class)));
+			}
+			if(missKind == 4)
+				bounds.add(new Requirement("MissingRequirement", requirementTypes.get(0)));
+			bounds.add(policy);
+			if(derived) {
+				//The operations are exposed by differently named (and grouped) interfaces.
+				List<Operation> ops = new ArrayList<Operation>();
+				for(int i = 0; i < interfaces; i++)
+					ops.addAll(operations(i, (missKind == 3 && i == missIndex ? "Missing" : "")));
+				bounds.add(new Interface("GeneratedInterface", ops));
+			} else {
+				for(int i = 0; i < interfaces; i++)
+					bounds.add(new Interface("Interface" + i, operations(i, (missKind == 3 && i == missIndex ? "Missing" : ""))));
+			}
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		}
+		return st;
+	}
+
+	/**
+	 * Method which generates the operations of an interface.
+	 */
+	private List<Operation> operations(int inf, String suffix) {
+		List<Operation> ops = new ArrayList<Operation>();
+		for(int j = 0; j < operations; j++) {
+			List<Parameter> in = new ArrayList<Parameter>();
+			in.add(new Parameter("input", String.class));
+			List<Parameter> out = new ArrayList<Parameter>();
+			out.add(new Parameter("output", Integer.class));
+			String opName = "Operation" + inf + "_" + j + (suffix != null && j == 0 ? suffix : "");
+			ops.add(new Operation(opName, in, out));
+		}
+		return ops;
+	}
+}
@@ -0,0 +1,146 @@
+package di.unipi.matchmaker;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import di.unipi.model.tosca.NodeType;
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Benchmark of whole matchmaking processes of a NodeType against a generated catalog.
+ * <br>
+ * Each benchmark matches the NodeType against the whole catalog, and the scores are reported
+ * per matched ServiceTemplate.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchmakerBenchmark {
+	/**
+	 * It stores the number of ServiceTemplate(s) of the generated catalog.
+	 */
+	static final int CATALOG_SIZE = 1000;
+
+	@Param({"1", "16"})
+	public int depth;
+	@Param({"4", "64"})
+	public int width;
+	@Param({"2", "16"})
+	public int interfaces;
+	@Param({"4"})
+	public int operations;
+	@Param({"0.1", "0.9"})
+	public double hitRatio;
+	@Param({"false", "true"})
+	public boolean derived;
+
+	private NodeType n;
+	private List<ServiceTemplate> catalog;
+	private TypeHierarchy types;
+	private CompiledNodeQuery exactQuery;
+	private CompiledNodeQuery plugInQuery;
+	private ServiceTemplateRegistry registry;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		CatalogGenerator generator = new CatalogGenerator(42, depth, width, interfaces, operations);
+		n = generator.getNodeType();
+		catalog = generator.catalog(CATALOG_SIZE, hitRatio, derived);
+
+		types = new TypeHierarchy();
+		types.addAll(generator.getCapabilityTypes());
+		types.addAll(generator.getRequirementTypes());
+
+		exactQuery = new CompiledNodeQuery(n, MatchMode.EXACT);
+		plugInQuery = new CompiledNodeQuery(n, MatchMode.PLUG_IN, types);
+
+		registry = new ServiceTemplateRegistry();
+		for(ServiceTemplate st : catalog)
+			registry.register(st);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void exactMatch(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(new ExactMatchmaker(n, st).match());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void exactMatches(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(new ExactMatchmaker(n, st).matches());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void plugInMatch(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(new PlugInMatchmaker(n, st).match());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void plugInMatchWithTypeHierarchy(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(new PlugInMatchmaker(n, st, types).match());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void plugInMatches(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(new PlugInMatchmaker(n, st).matches());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void compiledExactQuery(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(exactQuery.matches(st));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public void compiledPlugInQuery(Blackhole bh) {
+		for(ServiceTemplate st : catalog)
+			bh.consume(plugInQuery.matches(st));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public List<ServiceTemplate> registryExactMatches() {
+		return registry.findExactMatches(n);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CATALOG_SIZE)
+	public List<ServiceTemplate> registryPlugInMatches() {
+		return registry.findPlugInMatches(n);
+	}
+}
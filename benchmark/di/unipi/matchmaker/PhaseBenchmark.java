@@ -0,0 +1,123 @@
+package di.unipi.matchmaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import di.unipi.model.tosca.NodeType;
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Benchmark of the single phases of the (exact and plug-in) matchmakers, on a matching
+ * pair of generated NodeType and ServiceTemplate.
+ * <br>
+ * The plug-in phases are performed on all the elements (as in PlugInMatchmaker.matches()).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+	@Param({"1", "16"})
+	public int depth;
+	@Param({"4", "64", "256"})
+	public int width;
+	@Param({"2", "16"})
+	public int interfaces;
+	@Param({"4", "32"})
+	public int operations;
+
+	private NodeType n;
+	private ExactMatchmaker exact;
+	private PlugInMatchmaker plugIn;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		CatalogGenerator generator = new CatalogGenerator(42, depth, width, interfaces, operations);
+		n = generator.getNodeType();
+		exact = new ExactMatchmaker(n, generator.template("Exact", true, false));
+		ServiceTemplate derived = generator.template("PlugIn", true, true);
+		plugIn = new PlugInMatchmaker(n, derived);
+	}
+
+	@Benchmark
+	public boolean exactCapabilities() {
+		exact.matchCapabilities();
+		return exact.areCapabilitiesMatched;
+	}
+
+	@Benchmark
+	public boolean exactRequirements() {
+		exact.matchRequirements();
+		return exact.areRequirementsMatched;
+	}
+
+	@Benchmark
+	public boolean exactPolicies() {
+		exact.matchPolicies();
+		return exact.arePoliciesMatched;
+	}
+
+	@Benchmark
+	public boolean exactProperties() {
+		exact.matchProperties();
+		return exact.arePropertiesMatched;
+	}
+
+	@Benchmark
+	public boolean exactInterfaces() {
+		exact.matchInterfaces();
+		return exact.areInterfacesMatched;
+	}
+
+	@Benchmark
+	public boolean plugInCapabilities() {
+		plugIn.unmatchedCapabilities = n.getCapabilityDefinitions().getList();
+		plugIn.areCapabilitiesMatched = false;
+		plugIn.matchCapabilities();
+		return plugIn.areCapabilitiesMatched;
+	}
+
+	@Benchmark
+	public boolean plugInRequirements() {
+		plugIn.unmatchedRequirements = plugIn.st.getBoundaryDefinitions().getRequirements().getList();
+		plugIn.areRequirementsMatched = false;
+		plugIn.matchRequirements();
+		return plugIn.areRequirementsMatched;
+	}
+
+	@Benchmark
+	public boolean plugInProperties() {
+		plugIn.unmatchedProperties = n.getPropertiesDefinition().getList();
+		plugIn.arePropertiesMatched = false;
+		plugIn.matchProperties();
+		return plugIn.arePropertiesMatched;
+	}
+
+	@Benchmark
+	public boolean plugInInterfaces() {
+		plugIn.unmatchedInterfaces = n.getInterfaces().getList();
+		plugIn.areInterfacesMatched = false;
+		plugIn.matchInterfaces();
+		return plugIn.areInterfacesMatched;
+	}
+}
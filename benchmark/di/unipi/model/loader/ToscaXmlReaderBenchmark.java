@@ -0,0 +1,98 @@
+package di.unipi.model.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import di.unipi.matchmaker.CatalogGenerator;
+import di.unipi.model.tosca.*;
+
+/**
+ * Benchmark of the loading of (generated) TOSCA XML Definitions documents.
+ * <br>
+ * Besides the number of documents read per second, the "bytes" counter reports the parse
+ * throughput (in bytes per second).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToscaXmlReaderBenchmark {
+	@Param({"1000", "10000"})
+	public int catalogSize;
+	@Param({"4", "64"})
+	public int width;
+	@Param({"2"})
+	public int interfaces;
+	@Param({"4"})
+	public int operations;
+
+	private byte[] document;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		CatalogGenerator generator = new CatalogGenerator(42, 4, width, interfaces, operations);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XmlCatalogWriter writer = new XmlCatalogWriter(out);
+		for(CapabilityType cType : generator.getCapabilityTypes())
+			writer.writeType(cType);
+		for(RequirementType rType : generator.getRequirementTypes())
+			writer.writeType(rType);
+		writer.writeType(generator.getNodeType());
+		ServiceTemplate sample = generator.template("Sample", true, false);
+		writer.writeType(sample.getBoundaryDefinitions().getPolicies().getList().get(0).getType());
+		for(ServiceTemplate st : generator.catalog(catalogSize, 0.5, false))
+			writer.writeServiceTemplate(st);
+		writer.close();
+		document = out.toByteArray();
+	}
+
+	@Benchmark
+	public void read(final Blackhole bh, Bytes bytes) throws Exception {
+		ToscaXmlReader reader = new ToscaXmlReader();
+		reader.read(new ByteArrayInputStream(document), new ServiceTemplateHandler() {
+			@Override
+			public void handle(ServiceTemplate st) {
+				bh.consume(st);
+			}
+		});
+		bytes.bytes += reader.getBytesRead();
+	}
+
+	/**
+	 * Class which counts the bytes read by the benchmark.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+}
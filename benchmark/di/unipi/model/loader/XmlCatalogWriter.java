@@ -0,0 +1,186 @@
+package di.unipi.model.loader;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which writes TOSCA definitions as a Definitions document readable by ToscaXmlReader.
+ * <br>
+ * It is used to generate the (synthetic) documents read by the benchmarks.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class XmlCatalogWriter {
+	private static final String NAMESPACE = "http://docs.oasis-open.org/tosca/ns/2011/12";
+
+	private XMLStreamWriter xml;
+
+	/**
+	 * Constructor.
+	 * @param out OutputStream where the document is written.
+	 * @throws XMLStreamException If the document cannot be written.
+	 */
+	public XmlCatalogWriter(OutputStream out) throws XMLStreamException {
+		xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+		xml.writeStartDocument("UTF-8", "1.0");
+		xml.writeStartElement("Definitions");
+		xml.writeDefaultNamespace(NAMESPACE);
+		xml.writeAttribute("id", "GeneratedDefinitions");
+		xml.writeAttribute("targetNamespace", "http://www.di.unipi.it/~soldani/generated");
+	}
+
+	/**
+	 * Method which writes a type.
+	 * @param t EntityType to be written.
+	 * @throws XMLStreamException If the type cannot be written.
+	 */
+	public void writeType(EntityType t) throws XMLStreamException {
+		String kind = (t instanceof CapabilityType ? "CapabilityType" : t instanceof RequirementType ? "RequirementType" :
+			t instanceof NodeType ? "NodeType" : "PolicyType");
+		xml.writeStartElement(kind);
+		xml.writeAttribute("name", t.getName());
+		if(t.derivedFrom() != null) {
+			xml.writeEmptyElement("DerivedFrom");
+			xml.writeAttribute("typeRef", t.derivedFrom().getName());
+		}
+		if(!t.getPropertiesDefinition().getList().isEmpty()) {
+			xml.writeStartElement("PropertiesDefinition");
+			for(PropertyDefinition pDef : t.getPropertiesDefinition().getList()) {
+				xml.writeEmptyElement("PropertyDefinition");
+				xml.writeAttribute("name", pDef.getName());
+				xml.writeAttribute("type", typeName(pDef.getPropertyType()));
+			}
+			xml.writeEndElement();
+		}
+		if(t instanceof NodeType) {
+			NodeType n = (NodeType) t;
+			xml.writeStartElement("RequirementDefinitions");
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+				xml.writeEmptyElement("RequirementDefinition");
+				xml.writeAttribute("name", rDef.getName());
+				xml.writeAttribute("requirementType", rDef.getRequirementType().getName());
+			}
+			xml.writeEndElement();
+			xml.writeStartElement("CapabilityDefinitions");
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList()) {
+				xml.writeEmptyElement("CapabilityDefinition");
+				xml.writeAttribute("name", cDef.getName());
+				xml.writeAttribute("capabilityType", cDef.getCapabilityType().getName());
+			}
+			xml.writeEndElement();
+			writeInterfaces(n.getInterfaces().getList());
+		}
+		if(t instanceof PolicyType) {
+			xml.writeStartElement("AppliesTo");
+			for(NodeType n : ((PolicyType) t).getAppliesTo().getList()) {
+				xml.writeEmptyElement("NodeTypeReference");
+				xml.writeAttribute("typeRef", n.getName());
+			}
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Method which writes a ServiceTemplate (with its BoundaryDefinitions).
+	 * @param st ServiceTemplate to be written.
+	 * @throws XMLStreamException If the ServiceTemplate cannot be written.
+	 */
+	public void writeServiceTemplate(ServiceTemplate st) throws XMLStreamException {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		xml.writeStartElement("ServiceTemplate");
+		xml.writeAttribute("id", st.getName());
+		xml.writeAttribute("name", st.getName());
+		xml.writeStartElement("BoundaryDefinitions");
+		xml.writeStartElement("Properties");
+		for(Property p : bounds.getProperties().getList()) {
+			xml.writeEmptyElement("Property");
+			xml.writeAttribute("name", p.getName());
+			xml.writeAttribute("type", typeName(p.getPropertyType()));
+		}
+		xml.writeEndElement();
+		xml.writeStartElement("Policies");
+		for(Policy pol : bounds.getPolicies().getList()) {
+			xml.writeEmptyElement("Policy");
+			xml.writeAttribute("name", pol.getName());
+			xml.writeAttribute("policyType", pol.getType().getName());
+		}
+		xml.writeEndElement();
+		xml.writeStartElement("Requirements");
+		for(Requirement r : bounds.getRequirements().getList()) {
+			xml.writeEmptyElement("Requirement");
+			xml.writeAttribute("name", r.getName());
+			xml.writeAttribute("type", r.getType().getName());
+		}
+		xml.writeEndElement();
+		xml.writeStartElement("Capabilities");
+		for(Capability c : bounds.getCapabilities().getList()) {
+			xml.writeEmptyElement("Capability");
+			xml.writeAttribute("name", c.getName());
+			xml.writeAttribute("type", c.getType().getName());
+		}
+		xml.writeEndElement();
+		writeInterfaces(bounds.getInterfaces().getList());
+		xml.writeEndElement();
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Method which completes the document.
+	 * @throws XMLStreamException If the document cannot be completed.
+	 */
+	public void close() throws XMLStreamException {
+		xml.writeEndElement();
+		xml.writeEndDocument();
+		xml.close();
+	}
+
+	private void writeInterfaces(List<Interface> interfaces) throws XMLStreamException {
+		xml.writeStartElement("Interfaces");
+		for(Interface inf : interfaces) {
+			xml.writeStartElement("Interface");
+			xml.writeAttribute("name", inf.getName());
+			for(Operation op : inf.getOperations()) {
+				xml.writeStartElement("Operation");
+				xml.writeAttribute("name", op.getName());
+				writeParameters("InputParameters", "InputParameter", op.getInputParameters());
+				writeParameters("OutputParameters", "OutputParameter", op.getOutputParameters());
+				xml.writeEndElement();
+			}
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static String typeName(PropertyType t) {
+		if(!t.isJavaClass())
+			return t.getName();
+		Class c = t.getJavaClass();
+		String name = XmlSchemaTypes.toName(c);
+		return (name.equals(c.getName()) ? name : "xs:" + name);
+	}
+
+	private void writeParameters(String element, String child, List<Parameter> params) throws XMLStreamException {
+		if(params == null || params.isEmpty())
+			return;
+		xml.writeStartElement(element);
+		for(Parameter p : params) {
+			xml.writeEmptyElement(child);
+			xml.writeAttribute("name", p.getName());
+			xml.writeAttribute("type", typeName(p.getPropertyType()));
+			xml.writeAttribute("required", p.isRequired() ? "yes" : "no");
+		}
+		xml.writeEndElement();
+	}
+}
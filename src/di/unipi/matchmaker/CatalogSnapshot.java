@@ -0,0 +1,651 @@
+package di.unipi.matchmaker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a (read-only) catalog of ServiceTemplate(s) opened from a binary snapshot.
+ * <br>
+ * The snapshot is written once (by write()) and then memory-mapped (by open()): it contains the
+ * type hierarchies, the boundary definitions of the ServiceTemplate(s), their FeatureSignature(s)
+ * and the inverted indexes of the ServiceTemplateRegistry. Queries are answered by the mapped indexes
+ * and signatures, and types and ServiceTemplate(s) are only materialized (once) when a query touches them.
+ * The answers are those of a ServiceTemplateRegistry containing the same ServiceTemplate(s).
+ * A snapshot cannot exceed 2GB (as it is mapped as a single region). Properties and parameters are
+ * stored with the names of their PropertyType(s), hence the property types which are not Java classes
+ * must be defined before the ServiceTemplate(s) using them are materialized.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class CatalogSnapshot {
+	static final int MAGIC = 0x544F5343;
+	static final int VERSION = 1;
+
+	//Positions (in the header) of the offsets of the sections.
+	static final int STRINGS = 2;
+	static final int TYPES_SECTION = 3;
+	static final int TEMPLATES = 4;
+	static final int SIGNATURES = 5;
+	static final int REQUIREMENT_KEYS = 6;
+	static final int WITHOUT_REQUIREMENTS = 7;
+	static final int FIRST_INDEX = 8;
+
+	//Indexes (in the order of their sections).
+	static final int CAPABILITIES = 0;
+	static final int DERIVED_CAPABILITIES = 1;
+	static final int REQUIREMENTS = 2;
+	static final int PROPERTIES = 3;
+	static final int INTERFACES = 4;
+	static final int OPERATIONS = 5;
+	static final int TYPES = 6;
+	static final int INDEXES = 7;
+
+	static final int HEADER_INTS = FIRST_INDEX + INDEXES;
+
+	//Kinds of types.
+	static final byte CAPABILITY_TYPE = 0;
+	static final byte REQUIREMENT_TYPE = 1;
+	static final byte NODE_TYPE = 2;
+	static final byte POLICY_TYPE = 3;
+
+	private static final int SIGNATURE_BYTES = 2 * FeatureSignature.WORDS * 8;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * It stores the mapped snapshot.
+	 */
+	private final ByteBuffer buffer;
+	/**
+	 * It stores the offsets of the sections.
+	 */
+	private final int[] header;
+	/**
+	 * It stores the (already decoded) strings.
+	 */
+	private final AtomicReferenceArray<String> strings;
+	/**
+	 * It stores the (already materialized) types.
+	 */
+	private final AtomicReferenceArray<EntityType> types;
+	/**
+	 * It stores the (already materialized) ServiceTemplate(s).
+	 */
+	private final AtomicReferenceArray<ServiceTemplate> templates;
+	/**
+	 * It stores the (already resolved) PropertyType(s) of properties and parameters.
+	 */
+	private final Map<String, PropertyType> propertyTypes;
+
+	private CatalogSnapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if(buffer.capacity() < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC)
+			throw new IOException("The file is not a catalog snapshot");
+		if(buffer.getInt(4) != VERSION)
+			throw new IOException("The catalog snapshot version " + buffer.getInt(4) + " is not supported");
+		this.header = new int[HEADER_INTS];
+		for(int i = 0; i < HEADER_INTS; i++)
+			header[i] = buffer.getInt(4 * i);
+		this.strings = new AtomicReferenceArray<String>(buffer.getInt(header[STRINGS]));
+		this.types = new AtomicReferenceArray<EntityType>(buffer.getInt(header[TYPES_SECTION]));
+		this.templates = new AtomicReferenceArray<ServiceTemplate>(buffer.getInt(header[TEMPLATES]));
+		this.propertyTypes = new ConcurrentHashMap<String, PropertyType>();
+	}
+
+	/**
+	 * Method which writes the snapshot of the ServiceTemplate(s) registered in a ServiceTemplateRegistry.
+	 *
+	 * @param file File where the snapshot is written.
+	 * @param registry ServiceTemplateRegistry whose ServiceTemplate(s) are written (in registration order).
+	 * @param types Types to be written besides those referenced by the ServiceTemplate(s) (e.g., the NodeType(s)).
+	 *
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	public static void write(File file, ServiceTemplateRegistry registry, Collection<? extends EntityType> types)
+			throws IOException {
+		new CatalogSnapshotWriter(types, registry.getTemplates()).write(file);
+	}
+
+	/**
+	 * Method which opens (by memory-mapping it) a snapshot.
+	 *
+	 * @param file File containing the snapshot.
+	 *
+	 * @return The CatalogSnapshot stored in file.
+	 *
+	 * @throws IOException If the file cannot be mapped, or it is not a catalog snapshot.
+	 */
+	public static CatalogSnapshot open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("The catalog snapshot exceeds the maximum size (2GB)");
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new CatalogSnapshot(mapped);
+		} finally {
+			//The mapping remains valid after the channel is closed.
+			raf.close();
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of ServiceTemplate(s) in the snapshot.
+	 * @return The number of ServiceTemplate(s).
+	 */
+	public int size() {
+		return templates.length();
+	}
+
+	/**
+	 * Method which provides access to a ServiceTemplate (materializing it, if needed).
+	 * @param id Position of the ServiceTemplate (in registration order).
+	 * @return The ServiceTemplate in position id.
+	 */
+	public ServiceTemplate getServiceTemplate(int id) {
+		ServiceTemplate st = templates.get(id);
+		if(st == null) {
+			templates.compareAndSet(id, null, loadTemplate(id));
+			st = templates.get(id);
+		}
+		return st;
+	}
+
+	/**
+	 * Method which provides access to all ServiceTemplate(s) (materializing them, if needed).
+	 * @return The List of ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getTemplates() {
+		List<ServiceTemplate> list = new ArrayList<ServiceTemplate>(size());
+		for(int id = 0; id < size(); id++)
+			list.add(getServiceTemplate(id));
+		return list;
+	}
+
+	/**
+	 * Method which retrieves a CapabilityType by name.
+	 * @param name Name of the CapabilityType.
+	 * @return The CapabilityType named name, null if there is no such type.
+	 */
+	public CapabilityType getCapabilityType(String name) {
+		return (CapabilityType) lookupType(CAPABILITY_TYPE, name);
+	}
+
+	/**
+	 * Method which retrieves a RequirementType by name.
+	 * @param name Name of the RequirementType.
+	 * @return The RequirementType named name, null if there is no such type.
+	 */
+	public RequirementType getRequirementType(String name) {
+		return (RequirementType) lookupType(REQUIREMENT_TYPE, name);
+	}
+
+	/**
+	 * Method which retrieves a NodeType by name.
+	 * @param name Name of the NodeType.
+	 * @return The NodeType named name, null if there is no such type.
+	 */
+	public NodeType getNodeType(String name) {
+		return (NodeType) lookupType(NODE_TYPE, name);
+	}
+
+	/**
+	 * Method which retrieves a PolicyType by name.
+	 * @param name Name of the PolicyType.
+	 * @return The PolicyType named name, null if there is no such type.
+	 */
+	public PolicyType getPolicyType(String name) {
+		return (PolicyType) lookupType(POLICY_TYPE, name);
+	}
+
+	/**
+	 * Method which builds a ServiceTemplateRegistry containing all ServiceTemplate(s) of the snapshot.
+	 * @return The ServiceTemplateRegistry (whose registration order is that of the snapshot).
+	 */
+	public ServiceTemplateRegistry toRegistry() {
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		try {
+			for(ServiceTemplate st : getTemplates())
+				registry.register(st);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		}
+		return registry;
+	}
+
+	/**
+	 * Method which retrieves the ServiceTemplate(s) which exactly match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of exactly matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findExactMatches(NodeType n) {
+		CompiledNodeQuery query = new CompiledNodeQuery(n, MatchMode.EXACT);
+		List<ServiceTemplate> found = new ArrayList<ServiceTemplate>();
+		for(ServiceTemplate st : getExactCandidates(n, query.getSignature())) {
+			if(query.matches(st))
+				found.add(st);
+		}
+		return found;
+	}
+
+	/**
+	 * Method which retrieves the ServiceTemplate(s) which plug-in match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of plug-in matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findPlugInMatches(NodeType n) {
+		CompiledNodeQuery query = new CompiledNodeQuery(n, MatchMode.PLUG_IN);
+		List<ServiceTemplate> found = new ArrayList<ServiceTemplate>();
+		for(ServiceTemplate st : getPlugInCandidates(n, query.getSignature())) {
+			if(query.matches(st))
+				found.add(st);
+		}
+		return found;
+	}
+
+	/**
+	 * Method which retrieves the ServiceTemplate(s) which may exactly match a NodeType,
+	 * i.e., those exposing all the capabilities, properties and interfaces of the NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of candidate ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getExactCandidates(NodeType n) {
+		return getExactCandidates(n, FeatureSignature.required(n, MatchMode.EXACT));
+	}
+
+	private List<ServiceTemplate> getExactCandidates(NodeType n, FeatureSignature required) {
+		List<Integer> postings = new ArrayList<Integer>();
+		Set<String> reqKeys = new HashSet<String>();
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			postings.add(lookup(CAPABILITIES, ServiceTemplateRegistry.key(cDef.getName(), cDef.getCapabilityType().getName())));
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			postings.add(lookup(PROPERTIES, pDef.getName()));
+		for(Interface inf : n.getInterfaces().getList())
+			postings.add(lookup(INTERFACES, inf.getName()));
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+			reqKeys.add(ServiceTemplateRegistry.key(rDef.getName(), rDef.getRequirementType().getName()));
+		return candidates(postings, reqKeys, required);
+	}
+
+	/**
+	 * Method which retrieves the ServiceTemplate(s) which may plug-in match a NodeType,
+	 * i.e., those exposing all the capabilities (possibly of derived types), properties and
+	 * operations of the NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of candidate ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getPlugInCandidates(NodeType n) {
+		return getPlugInCandidates(n, FeatureSignature.required(n, MatchMode.PLUG_IN));
+	}
+
+	private List<ServiceTemplate> getPlugInCandidates(NodeType n, FeatureSignature required) {
+		List<Integer> postings = new ArrayList<Integer>();
+		Set<String> reqKeys = new HashSet<String>();
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			postings.add(lookup(DERIVED_CAPABILITIES, ServiceTemplateRegistry.key(cDef.getName(), cDef.getCapabilityType().getName())));
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			postings.add(lookup(PROPERTIES, pDef.getName()));
+		for(Interface inf : n.getInterfaces().getList()) {
+			for(Operation op : inf.getOperations())
+				postings.add(lookup(OPERATIONS, op.getName()));
+		}
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+			RequirementType rType = rDef.getRequirementType();
+			while(rType != null) {
+				reqKeys.add(ServiceTemplateRegistry.key(rDef.getName(), rType.getName()));
+				rType = rType.derivedFrom();
+			}
+		}
+		return candidates(postings, reqKeys, required);
+	}
+
+	/**
+	 * Method which computes the candidate ServiceTemplate(s) (materializing only them).
+	 *
+	 * @param postings Offsets of the postings which must all contain a candidate (-1 for empty postings).
+	 * @param reqKeys Requirement keys which are satisfied by the NodeType.
+	 * @param required FeatureSignature of the NodeType.
+	 *
+	 * @return The List of candidate ServiceTemplate(s), in registration order.
+	 */
+	private List<ServiceTemplate> candidates(List<Integer> postings, Set<String> reqKeys, FeatureSignature required) {
+		if(postings.isEmpty())
+			return materialize(satisfiedRequirements(reqKeys));
+		if(postings.contains(-1))
+			return Collections.emptyList();
+
+		//The intersection is computed by scanning the smallest posting (postings are sorted).
+		int smallest = postings.get(0);
+		for(int posting : postings) {
+			if(buffer.getInt(posting) < buffer.getInt(smallest))
+				smallest = posting;
+		}
+		List<Integer> found = new ArrayList<Integer>();
+		int count = buffer.getInt(smallest);
+		for(int i = 0; i < count; i++) {
+			int id = buffer.getInt(smallest + 4 * (i + 1));
+			boolean inAll = true;
+			for(int posting : postings) {
+				if(posting != smallest && !postingContains(posting, id)) {
+					inAll = false;
+					break;
+				}
+			}
+			//The signature also rejects those exposing requirements which cannot be satisfied.
+			if(inAll && required.admits(buffer, header[SIGNATURES] + id * SIGNATURE_BYTES))
+				found.add(id);
+		}
+		return materialize(found);
+	}
+
+	/**
+	 * Method which retrieves the identifiers of the ServiceTemplate(s) whose requirements are all
+	 * satisfied by the given keys.
+	 */
+	private List<Integer> satisfiedRequirements(Set<String> reqKeys) {
+		Map<Integer, Integer> hits = new HashMap<Integer, Integer>();
+		for(String k : reqKeys) {
+			int posting = lookup(REQUIREMENTS, k);
+			if(posting < 0)
+				continue;
+			int count = buffer.getInt(posting);
+			for(int i = 0; i < count; i++) {
+				int id = buffer.getInt(posting + 4 * (i + 1));
+				Integer h = hits.get(id);
+				hits.put(id, h == null ? 1 : h + 1);
+			}
+		}
+		List<Integer> found = new ArrayList<Integer>();
+		int posting = header[WITHOUT_REQUIREMENTS];
+		int count = buffer.getInt(posting);
+		for(int i = 0; i < count; i++)
+			found.add(buffer.getInt(posting + 4 * (i + 1)));
+		for(Map.Entry<Integer, Integer> h : hits.entrySet()) {
+			if(h.getValue() == buffer.getInt(header[REQUIREMENT_KEYS] + 4 * h.getKey()))
+				found.add(h.getKey());
+		}
+		Collections.sort(found);
+		return found;
+	}
+
+	private List<ServiceTemplate> materialize(List<Integer> ids) {
+		List<ServiceTemplate> list = new ArrayList<ServiceTemplate>(ids.size());
+		for(int id : ids)
+			list.add(getServiceTemplate(id));
+		return list;
+	}
+
+	/**
+	 * Method which looks a key up in an index (by binary search on its sorted keys).
+	 *
+	 * @return The offset of the posting of key, -1 if key is not indexed.
+	 */
+	private int lookup(int index, String key) {
+		int offset = header[FIRST_INDEX + index];
+		int low = 0;
+		int high = buffer.getInt(offset) - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int c = string(buffer.getInt(offset + 4 + 8 * mid)).compareTo(key);
+			if(c < 0)
+				low = mid + 1;
+			else if(c > 0)
+				high = mid - 1;
+			else
+				return buffer.getInt(offset + 8 + 8 * mid);
+		}
+		return -1;
+	}
+
+	/**
+	 * Method which checks (by binary search) whether a posting contains an identifier.
+	 */
+	private boolean postingContains(int posting, int id) {
+		int low = 0;
+		int high = buffer.getInt(posting) - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int value = buffer.getInt(posting + 4 * (mid + 1));
+			if(value < id)
+				low = mid + 1;
+			else if(value > id)
+				high = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	private EntityType lookupType(byte kind, String name) {
+		int posting = lookup(TYPES, ServiceTemplateRegistry.key(String.valueOf(kind), name));
+		return (posting < 0 ? null : type(buffer.getInt(posting + 4)));
+	}
+
+	/**
+	 * Method which provides access to a string (decoding it, if needed).
+	 */
+	private String string(int id) {
+		String s = strings.get(id);
+		if(s == null) {
+			int table = header[STRINGS] + 4;
+			int start = buffer.getInt(table + 4 * id);
+			int end = buffer.getInt(table + 4 * (id + 1));
+			byte[] bytes = new byte[end - start];
+			ByteBuffer view = buffer.duplicate();
+			view.position(table + 4 * (strings.length() + 1) + start);
+			view.get(bytes);
+			strings.compareAndSet(id, null, new String(bytes, UTF8));
+			s = strings.get(id);
+		}
+		return s;
+	}
+
+	/**
+	 * Method which resolves the PropertyType of a property or parameter (defined types must
+	 * have been defined before being resolved).
+	 */
+	private PropertyType type(String typeName) {
+		PropertyType t = propertyTypes.get(typeName);
+		if(t == null) {
+			t = PropertyType.forName(typeName);
+			if(t == null)
+				throw new IllegalStateException("The property type " + typeName + " of the catalog snapshot is not defined");
+			propertyTypes.put(typeName, t);
+		}
+		return t;
+	}
+
+	/**
+	 * Method which provides access to a type (materializing it, if needed).
+	 */
+	private EntityType type(int id) {
+		EntityType t = types.get(id);
+		if(t == null) {
+			types.compareAndSet(id, null, loadType(id));
+			t = types.get(id);
+		}
+		return t;
+	}
+
+	/**
+	 * Method which materializes a type (and the types it refers to).
+	 */
+	private EntityType loadType(int id) {
+		Cursor in = new Cursor(recordOffset(header[TYPES_SECTION], id));
+		byte kind = buffer.get(in.position++);
+		String name = string(in.nextInt());
+		int parent = in.nextInt();
+		EntityType t;
+		switch(kind) {
+		case CAPABILITY_TYPE:
+			t = (parent < 0 ? new CapabilityType(name) : new CapabilityType((CapabilityType) type(parent), name));
+			break;
+		case REQUIREMENT_TYPE:
+			t = (parent < 0 ? new RequirementType(name) : new RequirementType((RequirementType) type(parent), name));
+			break;
+		case NODE_TYPE:
+			t = (parent < 0 ? new NodeType(name) : new NodeType((NodeType) type(parent), name));
+			break;
+		case POLICY_TYPE:
+			t = (parent < 0 ? new PolicyType(name) : new PolicyType((PolicyType) type(parent), name));
+			break;
+		default:
+			throw new IllegalStateException("The catalog snapshot contains an unknown kind of type (" + kind + ")");
+		}
+		try {
+			int count = in.nextInt();
+			for(int i = 0; i < count; i++)
+				t.getPropertiesDefinition().addDefinition(string(in.nextInt()), type(string(in.nextInt())));
+			if(t instanceof NodeType) {
+				NodeType n = (NodeType) t;
+				count = in.nextInt();
+				for(int i = 0; i < count; i++)
+					n.getRequirementDefinitions().addDefinition(string(in.nextInt()), (RequirementType) type(in.nextInt()));
+				count = in.nextInt();
+				for(int i = 0; i < count; i++)
+					n.getCapabilityDefinitions().addDefinition(string(in.nextInt()), (CapabilityType) type(in.nextInt()));
+				for(Interface inf : readInterfaces(in))
+					n.getInterfaces().add(inf);
+			}
+			if(t instanceof PolicyType) {
+				count = in.nextInt();
+				for(int i = 0; i < count; i++)
+					((PolicyType) t).setApplicableTo((NodeType) type(in.nextInt()));
+			}
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		}
+		return t;
+	}
+
+	/**
+	 * Method which materializes a ServiceTemplate (and the types it refers to).
+	 */
+	private ServiceTemplate loadTemplate(int id) {
+		Cursor in = new Cursor(recordOffset(header[TEMPLATES], id));
+		String name = string(in.nextInt());
+		//The materialized ServiceTemplate(s) are frozen, as the snapshot is read-only.
+		BoundaryDefinitions.Builder bounds = new BoundaryDefinitions.Builder();
+		try {
+			int count = in.nextInt();
+			for(int i = 0; i < count; i++)
+				bounds.add(new Requirement(string(in.nextInt()), (RequirementType) type(in.nextInt())));
+			count = in.nextInt();
+			for(int i = 0; i < count; i++)
+				bounds.add(new Capability(string(in.nextInt()), (CapabilityType) type(in.nextInt())));
+			count = in.nextInt();
+			for(int i = 0; i < count; i++)
+				bounds.add(new Policy(string(in.nextInt()), (PolicyType) type(in.nextInt())));
+			count = in.nextInt();
+			for(int i = 0; i < count; i++)
+				bounds.add(new Property(string(in.nextInt()), type(string(in.nextInt()))));
+			for(Interface inf : readInterfaces(in))
+				bounds.add(inf);
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		}
+		return new ServiceTemplate(name, bounds.build());
+	}
+
+	private List<Interface> readInterfaces(Cursor in) {
+		int count = in.nextInt();
+		List<Interface> interfaces = new ArrayList<Interface>(count);
+		for(int i = 0; i < count; i++) {
+			String name = string(in.nextInt());
+			int opCount = in.nextInt();
+			List<Operation> operations = new ArrayList<Operation>(opCount);
+			for(int j = 0; j < opCount; j++) {
+				String opName = string(in.nextInt());
+				List<Parameter> inputs = readParameters(in);
+				List<Parameter> outputs = readParameters(in);
+				operations.add(new Operation(opName, inputs, outputs));
+			}
+			interfaces.add(new Interface(name, operations));
+		}
+		return interfaces;
+	}
+
+	private List<Parameter> readParameters(Cursor in) {
+		int count = in.nextInt();
+		if(count < 0)
+			return null;
+		List<Parameter> params = new ArrayList<Parameter>(count);
+		for(int i = 0; i < count; i++) {
+			String name = string(in.nextInt());
+			PropertyType t = type(string(in.nextInt()));
+			params.add(new Parameter(name, t, buffer.get(in.position++) != 0));
+		}
+		return params;
+	}
+
+	private int recordOffset(int section, int id) {
+		return buffer.getInt(section + 4 * (id + 1));
+	}
+
+	/**
+	 * Method which determines the kind of a type (as stored in the snapshot).
+	 */
+	static byte kindOf(EntityType t) {
+		if(t instanceof CapabilityType)
+			return CAPABILITY_TYPE;
+		if(t instanceof RequirementType)
+			return REQUIREMENT_TYPE;
+		if(t instanceof NodeType)
+			return NODE_TYPE;
+		if(t instanceof PolicyType)
+			return POLICY_TYPE;
+		throw new IllegalArgumentException("The type " + t.getName() + " cannot be stored in a catalog snapshot");
+	}
+
+	/**
+	 * Class which models a position in the mapped snapshot (so that it is read with absolute,
+	 * thread-safe accesses).
+	 */
+	private class Cursor {
+		private int position;
+
+		private Cursor(int position) {
+			this.position = position;
+		}
+
+		private int nextInt() {
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package di.unipi.matchmaker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which writes the binary snapshot of a catalog (read by CatalogSnapshot).
+ * <br>
+ * The snapshot contains a table of the (distinct) strings, the records of the types and of the
+ * ServiceTemplate(s) (referring to strings and types by identifier), the FeatureSignature(s) of the
+ * ServiceTemplate(s) and the inverted indexes of the ServiceTemplateRegistry (with sorted keys).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class CatalogSnapshotWriter {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * It stores the (distinct) strings, each mapped to its identifier.
+	 */
+	private Map<String, Integer> strings;
+	/**
+	 * It stores the types, each mapped to its identifier.
+	 */
+	private Map<EntityType, Integer> typeIds;
+	/**
+	 * It stores the types, sorted so that each type follows those it refers to.
+	 */
+	private List<EntityType> types;
+	/**
+	 * It stores the ServiceTemplate(s), in registration order.
+	 */
+	private List<ServiceTemplate> templates;
+	/**
+	 * It stores the inverted indexes (the keys of each index are sorted).
+	 */
+	private List<TreeMap<String, List<Integer>>> indexes;
+	/**
+	 * It stores the identifiers of the ServiceTemplate(s) exposing no requirements.
+	 */
+	private List<Integer> withoutRequirements;
+	/**
+	 * It stores the number of distinct "name, type" requirement keys of each ServiceTemplate.
+	 */
+	private int[] requirementKeys;
+
+	/**
+	 * Constructor.
+	 * @param types Types to be written (besides those referenced by the ServiceTemplate(s)).
+	 * @param templates ServiceTemplate(s) to be written (in registration order).
+	 */
+	CatalogSnapshotWriter(Collection<? extends EntityType> types, List<ServiceTemplate> templates) {
+		this.strings = new LinkedHashMap<String, Integer>();
+		this.typeIds = new IdentityHashMap<EntityType, Integer>();
+		this.types = new ArrayList<EntityType>();
+		this.templates = templates;
+
+		for(EntityType t : types)
+			addType(t);
+		for(ServiceTemplate st : templates) {
+			BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+			for(Requirement r : bounds.getRequirements().getList())
+				addType(r.getType());
+			for(Capability c : bounds.getCapabilities().getList())
+				addType(c.getType());
+			for(Policy pol : bounds.getPolicies().getList())
+				addType(pol.getType());
+		}
+
+		//The indexes are built as those of ServiceTemplateRegistry.
+		indexes = new ArrayList<TreeMap<String, List<Integer>>>();
+		for(int i = 0; i < CatalogSnapshot.INDEXES; i++)
+			indexes.add(new TreeMap<String, List<Integer>>());
+		withoutRequirements = new ArrayList<Integer>();
+		requirementKeys = new int[templates.size()];
+		for(int id = 0; id < templates.size(); id++) {
+			BoundaryDefinitions bounds = templates.get(id).getBoundaryDefinitions();
+			for(Capability c : bounds.getCapabilities().getList()) {
+				post(CatalogSnapshot.CAPABILITIES, ServiceTemplateRegistry.key(c.getName(), c.getType().getName()), id);
+				for(CapabilityType cType = c.getType(); cType != null; cType = cType.derivedFrom())
+					post(CatalogSnapshot.DERIVED_CAPABILITIES, ServiceTemplateRegistry.key(c.getName(), cType.getName()), id);
+			}
+			Set<String> reqKeys = new LinkedHashSet<String>();
+			for(Requirement r : bounds.getRequirements().getList())
+				reqKeys.add(ServiceTemplateRegistry.key(r.getName(), r.getType().getName()));
+			for(String k : reqKeys)
+				post(CatalogSnapshot.REQUIREMENTS, k, id);
+			if(reqKeys.isEmpty())
+				withoutRequirements.add(id);
+			requirementKeys[id] = reqKeys.size();
+			for(Property p : bounds.getProperties().getList())
+				post(CatalogSnapshot.PROPERTIES, p.getName(), id);
+			for(Interface inf : bounds.getInterfaces().getList()) {
+				post(CatalogSnapshot.INTERFACES, inf.getName(), id);
+				for(Operation op : inf.getOperations())
+					post(CatalogSnapshot.OPERATIONS, op.getName(), id);
+			}
+		}
+		//The directory of types is indexed by "kind, name".
+		for(int id = 0; id < this.types.size(); id++) {
+			EntityType t = this.types.get(id);
+			String key = ServiceTemplateRegistry.key(String.valueOf(CatalogSnapshot.kindOf(t)), t.getName());
+			if(!indexes.get(CatalogSnapshot.TYPES).containsKey(key))
+				post(CatalogSnapshot.TYPES, key, id);
+		}
+
+		//All strings are interned before writing.
+		for(EntityType t : this.types)
+			internType(t);
+		for(ServiceTemplate st : templates)
+			internTemplate(st);
+		for(TreeMap<String, List<Integer>> index : indexes) {
+			for(String key : index.keySet())
+				intern(key);
+		}
+	}
+
+	/**
+	 * Method which adds a type (after the types it refers to).
+	 */
+	private void addType(EntityType t) {
+		if(t == null || typeIds.containsKey(t))
+			return;
+		//The identifier is reserved first, so that the types referring to t are added after it.
+		typeIds.put(t, -1);
+		addType(t.derivedFrom());
+		if(t instanceof NodeType) {
+			NodeType n = (NodeType) t;
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+				addType(rDef.getRequirementType());
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+				addType(cDef.getCapabilityType());
+		}
+		if(t instanceof PolicyType) {
+			for(NodeType n : ((PolicyType) t).getAppliesTo().getList())
+				addType(n);
+		}
+		typeIds.put(t, types.size());
+		types.add(t);
+	}
+
+	private void post(int index, String key, int id) {
+		List<Integer> posting = indexes.get(index).get(key);
+		if(posting == null) {
+			posting = new ArrayList<Integer>(1);
+			indexes.get(index).put(key, posting);
+		}
+		//Identifiers are posted in increasing order, hence a template matching a key more than once
+		//(e.g., with two capability types sharing an ancestor) is only posted the first time.
+		if(posting.isEmpty() || posting.get(posting.size() - 1) != id)
+			posting.add(id);
+	}
+
+	private int intern(String s) {
+		Integer id = strings.get(s);
+		if(id == null) {
+			id = strings.size();
+			strings.put(s, id);
+		}
+		return id;
+	}
+
+	private void internType(EntityType t) {
+		intern(t.getName());
+		for(PropertyDefinition pDef : t.getPropertiesDefinition().getList()) {
+			intern(pDef.getName());
+			intern(pDef.getPropertyType().getName());
+		}
+		if(t instanceof NodeType) {
+			NodeType n = (NodeType) t;
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+				intern(rDef.getName());
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+				intern(cDef.getName());
+			internInterfaces(n.getInterfaces().getList());
+		}
+	}
+
+	private void internTemplate(ServiceTemplate st) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		intern(st.getName());
+		for(Requirement r : bounds.getRequirements().getList())
+			intern(r.getName());
+		for(Capability c : bounds.getCapabilities().getList())
+			intern(c.getName());
+		for(Policy pol : bounds.getPolicies().getList())
+			intern(pol.getName());
+		for(Property p : bounds.getProperties().getList()) {
+			intern(p.getName());
+			intern(p.getPropertyType().getName());
+		}
+		internInterfaces(bounds.getInterfaces().getList());
+	}
+
+	private void internInterfaces(List<Interface> interfaces) {
+		for(Interface inf : interfaces) {
+			intern(inf.getName());
+			for(Operation op : inf.getOperations()) {
+				intern(op.getName());
+				for(Parameter p : parameters(op.getInputParameters())) {
+					intern(p.getName());
+					intern(p.getPropertyType().getName());
+				}
+				for(Parameter p : parameters(op.getOutputParameters())) {
+					intern(p.getName());
+					intern(p.getPropertyType().getName());
+				}
+			}
+		}
+	}
+
+	private static List<Parameter> parameters(List<Parameter> params) {
+		return (params == null ? new ArrayList<Parameter>() : params);
+	}
+
+	/**
+	 * Method which writes the snapshot.
+	 *
+	 * @param file File where the snapshot is written.
+	 *
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	void write(File file) throws IOException {
+		int[] header = new int[CatalogSnapshot.HEADER_INTS];
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			//The header is rewritten at the end (with the offsets of the sections).
+			for(int i = 0; i < header.length; i++)
+				out.writeInt(0);
+
+			header[CatalogSnapshot.STRINGS] = out.size();
+			List<byte[]> encoded = new ArrayList<byte[]>(strings.size());
+			for(String s : strings.keySet())
+				encoded.add(s.getBytes(UTF8));
+			out.writeInt(encoded.size());
+			int position = 0;
+			for(byte[] bytes : encoded) {
+				out.writeInt(position);
+				position += bytes.length;
+			}
+			out.writeInt(position);
+			for(byte[] bytes : encoded)
+				out.write(bytes);
+
+			header[CatalogSnapshot.TYPES_SECTION] = out.size();
+			byte[][] records = new byte[types.size()][];
+			for(int id = 0; id < types.size(); id++)
+				records[id] = typeRecord(types.get(id));
+			writeRecords(out, records);
+
+			header[CatalogSnapshot.TEMPLATES] = out.size();
+			records = new byte[templates.size()][];
+			for(int id = 0; id < templates.size(); id++)
+				records[id] = templateRecord(templates.get(id));
+			writeRecords(out, records);
+
+			header[CatalogSnapshot.SIGNATURES] = out.size();
+			for(ServiceTemplate st : templates)
+				FeatureSignature.of(st).write(out);
+
+			header[CatalogSnapshot.REQUIREMENT_KEYS] = out.size();
+			for(int k : requirementKeys)
+				out.writeInt(k);
+
+			header[CatalogSnapshot.WITHOUT_REQUIREMENTS] = out.size();
+			writePosting(out, withoutRequirements);
+
+			for(int i = 0; i < CatalogSnapshot.INDEXES; i++) {
+				header[CatalogSnapshot.FIRST_INDEX + i] = out.size();
+				writeIndex(out, indexes.get(i));
+			}
+			//DataOutputStream.size() saturates at Integer.MAX_VALUE.
+			if(out.size() == Integer.MAX_VALUE)
+				throw new IOException("The snapshot exceeds the maximum size (2GB)");
+		} finally {
+			out.close();
+		}
+
+		header[0] = CatalogSnapshot.MAGIC;
+		header[1] = CatalogSnapshot.VERSION;
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			for(int h : header)
+				raf.writeInt(h);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Method which writes a table of offsets (from the start of the file) followed by the records.
+	 */
+	private static void writeRecords(DataOutputStream out, byte[][] records) throws IOException {
+		out.writeInt(records.length);
+		int position = out.size() + 4 * records.length;
+		for(byte[] record : records) {
+			out.writeInt(position);
+			position += record.length;
+		}
+		for(byte[] record : records)
+			out.write(record);
+	}
+
+	private void writeIndex(DataOutputStream out, TreeMap<String, List<Integer>> index) throws IOException {
+		out.writeInt(index.size());
+		int position = out.size() + 8 * index.size();
+		for(Map.Entry<String, List<Integer>> e : index.entrySet()) {
+			out.writeInt(strings.get(e.getKey()));
+			out.writeInt(position);
+			position += 4 * (1 + e.getValue().size());
+		}
+		for(List<Integer> posting : index.values())
+			writePosting(out, posting);
+	}
+
+	private static void writePosting(DataOutputStream out, List<Integer> posting) throws IOException {
+		out.writeInt(posting.size());
+		for(int id : posting)
+			out.writeInt(id);
+	}
+
+	private byte[] typeRecord(EntityType t) throws IOException {
+		Record r = new Record();
+		r.writeByte(CatalogSnapshot.kindOf(t));
+		r.writeInt(strings.get(t.getName()));
+		r.writeInt(t.derivedFrom() == null ? -1 : typeIds.get(t.derivedFrom()));
+		List<PropertyDefinition> pDefs = t.getPropertiesDefinition().getList();
+		r.writeInt(pDefs.size());
+		for(PropertyDefinition pDef : pDefs) {
+			r.writeInt(strings.get(pDef.getName()));
+			r.writeInt(strings.get(pDef.getPropertyType().getName()));
+		}
+		if(t instanceof NodeType) {
+			NodeType n = (NodeType) t;
+			r.writeInt(n.getRequirementDefinitions().getList().size());
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+				r.writeInt(strings.get(rDef.getName()));
+				r.writeInt(typeIds.get(rDef.getRequirementType()));
+			}
+			r.writeInt(n.getCapabilityDefinitions().getList().size());
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList()) {
+				r.writeInt(strings.get(cDef.getName()));
+				r.writeInt(typeIds.get(cDef.getCapabilityType()));
+			}
+			writeInterfaces(r, n.getInterfaces().getList());
+		}
+		if(t instanceof PolicyType) {
+			List<NodeType> appliesTo = ((PolicyType) t).getAppliesTo().getList();
+			r.writeInt(appliesTo.size());
+			for(NodeType n : appliesTo)
+				r.writeInt(typeIds.get(n));
+		}
+		return r.toByteArray();
+	}
+
+	private byte[] templateRecord(ServiceTemplate st) throws IOException {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		Record r = new Record();
+		r.writeInt(strings.get(st.getName()));
+		r.writeInt(bounds.getRequirements().getList().size());
+		for(Requirement req : bounds.getRequirements().getList()) {
+			r.writeInt(strings.get(req.getName()));
+			r.writeInt(typeIds.get(req.getType()));
+		}
+		r.writeInt(bounds.getCapabilities().getList().size());
+		for(Capability c : bounds.getCapabilities().getList()) {
+			r.writeInt(strings.get(c.getName()));
+			r.writeInt(typeIds.get(c.getType()));
+		}
+		r.writeInt(bounds.getPolicies().getList().size());
+		for(Policy pol : bounds.getPolicies().getList()) {
+			r.writeInt(strings.get(pol.getName()));
+			r.writeInt(typeIds.get(pol.getType()));
+		}
+		r.writeInt(bounds.getProperties().getList().size());
+		for(Property p : bounds.getProperties().getList()) {
+			r.writeInt(strings.get(p.getName()));
+			r.writeInt(strings.get(p.getPropertyType().getName()));
+		}
+		writeInterfaces(r, bounds.getInterfaces().getList());
+		return r.toByteArray();
+	}
+
+	private void writeInterfaces(Record r, List<Interface> interfaces) throws IOException {
+		r.writeInt(interfaces.size());
+		for(Interface inf : interfaces) {
+			r.writeInt(strings.get(inf.getName()));
+			r.writeInt(inf.getOperations().size());
+			for(Operation op : inf.getOperations()) {
+				r.writeInt(strings.get(op.getName()));
+				writeParameters(r, op.getInputParameters());
+				writeParameters(r, op.getOutputParameters());
+			}
+		}
+	}
+
+	private void writeParameters(Record r, List<Parameter> params) throws IOException {
+		//Missing parameter lists are marked by -1.
+		if(params == null) {
+			r.writeInt(-1);
+			return;
+		}
+		r.writeInt(params.size());
+		for(Parameter p : params) {
+			r.writeInt(strings.get(p.getName()));
+			r.writeInt(strings.get(p.getPropertyType().getName()));
+			r.writeByte(p.isRequired() ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Class which buffers a record.
+	 */
+	private static class Record extends DataOutputStream {
+		private Record() {
+			super(new ByteArrayOutputStream());
+		}
+
+		private byte[] toByteArray() throws IOException {
+			flush();
+			return ((ByteArrayOutputStream) out).toByteArray();
+		}
+	}
+}
@@ -0,0 +1,607 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a NodeType "compiled" into a reusable matchmaking query.
+ * <br>
+ * All the information needed to match the NodeType (indexed capability, requirement and
+ * property definitions, the types from which the requirement types are derived, the
+ * indexed interface operations and the cardinalities of the NodeType) is computed
+ * once, when the query is compiled. The query can then be run against any number of
+ * ServiceTemplate(s), with the same verdict of the corresponding Matchmaker.
+ * A compiled query is not updated if its NodeType is modified.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class CompiledNodeQuery {
+	/**
+	 * It stores the compiled NodeType.
+	 */
+	private NodeType n;
+	/**
+	 * It stores the kind of matchmaking performed by the query.
+	 */
+	private MatchMode mode;
+	/**
+	 * It stores (if any) the TypeHierarchy to be exploited to check type derivations.
+	 */
+	private TypeHierarchy types;
+
+	/**
+	 * It stores the signature of the features required by n.
+	 */
+	private FeatureSignature signature;
+
+	/**
+	 * It stores the (distinct) capability definitions of n, indexed by name.
+	 */
+	private SymbolMap<List<Slot<CapabilityType>>> capabilities;
+	private int capabilitySlots;
+	/**
+	 * It stores the accepted "name, type" pairs of requirements.
+	 */
+	private SymbolMap<Boolean> requirements;
+	/**
+	 * It stores the (distinct) property definitions of n, indexed by name.
+	 */
+	private SymbolMap<List<Slot<PropertyType>>> properties;
+	private int propertySlots;
+	/**
+	 * It stores the operations of each interface of n, indexed by interface name.
+	 */
+	private SymbolMap<List<Slot<List<Operation>>>> interfaces;
+	private int interfaceSlots;
+	/**
+	 * It stores the (distinct) operations of n, indexed by key (see OperationIndex).
+	 */
+	private Map<String, List<Slot<Operation>>> operations;
+	private int operationSlots;
+	/**
+	 * It stores the maximum number of (distinct) operations of n sharing a key.
+	 */
+	private int operationsPerKey;
+	/**
+	 * It stores the names of the operations of n.
+	 */
+	private SymbolMap<Boolean> operationNames;
+
+	/**
+	 * It stores the number of capability definitions of n.
+	 */
+	private int capabilityCount;
+	/**
+	 * It stores the number of requirement definitions of n.
+	 */
+	private int requirementCount;
+	/**
+	 * It stores the number of property definitions of n.
+	 */
+	private int propertyCount;
+	/**
+	 * It stores the number of interfaces of n.
+	 */
+	private int interfaceCount;
+
+	/**
+	 * Constructor.
+	 * @param n NodeType to be compiled.
+	 * @param mode Kind of matchmaking to be performed.
+	 */
+	public CompiledNodeQuery(NodeType n, MatchMode mode) {
+		this(n, mode, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param n NodeType to be compiled.
+	 * @param mode Kind of matchmaking to be performed.
+	 * @param types TypeHierarchy to be exploited to check type derivations (or null).
+	 */
+	public CompiledNodeQuery(NodeType n, MatchMode mode, TypeHierarchy types) {
+		this.n = n;
+		this.mode = mode;
+		this.types = types;
+		this.signature = FeatureSignature.required(n, mode);
+
+		List<CapabilityDefinition> capDefs = n.getCapabilityDefinitions().getList();
+		capabilityCount = capDefs.size();
+		capabilities = new SymbolMap<List<Slot<CapabilityType>>>(capDefs.size());
+		capabilitySlots = 0;
+		for(CapabilityDefinition cDef : capDefs) {
+			if(!contains(capabilities.get(cDef.getNameId()), cDef.getCapabilityType().getNameId()))
+				capabilitySlots = addSlot(capabilities, cDef.getNameId(), cDef.getCapabilityType().getNameId(),
+						cDef.getCapabilityType(), 0, capabilitySlots);
+		}
+
+		List<RequirementDefinition> reqDefs = n.getRequirementDefinitions().getList();
+		requirementCount = reqDefs.size();
+		requirements = new SymbolMap<Boolean>(reqDefs.size());
+		for(RequirementDefinition rDef : reqDefs) {
+			//Plug-in matching accepts all the types from which rDef's type is derived.
+			RequirementType rType = rDef.getRequirementType();
+			while(rType != null) {
+				requirements.put(SymbolMap.pair(rDef.getNameId(), rType.getNameId()), Boolean.TRUE);
+				rType = (mode == MatchMode.PLUG_IN ? rType.derivedFrom() : null);
+			}
+		}
+
+		List<PropertyDefinition> propDefs = n.getPropertiesDefinition().getList();
+		propertyCount = propDefs.size();
+		properties = new SymbolMap<List<Slot<PropertyType>>>(propDefs.size());
+		propertySlots = 0;
+		for(PropertyDefinition pDef : propDefs) {
+			PropertyType pType = pDef.getPropertyType();
+			if(!contains(properties.get(pDef.getNameId()), pType.getId()))
+				propertySlots = addSlot(properties, pDef.getNameId(), pType.getId(), pType, 0, propertySlots);
+		}
+
+		List<Interface> infs = n.getInterfaces().getList();
+		interfaceCount = infs.size();
+		interfaces = new SymbolMap<List<Slot<List<Operation>>>>(infs.size());
+		interfaceSlots = 0;
+		operations = new HashMap<String, List<Slot<Operation>>>();
+		operationSlots = 0;
+		operationsPerKey = 0;
+		operationNames = new SymbolMap<Boolean>();
+		for(Interface inf : infs) {
+			for(Operation op : inf.getOperations()) {
+				//Operations matching each other are matched by the same operations, hence they share a slot.
+				String key = OperationIndex.key(op);
+				List<Slot<Operation>> slots = operations.get(key);
+				if(slots == null) {
+					slots = new ArrayList<Slot<Operation>>(1);
+					operations.put(key, slots);
+				}
+				if(!containsEquivalent(slots, op)) {
+					slots.add(new Slot<Operation>(operationSlots++, -1, op, 0));
+					operationsPerKey = Math.max(operationsPerKey, slots.size());
+				}
+				operationNames.put(op.getNameId(), Boolean.TRUE);
+			}
+			interfaceSlots = addSlot(interfaces, inf.getNameId(), -1, inf.getOperations(), inf.getOperations().size(), interfaceSlots);
+		}
+	}
+
+	/**
+	 * Method which provides access to the compiled NodeType.
+	 * @return The NodeType of the query.
+	 */
+	public NodeType getNodeType() {
+		return n;
+	}
+
+	/**
+	 * Method which provides access to the kind of matchmaking performed by the query.
+	 * @return The MatchMode of the query.
+	 */
+	public MatchMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Method which provides access to the signature of the features required by the compiled NodeType.
+	 * @return The required FeatureSignature.
+	 */
+	public FeatureSignature getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Method which runs the query against a ServiceTemplate.
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return true if st matches the compiled NodeType, false otherwise.
+	 */
+	public boolean matches(ServiceTemplate st) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		if(mode == MatchMode.EXACT) {
+			//Exact matching requires 1-to-1 correspondences.
+			if(bounds.getCapabilities().getList().size() != capabilityCount ||
+					bounds.getRequirements().getList().size() != requirementCount ||
+					bounds.getProperties().getList().size() != propertyCount ||
+					bounds.getInterfaces().getList().size() != interfaceCount)
+				return false;
+		}
+		return matchPolicies(bounds) && matchRequirements(bounds) && matchCapabilities(bounds) &&
+				matchProperties(bounds) && matchInterfaces(bounds);
+	}
+
+	private boolean matchPolicies(BoundaryDefinitions bounds) {
+		for(Policy p : bounds.getPolicies().getList()) {
+			if(!p.getType().isApplicableTo(n))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean matchRequirements(BoundaryDefinitions bounds) {
+		for(Requirement r : bounds.getRequirements().getList()) {
+			if(requirements.get(SymbolMap.pair(r.getNameId(), r.getType().getNameId())) == null)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean matchCapabilities(BoundaryDefinitions bounds) {
+		return unmatchedCapabilities(bounds) == 0;
+	}
+
+	/**
+	 * Method which counts the policies of a ServiceTemplate's boundary definitions which are not applicable to n.
+	 */
+	int unmatchedPolicies(BoundaryDefinitions bounds) {
+		int unmatched = 0;
+		for(Policy p : bounds.getPolicies().getList()) {
+			if(!accepts(p))
+				unmatched++;
+		}
+		return unmatched;
+	}
+
+	/**
+	 * Method which counts the requirements of a ServiceTemplate's boundary definitions which are not matched by n.
+	 */
+	int unmatchedRequirements(BoundaryDefinitions bounds) {
+		int unmatched = 0;
+		for(Requirement r : bounds.getRequirements().getList()) {
+			if(!accepts(r))
+				unmatched++;
+		}
+		return unmatched;
+	}
+
+	/**
+	 * Method which counts the (distinct) capability definitions of n which are not matched by a
+	 * ServiceTemplate's boundary definitions.
+	 */
+	int unmatchedCapabilities(BoundaryDefinitions bounds) {
+		if(capabilitySlots == 0)
+			return 0;
+		boolean[] hit = new boolean[capabilitySlots];
+		int hits = 0;
+		for(Capability c : bounds.getCapabilities().getList()) {
+			List<Slot<CapabilityType>> slots = capabilities.get(c.getNameId());
+			if(slots == null)
+				continue;
+			for(Slot<CapabilityType> slot : slots) {
+				if(!hit[slot.id] && match(slot.value, c.getType())) {
+					hit[slot.id] = true;
+					hits++;
+				}
+			}
+		}
+		return capabilitySlots - hits;
+	}
+
+	private boolean match(CapabilityType required, CapabilityType cType) {
+		if(mode == MatchMode.EXACT)
+			return required.getNameId() == cType.getNameId();
+		if(types != null)
+			return types.isDerivedFrom(cType, required);
+		while(cType != null) {
+			if(required.getNameId() == cType.getNameId())
+				return true;
+			cType = cType.derivedFrom();
+		}
+		return false;
+	}
+
+	private boolean matchProperties(BoundaryDefinitions bounds) {
+		return unmatchedProperties(bounds) == 0;
+	}
+
+	/**
+	 * Method which counts the (distinct) property definitions of n which are not matched by a
+	 * ServiceTemplate's boundary definitions.
+	 */
+	int unmatchedProperties(BoundaryDefinitions bounds) {
+		if(propertySlots == 0)
+			return 0;
+		boolean[] hit = new boolean[propertySlots];
+		int hits = 0;
+		for(Property p : bounds.getProperties().getList()) {
+			List<Slot<PropertyType>> slots = properties.get(p.getNameId());
+			if(slots == null)
+				continue;
+			for(Slot<PropertyType> slot : slots) {
+				boolean matched = (mode == MatchMode.EXACT ? slot.value == p.getPropertyType() :
+					p.getPropertyType().isAssignableFrom(slot.value));
+				if(!hit[slot.id] && matched) {
+					hit[slot.id] = true;
+					hits++;
+				}
+			}
+		}
+		return propertySlots - hits;
+	}
+
+	private boolean matchInterfaces(BoundaryDefinitions bounds) {
+		return unmatchedInterfaces(bounds) == 0;
+	}
+
+	/**
+	 * Method which counts the interfaces (in exact mode) or the distinct operations (in plug-in mode)
+	 * of n which are not matched by a ServiceTemplate's boundary definitions.
+	 */
+	int unmatchedInterfaces(BoundaryDefinitions bounds) {
+		if(mode == MatchMode.EXACT) {
+			if(interfaceSlots == 0)
+				return 0;
+			//Each interface of n must be matched by a same named interface with the same operations.
+			boolean[] hit = new boolean[interfaceSlots];
+			int hits = 0;
+			for(Interface inf : bounds.getInterfaces().getList()) {
+				List<Slot<List<Operation>>> slots = interfaces.get(inf.getNameId());
+				if(slots == null)
+					continue;
+				OperationIndex ops = null;
+				for(Slot<List<Operation>> slot : slots) {
+					if(hit[slot.id] || slot.size != inf.getOperations().size())
+						continue;
+					if(ops == null)
+						ops = new OperationIndex(Collections.singletonList(inf));
+					if(matches(slot.value, ops)) {
+						hit[slot.id] = true;
+						hits++;
+					}
+				}
+			}
+			return interfaceSlots - hits;
+		}
+
+		//Each operation of n must be matched by an operation of any interface.
+		if(operationSlots == 0)
+			return 0;
+		boolean[] hit = new boolean[operationSlots];
+		int hits = 0;
+		for(Interface inf : bounds.getInterfaces().getList()) {
+			for(Operation op : inf.getOperations()) {
+				if(operationNames.get(op.getNameId()) == null)
+					continue;
+				List<Slot<Operation>> slots = operations.get(OperationIndex.key(op));
+				if(slots == null)
+					continue;
+				for(Slot<Operation> slot : slots) {
+					if(!hit[slot.id] && OperationIndex.matches(slot.value, op)) {
+						hit[slot.id] = true;
+						hits++;
+					}
+				}
+			}
+		}
+		return operationSlots - hits;
+	}
+
+	/**
+	 * Method which checks whether each operation of n's interface matches an operation of an indexed interface.
+	 */
+	private static boolean matches(List<Operation> required, OperationIndex ops) {
+		boolean matched;
+		for(Operation op1 : required) {
+			matched = false;
+			for(Operation op2 : ops.get(op1)) {
+				if(OperationIndex.matches(op1, op2)) {
+					matched = true;
+					break;
+				}
+			}
+			if(!matched)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method which checks whether the cardinalities of a ServiceTemplate's boundary definitions
+	 * are admitted by the query (exact matching requires 1-to-1 correspondences).
+	 */
+	boolean admits(int capabilities, int requirements, int properties, int interfaces) {
+		return mode != MatchMode.EXACT || (capabilities == capabilityCount && requirements == requirementCount &&
+				properties == propertyCount && interfaces == interfaceCount);
+	}
+
+	/**
+	 * Method which checks whether a Policy (of a ServiceTemplate) is applicable to the compiled NodeType.
+	 */
+	boolean accepts(Policy p) {
+		return p.getType().isApplicableTo(n);
+	}
+
+	/**
+	 * Method which checks whether a Requirement (of a ServiceTemplate) is matched by the compiled NodeType.
+	 */
+	boolean accepts(Requirement r) {
+		return requirements.get(SymbolMap.pair(r.getNameId(), r.getType().getNameId())) != null;
+	}
+
+	/**
+	 * Method which provides access to the number of capability slots (i.e., of the distinct
+	 * capability definitions to be matched).
+	 */
+	int capabilitySlots() {
+		return capabilitySlots;
+	}
+
+	/**
+	 * Method which provides access to the number of property slots.
+	 */
+	int propertySlots() {
+		return propertySlots;
+	}
+
+	/**
+	 * Method which provides access to the number of interface slots (i.e., of the interfaces to be
+	 * matched, in exact mode, or of the distinct operations to be matched, in plug-in mode).
+	 */
+	int interfaceSlots() {
+		return (mode == MatchMode.EXACT ? interfaceSlots : operationSlots);
+	}
+
+	/**
+	 * Method which provides access to the maximum number of (distinct) operations of n which can be
+	 * matched by the same operation (in plug-in mode).
+	 */
+	int operationsPerKey() {
+		return operationsPerKey;
+	}
+
+	/**
+	 * Method which updates the number of elements matching each capability slot, when a Capability
+	 * is added to (or removed from) a ServiceTemplate.
+	 *
+	 * @param c Capability added (or removed).
+	 * @param support Number of capabilities matching each slot.
+	 * @param delta 1 if c is added, -1 if it is removed.
+	 *
+	 * @return The number of slots which become matched (minus those which are no more matched).
+	 */
+	int support(Capability c, int[] support, int delta) {
+		List<Slot<CapabilityType>> slots = capabilities.get(c.getNameId());
+		int hits = 0;
+		if(slots != null) {
+			for(Slot<CapabilityType> slot : slots) {
+				if(match(slot.value, c.getType()))
+					hits += support(support, slot.id, delta);
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Method which updates the number of elements matching each property slot, when a Property
+	 * is added to (or removed from) a ServiceTemplate.
+	 *
+	 * @param p Property added (or removed).
+	 * @param support Number of properties matching each slot.
+	 * @param delta 1 if p is added, -1 if it is removed.
+	 *
+	 * @return The number of slots which become matched (minus those which are no more matched).
+	 */
+	int support(Property p, int[] support, int delta) {
+		List<Slot<PropertyType>> slots = properties.get(p.getNameId());
+		int hits = 0;
+		if(slots != null) {
+			for(Slot<PropertyType> slot : slots) {
+				if(mode == MatchMode.EXACT ? slot.value == p.getPropertyType() : p.getPropertyType().isAssignableFrom(slot.value))
+					hits += support(support, slot.id, delta);
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Method which updates the number of elements matching each interface slot, when an Interface
+	 * is added to (or removed from) a ServiceTemplate.
+	 *
+	 * @param inf Interface added (or removed).
+	 * @param support Number of interfaces (or operations) matching each slot.
+	 * @param delta 1 if inf is added, -1 if it is removed.
+	 *
+	 * @return The number of slots which become matched (minus those which are no more matched).
+	 */
+	int support(Interface inf, int[] support, int delta) {
+		int hits = 0;
+		if(mode == MatchMode.EXACT) {
+			List<Slot<List<Operation>>> slots = interfaces.get(inf.getNameId());
+			if(slots == null)
+				return 0;
+			OperationIndex ops = null;
+			for(Slot<List<Operation>> slot : slots) {
+				if(slot.size != inf.getOperations().size())
+					continue;
+				if(ops == null)
+					ops = new OperationIndex(Collections.singletonList(inf));
+				if(matches(slot.value, ops))
+					hits += support(support, slot.id, delta);
+			}
+			return hits;
+		}
+		for(Operation op : inf.getOperations()) {
+			if(operationNames.get(op.getNameId()) == null)
+				continue;
+			List<Slot<Operation>> slots = operations.get(OperationIndex.key(op));
+			if(slots == null)
+				continue;
+			for(Slot<Operation> slot : slots) {
+				if(OperationIndex.matches(slot.value, op))
+					hits += support(support, slot.id, delta);
+			}
+		}
+		return hits;
+	}
+
+	private static int support(int[] support, int slot, int delta) {
+		boolean wasMatched = support[slot] > 0;
+		support[slot] += delta;
+		return (support[slot] > 0 ? 1 : 0) - (wasMatched ? 1 : 0);
+	}
+
+	private static <V> boolean contains(List<Slot<V>> slots, int key) {
+		if(slots == null)
+			return false;
+		for(Slot<V> slot : slots) {
+			if(slot.key == key)
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean containsEquivalent(List<Slot<Operation>> slots, Operation op) {
+		for(Slot<Operation> slot : slots) {
+			if(OperationIndex.matches(slot.value, op) && OperationIndex.matches(op, slot.value))
+				return true;
+		}
+		return false;
+	}
+
+	private static <V> int addSlot(SymbolMap<List<Slot<V>>> index, int nameId, int key, V value, int size, int id) {
+		List<Slot<V>> slots = index.get(nameId);
+		if(slots == null) {
+			slots = new ArrayList<Slot<V>>(1);
+			index.put(nameId, slots);
+		}
+		slots.add(new Slot<V>(id, key, value, size));
+		return id + 1;
+	}
+
+	/**
+	 * Class which models an element of n which must be matched.
+	 */
+	private static class Slot<V> {
+		/**
+		 * It stores the identifier of the slot.
+		 */
+		private final int id;
+		/**
+		 * It stores the key (an interned name, or a PropertyType identifier) distinguishing same named elements (if needed).
+		 */
+		private final int key;
+		/**
+		 * It stores the value to be matched.
+		 */
+		private final V value;
+		/**
+		 * It stores the size of the element (if needed).
+		 */
+		private final int size;
+
+		private Slot(int id, int key, V value, int size) {
+			this.id = id;
+			this.key = key;
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
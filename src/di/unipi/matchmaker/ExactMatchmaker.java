@@ -70,6 +70,33 @@ public class ExactMatchmaker extends Matchmaker {
         		arePoliciesMatched && arePropertiesMatched && areInterfacesMatched);
     }
 
+    @Override
+    public boolean matches() {
+    	//Exact matching requires 1-to-1 correspondences, hence cardinalities are checked first.
+    	BoundaryDefinitions stBounds = st.getBoundaryDefinitions();
+    	if(n.getCapabilityDefinitions().getList().size() != stBounds.getCapabilities().getList().size() ||
+    			n.getRequirementDefinitions().getList().size() != stBounds.getRequirements().getList().size() ||
+    			n.getPropertiesDefinition().getList().size() != stBounds.getProperties().getList().size() ||
+    			n.getInterfaces().getList().size() != stBounds.getInterfaces().getList().size())
+    		return false;
+
+    	//Then, the phases are performed (from the cheapest one) until one fails.
+    	matchPolicies();
+    	if(!arePoliciesMatched)
+    		return false;
+    	matchRequirements();
+    	if(!areRequirementsMatched)
+    		return false;
+    	matchCapabilities();
+    	if(!areCapabilitiesMatched)
+    		return false;
+    	matchProperties();
+    	if(!arePropertiesMatched)
+    		return false;
+    	matchInterfaces();
+    	return areInterfacesMatched;
+    }
+
     @Override
     protected void matchCapabilities() {
     	//Initially, the list of matched capabilities is empty.
@@ -83,10 +110,12 @@ public class ExactMatchmaker extends Matchmaker {
         List<CapabilityDefinition> newUnmatchedCapabilities = new ArrayList<CapabilityDefinition>();
 
         //Are all n's capabilities present on st's boundaries?
+        //(Only same named capabilities can match)
+        NameIndex<Capability> stCapsByName = NameIndex.ofCapabilities(stCaps);
         boolean matched;
         for(CapabilityDefinition cDef : unmatchedCapabilities) {
         	matched = false;
-        	for(Capability c : stCaps) {
+        	for(Capability c : stCapsByName.get(cDef.getNameId())) {
         		matched = match(cDef, c);
         		if(matched) {
         			exactlyMatchedCapabilities.add(c);
@@ -116,8 +145,8 @@ public class ExactMatchmaker extends Matchmaker {
      * @return A boolean which represent the match result.
      */
     protected boolean match(CapabilityDefinition cDef, Capability c) {
-        return (cDef.getName().equals(c.getName()) &&
-                cDef.getCapabilityType().getName().equals(c.getType().getName()));
+        return (cDef.getNameId() == c.getNameId() &&
+                cDef.getCapabilityType().getNameId() == c.getType().getNameId());
     }
 
     @Override
@@ -133,10 +162,12 @@ public class ExactMatchmaker extends Matchmaker {
         List<RequirementDefinition> nReqDefs = n.getRequirementDefinitions().getList();
 
         //Are all st's requirements present on n's boundaries?
+        //(Only same named requirements can match)
+        NameIndex<RequirementDefinition> nReqDefsByName = NameIndex.ofRequirementDefinitions(nReqDefs);
         boolean matched;
         for(Requirement r : unmatchedRequirements) {
         	matched = false;
-        	for(RequirementDefinition rDef : nReqDefs) {
+        	for(RequirementDefinition rDef : nReqDefsByName.get(r.getNameId())) {
         		matched = match(r, rDef);
         		if(matched) {
         			exactlyMatchedRequirements.add(r);
@@ -168,8 +199,8 @@ public class ExactMatchmaker extends Matchmaker {
      * @return A boolean which represent the match result.
      */
     protected boolean match(Requirement r, RequirementDefinition rDef) {
-        return (r.getName().equals(rDef.getName()) &&
-                r.getType().getName().equals(rDef.getRequirementType().getName()));
+        return (r.getNameId() == rDef.getNameId() &&
+                r.getType().getNameId() == rDef.getRequirementType().getNameId());
     }
 
     @Override
@@ -208,10 +239,12 @@ public class ExactMatchmaker extends Matchmaker {
         List<Property> stProps = st.getBoundaryDefinitions().getProperties().getList();
 
         //Are all n's properties present on st's boundaries?
+        //(Only same named properties can match)
+        NameIndex<Property> stPropsByName = NameIndex.ofProperties(stProps);
         boolean matched;
         for(PropertyDefinition pDef : unmatchedProperties) {
         	matched = false;
-        	for(Property p : stProps) {
+        	for(Property p : stPropsByName.get(pDef.getNameId())) {
         		matched = match(pDef, p);
         		if(matched) {
         			exactlyMatchedProperties.add(p);
@@ -243,8 +276,8 @@ public class ExactMatchmaker extends Matchmaker {
      * @return A boolean which represent the match result.
      */
     protected boolean match(PropertyDefinition pDef, Property p) {
-        return (pDef.getName().equals(p.getName()) &&
-        		pDef.getType().equals(p.getType()));
+        return (pDef.getNameId() == p.getNameId() &&
+        		pDef.getPropertyType() == p.getPropertyType());
     }
 
     @Override
@@ -260,10 +293,12 @@ public class ExactMatchmaker extends Matchmaker {
         List<Interface> newUnmatchedInterfaces = new ArrayList<Interface>();
 
         //Are all n's interfaces present on st's boundaries?
+        //(Only same named interfaces can match)
+        NameIndex<Interface> stInfsByName = NameIndex.ofInterfaces(stInfs);
         boolean matched;
         for(Interface infN : unmatchedInterfaces) {
         	matched = false;
-        	for(Interface infST : stInfs) {
+        	for(Interface infST : stInfsByName.get(infN.getNameId())) {
         		matched = match(infN, infST);
         		if(matched) {
         			exactlyMatchedInterfaces.add(infST);
@@ -294,7 +329,7 @@ public class ExactMatchmaker extends Matchmaker {
     protected boolean match(Interface inf1, Interface inf2) {
     	//If the two interfaces have different names, then
     	//they cannot be considered in exact matching.
-    	if(!inf1.getName().equals(inf2.getName()))
+    	if(inf1.getNameId() != inf2.getNameId())
     		return false;
 
     	//Do both interfaces expose the same number of operations?
@@ -321,13 +356,13 @@ public class ExactMatchmaker extends Matchmaker {
     protected boolean match(Operation op1, Operation op2) {
     	//If the two operations have different names, then
     	//they cannot be considered in exact matching.
-    	if(!op1.getName().equals(op2.getName()))
+    	if(op1.getNameId() != op2.getNameId())
     		return false;
 
     	//Do both operations expose the same number of input/output parameters?
     	//(Needed for 1-to-1 correspondence)
     	if(op1.getInputParameters().size() != op2.getInputParameters().size() ||
-    			op1.getInputParameters().size() != op2.getInputParameters().size())
+    			op1.getOutputParameters().size() != op2.getOutputParameters().size())
     		return false;
 
     	//Are all op1's input parameters present in op2?
@@ -358,8 +393,8 @@ public class ExactMatchmaker extends Matchmaker {
     }
 
     protected boolean match(Parameter p1, Parameter p2) {
-    	return (p1.getName().equals(p2.getName()) &&
-    			p1.getType().equals(p2.getType()));
+    	return (p1.getNameId() == p2.getNameId() &&
+    			p1.getPropertyType() == p2.getPropertyType());
     }
 
     /**
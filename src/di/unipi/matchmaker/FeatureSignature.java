@@ -0,0 +1,181 @@
+package di.unipi.matchmaker;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a compact (Bloom-like) signature of the features of a ServiceTemplate
+ * or of those required by a NodeType.
+ * <br>
+ * The signature of a ServiceTemplate hashes the "name, type" of its capabilities (for each type from
+ * which they are derived), the names of its properties, interfaces and operations and (separately)
+ * the "name, type" of its requirements. The signature of a NodeType hashes the features that any
+ * matching ServiceTemplate must expose and (separately) the requirements that it is able to satisfy.
+ * Hence, a ServiceTemplate can match a NodeType only if its features include the required ones
+ * and its requirements are included in the satisfiable ones: the check never rejects a matching
+ * ServiceTemplate, and it only costs a few bitwise operations.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public final class FeatureSignature {
+	/**
+	 * It stores the number of 64-bit words of each part of a signature.
+	 */
+	static final int WORDS = 8;
+	private static final int BITS = WORDS * 64;
+
+	/**
+	 * It stores the (hashed) exposed or required features.
+	 */
+	private final long[] features;
+	/**
+	 * It stores the (hashed) exposed or satisfiable requirements.
+	 */
+	private final long[] requirements;
+
+	private FeatureSignature(long[] features, long[] requirements) {
+		this.features = features;
+		this.requirements = requirements;
+	}
+
+	/**
+	 * Method which computes the signature of the features exposed by a ServiceTemplate.
+	 *
+	 * @param st ServiceTemplate whose signature is needed.
+	 *
+	 * @return The FeatureSignature of st.
+	 */
+	public static FeatureSignature of(ServiceTemplate st) {
+		long[] features = new long[WORDS];
+		long[] requirements = new long[WORDS];
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		for(Capability c : bounds.getCapabilities().getList()) {
+			CapabilityType cType = c.getType();
+			while(cType != null) {
+				add(features, "C" + ServiceTemplateRegistry.key(c.getName(), cType.getName()));
+				cType = cType.derivedFrom();
+			}
+		}
+		for(Requirement r : bounds.getRequirements().getList())
+			add(requirements, ServiceTemplateRegistry.key(r.getName(), r.getType().getName()));
+		for(Property p : bounds.getProperties().getList())
+			add(features, "P" + p.getName());
+		for(Interface inf : bounds.getInterfaces().getList()) {
+			add(features, "I" + inf.getName());
+			for(Operation op : inf.getOperations())
+				add(features, "O" + op.getName());
+		}
+		return new FeatureSignature(features, requirements);
+	}
+
+	/**
+	 * Method which computes the signature of the features required by a NodeType.
+	 *
+	 * @param n NodeType whose signature is needed.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return The FeatureSignature of n.
+	 */
+	public static FeatureSignature required(NodeType n, MatchMode mode) {
+		long[] features = new long[WORDS];
+		long[] requirements = new long[WORDS];
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			add(features, "C" + ServiceTemplateRegistry.key(cDef.getName(), cDef.getCapabilityType().getName()));
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+			RequirementType rType = rDef.getRequirementType();
+			while(rType != null) {
+				add(requirements, ServiceTemplateRegistry.key(rDef.getName(), rType.getName()));
+				rType = (mode == MatchMode.PLUG_IN ? rType.derivedFrom() : null);
+			}
+		}
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			add(features, "P" + pDef.getName());
+		for(Interface inf : n.getInterfaces().getList()) {
+			//Plug-in matching only requires the operations to be exposed.
+			if(mode == MatchMode.EXACT)
+				add(features, "I" + inf.getName());
+			for(Operation op : inf.getOperations())
+				add(features, "O" + op.getName());
+		}
+		return new FeatureSignature(features, requirements);
+	}
+
+	/**
+	 * Method which checks (on a required signature) whether a ServiceTemplate may match.
+	 *
+	 * @param exposed The signature of the ServiceTemplate (computed by of()).
+	 *
+	 * @return false if the ServiceTemplate surely does not match, true otherwise.
+	 */
+	public boolean admits(FeatureSignature exposed) {
+		for(int i = 0; i < WORDS; i++) {
+			if((features[i] & ~exposed.features[i]) != 0 ||
+					(exposed.requirements[i] & ~requirements[i]) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method which checks (on a required signature) whether a ServiceTemplate may match, given
+	 * its signature as stored in a buffer (by write()).
+	 *
+	 * @param buffer ByteBuffer containing the signature of the ServiceTemplate.
+	 * @param offset Position of the signature in the buffer.
+	 *
+	 * @return false if the ServiceTemplate surely does not match, true otherwise.
+	 */
+	boolean admits(ByteBuffer buffer, int offset) {
+		for(int i = 0; i < WORDS; i++) {
+			if((features[i] & ~buffer.getLong(offset + 8 * i)) != 0 ||
+					(buffer.getLong(offset + 8 * (WORDS + i)) & ~requirements[i]) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method which writes the signature (as 2 * WORDS longs).
+	 *
+	 * @param out DataOutput where the signature is written.
+	 *
+	 * @throws IOException If the signature cannot be written.
+	 */
+	void write(DataOutput out) throws IOException {
+		for(long word : features)
+			out.writeLong(word);
+		for(long word : requirements)
+			out.writeLong(word);
+	}
+
+	/**
+	 * Method which adds a feature to (the bits of) a signature.
+	 */
+	private static void add(long[] bits, String feature) {
+		int h = feature.hashCode();
+		//Two bit positions are derived from the (remixed) hash code.
+		int h1 = mix(h);
+		int h2 = mix(h1 ^ 0x9E3779B9);
+		set(bits, h1 & (BITS - 1));
+		set(bits, h2 & (BITS - 1));
+	}
+
+	private static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << (i & 63);
+	}
+
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+}
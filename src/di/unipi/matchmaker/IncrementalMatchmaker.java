@@ -0,0 +1,442 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which keeps up to date the verdicts of the matchmaking of a (modifiable) ServiceTemplate
+ * with a set of tracked NodeType(s), typically those which matched (or nearly matched) it.
+ * <br>
+ * For each tracked NodeType, the matchmaker stores (through a CompiledNodeQuery) how many elements
+ * of the ServiceTemplate match each element of the NodeType, and how many requirements and policies
+ * of the ServiceTemplate are accepted by the NodeType. When the boundary definitions of the
+ * ServiceTemplate change, update() applies the recorded changes (BoundaryDefinitions.getChangesSince())
+ * to the counters of the affected phase only, and only for the NodeTypes defining same named elements.
+ * Hence, the updated verdicts are obtained in time proportional to the size of the change (plus a
+ * constant time check of the verdicts of all tracked NodeTypes, when requirements or policies change
+ * or when exact matching is performed, as they also depend on the number of elements).
+ * If the changes are no longer recorded (as the ServiceTemplate changed too many times since the last
+ * update), the tracked NodeTypes are matched again from scratch.
+ * The verdicts are those of the corresponding Matchmaker.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class IncrementalMatchmaker {
+	/**
+	 * It stores the ServiceTemplate to be matched.
+	 */
+	private ServiceTemplate st;
+	/**
+	 * It stores the kind of matchmaking performed.
+	 */
+	private MatchMode mode;
+	/**
+	 * It stores (if any) the TypeHierarchy to be exploited to check type derivations.
+	 */
+	private TypeHierarchy types;
+	/**
+	 * It stores the version of st's boundary definitions to which the verdicts are up to date.
+	 */
+	private int version;
+
+	/**
+	 * It stores the number of capabilities exposed by st (at version).
+	 */
+	private int capabilityCount;
+	/**
+	 * It stores the number of requirements exposed by st (at version).
+	 */
+	private int requirementCount;
+	/**
+	 * It stores the number of policies exposed by st (at version).
+	 */
+	private int policyCount;
+	/**
+	 * It stores the number of properties exposed by st (at version).
+	 */
+	private int propertyCount;
+	/**
+	 * It stores the number of interfaces exposed by st (at version).
+	 */
+	private int interfaceCount;
+
+	/**
+	 * It stores the state of each tracked NodeType (in tracking order).
+	 */
+	private Map<NodeType, State> tracked;
+	/**
+	 * It stores the tracked NodeTypes defining a capability, indexed by name.
+	 */
+	private SymbolMap<List<State>> byCapability;
+	/**
+	 * It stores the tracked NodeTypes defining a requirement, indexed by name.
+	 */
+	private SymbolMap<List<State>> byRequirement;
+	/**
+	 * It stores the tracked NodeTypes defining a property, indexed by name.
+	 */
+	private SymbolMap<List<State>> byProperty;
+	/**
+	 * It stores the tracked NodeTypes defining an interface (in exact mode) or an operation
+	 * (in plug-in mode), indexed by name.
+	 */
+	private SymbolMap<List<State>> byInterface;
+
+	/**
+	 * Constructor.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 */
+	public IncrementalMatchmaker(ServiceTemplate st, MatchMode mode) {
+		this(st, mode, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 * @param types TypeHierarchy to be exploited to check type derivations (or null).
+	 */
+	public IncrementalMatchmaker(ServiceTemplate st, MatchMode mode, TypeHierarchy types) {
+		this.st = st;
+		this.mode = mode;
+		this.types = types;
+		reset();
+	}
+
+	/**
+	 * Method which (re)starts the matchmaking from the current boundary definitions of the
+	 * ServiceTemplate, with no tracked NodeType.
+	 */
+	private void reset() {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		this.version = bounds.trackChanges();
+		this.capabilityCount = bounds.getCapabilities().getList().size();
+		this.requirementCount = bounds.getRequirements().getList().size();
+		this.policyCount = bounds.getPolicies().getList().size();
+		this.propertyCount = bounds.getProperties().getList().size();
+		this.interfaceCount = bounds.getInterfaces().getList().size();
+		this.tracked = new LinkedHashMap<NodeType, State>();
+		this.byCapability = new SymbolMap<List<State>>();
+		this.byRequirement = new SymbolMap<List<State>>();
+		this.byProperty = new SymbolMap<List<State>>();
+		this.byInterface = new SymbolMap<List<State>>();
+	}
+
+	/**
+	 * Method which provides access to the matched ServiceTemplate.
+	 * @return The ServiceTemplate of the matchmaker.
+	 */
+	public ServiceTemplate getServiceTemplate() {
+		return st;
+	}
+
+	/**
+	 * Method which provides access to the kind of matchmaking performed.
+	 * @return The MatchMode of the matchmaker.
+	 */
+	public MatchMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Method which starts tracking the matchmaking of a NodeType (in time proportional to the size
+	 * of the boundary definitions of the ServiceTemplate).
+	 * <br>
+	 * The changes of the ServiceTemplate must have been applied (by update()) before.
+	 *
+	 * @param n NodeType to be tracked.
+	 *
+	 * @return true if the ServiceTemplate currently matches n, false otherwise.
+	 */
+	public boolean track(NodeType n) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		if(bounds.getVersion() != version)
+			throw new IllegalStateException("The changes of " + st.getName() + " must be applied (by update()) before tracking further NodeTypes");
+		State s = tracked.get(n);
+		if(s != null)
+			return s.matched;
+
+		s = new State(new CompiledNodeQuery(n, mode, types));
+		for(Capability c : bounds.getCapabilities().getList())
+			s.capabilityHits += s.query.support(c, s.capabilitySupport, 1);
+		for(Requirement r : bounds.getRequirements().getList()) {
+			if(s.query.accepts(r))
+				s.acceptedRequirements++;
+		}
+		for(Policy p : bounds.getPolicies().getList()) {
+			if(s.query.accepts(p))
+				s.acceptedPolicies++;
+		}
+		for(Property p : bounds.getProperties().getList())
+			s.propertyHits += s.query.support(p, s.propertySupport, 1);
+		for(Interface inf : bounds.getInterfaces().getList())
+			s.interfaceHits += s.query.support(inf, s.interfaceSupport, 1);
+		s.matched = matches(s);
+		tracked.put(n, s);
+
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			index(byCapability, cDef.getNameId(), s);
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+			index(byRequirement, rDef.getNameId(), s);
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			index(byProperty, pDef.getNameId(), s);
+		for(Interface inf : n.getInterfaces().getList()) {
+			if(mode == MatchMode.EXACT)
+				index(byInterface, inf.getNameId(), s);
+			else {
+				for(Operation op : inf.getOperations())
+					index(byInterface, op.getNameId(), s);
+			}
+		}
+		return s.matched;
+	}
+
+	/**
+	 * Method which stops tracking the matchmaking of a NodeType.
+	 * @param n NodeType to be no more tracked.
+	 */
+	public void untrack(NodeType n) {
+		State s = tracked.remove(n);
+		if(s == null)
+			return;
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			unindex(byCapability, cDef.getNameId(), s);
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+			unindex(byRequirement, rDef.getNameId(), s);
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			unindex(byProperty, pDef.getNameId(), s);
+		for(Interface inf : n.getInterfaces().getList()) {
+			if(mode == MatchMode.EXACT)
+				unindex(byInterface, inf.getNameId(), s);
+			else {
+				for(Operation op : inf.getOperations())
+					unindex(byInterface, op.getNameId(), s);
+			}
+		}
+	}
+
+	/**
+	 * Method which applies the changes made to the boundary definitions of the ServiceTemplate
+	 * (since the last update) to the verdicts of the tracked NodeTypes.
+	 *
+	 * @return The List of tracked NodeTypes whose verdict has changed.
+	 */
+	public List<NodeType> update() {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		if(!bounds.areChangesRecordedSince(version))
+			return rematch();
+		List<BoundaryDefinitions.Change> changes = bounds.getChangesSince(version);
+		if(changes.isEmpty())
+			return Collections.emptyList();
+		version = bounds.getVersion();
+
+		//The NodeTypes whose counters are updated are checked (at the end).
+		Set<State> touched = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+		List<State> toCheck = new ArrayList<State>();
+		//Requirements and policies (and cardinalities, in exact mode) affect all the NodeTypes.
+		boolean checkAll = (mode == MatchMode.EXACT);
+		for(BoundaryDefinitions.Change change : changes) {
+			int delta = (change.isAddition() ? 1 : -1);
+			Object e = change.getElement();
+			if(e instanceof Capability) {
+				Capability c = (Capability) e;
+				capabilityCount += delta;
+				for(State s : states(byCapability, c.getNameId())) {
+					s.capabilityHits += s.query.support(c, s.capabilitySupport, delta);
+					touch(s, touched, toCheck);
+				}
+			} else if(e instanceof Requirement) {
+				Requirement r = (Requirement) e;
+				requirementCount += delta;
+				checkAll = true;
+				for(State s : states(byRequirement, r.getNameId())) {
+					if(s.query.accepts(r))
+						s.acceptedRequirements += delta;
+				}
+			} else if(e instanceof Policy) {
+				Policy p = (Policy) e;
+				policyCount += delta;
+				checkAll = true;
+				for(State s : tracked.values()) {
+					if(s.query.accepts(p))
+						s.acceptedPolicies += delta;
+				}
+			} else if(e instanceof Property) {
+				Property p = (Property) e;
+				propertyCount += delta;
+				for(State s : states(byProperty, p.getNameId())) {
+					s.propertyHits += s.query.support(p, s.propertySupport, delta);
+					touch(s, touched, toCheck);
+				}
+			} else if(e instanceof Interface) {
+				Interface inf = (Interface) e;
+				interfaceCount += delta;
+				if(mode == MatchMode.EXACT) {
+					for(State s : states(byInterface, inf.getNameId()))
+						s.interfaceHits += s.query.support(inf, s.interfaceSupport, delta);
+				} else {
+					//(The operations of inf are matched once for each NodeType defining any of them.)
+					Set<State> defining = Collections.newSetFromMap(new IdentityHashMap<State, Boolean>());
+					for(Operation op : inf.getOperations())
+						defining.addAll(states(byInterface, op.getNameId()));
+					for(State s : defining) {
+						s.interfaceHits += s.query.support(inf, s.interfaceSupport, delta);
+						touch(s, touched, toCheck);
+					}
+				}
+			}
+		}
+
+		List<NodeType> changed = new ArrayList<NodeType>();
+		for(State s : (checkAll ? tracked.values() : toCheck)) {
+			boolean matched = matches(s);
+			if(matched != s.matched) {
+				s.matched = matched;
+				changed.add(s.query.getNodeType());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Method which matches again all the tracked NodeTypes from scratch (when the changes made since
+	 * the last update are no longer recorded).
+	 *
+	 * @return The List of tracked NodeTypes whose verdict has changed.
+	 */
+	private List<NodeType> rematch() {
+		Map<NodeType, State> previous = tracked;
+		reset();
+		List<NodeType> changed = new ArrayList<NodeType>();
+		for(Map.Entry<NodeType, State> e : previous.entrySet()) {
+			if(track(e.getKey()) != e.getValue().matched)
+				changed.add(e.getKey());
+		}
+		return changed;
+	}
+
+	/**
+	 * Method which provides access to the (last updated) verdict of the matchmaking of a NodeType.
+	 *
+	 * @param n Tracked NodeType.
+	 *
+	 * @return true if the ServiceTemplate matches n, false otherwise.
+	 */
+	public boolean matches(NodeType n) {
+		State s = tracked.get(n);
+		if(s == null)
+			throw new IllegalArgumentException("The NodeType " + n.getName() + " is not tracked");
+		return s.matched;
+	}
+
+	/**
+	 * Method which provides access to the tracked NodeTypes matched by the ServiceTemplate.
+	 * @return The List of matched NodeTypes (in tracking order).
+	 */
+	public List<NodeType> getMatches() {
+		List<NodeType> matches = new ArrayList<NodeType>();
+		for(Map.Entry<NodeType, State> e : tracked.entrySet()) {
+			if(e.getValue().matched)
+				matches.add(e.getKey());
+		}
+		return matches;
+	}
+
+	private boolean matches(State s) {
+		return s.acceptedPolicies == policyCount && s.acceptedRequirements == requirementCount &&
+				s.capabilityHits == s.capabilitySupport.length && s.propertyHits == s.propertySupport.length &&
+				s.interfaceHits == s.interfaceSupport.length &&
+				s.query.admits(capabilityCount, requirementCount, propertyCount, interfaceCount);
+	}
+
+	private static void touch(State s, Set<State> touched, List<State> toCheck) {
+		if(touched.add(s))
+			toCheck.add(s);
+	}
+
+	private static List<State> states(SymbolMap<List<State>> index, int nameId) {
+		List<State> states = index.get(nameId);
+		return (states != null ? states : Collections.<State>emptyList());
+	}
+
+	private static void index(SymbolMap<List<State>> index, int nameId, State s) {
+		List<State> states = index.get(nameId);
+		if(states == null) {
+			states = new ArrayList<State>(1);
+			index.put(nameId, states);
+		}
+		//(The elements of a NodeType are indexed consecutively, so duplicates are adjacent.)
+		if(states.isEmpty() || states.get(states.size() - 1) != s)
+			states.add(s);
+	}
+
+	private static void unindex(SymbolMap<List<State>> index, int nameId, State s) {
+		List<State> states = index.get(nameId);
+		if(states == null)
+			return;
+		for(int i = 0; i < states.size(); i++) {
+			if(states.get(i) == s) {
+				states.remove(i);
+				break;
+			}
+		}
+		if(states.isEmpty())
+			index.remove(nameId);
+	}
+
+	/**
+	 * Class which models the matchmaking state of a tracked NodeType.
+	 */
+	private static class State {
+		/**
+		 * It stores the compiled NodeType.
+		 */
+		private final CompiledNodeQuery query;
+		/**
+		 * It stores the number of st's capabilities matching each capability slot.
+		 */
+		private final int[] capabilitySupport;
+		private int capabilityHits;
+		/**
+		 * It stores the number of st's properties matching each property slot.
+		 */
+		private final int[] propertySupport;
+		private int propertyHits;
+		/**
+		 * It stores the number of st's interfaces (or operations) matching each interface slot.
+		 */
+		private final int[] interfaceSupport;
+		private int interfaceHits;
+		/**
+		 * It stores the number of st's requirements matched by the NodeType.
+		 */
+		private int acceptedRequirements;
+		/**
+		 * It stores the number of st's policies applicable to the NodeType.
+		 */
+		private int acceptedPolicies;
+		/**
+		 * It stores the (last updated) verdict.
+		 */
+		private boolean matched;
+
+		private State(CompiledNodeQuery query) {
+			this.query = query;
+			this.capabilitySupport = new int[query.capabilitySlots()];
+			this.propertySupport = new int[query.propertySlots()];
+			this.interfaceSupport = new int[query.interfaceSlots()];
+		}
+	}
+}
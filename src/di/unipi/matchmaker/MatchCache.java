@@ -0,0 +1,265 @@
+package di.unipi.matchmaker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which caches the results of (exact and plug-in) matchmaking processes, with a bounded number
+ * of entries evicted in least recently used order.
+ * <br>
+ * Results are keyed by the identities of the NodeType and of the ServiceTemplate (and by the kind of
+ * matchmaking), and each result is stamped with the versions of what it depends on: the NodeType and
+ * the types in its "derivedFrom" chain, on one side, and the boundary definitions of the ServiceTemplate
+ * and the PolicyType(s) of its policies, on the other side. Since versions only grow, a cached result is
+ * stale exactly when one of the stamps has changed, in which case it is recomputed (and counted as an
+ * invalidation). Changes must hence be made through the add (and remove) methods of the model, rather
+ * than on the lists they return.
+ * <br>
+ * A cache can be shared by several threads (results are computed outside of its lock).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class MatchCache {
+	/**
+	 * It stores the cached results, from the least recently used.
+	 */
+	private LinkedHashMap<Key, Entry> entries;
+	/**
+	 * It stores the maximum number of cached results.
+	 */
+	private int capacity;
+	/**
+	 * It stores (if any) the TypeHierarchy to be exploited by the matchmakers.
+	 */
+	private TypeHierarchy types;
+
+	private long hits;
+	private long misses;
+	/**
+	 * It stores the number of cached results found stale.
+	 */
+	private long invalidations;
+	private long evictions;
+
+	/**
+	 * Constructor.
+	 * @param capacity Maximum number of cached results.
+	 */
+	public MatchCache(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param capacity Maximum number of cached results.
+	 * @param types TypeHierarchy to be exploited by the matchmakers (or null).
+	 */
+	public MatchCache(final int capacity, TypeHierarchy types) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("The capacity must be positive");
+		this.capacity = capacity;
+		this.types = types;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				if(size() <= capacity)
+					return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Method which (verbosely) matches a NodeType and a ServiceTemplate, reusing the cached result
+	 * (if still valid).
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return The MatchResult of the matchmaking.
+	 */
+	public MatchResult match(NodeType n, ServiceTemplate st, MatchMode mode) {
+		Key key = new Key(n, st, mode);
+		long nodeStamp = stamp(n);
+		long templateStamp = stamp(st);
+		synchronized(this) {
+			Entry e = entries.get(key);
+			if(e != null && e.nodeStamp == nodeStamp && e.templateStamp == templateStamp) {
+				hits++;
+				return e.result;
+			}
+			misses++;
+			if(e != null) {
+				invalidations++;
+				entries.remove(key);
+			}
+		}
+		MatchResult result = mode.newMatchmaker(n, st, types).matchResult();
+		synchronized(this) {
+			entries.put(key, new Entry(nodeStamp, templateStamp, result));
+		}
+		return result;
+	}
+
+	/**
+	 * Method which checks whether a NodeType and a ServiceTemplate match, reusing the cached
+	 * result (if still valid).
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return A boolean which represents the matchmaking result.
+	 */
+	public boolean matches(NodeType n, ServiceTemplate st, MatchMode mode) {
+		return match(n, st, mode).isMatched();
+	}
+
+	/**
+	 * Method which removes all the cached results.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Method which provides access to the number of cached results.
+	 * @return The number of cached results.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Method which provides access to the maximum number of cached results.
+	 * @return The capacity of the cache.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Method which provides access to the number of results found (valid) in the cache.
+	 * @return The number of hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Method which provides access to the number of results computed (because not cached, or stale).
+	 * @return The number of misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Method which provides access to the number of cached results found stale.
+	 * @return The number of invalidations.
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Method which provides access to the number of results evicted to bound the size of the cache.
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Method which provides access to the ratio of the results found (valid) in the cache.
+	 * @return The hit rate (0 if no result has been requested).
+	 */
+	public synchronized double getHitRate() {
+		long requests = hits + misses;
+		return (requests == 0 ? 0 : (double) hits / requests);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "MatchCache[size=" + entries.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses +
+				", invalidations=" + invalidations + ", evictions=" + evictions + "]";
+	}
+
+	/**
+	 * Method which computes the stamp of a NodeType (i.e., the sum of the versions of the types in its
+	 * "derivedFrom" chain, itself included).
+	 */
+	private static long stamp(NodeType n) {
+		long stamp = 0;
+		while(n != null) {
+			stamp += n.getVersion();
+			n = n.derivedFrom();
+		}
+		return stamp;
+	}
+
+	/**
+	 * Method which computes the stamp of a ServiceTemplate (i.e., the sum of the versions of its
+	 * boundary definitions and of the types of its policies).
+	 */
+	private static long stamp(ServiceTemplate st) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		long stamp = bounds.getVersion();
+		for(Policy p : bounds.getPolicies().getList())
+			stamp += p.getType().getVersion();
+		return stamp;
+	}
+
+	/**
+	 * Class which models the (identity-based) key of a cached result.
+	 */
+	private static class Key {
+		private final NodeType n;
+		private final ServiceTemplate st;
+		private final MatchMode mode;
+
+		private Key(NodeType n, ServiceTemplate st, MatchMode mode) {
+			this.n = n;
+			this.st = st;
+			this.mode = mode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key))
+				return false;
+			Key k = (Key) obj;
+			return k.n == n && k.st == st && k.mode == mode;
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(n) * 31 + System.identityHashCode(st)) * 31 + mode.ordinal();
+		}
+	}
+
+	/**
+	 * Class which models a cached result, stamped with the versions it depends on.
+	 */
+	private static class Entry {
+		private final long nodeStamp;
+		private final long templateStamp;
+		private final MatchResult result;
+
+		private Entry(long nodeStamp, long templateStamp, MatchResult result) {
+			this.nodeStamp = nodeStamp;
+			this.templateStamp = templateStamp;
+			this.result = result;
+		}
+	}
+}
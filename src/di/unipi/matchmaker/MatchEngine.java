@@ -0,0 +1,223 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import di.unipi.model.tosca.NodeType;
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Class which performs (single or batches of) matchmaking processes.
+ * <br>
+ * The engine stores no matchmaking state: each matchmaking process is performed by a Matchmaker
+ * confined to the invoking thread (or worker), and its results are returned as an immutable
+ * MatchResult. Hence, an engine can be shared by any number of threads without synchronization.
+ * <br>
+ * A batch is split in ranges of ServiceTemplate(s) which are matched on a ForkJoinPool.
+ * The results are always reported in the order in which the ServiceTemplate(s) are given,
+ * whatever the parallelism. The pool is either created (and owned) by the engine, in which
+ * case it is released by close(), or given by the caller, who remains in charge of it.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class MatchEngine implements AutoCloseable {
+	/**
+	 * It stores the pool on which the matchmaking processes are performed.
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * It indicates whether the pool has been created by the engine (and must hence be released by it).
+	 */
+	private boolean ownsPool;
+	/**
+	 * It stores the number of ServiceTemplate(s) below which a range is matched sequentially.
+	 */
+	private int threshold;
+	/**
+	 * It stores (if any) the TypeHierarchy to be exploited by the matchmakers.
+	 */
+	private volatile TypeHierarchy types;
+
+	/**
+	 * Constructor (with one worker per available processor).
+	 */
+	public MatchEngine() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 * @param parallelism Number of workers performing the matchmaking processes.
+	 */
+	public MatchEngine(int parallelism) {
+		this(parallelism, 16);
+	}
+
+	/**
+	 * Constructor.
+	 * @param parallelism Number of workers performing the matchmaking processes.
+	 * @param threshold Number of ServiceTemplate(s) below which a range is not split further.
+	 */
+	public MatchEngine(int parallelism, int threshold) {
+		this(newPool(parallelism, threshold), threshold, true);
+	}
+
+	/**
+	 * Constructor (the pool is owned by the caller, and it is not released by close()).
+	 * @param pool ForkJoinPool on which the matchmaking processes are performed.
+	 * @param threshold Number of ServiceTemplate(s) below which a range is not split further.
+	 */
+	public MatchEngine(ForkJoinPool pool, int threshold) {
+		this(pool, threshold, false);
+	}
+
+	private MatchEngine(ForkJoinPool pool, int threshold, boolean ownsPool) {
+		if(pool == null)
+			throw new IllegalArgumentException("The pool cannot be null");
+		if(threshold < 1)
+			throw new IllegalArgumentException("The threshold must be positive");
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+		this.threshold = threshold;
+		this.types = null;
+	}
+
+	private static ForkJoinPool newPool(int parallelism, int threshold) {
+		//(The arguments are checked before the pool is created, so that no pool is leaked.)
+		if(parallelism < 1 || threshold < 1)
+			throw new IllegalArgumentException("Parallelism and threshold must be positive");
+		return new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Method which provides access to the number of workers of the engine.
+	 * @return The parallelism of the engine.
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Method which sets the TypeHierarchy to be exploited by the matchmakers to check type derivations.
+	 * @param types The TypeHierarchy (or null, to walk the "derivedFrom" chains).
+	 */
+	public void setTypeHierarchy(TypeHierarchy types) {
+		this.types = types;
+	}
+
+	/**
+	 * Method which (verbosely) matches a NodeType and a ServiceTemplate.
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return The MatchResult of the matchmaking.
+	 */
+	public MatchResult match(NodeType n, ServiceTemplate st, MatchMode mode) {
+		return mode.newMatchmaker(n, st, types).matchResult();
+	}
+
+	/**
+	 * Method which only checks whether a NodeType and a ServiceTemplate match
+	 * (see Matchmaker.matches()).
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return A boolean which represents the matchmaking result.
+	 */
+	public boolean matches(NodeType n, ServiceTemplate st, MatchMode mode) {
+		return mode.newMatchmaker(n, st, types).matches();
+	}
+
+	/**
+	 * Method which matches a NodeType against a collection of ServiceTemplate(s).
+	 *
+	 * @param n NodeType to be matched.
+	 * @param sts ServiceTemplate(s) to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 *
+	 * @return The List of MatchResult(s) of the matching ServiceTemplate(s) (in the iteration order of sts).
+	 */
+	public List<MatchResult> matchAll(NodeType n, Collection<ServiceTemplate> sts, MatchMode mode) {
+		List<ServiceTemplate> templates = new ArrayList<ServiceTemplate>(sts);
+		MatchResult[] matched = new MatchResult[templates.size()];
+		if(!templates.isEmpty())
+			pool.invoke(new MatchRange(n, templates, mode, types, matched, 0, templates.size()));
+
+		List<MatchResult> results = new ArrayList<MatchResult>();
+		for(int i = 0; i < matched.length; i++) {
+			if(matched[i] != null)
+				results.add(matched[i]);
+		}
+		return results;
+	}
+
+	/**
+	 * Method which stops the workers of the engine, if it owns its pool (pending batches are completed).
+	 */
+	public void shutdown() {
+		if(ownsPool)
+			pool.shutdown();
+	}
+
+	/**
+	 * Method which releases the pool of the engine, if it owns it (see shutdown()).
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	/**
+	 * Class which models the matchmaking of a range of ServiceTemplate(s).
+	 */
+	@SuppressWarnings("serial")
+	private class MatchRange extends RecursiveAction {
+		private final NodeType n;
+		private final List<ServiceTemplate> templates;
+		private final MatchMode mode;
+		private final TypeHierarchy types;
+		/**
+		 * It stores (by position) the MatchResult of each matching ServiceTemplate.
+		 */
+		private final MatchResult[] matched;
+		private final int from;
+		private final int to;
+
+		private MatchRange(NodeType n, List<ServiceTemplate> templates, MatchMode mode,
+				TypeHierarchy types, MatchResult[] matched, int from, int to) {
+			this.n = n;
+			this.templates = templates;
+			this.mode = mode;
+			this.types = types;
+			this.matched = matched;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= threshold) {
+				for(int i = from; i < to; i++) {
+					Matchmaker m = mode.newMatchmaker(n, templates.get(i), types);
+					if(m.match())
+						matched[i] = m.toResult(true);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new MatchRange(n, templates, mode, types, matched, from, mid),
+					new MatchRange(n, templates, mode, types, matched, mid, to));
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package di.unipi.matchmaker;
+
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Interface which models the consumer of the matches of a standing query (i.e., of a NodeType
+ * subscribed to a StandingQueryRegistry).
+ * <br>
+ * Matches are delivered asynchronously (on the Executor of the registry), hence the listener
+ * must be thread-safe if it is shared by several subscriptions or if the Executor runs several
+ * threads.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public interface MatchListener {
+	/**
+	 * Method which consumes a match.
+	 *
+	 * @param s The Subscription whose NodeType is matched.
+	 * @param st The published ServiceTemplate matching the NodeType.
+	 */
+	public void matched(StandingQueryRegistry.Subscription s, ServiceTemplate st);
+}
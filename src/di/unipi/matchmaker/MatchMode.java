@@ -0,0 +1,63 @@
+package di.unipi.matchmaker;
+
+import di.unipi.model.tosca.NodeType;
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Enumeration which models the available kinds of matchmaking.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public enum MatchMode {
+	/**
+	 * Exact matchmaking (performed by ExactMatchmaker).
+	 */
+	EXACT {
+		@Override
+		public Matchmaker newMatchmaker(NodeType n, ServiceTemplate st) {
+			return new ExactMatchmaker(n, st);
+		}
+	},
+	/**
+	 * Plug-in matchmaking (performed by PlugInMatchmaker).
+	 */
+	PLUG_IN {
+		@Override
+		public Matchmaker newMatchmaker(NodeType n, ServiceTemplate st) {
+			return new PlugInMatchmaker(n, st);
+		}
+
+		@Override
+		public Matchmaker newMatchmaker(NodeType n, ServiceTemplate st, TypeHierarchy types) {
+			return new PlugInMatchmaker(n, st, types);
+		}
+	};
+
+	/**
+	 * Method which creates the matchmaker implementing the current kind of matchmaking.
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return The Matchmaker for n and st.
+	 */
+	public abstract Matchmaker newMatchmaker(NodeType n, ServiceTemplate st);
+
+	/**
+	 * Method which creates the matchmaker implementing the current kind of matchmaking,
+	 * exploiting (if needed) a TypeHierarchy to check type derivations.
+	 *
+	 * @param n NodeType to be matched.
+	 * @param st ServiceTemplate to be matched.
+	 * @param types TypeHierarchy to be exploited (or null).
+	 *
+	 * @return The Matchmaker for n and st.
+	 */
+	public Matchmaker newMatchmaker(NodeType n, ServiceTemplate st, TypeHierarchy types) {
+		return newMatchmaker(n, st);
+	}
+}
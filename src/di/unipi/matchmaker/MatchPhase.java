@@ -0,0 +1,34 @@
+package di.unipi.matchmaker;
+
+/**
+ * Enumeration which models the phases of the matchmaking (listed from the cheapest to be performed).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public enum MatchPhase {
+	/**
+	 * Matchmaking of the policies of a ServiceTemplate (which must be applicable to the NodeType).
+	 */
+	POLICIES,
+	/**
+	 * Matchmaking of the requirements of a ServiceTemplate (which must be matched by the NodeType).
+	 */
+	REQUIREMENTS,
+	/**
+	 * Matchmaking of the capability definitions of a NodeType (which must be matched by the ServiceTemplate).
+	 */
+	CAPABILITIES,
+	/**
+	 * Matchmaking of the property definitions of a NodeType (which must be matched by the ServiceTemplate).
+	 */
+	PROPERTIES,
+	/**
+	 * Matchmaking of the interfaces (or operations, in plug-in mode) of a NodeType (which must be
+	 * matched by the ServiceTemplate).
+	 */
+	INTERFACES
+}
@@ -0,0 +1,288 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models the (immutable) result of the matchmaking of a NodeType and a ServiceTemplate.
+ * <br>
+ * It stores the verdict of each phase of the matchmaking, together with the matched and the
+ * unmatched elements. Elements which have not been considered (e.g., the plug-in matched ones
+ * in exact matchmaking) are represented by empty lists.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public final class MatchResult {
+	private final NodeType n;
+	private final ServiceTemplate st;
+	private final MatchMode mode;
+	private final boolean matched;
+
+	private final boolean capabilitiesMatched;
+	private final boolean requirementsMatched;
+	private final boolean policiesMatched;
+	private final boolean propertiesMatched;
+	private final boolean interfacesMatched;
+
+	private final List<Capability> exactlyMatchedCapabilities;
+	private final List<Requirement> exactlyMatchedRequirements;
+	private final List<Policy> exactlyMatchedPolicies;
+	private final List<Property> exactlyMatchedProperties;
+	private final List<Interface> exactlyMatchedInterfaces;
+
+	private final List<Capability> plugInMatchedCapabilities;
+	private final List<Requirement> plugInMatchedRequirements;
+	private final List<Property> plugInMatchedProperties;
+	private final List<Interface> plugInMatchedInterfaces;
+
+	private final List<CapabilityDefinition> unmatchedCapabilities;
+	private final List<Requirement> unmatchedRequirements;
+	private final List<Policy> unmatchedPolicies;
+	private final List<PropertyDefinition> unmatchedProperties;
+	private final List<Interface> unmatchedInterfaces;
+	private final List<Operation> unmatchedOperations;
+
+	/**
+	 * Constructor (which takes a snapshot of the results stored by a matchmaker).
+	 *
+	 * @param m Matchmaker which performed the (verbose) matchmaking.
+	 * @param matched Result of the whole matchmaking.
+	 */
+	MatchResult(Matchmaker m, boolean matched) {
+		this.n = m.n;
+		this.st = m.st;
+		this.mode = (m instanceof PlugInMatchmaker ? MatchMode.PLUG_IN : MatchMode.EXACT);
+		this.matched = matched;
+
+		this.capabilitiesMatched = m.areCapabilitiesMatched;
+		this.requirementsMatched = m.areRequirementsMatched;
+		this.policiesMatched = m.arePoliciesMatched;
+		this.propertiesMatched = m.arePropertiesMatched;
+		this.interfacesMatched = m.areInterfacesMatched;
+
+		ExactMatchmaker e = (m instanceof ExactMatchmaker ? (ExactMatchmaker) m : null);
+		this.exactlyMatchedCapabilities = copy(e == null ? null : e.getExactlyMatchedCapabilities());
+		this.exactlyMatchedRequirements = copy(e == null ? null : e.getExactlyMatchedRequirements());
+		this.exactlyMatchedPolicies = copy(e == null ? null : e.getExactlyMatchedPolicies());
+		this.exactlyMatchedProperties = copy(e == null ? null : e.getExactlyMatchedProperties());
+		this.exactlyMatchedInterfaces = copy(e == null ? null : e.getExactlyMatchedInterfaces());
+
+		PlugInMatchmaker p = (m instanceof PlugInMatchmaker ? (PlugInMatchmaker) m : null);
+		this.plugInMatchedCapabilities = copy(p == null ? null : p.getPlugInMatchedCapabilities());
+		this.plugInMatchedRequirements = copy(p == null ? null : p.getPlugInMatchedRequirements());
+		this.plugInMatchedProperties = copy(p == null ? null : p.getPlugInMatchedProperties());
+		this.plugInMatchedInterfaces = copy(p == null ? null : p.getPlugInMatchedInterfaces());
+
+		this.unmatchedCapabilities = copy(m.getUnmatchedCapabilities());
+		this.unmatchedRequirements = copy(m.getUnmatchedRequirements());
+		this.unmatchedPolicies = copy(m.getUnmatchedPolicies());
+		this.unmatchedProperties = copy(m.getUnmatchedProperties());
+		this.unmatchedInterfaces = copy(m.getUnmatchedInterfaces());
+		this.unmatchedOperations = copy(p == null ? null : p.unmatchedOperations);
+	}
+
+	private static <T> List<T> copy(List<T> list) {
+		if(list == null || list.isEmpty())
+			return Collections.emptyList();
+		return Collections.unmodifiableList(new ArrayList<T>(list));
+	}
+
+	/**
+	 * Method which provides access to the matched NodeType.
+	 * @return The NodeType.
+	 */
+	public NodeType getNodeType() {
+		return n;
+	}
+
+	/**
+	 * Method which provides access to the matched ServiceTemplate.
+	 * @return The ServiceTemplate.
+	 */
+	public ServiceTemplate getServiceTemplate() {
+		return st;
+	}
+
+	/**
+	 * Method which provides access to the kind of matchmaking which has been performed.
+	 * @return The MatchMode.
+	 */
+	public MatchMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Method which provides access to the result of the whole matchmaking.
+	 * @return true if the ServiceTemplate matches the NodeType, false otherwise.
+	 */
+	public boolean isMatched() {
+		return matched;
+	}
+
+	/**
+	 * Method which provides access to the result of the capabilities matchmaking.
+	 * @return true if the capabilities are matched, false otherwise.
+	 */
+	public boolean areCapabilitiesMatched() {
+		return capabilitiesMatched;
+	}
+
+	/**
+	 * Method which provides access to the result of the requirements matchmaking.
+	 * @return true if the requirements are matched, false otherwise.
+	 */
+	public boolean areRequirementsMatched() {
+		return requirementsMatched;
+	}
+
+	/**
+	 * Method which provides access to the result of the policies matchmaking.
+	 * @return true if the policies are matched, false otherwise.
+	 */
+	public boolean arePoliciesMatched() {
+		return policiesMatched;
+	}
+
+	/**
+	 * Method which provides access to the result of the properties matchmaking.
+	 * @return true if the properties are matched, false otherwise.
+	 */
+	public boolean arePropertiesMatched() {
+		return propertiesMatched;
+	}
+
+	/**
+	 * Method which provides access to the result of the interfaces matchmaking.
+	 * @return true if the interfaces are matched, false otherwise.
+	 */
+	public boolean areInterfacesMatched() {
+		return interfacesMatched;
+	}
+
+	/**
+	 * Provides access to the list of exactly matched capabilities.
+	 * @return The List of matched Capability elements.
+	 */
+	public List<Capability> getExactlyMatchedCapabilities() {
+		return exactlyMatchedCapabilities;
+	}
+
+	/**
+	 * Provides access to the list of exactly matched requirements.
+	 * @return The List of matched Requirement elements.
+	 */
+	public List<Requirement> getExactlyMatchedRequirements() {
+		return exactlyMatchedRequirements;
+	}
+
+	/**
+	 * Provides access to the list of exactly matched policies.
+	 * @return The List of matched Policy elements.
+	 */
+	public List<Policy> getExactlyMatchedPolicies() {
+		return exactlyMatchedPolicies;
+	}
+
+	/**
+	 * Provides access to the list of exactly matched properties.
+	 * @return The List of matched Property elements.
+	 */
+	public List<Property> getExactlyMatchedProperties() {
+		return exactlyMatchedProperties;
+	}
+
+	/**
+	 * Provides access to the list of exactly matched interfaces.
+	 * @return The List of matched Interface elements.
+	 */
+	public List<Interface> getExactlyMatchedInterfaces() {
+		return exactlyMatchedInterfaces;
+	}
+
+	/**
+	 * Provides access to the list of plug-in matched capabilities.
+	 * @return The List of matched Capability elements.
+	 */
+	public List<Capability> getPlugInMatchedCapabilities() {
+		return plugInMatchedCapabilities;
+	}
+
+	/**
+	 * Provides access to the list of plug-in matched requirements.
+	 * @return The List of matched Requirement elements.
+	 */
+	public List<Requirement> getPlugInMatchedRequirements() {
+		return plugInMatchedRequirements;
+	}
+
+	/**
+	 * Provides access to the list of plug-in matched properties.
+	 * @return The List of matched Property elements.
+	 */
+	public List<Property> getPlugInMatchedProperties() {
+		return plugInMatchedProperties;
+	}
+
+	/**
+	 * Provides access to the list of plug-in matched interfaces.
+	 * @return The List of matched Interface elements.
+	 */
+	public List<Interface> getPlugInMatchedInterfaces() {
+		return plugInMatchedInterfaces;
+	}
+
+	/**
+	 * Method which provides access to n's unmatched capabilities definition.
+	 * @return The List of unmatched CapabilityDefinition(s).
+	 */
+	public List<CapabilityDefinition> getUnmatchedCapabilities() {
+		return unmatchedCapabilities;
+	}
+
+	/**
+	 * Method which provides access to st's unmatched requirements.
+	 * @return The List of unmatched Requirement(s).
+	 */
+	public List<Requirement> getUnmatchedRequirements() {
+		return unmatchedRequirements;
+	}
+
+	/**
+	 * Method which provides access to st's unmatched policies.
+	 * @return The List of unmatched Policy(s).
+	 */
+	public List<Policy> getUnmatchedPolicies() {
+		return unmatchedPolicies;
+	}
+
+	/**
+	 * Method which provides access to n's unmatched properties definition.
+	 * @return The List of unmatched PropertyDefinition(s).
+	 */
+	public List<PropertyDefinition> getUnmatchedProperties() {
+		return unmatchedProperties;
+	}
+
+	/**
+	 * Method which provides access to n's unmatched interfaces.
+	 * @return The List of unmatched Interface(s).
+	 */
+	public List<Interface> getUnmatchedInterfaces() {
+		return unmatchedInterfaces;
+	}
+
+	/**
+	 * Method which provides access to n's unmatched operations (in plug-in matchmaking).
+	 * @return The List of unmatched Operation(s).
+	 */
+	public List<Operation> getUnmatchedOperations() {
+		return unmatchedOperations;
+	}
+}
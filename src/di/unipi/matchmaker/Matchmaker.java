@@ -88,6 +88,22 @@ public abstract class Matchmaker {
 	 */
 	public abstract boolean match();
 
+	/**
+	 * Method which only checks whether the matchmaking succeeds.
+	 * <br>
+	 * Differently from match(), the checks are performed starting from the cheapest and most
+	 * selective ones, and they are stopped as soon as one of them fails. Hence, the matched
+	 * and unmatched elements are only partially computed (and they should not be used).
+	 * <br>
+	 * By default, it performs the whole matchmaking process (i.e., it invokes match()), hence
+	 * subclasses override it to short-circuit the checks.
+	 *
+	 * @return A boolean which represents the matchmaking result.
+	 */
+	public boolean matches() {
+		return match();
+	}
+
 	/**
 	 * Method which performs the matchmaking process for capabilities.
 	 */
@@ -109,6 +125,27 @@ public abstract class Matchmaker {
 	 */
 	protected abstract void matchInterfaces();
 
+	/**
+	 * Method which performs the whole matchmaking process, and provides an (immutable) snapshot
+	 * of its results.
+	 *
+	 * @return The MatchResult of the matchmaking.
+	 */
+	public MatchResult matchResult() {
+		return toResult(match());
+	}
+
+	/**
+	 * Method which provides an (immutable) snapshot of the current results of the matchmaking.
+	 *
+	 * @param matched Result of the whole matchmaking (as returned by match()).
+	 *
+	 * @return The MatchResult storing the current results.
+	 */
+	MatchResult toResult(boolean matched) {
+		return new MatchResult(this, matched);
+	}
+
 	/**
 	 * Method which provides access to n's unmatched capabilities definition.
 	 * @return The List of unmatched CapabilityDefinition(s).
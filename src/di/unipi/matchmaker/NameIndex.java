@@ -0,0 +1,88 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which indexes (by interned name) a list of TOSCA elements, preserving their order.
+ * <br>
+ * All the element matchings of the matchmakers require the matched elements to be same
+ * named, hence each element only needs to be matched with those in the same bucket.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class NameIndex<T> {
+	/**
+	 * It stores the elements, grouped by name.
+	 */
+	private SymbolMap<List<T>> buckets;
+
+	/**
+	 * Constructor.
+	 * @param size Number of elements to be indexed.
+	 */
+	private NameIndex(int size) {
+		buckets = new SymbolMap<List<T>>(size);
+	}
+
+	/**
+	 * Method which adds an element to the index.
+	 */
+	private void add(int nameId, T element) {
+		List<T> bucket = buckets.get(nameId);
+		if(bucket == null) {
+			bucket = new ArrayList<T>(1);
+			buckets.put(nameId, bucket);
+		}
+		bucket.add(element);
+	}
+
+	/**
+	 * Method which retrieves the elements with a given name.
+	 *
+	 * @param nameId Identifier of the name of the elements to be retrieved.
+	 *
+	 * @return The List of elements with the given name (in their original order).
+	 */
+	List<T> get(int nameId) {
+		List<T> bucket = buckets.get(nameId);
+		if(bucket == null)
+			return Collections.emptyList();
+		return bucket;
+	}
+
+	static NameIndex<Capability> ofCapabilities(List<Capability> caps) {
+		NameIndex<Capability> index = new NameIndex<Capability>(caps.size());
+		for(Capability c : caps)
+			index.add(c.getNameId(), c);
+		return index;
+	}
+
+	static NameIndex<RequirementDefinition> ofRequirementDefinitions(List<RequirementDefinition> rDefs) {
+		NameIndex<RequirementDefinition> index = new NameIndex<RequirementDefinition>(rDefs.size());
+		for(RequirementDefinition rDef : rDefs)
+			index.add(rDef.getNameId(), rDef);
+		return index;
+	}
+
+	static NameIndex<Property> ofProperties(List<Property> props) {
+		NameIndex<Property> index = new NameIndex<Property>(props.size());
+		for(Property p : props)
+			index.add(p.getNameId(), p);
+		return index;
+	}
+
+	static NameIndex<Interface> ofInterfaces(List<Interface> infs) {
+		NameIndex<Interface> index = new NameIndex<Interface>(infs.size());
+		for(Interface inf : infs)
+			index.add(inf.getNameId(), inf);
+		return index;
+	}
+}
@@ -0,0 +1,495 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a registry of NodeType(s), indexed by the elements that a ServiceTemplate
+ * must expose to match them (i.e., the reverse of a ServiceTemplateRegistry).
+ * <br>
+ * Each NodeType is posted under each (distinct) feature it requires, and under each requirement
+ * it can satisfy. Given a ServiceTemplate, the registry counts how many of the features required by
+ * each NodeType are exposed by the ServiceTemplate (by only visiting the postings of the exposed
+ * features), keeps those whose features are all exposed and which satisfy all the requirements of
+ * the ServiceTemplate, and then runs the (exact or plug-in) matchmaker only on the surviving candidates
+ * (through a CompiledNodeQuery). The registered NodeType(s) must not be modified while registered
+ * (they have to be removed and registered again).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class NodeTypeRegistry {
+	/**
+	 * It stores the entries of the registered NodeType(s).
+	 */
+	private Map<NodeType, Entry> entries;
+	/**
+	 * It stores the NodeType(s) requiring a capability, indexed by "name, type".
+	 */
+	private SymbolMap<Set<NodeType>> capabilities;
+	/**
+	 * It stores the NodeType(s) requiring a property, indexed by name.
+	 */
+	private SymbolMap<Set<NodeType>> properties;
+	/**
+	 * It stores the NodeType(s) requiring an interface, indexed by name.
+	 */
+	private SymbolMap<Set<NodeType>> interfaces;
+	/**
+	 * It stores the NodeType(s) requiring an operation, indexed by name.
+	 */
+	private SymbolMap<Set<NodeType>> operations;
+	/**
+	 * It stores the NodeType(s) defining a requirement, indexed by "name, type".
+	 */
+	private SymbolMap<Set<NodeType>> requirements;
+	/**
+	 * It stores the NodeType(s) defining a requirement, indexed by "name, type" for
+	 * each type from which the requirement type is derived (itself included).
+	 */
+	private SymbolMap<Set<NodeType>> derivedRequirements;
+	/**
+	 * It stores the NodeType(s) requiring no capabilities, properties and interfaces.
+	 */
+	private Set<NodeType> withoutExactFeatures;
+	/**
+	 * It stores the NodeType(s) requiring no capabilities, properties and operations.
+	 */
+	private Set<NodeType> withoutPlugInFeatures;
+	/**
+	 * It stores the sequence number to be assigned to the next registered NodeType.
+	 */
+	private long nextSequence;
+	/**
+	 * It guards the indexes (queries share them, registrations are exclusive).
+	 */
+	private ReadWriteLock lock;
+
+	/**
+	 * Constructor.
+	 */
+	public NodeTypeRegistry() {
+		entries = new HashMap<NodeType, Entry>();
+		capabilities = new SymbolMap<Set<NodeType>>();
+		properties = new SymbolMap<Set<NodeType>>();
+		interfaces = new SymbolMap<Set<NodeType>>();
+		operations = new SymbolMap<Set<NodeType>>();
+		requirements = new SymbolMap<Set<NodeType>>();
+		derivedRequirements = new SymbolMap<Set<NodeType>>();
+		withoutExactFeatures = new LinkedHashSet<NodeType>();
+		withoutPlugInFeatures = new LinkedHashSet<NodeType>();
+		nextSequence = 0;
+		lock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * Method which registers (and indexes) a NodeType.
+	 *
+	 * @param n NodeType to be registered.
+	 *
+	 * @throws AlreadyPresentException If the NodeType is already registered.
+	 */
+	public void register(NodeType n) throws AlreadyPresentException {
+		CompiledNodeQuery exact = new CompiledNodeQuery(n, MatchMode.EXACT);
+		CompiledNodeQuery plugIn = new CompiledNodeQuery(n, MatchMode.PLUG_IN);
+		lock.writeLock().lock();
+		try {
+			if(entries.containsKey(n))
+				throw new AlreadyPresentException("The node type <" + n.getName() + "> is already registered");
+
+			Set<Long> capKeys = capabilityKeys(n);
+			for(long k : capKeys)
+				post(capabilities, k, n);
+			Set<Long> propKeys = propertyKeys(n);
+			for(long k : propKeys)
+				post(properties, k, n);
+			Set<Long> infKeys = interfaceKeys(n);
+			for(long k : infKeys)
+				post(interfaces, k, n);
+			Set<Long> opKeys = operationKeys(n);
+			for(long k : opKeys)
+				post(operations, k, n);
+			for(long k : requirementKeys(n, false))
+				post(requirements, k, n);
+			for(long k : requirementKeys(n, true))
+				post(derivedRequirements, k, n);
+
+			int exactKeys = capKeys.size() + propKeys.size() + infKeys.size();
+			int plugInKeys = capKeys.size() + propKeys.size() + opKeys.size();
+			if(exactKeys == 0)
+				withoutExactFeatures.add(n);
+			if(plugInKeys == 0)
+				withoutPlugInFeatures.add(n);
+
+			entries.put(n, new Entry(nextSequence++, exact, exactKeys, plugIn, plugInKeys));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which removes a NodeType from the registry.
+	 *
+	 * @param n NodeType to be removed.
+	 *
+	 * @return true if the NodeType was registered, false otherwise.
+	 */
+	public boolean remove(NodeType n) {
+		lock.writeLock().lock();
+		try {
+			if(entries.remove(n) == null)
+				return false;
+			for(long k : capabilityKeys(n))
+				unpost(capabilities, k, n);
+			for(long k : propertyKeys(n))
+				unpost(properties, k, n);
+			for(long k : interfaceKeys(n))
+				unpost(interfaces, k, n);
+			for(long k : operationKeys(n))
+				unpost(operations, k, n);
+			for(long k : requirementKeys(n, false))
+				unpost(requirements, k, n);
+			for(long k : requirementKeys(n, true))
+				unpost(derivedRequirements, k, n);
+			withoutExactFeatures.remove(n);
+			withoutPlugInFeatures.remove(n);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of registered NodeType(s).
+	 * @return The number of registered NodeType(s).
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the registered NodeType(s).
+	 * @return The List of registered NodeType(s), in registration order.
+	 */
+	public List<NodeType> getNodeTypes() {
+		lock.readLock().lock();
+		try {
+			return sorted(entries.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which retrieves the registered NodeType(s) which are exactly matched by a ServiceTemplate
+	 * (i.e., which the ServiceTemplate can substitute).
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return The List of exactly matched NodeType(s), in registration order.
+	 */
+	public List<NodeType> findExactMatches(ServiceTemplate st) {
+		return find(st, true);
+	}
+
+	/**
+	 * Method which retrieves the registered NodeType(s) which are plug-in matched by a ServiceTemplate
+	 * (i.e., which the ServiceTemplate can substitute).
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return The List of plug-in matched NodeType(s), in registration order.
+	 */
+	public List<NodeType> findPlugInMatches(ServiceTemplate st) {
+		return find(st, false);
+	}
+
+	private List<NodeType> find(ServiceTemplate st, boolean exact) {
+		FeatureSignature exposed = FeatureSignature.of(st);
+		List<NodeType> found = new ArrayList<NodeType>();
+		lock.readLock().lock();
+		try {
+			for(NodeType n : candidates(st, exact)) {
+				CompiledNodeQuery query = entries.get(n).query(exact);
+				if(query.getSignature().admits(exposed) && query.matches(st))
+					found.add(n);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return found;
+	}
+
+	/**
+	 * Method which retrieves the registered NodeType(s) which may be exactly matched by a ServiceTemplate,
+	 * i.e., those whose capabilities, properties and interfaces are all exposed by the ServiceTemplate,
+	 * and which satisfy all its requirements.
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return The List of candidate NodeType(s), in registration order.
+	 */
+	public List<NodeType> getExactCandidates(ServiceTemplate st) {
+		lock.readLock().lock();
+		try {
+			return candidates(st, true);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which retrieves the registered NodeType(s) which may be plug-in matched by a ServiceTemplate,
+	 * i.e., those whose capabilities (possibly of base types), properties and operations are all exposed
+	 * by the ServiceTemplate, and which satisfy (possibly with derived types) all its requirements.
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 *
+	 * @return The List of candidate NodeType(s), in registration order.
+	 */
+	public List<NodeType> getPlugInCandidates(ServiceTemplate st) {
+		lock.readLock().lock();
+		try {
+			return candidates(st, false);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which computes the candidate NodeType(s) (to be invoked while holding the read lock).
+	 *
+	 * @param st ServiceTemplate to be matched.
+	 * @param exact true for exact matchmaking, false for plug-in matchmaking.
+	 *
+	 * @return The List of candidate NodeType(s), in registration order.
+	 */
+	private List<NodeType> candidates(ServiceTemplate st, boolean exact) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+
+		//The postings of the (distinct) features exposed by st.
+		List<Set<NodeType>> postings = new ArrayList<Set<NodeType>>();
+		Set<Long> capKeys = new HashSet<Long>();
+		for(Capability c : bounds.getCapabilities().getList()) {
+			//A capability of st plug-in matches those of n whose type is one from which its type is derived.
+			CapabilityType cType = c.getType();
+			while(cType != null) {
+				capKeys.add(SymbolMap.pair(c.getNameId(), cType.getNameId()));
+				cType = (exact ? null : cType.derivedFrom());
+			}
+		}
+		for(long k : capKeys)
+			addPosting(postings, capabilities, k);
+		Set<Long> propKeys = new HashSet<Long>();
+		for(Property p : bounds.getProperties().getList())
+			propKeys.add((long) p.getNameId());
+		for(long k : propKeys)
+			addPosting(postings, properties, k);
+		Set<Long> infKeys = new HashSet<Long>();
+		for(Interface inf : bounds.getInterfaces().getList()) {
+			if(exact)
+				infKeys.add((long) inf.getNameId());
+			else {
+				for(Operation op : inf.getOperations())
+					infKeys.add((long) op.getNameId());
+			}
+		}
+		for(long k : infKeys)
+			addPosting(postings, (exact ? interfaces : operations), k);
+
+		//The postings of the (distinct) requirements of st, which must all be satisfied.
+		List<Set<NodeType>> reqPostings = new ArrayList<Set<NodeType>>();
+		Set<Long> reqKeys = new HashSet<Long>();
+		for(Requirement r : bounds.getRequirements().getList())
+			reqKeys.add(SymbolMap.pair(r.getNameId(), r.getType().getNameId()));
+		for(long k : reqKeys) {
+			Set<NodeType> posting = lookup((exact ? requirements : derivedRequirements), k);
+			if(posting.isEmpty())
+				return Collections.emptyList();
+			reqPostings.add(posting);
+		}
+
+		//A NodeType is a candidate if all the features it requires are exposed by st.
+		Map<NodeType, Integer> hits = new HashMap<NodeType, Integer>();
+		for(Set<NodeType> posting : postings) {
+			for(NodeType n : posting) {
+				Integer h = hits.get(n);
+				hits.put(n, h == null ? 1 : h + 1);
+			}
+		}
+		List<NodeType> found = new ArrayList<NodeType>();
+		for(NodeType n : (exact ? withoutExactFeatures : withoutPlugInFeatures)) {
+			if(satisfies(n, reqPostings))
+				found.add(n);
+		}
+		for(Map.Entry<NodeType, Integer> h : hits.entrySet()) {
+			if(h.getValue() == entries.get(h.getKey()).keys(exact) && satisfies(h.getKey(), reqPostings))
+				found.add(h.getKey());
+		}
+		return sorted(found);
+	}
+
+	private static boolean satisfies(NodeType n, List<Set<NodeType>> reqPostings) {
+		for(Set<NodeType> posting : reqPostings) {
+			if(!posting.contains(n))
+				return false;
+		}
+		return true;
+	}
+
+	private static Set<Long> capabilityKeys(NodeType n) {
+		Set<Long> keys = new HashSet<Long>();
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			keys.add(SymbolMap.pair(cDef.getNameId(), cDef.getCapabilityType().getNameId()));
+		return keys;
+	}
+
+	private static Set<Long> propertyKeys(NodeType n) {
+		Set<Long> keys = new HashSet<Long>();
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			keys.add((long) pDef.getNameId());
+		return keys;
+	}
+
+	private static Set<Long> interfaceKeys(NodeType n) {
+		Set<Long> keys = new HashSet<Long>();
+		for(Interface inf : n.getInterfaces().getList())
+			keys.add((long) inf.getNameId());
+		return keys;
+	}
+
+	private static Set<Long> operationKeys(NodeType n) {
+		Set<Long> keys = new HashSet<Long>();
+		for(Interface inf : n.getInterfaces().getList()) {
+			for(Operation op : inf.getOperations())
+				keys.add((long) op.getNameId());
+		}
+		return keys;
+	}
+
+	/**
+	 * Method which determines the "name, type" keys of the requirements satisfied by a NodeType
+	 * (with derived set to true, also including the types from which the requirement types are derived).
+	 */
+	private static Set<Long> requirementKeys(NodeType n, boolean derived) {
+		Set<Long> keys = new HashSet<Long>();
+		for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+			RequirementType rType = rDef.getRequirementType();
+			while(rType != null) {
+				keys.add(SymbolMap.pair(rDef.getNameId(), rType.getNameId()));
+				rType = (derived ? rType.derivedFrom() : null);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Method which sorts a collection of registered NodeType(s) by registration order.
+	 */
+	private List<NodeType> sorted(Collection<NodeType> nodeTypes) {
+		List<NodeType> list = new ArrayList<NodeType>(nodeTypes);
+		Collections.sort(list, new Comparator<NodeType>() {
+			@Override
+			public int compare(NodeType n1, NodeType n2) {
+				long s1 = entries.get(n1).sequence;
+				long s2 = entries.get(n2).sequence;
+				return (s1 < s2 ? -1 : (s1 == s2 ? 0 : 1));
+			}
+		});
+		return list;
+	}
+
+	private static void addPosting(List<Set<NodeType>> postings, SymbolMap<Set<NodeType>> index, long key) {
+		Set<NodeType> posting = index.get(key);
+		if(posting != null)
+			postings.add(posting);
+	}
+
+	private static void post(SymbolMap<Set<NodeType>> index, long key, NodeType n) {
+		Set<NodeType> posting = index.get(key);
+		if(posting == null) {
+			posting = new LinkedHashSet<NodeType>();
+			index.put(key, posting);
+		}
+		posting.add(n);
+	}
+
+	private static void unpost(SymbolMap<Set<NodeType>> index, long key, NodeType n) {
+		Set<NodeType> posting = index.get(key);
+		if(posting == null)
+			return;
+		posting.remove(n);
+		if(posting.isEmpty())
+			index.remove(key);
+	}
+
+	private static Set<NodeType> lookup(SymbolMap<Set<NodeType>> index, long key) {
+		Set<NodeType> posting = index.get(key);
+		if(posting == null)
+			return Collections.emptySet();
+		return posting;
+	}
+
+	/**
+	 * Class which stores the registry information about a NodeType.
+	 */
+	private static class Entry {
+		/**
+		 * It stores the registration sequence number.
+		 */
+		private final long sequence;
+		/**
+		 * It stores the NodeType compiled for exact matchmaking.
+		 */
+		private final CompiledNodeQuery exact;
+		/**
+		 * It stores the number of distinct features required for exact matchmaking.
+		 */
+		private final int exactKeys;
+		/**
+		 * It stores the NodeType compiled for plug-in matchmaking.
+		 */
+		private final CompiledNodeQuery plugIn;
+		/**
+		 * It stores the number of distinct features required for plug-in matchmaking.
+		 */
+		private final int plugInKeys;
+
+		private Entry(long sequence, CompiledNodeQuery exact, int exactKeys, CompiledNodeQuery plugIn, int plugInKeys) {
+			this.sequence = sequence;
+			this.exact = exact;
+			this.exactKeys = exactKeys;
+			this.plugIn = plugIn;
+			this.plugInKeys = plugInKeys;
+		}
+
+		private CompiledNodeQuery query(boolean exact) {
+			return (exact ? this.exact : plugIn);
+		}
+
+		private int keys(boolean exact) {
+			return (exact ? exactKeys : plugInKeys);
+		}
+	}
+}
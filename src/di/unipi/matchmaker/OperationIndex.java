@@ -0,0 +1,114 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.tosca.Interface;
+import di.unipi.model.tosca.Operation;
+import di.unipi.model.tosca.Parameter;
+
+/**
+ * Class which indexes the operations of a set of interfaces by their key.
+ * <br>
+ * The key of an operation is composed by its (interned) name and by the numbers of its input
+ * and output parameters. Two operations can match only if they have the same key, but
+ * operations with the same key do not necessarily match (e.g., when parameter names are
+ * repeated), hence each retrieved operation must then be checked with matches().
+ * The operations with the same key are kept in the order in which they appear
+ * in the interfaces.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class OperationIndex {
+	/**
+	 * It stores the operations, grouped by key.
+	 */
+	private Map<String, List<Operation>> buckets;
+
+	/**
+	 * Constructor.
+	 * @param infs Interfaces whose operations have to be indexed.
+	 */
+	OperationIndex(List<Interface> infs) {
+		buckets = new HashMap<String, List<Operation>>();
+		for(Interface inf : infs) {
+			for(Operation op : inf.getOperations()) {
+				String key = key(op);
+				List<Operation> bucket = buckets.get(key);
+				if(bucket == null) {
+					bucket = new ArrayList<Operation>(1);
+					buckets.put(key, bucket);
+				}
+				bucket.add(op);
+			}
+		}
+	}
+
+	/**
+	 * Method which retrieves the indexed operations having the same key of a given one
+	 * (i.e., the only ones which may match it).
+	 *
+	 * @param op Operation whose key is considered.
+	 *
+	 * @return The List of Operation(s) with the same key of op.
+	 */
+	List<Operation> get(Operation op) {
+		List<Operation> bucket = buckets.get(key(op));
+		if(bucket == null)
+			return Collections.emptyList();
+		return bucket;
+	}
+
+	/**
+	 * Method which computes the key of an operation.
+	 *
+	 * @param op Operation whose key is needed.
+	 *
+	 * @return The key of op.
+	 */
+	static String key(Operation op) {
+		return op.getNameId() + "/" + op.getInputParameters().size() + "/" + op.getOutputParameters().size();
+	}
+
+	/**
+	 * Method which checks whether an operation exactly matches another one, i.e., whether
+	 * they have the same name and numbers of parameters, and each input (output) parameter
+	 * of the former has the name and type of an input (output) parameter of the latter.
+	 * It has the same verdict of ExactMatchmaker's match(Operation, Operation).
+	 *
+	 * @param op1 Operation to be matched.
+	 * @param op2 Operation to be matched.
+	 *
+	 * @return true if op1 matches op2, false otherwise.
+	 */
+	static boolean matches(Operation op1, Operation op2) {
+		return op1.getNameId() == op2.getNameId() &&
+				contained(op1.getInputParameters(), op2.getInputParameters()) &&
+				contained(op1.getOutputParameters(), op2.getOutputParameters());
+	}
+
+	private static boolean contained(List<Parameter> params1, List<Parameter> params2) {
+		if(params1.size() != params2.size())
+			return false;
+		boolean matched;
+		for(Parameter p1 : params1) {
+			matched = false;
+			for(Parameter p2 : params2) {
+				if(p1.getNameId() == p2.getNameId() && p1.getPropertyType() == p2.getPropertyType()) {
+					matched = true;
+					break;
+				}
+			}
+			if(!matched)
+				return false;
+		}
+		return true;
+	}
+}
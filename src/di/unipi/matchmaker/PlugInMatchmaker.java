@@ -46,6 +46,10 @@ public class PlugInMatchmaker extends ExactMatchmaker {
      * It stores the set of unmatched operations (of n).
      */
     protected List<Operation> unmatchedOperations;
+    /**
+     * It stores (if any) the TypeHierarchy to be exploited to check type derivations.
+     */
+    protected TypeHierarchy types;
 
     /**
      * Constructor.
@@ -60,6 +64,18 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         pluginMatchedProperties = null;
         pluginMatchedInterfaces = null;
         unmatchedOperations = null;
+        types = null;
+	}
+
+    /**
+     * Constructor.
+     * @param n NodeType to be plug-in matched.
+     * @param st ServiceTemplate to be plug-in matched.
+     * @param types TypeHierarchy to be exploited to check type derivations.
+     */
+	public PlugInMatchmaker(NodeType n, ServiceTemplate st, TypeHierarchy types) {
+		this(n, st);
+		this.types = types;
 	}
 
 	@Override
@@ -96,6 +112,39 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         		arePoliciesMatched && arePropertiesMatched && areInterfacesMatched);
     }
 
+	@Override
+	public boolean matches() {
+		//Policies are only exactly matched, and they are the cheapest to check.
+		super.matchPolicies();
+		if(!arePoliciesMatched)
+			return false;
+
+		//Since exactly matching elements also plug-in match, each plug-in phase
+		//is directly performed on all the elements (until one fails).
+		unmatchedRequirements = st.getBoundaryDefinitions().getRequirements().getList();
+		areRequirementsMatched = false;
+		matchRequirements();
+		if(!areRequirementsMatched)
+			return false;
+
+		unmatchedCapabilities = n.getCapabilityDefinitions().getList();
+		areCapabilitiesMatched = false;
+		matchCapabilities();
+		if(!areCapabilitiesMatched)
+			return false;
+
+		unmatchedProperties = n.getPropertiesDefinition().getList();
+		arePropertiesMatched = false;
+		matchProperties();
+		if(!arePropertiesMatched)
+			return false;
+
+		unmatchedInterfaces = n.getInterfaces().getList();
+		areInterfacesMatched = false;
+		matchInterfaces();
+		return areInterfacesMatched;
+	}
+
 	@Override
     protected void matchCapabilities() {
     	//Initially, the list of matched capabilities is empty.
@@ -111,10 +160,11 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         //
         //Please note that the matchmaking procedure works also if the exact matching fails
         //because of the missing 1-to-1 correspondence.
+        NameIndex<Capability> stCapsByName = NameIndex.ofCapabilities(stCaps);
         boolean matched;
         for(CapabilityDefinition cDef : unmatchedCapabilities) {
         	matched = false;
-        	for(Capability c : stCaps) {
+        	for(Capability c : stCapsByName.get(cDef.getNameId())) {
         		matched = match(cDef, c);
         		if(matched) {
         			pluginMatchedCapabilities.add(c);
@@ -139,12 +189,14 @@ public class PlugInMatchmaker extends ExactMatchmaker {
      */
     protected boolean match(CapabilityDefinition cDef, Capability c) {
     	//Are cDef and c same named?
-    	if(!cDef.getName().equals(c.getName()))
+    	if(cDef.getNameId() != c.getNameId())
     		return false;
     	//Is c's type derived from cDef's type?
+    	if(types != null)
+    		return types.isDerivedFrom(c.getType(), cDef.getCapabilityType());
     	CapabilityType cType = c.getType();
     	while(cType != null) {
-    		if(cDef.getCapabilityType().getName().equals(cType.getName()))
+    		if(cDef.getCapabilityType().getNameId() == cType.getNameId())
     			return true;
     		cType = cType.derivedFrom();
     	}
@@ -166,10 +218,11 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         //
         //Please note that the matchmaking procedure works also if the exact matching fails
         //because of the missing 1-to-1 correspondence.
+        NameIndex<RequirementDefinition> nReqDefsByName = NameIndex.ofRequirementDefinitions(nReqDefs);
         boolean matched;
         for(Requirement r : unmatchedRequirements) {
         	matched = false;
-        	for(RequirementDefinition rDef : nReqDefs) {
+        	for(RequirementDefinition rDef : nReqDefsByName.get(r.getNameId())) {
         		matched = match(r, rDef);
         		if(matched) {
         			pluginMatchedRequirements.add(r);
@@ -196,12 +249,14 @@ public class PlugInMatchmaker extends ExactMatchmaker {
      */
     protected boolean match(Requirement r, RequirementDefinition rDef) {
     	//Are r and rDef same named?
-    	if(!r.getName().equals(rDef.getName()))
+    	if(r.getNameId() != rDef.getNameId())
     		return false;
     	//Is rDef's type derived from r's type?
+    	if(types != null)
+    		return types.isDerivedFrom(rDef.getRequirementType(), r.getType());
     	RequirementType rType = rDef.getRequirementType();
     	while(rType != null) {
-    		if(rType.getName().equals(r.getType().getName()))
+    		if(rType.getNameId() == r.getType().getNameId())
     			return true;
     		rType = rType.derivedFrom();
     	}
@@ -220,10 +275,11 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         List<Property> stProps = st.getBoundaryDefinitions().getProperties().getList();
 
         //Are all n's properties compatible with those on st's boundaries?
+        NameIndex<Property> stPropsByName = NameIndex.ofProperties(stProps);
         boolean matched;
         for(PropertyDefinition pDef : unmatchedProperties) {
         	matched = false;
-        	for(Property p : stProps) {
+        	for(Property p : stPropsByName.get(pDef.getNameId())) {
         		matched = match(pDef, p);
         		if(matched) {
         			pluginMatchedProperties.add(p);
@@ -251,9 +307,9 @@ public class PlugInMatchmaker extends ExactMatchmaker {
     @SuppressWarnings("unchecked")
 	protected boolean match(PropertyDefinition pDef, Property p) {
     	return 	//Are cDef and c same named?
-    			pDef.getName().equals(p.getName()) &&
+    			pDef.getNameId() == p.getNameId() &&
     			//Is p's type derived from pDef's type?
-    			p.getType().isAssignableFrom(pDef.getType());
+    			p.getPropertyType().isAssignableFrom(pDef.getPropertyType());
 
     }
 
@@ -273,38 +329,33 @@ public class PlugInMatchmaker extends ExactMatchmaker {
         unmatchedOperations = new ArrayList<Operation>();
 
         //Are all n's interface operations present on st's boundaries?
+        //(Only operations with the same key can match)
+        OperationIndex stOps = new OperationIndex(stInfs);
         boolean matched;
-        boolean matchedAllInterfaceOperations;
         List<Operation> matchedOperations;
         for(Interface infN : unmatchedInterfaces) {
         	matchedOperations = new ArrayList<Operation>();
-        	matchedAllInterfaceOperations = true;
         	for(Operation opN : infN.getOperations()) { //for each operation of each interface of n
         		matched = false;
-            	for(Interface infST : stInfs) {
-            		for(Operation opST : infST.getOperations()) { //there must exist a matching operation of an interface of st
-            			matched = match(opN,opST);
-            			if(matched) {
-            				matchedOperations.add(opST);
-            				break;
-            			}
-            		}
-            		if(matched)
-            			break;
-            	}
-            	if(matched)
-        			pluginMatchedInterfaces.add(new Interface(infN.getName(), matchedOperations));
-        		else {
-        			unmatchedOperations.add(opN);
-        			matchedAllInterfaceOperations = false;
+        		for(Operation opST : stOps.get(opN)) { //there must exist a matching operation of an interface of st
+        			matched = match(opN,opST);
+        			if(matched) {
+        				matchedOperations.add(opST);
+        				break;
+        			}
         		}
-            	if(!matchedAllInterfaceOperations)
-            		newUnmatchedInterfaces.add(infN);
+            	if(!matched)
+        			unmatchedOperations.add(opN);
         	}
-        	unmatchedInterfaces = newUnmatchedInterfaces;
-        	if(unmatchedInterfaces.isEmpty())
-        		areInterfacesMatched = true;
+        	//infN is plug-in matched only if all its operations have been matched.
+        	if(matchedOperations.size() == infN.getOperations().size())
+        		pluginMatchedInterfaces.add(new Interface(infN.getName(), matchedOperations));
+        	else
+        		newUnmatchedInterfaces.add(infN);
         }
+        unmatchedInterfaces = newUnmatchedInterfaces;
+        if(unmatchedInterfaces.isEmpty())
+        	areInterfacesMatched = true;
     }
 
     /**
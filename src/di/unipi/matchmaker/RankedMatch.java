@@ -0,0 +1,96 @@
+package di.unipi.matchmaker;
+
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Class which models the (immutable) result of the ranked matchmaking of a ServiceTemplate.
+ * <br>
+ * It stores, for each phase of the matchmaking, the number of unmatched elements, and the penalty
+ * of the ServiceTemplate (i.e., the weighted sum of the unmatched elements). The lower the penalty,
+ * the more the ServiceTemplate covers the NodeType (a ServiceTemplate matching the NodeType has
+ * no penalty).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public final class RankedMatch {
+	private final ServiceTemplate st;
+	/**
+	 * It stores the position of st among the ranked ServiceTemplate(s) (to break ties).
+	 */
+	private final int index;
+	private final double penalty;
+	/**
+	 * It stores the number of unmatched elements of each phase (indexed by MatchPhase ordinal).
+	 */
+	private final int[] unmatched;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param st Ranked ServiceTemplate.
+	 * @param index Position of st among the ranked ServiceTemplate(s).
+	 * @param penalty Weighted sum of the unmatched elements.
+	 * @param unmatched Number of unmatched elements of each phase.
+	 */
+	RankedMatch(ServiceTemplate st, int index, double penalty, int[] unmatched) {
+		this.st = st;
+		this.index = index;
+		this.penalty = penalty;
+		this.unmatched = unmatched;
+	}
+
+	/**
+	 * Method which provides access to the ranked ServiceTemplate.
+	 * @return The ServiceTemplate.
+	 */
+	public ServiceTemplate getServiceTemplate() {
+		return st;
+	}
+
+	/**
+	 * Method which provides access to the penalty of the ServiceTemplate.
+	 * @return The weighted sum of the unmatched elements.
+	 */
+	public double getPenalty() {
+		return penalty;
+	}
+
+	/**
+	 * Method which provides access to the number of unmatched elements of a phase.
+	 *
+	 * @param phase Phase of the matchmaking.
+	 *
+	 * @return The number of elements left unmatched by phase.
+	 */
+	public int getUnmatched(MatchPhase phase) {
+		return unmatched[phase.ordinal()];
+	}
+
+	/**
+	 * Method which indicates whether the ServiceTemplate matches the NodeType.
+	 * @return true if no element is unmatched, false otherwise.
+	 */
+	public boolean isMatch() {
+		for(int u : unmatched) {
+			if(u > 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method which provides access to the position of the ServiceTemplate among the ranked ones.
+	 */
+	int getIndex() {
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return st.getName() + " (" + penalty + ")";
+	}
+}
@@ -0,0 +1,210 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which ranks ServiceTemplate(s) by how much they cover a NodeType, also when none of them
+ * matches it.
+ * <br>
+ * Each ServiceTemplate is given a penalty, i.e., the sum of the elements left unmatched by each phase
+ * (as counted by a CompiledNodeQuery, and in exact mode also including the elements breaking the
+ * 1-to-1 correspondences), weighted by configurable per-phase weights. The k ServiceTemplate(s) with
+ * the lowest penalties are kept in a bounded heap. Before evaluating a phase, a lower bound of the
+ * penalty (i.e., the penalty of the evaluated phases plus a cardinality-based bound of the others) is
+ * compared with the worst penalty in the heap, and the evaluation of the ServiceTemplate is stopped
+ * as soon as it cannot enter the top k. Ties are broken by the order in which the ServiceTemplate(s)
+ * are given.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class RankedMatchmaker {
+	private static final MatchPhase[] PHASES = MatchPhase.values();
+
+	/**
+	 * It orders RankedMatch(es) from the best one.
+	 */
+	private static final Comparator<RankedMatch> BEST_FIRST = new Comparator<RankedMatch>() {
+		@Override
+		public int compare(RankedMatch m1, RankedMatch m2) {
+			int c = Double.compare(m1.getPenalty(), m2.getPenalty());
+			return (c != 0 ? c : (m1.getIndex() < m2.getIndex() ? -1 : (m1.getIndex() == m2.getIndex() ? 0 : 1)));
+		}
+	};
+
+	/**
+	 * It stores the compiled NodeType to be matched.
+	 */
+	private CompiledNodeQuery query;
+	/**
+	 * It stores the weight of each phase (indexed by MatchPhase ordinal).
+	 */
+	private double[] weights;
+
+	/**
+	 * Constructor (all phases are equally weighted).
+	 * @param n NodeType to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 */
+	public RankedMatchmaker(NodeType n, MatchMode mode) {
+		this(n, mode, null);
+	}
+
+	/**
+	 * Constructor (all phases are equally weighted).
+	 * @param n NodeType to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 * @param types TypeHierarchy to be exploited to check type derivations (or null).
+	 */
+	public RankedMatchmaker(NodeType n, MatchMode mode, TypeHierarchy types) {
+		this.query = new CompiledNodeQuery(n, mode, types);
+		this.weights = new double[PHASES.length];
+		Arrays.fill(weights, 1);
+	}
+
+	/**
+	 * Method which sets the weight of a phase.
+	 *
+	 * @param phase Phase of the matchmaking.
+	 * @param weight Weight of each element left unmatched by phase (0 to ignore the phase).
+	 */
+	public void setWeight(MatchPhase phase, double weight) {
+		if(!(weight >= 0) || Double.isInfinite(weight))
+			throw new IllegalArgumentException("The weight of a phase must be a non-negative number");
+		weights[phase.ordinal()] = weight;
+	}
+
+	/**
+	 * Method which provides access to the weight of a phase.
+	 *
+	 * @param phase Phase of the matchmaking.
+	 *
+	 * @return The weight of phase.
+	 */
+	public double getWeight(MatchPhase phase) {
+		return weights[phase.ordinal()];
+	}
+
+	/**
+	 * Method which ranks a ServiceTemplate (performing all phases).
+	 *
+	 * @param st ServiceTemplate to be ranked.
+	 *
+	 * @return The RankedMatch of st.
+	 */
+	public RankedMatch rank(ServiceTemplate st) {
+		return evaluate(st, 0, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Method which retrieves the k ServiceTemplate(s) covering the NodeType best.
+	 *
+	 * @param sts ServiceTemplate(s) to be ranked.
+	 * @param k Number of ServiceTemplate(s) to be retrieved.
+	 *
+	 * @return The List of (at most k) RankedMatch(es), from the best one.
+	 */
+	public List<RankedMatch> top(Iterable<ServiceTemplate> sts, int k) {
+		if(k < 1)
+			throw new IllegalArgumentException("The number of ServiceTemplate(s) to be retrieved must be positive");
+		//The heap is ordered from the worst RankedMatch, which is the first to be evicted.
+		PriorityQueue<RankedMatch> heap = new PriorityQueue<RankedMatch>(k, Collections.reverseOrder(BEST_FIRST));
+		int index = 0;
+		for(ServiceTemplate st : sts) {
+			double threshold = (heap.size() < k ? Double.POSITIVE_INFINITY : heap.peek().getPenalty());
+			RankedMatch m = evaluate(st, index++, threshold);
+			if(m == null)
+				continue;
+			if(heap.size() == k)
+				heap.poll();
+			heap.add(m);
+		}
+		List<RankedMatch> top = new ArrayList<RankedMatch>(heap);
+		Collections.sort(top, BEST_FIRST);
+		return top;
+	}
+
+	/**
+	 * Method which evaluates a ServiceTemplate, stopping as soon as its penalty reaches a threshold.
+	 *
+	 * @return The RankedMatch of st, null if its penalty is not lower than threshold.
+	 */
+	private RankedMatch evaluate(ServiceTemplate st, int index, double threshold) {
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		int[] unmatched = bounds(bounds);
+		if(penalty(unmatched) >= threshold)
+			return null;
+		//The phases are performed from the cheapest one (those with no weight only if st can enter the top k).
+		for(MatchPhase phase : PHASES) {
+			if(weights[phase.ordinal()] == 0)
+				continue;
+			unmatched[phase.ordinal()] = Math.max(unmatched[phase.ordinal()], unmatched(phase, bounds));
+			if(penalty(unmatched) >= threshold)
+				return null;
+		}
+		for(MatchPhase phase : PHASES) {
+			if(weights[phase.ordinal()] == 0)
+				unmatched[phase.ordinal()] = Math.max(unmatched[phase.ordinal()], unmatched(phase, bounds));
+		}
+		return new RankedMatch(st, index, penalty(unmatched), unmatched);
+	}
+
+	/**
+	 * Method which computes (in constant time, from cardinalities) a lower bound of the number of
+	 * elements left unmatched by each phase.
+	 */
+	private int[] bounds(BoundaryDefinitions bounds) {
+		int[] lower = new int[PHASES.length];
+		NodeType n = query.getNodeType();
+		if(query.getMode() == MatchMode.EXACT) {
+			//Exact matching requires 1-to-1 correspondences.
+			lower[MatchPhase.REQUIREMENTS.ordinal()] = Math.abs(bounds.getRequirements().getList().size() - n.getRequirementDefinitions().getList().size());
+			lower[MatchPhase.CAPABILITIES.ordinal()] = Math.abs(bounds.getCapabilities().getList().size() - n.getCapabilityDefinitions().getList().size());
+			lower[MatchPhase.PROPERTIES.ordinal()] = Math.abs(bounds.getProperties().getList().size() - n.getPropertiesDefinition().getList().size());
+			lower[MatchPhase.INTERFACES.ordinal()] = Math.abs(bounds.getInterfaces().getList().size() - n.getInterfaces().getList().size());
+		} else {
+			//Each operation of st matches at most the distinct operations of n sharing its key.
+			int operations = 0;
+			for(Interface inf : bounds.getInterfaces().getList())
+				operations += inf.getOperations().size();
+			lower[MatchPhase.INTERFACES.ordinal()] = Math.max(0, query.interfaceSlots() - operations * query.operationsPerKey());
+		}
+		return lower;
+	}
+
+	private int unmatched(MatchPhase phase, BoundaryDefinitions bounds) {
+		switch(phase) {
+		case POLICIES:
+			return query.unmatchedPolicies(bounds);
+		case REQUIREMENTS:
+			return query.unmatchedRequirements(bounds);
+		case CAPABILITIES:
+			return query.unmatchedCapabilities(bounds);
+		case PROPERTIES:
+			return query.unmatchedProperties(bounds);
+		default:
+			return query.unmatchedInterfaces(bounds);
+		}
+	}
+
+	/**
+	 * Method which computes the penalty of (a lower bound of) the unmatched elements.
+	 * (The terms are always summed in the same order, so that bounds never exceed penalties.)
+	 */
+	private double penalty(int[] unmatched) {
+		double penalty = 0;
+		for(int i = 0; i < unmatched.length; i++)
+			penalty += weights[i] * unmatched[i];
+		return penalty;
+	}
+}
@@ -0,0 +1,709 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a registry of ServiceTemplate(s), indexed by the elements exposed
+ * on their boundaries.
+ * <br>
+ * Given a NodeType, the registry first intersects the inverted indexes of the elements
+ * which any matching ServiceTemplate must expose (capabilities, properties, interfaces
+ * and operations) and then runs the (exact or plug-in) matchmaker only on the surviving
+ * candidates (through a CompiledNodeQuery). The registered ServiceTemplate(s) must not be modified while registered
+ * (they have to be removed and registered again).
+ * <br>
+ * Since the outcome of a matchmaking only depends on the boundary definitions of a ServiceTemplate,
+ * the registered ServiceTemplate(s) are grouped in equivalence classes by the fingerprint of their
+ * boundary definitions. The indexes store the equivalence classes (rather than their members), and
+ * a NodeType is matched once per candidate class (against a representative of the class), whose
+ * verdict is then fanned out to all the members of the class. Since the members may reference distinct
+ * (though identical) type objects, a member whose boundary definitions no longer have the fingerprint of
+ * those of the representative (e.g., as one of its types has been changed afterwards) is matched on its
+ * own. Each class tracks the types on which the boundary definitions of its members depend, and such
+ * members are determined again only after one of them has changed.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ServiceTemplateRegistry {
+	/**
+	 * It stores the entries of the registered ServiceTemplate(s).
+	 */
+	private Map<ServiceTemplate, Entry> entries;
+	/**
+	 * It stores the equivalence classes of the registered ServiceTemplate(s), indexed by the
+	 * fingerprint of their boundary definitions.
+	 */
+	private Map<Fingerprint, BoundaryClass> classes;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing a capability, indexed by "name, type".
+	 */
+	private SymbolMap<Set<BoundaryClass>> capabilities;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing a capability, indexed by "name, type"
+	 * for each type from which the capability type is derived (itself included).
+	 */
+	private SymbolMap<Set<BoundaryClass>> derivedCapabilities;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing a requirement, indexed by "name, type".
+	 */
+	private SymbolMap<Set<BoundaryClass>> requirements;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing no requirements.
+	 */
+	private Set<BoundaryClass> withoutRequirements;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing a property, indexed by name.
+	 */
+	private SymbolMap<Set<BoundaryClass>> properties;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing an interface, indexed by name.
+	 */
+	private SymbolMap<Set<BoundaryClass>> interfaces;
+	/**
+	 * It stores the classes of ServiceTemplate(s) exposing an operation, indexed by name.
+	 */
+	private SymbolMap<Set<BoundaryClass>> operations;
+	/**
+	 * It stores the sequence number to be assigned to the next registered ServiceTemplate.
+	 */
+	private long nextSequence;
+	/**
+	 * It guards the indexes (queries share them, registrations are exclusive).
+	 */
+	private ReadWriteLock lock;
+
+	/**
+	 * Constructor.
+	 */
+	public ServiceTemplateRegistry() {
+		entries = new HashMap<ServiceTemplate, Entry>();
+		classes = new HashMap<Fingerprint, BoundaryClass>();
+		capabilities = new SymbolMap<Set<BoundaryClass>>();
+		derivedCapabilities = new SymbolMap<Set<BoundaryClass>>();
+		requirements = new SymbolMap<Set<BoundaryClass>>();
+		withoutRequirements = new LinkedHashSet<BoundaryClass>();
+		properties = new SymbolMap<Set<BoundaryClass>>();
+		interfaces = new SymbolMap<Set<BoundaryClass>>();
+		operations = new SymbolMap<Set<BoundaryClass>>();
+		nextSequence = 0;
+		lock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * Method which registers (and indexes) a ServiceTemplate.
+	 *
+	 * @param st ServiceTemplate to be registered.
+	 *
+	 * @throws AlreadyPresentException If the ServiceTemplate is already registered.
+	 */
+	public void register(ServiceTemplate st) throws AlreadyPresentException {
+		lock.writeLock().lock();
+		try {
+			if(entries.containsKey(st))
+				throw new AlreadyPresentException("The service template <" + st.getName() + "> is already registered");
+			Fingerprint fingerprint = st.getBoundaryDefinitions().getFingerprint();
+			BoundaryClass cls = classes.get(fingerprint);
+			if(cls == null) {
+				cls = new BoundaryClass(fingerprint, st);
+				index(cls);
+				classes.put(fingerprint, cls);
+			}
+			//(The divergence is brought up to date before the types of st are tracked.)
+			Divergence d = diverged(cls);
+			cls.members.add(st);
+			cls.track(st, 1);
+			Set<ServiceTemplate> members = d.members;
+			if(!fingerprint.equals(cls.representative.getBoundaryDefinitions().getFingerprint())) {
+				members = new HashSet<ServiceTemplate>(members);
+				members.add(st);
+			}
+			cls.diverged = new Divergence(d.epoch, cls.versions(), members);
+			entries.put(st, new Entry(nextSequence++, cls));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which removes a ServiceTemplate from the registry.
+	 *
+	 * @param st ServiceTemplate to be removed.
+	 *
+	 * @return true if the ServiceTemplate was registered, false otherwise.
+	 */
+	public boolean remove(ServiceTemplate st) {
+		lock.writeLock().lock();
+		try {
+			Entry e = entries.remove(st);
+			if(e == null)
+				return false;
+			BoundaryClass cls = e.cls;
+			Divergence d = diverged(cls);
+			cls.members.remove(st);
+			cls.track(st, -1);
+			if(cls.members.isEmpty()) {
+				unindex(cls);
+				classes.remove(cls.fingerprint);
+			} else if(cls.representative == st) {
+				//The removed ServiceTemplate may be modified, hence another member represents the class.
+				cls.representative = cls.members.iterator().next();
+				cls.diverged = divergence(cls);
+			} else {
+				Set<ServiceTemplate> members = d.members;
+				if(members.contains(st)) {
+					members = new HashSet<ServiceTemplate>(members);
+					members.remove(st);
+				}
+				cls.diverged = new Divergence(d.epoch, cls.versions(), members);
+			}
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which indexes (the boundary definitions of the representative of) an equivalence class.
+	 */
+	private void index(BoundaryClass cls) {
+		BoundaryDefinitions bounds = cls.representative.getBoundaryDefinitions();
+
+		for(Capability c : bounds.getCapabilities().getList()) {
+			post(capabilities, SymbolMap.pair(c.getNameId(), c.getType().getNameId()), cls);
+			CapabilityType cType = c.getType();
+			while(cType != null) {
+				post(derivedCapabilities, SymbolMap.pair(c.getNameId(), cType.getNameId()), cls);
+				cType = cType.derivedFrom();
+			}
+		}
+
+		Set<Long> reqKeys = new HashSet<Long>();
+		for(Requirement r : bounds.getRequirements().getList())
+			reqKeys.add(SymbolMap.pair(r.getNameId(), r.getType().getNameId()));
+		for(long k : reqKeys)
+			post(requirements, k, cls);
+		if(reqKeys.isEmpty())
+			withoutRequirements.add(cls);
+		cls.requirementKeys = reqKeys.size();
+
+		for(Property p : bounds.getProperties().getList())
+			post(properties, p.getNameId(), cls);
+
+		for(Interface inf : bounds.getInterfaces().getList()) {
+			post(interfaces, inf.getNameId(), cls);
+			for(Operation op : inf.getOperations())
+				post(operations, op.getNameId(), cls);
+		}
+
+		cls.signature = FeatureSignature.of(cls.representative);
+	}
+
+	/**
+	 * Method which removes an equivalence class from the indexes.
+	 */
+	private void unindex(BoundaryClass cls) {
+		BoundaryDefinitions bounds = cls.representative.getBoundaryDefinitions();
+
+		for(Capability c : bounds.getCapabilities().getList()) {
+			unpost(capabilities, SymbolMap.pair(c.getNameId(), c.getType().getNameId()), cls);
+			CapabilityType cType = c.getType();
+			while(cType != null) {
+				unpost(derivedCapabilities, SymbolMap.pair(c.getNameId(), cType.getNameId()), cls);
+				cType = cType.derivedFrom();
+			}
+		}
+		for(Requirement r : bounds.getRequirements().getList())
+			unpost(requirements, SymbolMap.pair(r.getNameId(), r.getType().getNameId()), cls);
+		withoutRequirements.remove(cls);
+		for(Property p : bounds.getProperties().getList())
+			unpost(properties, p.getNameId(), cls);
+		for(Interface inf : bounds.getInterfaces().getList()) {
+			unpost(interfaces, inf.getNameId(), cls);
+			for(Operation op : inf.getOperations())
+				unpost(operations, op.getNameId(), cls);
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of registered ServiceTemplate(s).
+	 * @return The number of registered ServiceTemplate(s).
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the registered ServiceTemplate(s).
+	 * @return The List of registered ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getTemplates() {
+		lock.readLock().lock();
+		try {
+			return sorted(entries.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of equivalence classes of the registered ServiceTemplate(s)
+	 * (i.e., the number of distinct boundary definitions).
+	 * @return The number of equivalence classes.
+	 */
+	public int getClassCount() {
+		lock.readLock().lock();
+		try {
+			return classes.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which exactly match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of exactly matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findExactMatches(NodeType n) {
+		return find(new CompiledNodeQuery(n, MatchMode.EXACT));
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which plug-in match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of plug-in matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findPlugInMatches(NodeType n) {
+		return find(new CompiledNodeQuery(n, MatchMode.PLUG_IN));
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which match a compiled NodeType.
+	 *
+	 * @param query Compiled NodeType (and kind of matchmaking to be performed).
+	 *
+	 * @return The List of matching ServiceTemplate(s), in registration order.
+	 */
+	List<ServiceTemplate> find(CompiledNodeQuery query) {
+		NodeType n = query.getNodeType();
+		lock.readLock().lock();
+		try {
+			List<BoundaryClass> candidates = (query.getMode() == MatchMode.EXACT ?
+					getExactCandidates(n, query.getSignature()) : getPlugInCandidates(n, query.getSignature()));
+			//Each candidate class is matched once, and its verdict holds for all its (non diverged) members.
+			List<ServiceTemplate> found = new ArrayList<ServiceTemplate>();
+			for(BoundaryClass cls : candidates) {
+				boolean matched = query.matches(cls.representative);
+				Set<ServiceTemplate> diverged = diverged(cls).members;
+				if(diverged.isEmpty()) {
+					if(matched)
+						found.addAll(cls.members);
+					continue;
+				}
+				for(ServiceTemplate st : cls.members) {
+					if(diverged.contains(st) ? query.matches(st) : matched)
+						found.add(st);
+				}
+			}
+			return sorted(found);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which brings up to date the members of an equivalence class whose boundary definitions no
+	 * longer have the fingerprint of those of the representative (to be invoked while holding a lock).
+	 *
+	 * @param cls Equivalence class whose members are checked.
+	 *
+	 * @return The Divergence of the class (recomputed only if a type on which its members depend has changed
+	 * since the last check).
+	 */
+	private static Divergence diverged(BoundaryClass cls) {
+		Divergence d = cls.diverged;
+		int epoch = EntityType.epoch();
+		if(d.epoch != epoch) {
+			long versions = cls.versions();
+			//(Unless one of the types on which the members depend has changed, they cannot have diverged further.)
+			d = (versions == d.versions ? new Divergence(epoch, versions, d.members) : divergence(cls));
+			//(Concurrent queries may compute the same divergence, which is published at once.)
+			cls.diverged = d;
+		}
+		return d;
+	}
+
+	/**
+	 * Method which determines (from scratch) the members of an equivalence class whose boundary definitions
+	 * no longer have the fingerprint of those of the representative (to be invoked while holding a lock).
+	 *
+	 * @param cls Equivalence class whose members are checked.
+	 *
+	 * @return The Divergence of the class.
+	 */
+	private static Divergence divergence(BoundaryClass cls) {
+		int epoch = EntityType.epoch();
+		long versions = cls.versions();
+		Set<ServiceTemplate> members = Collections.emptySet();
+		Fingerprint fingerprint = cls.representative.getBoundaryDefinitions().getFingerprint();
+		for(ServiceTemplate st : cls.members) {
+			if(st != cls.representative && !st.getBoundaryDefinitions().getFingerprint().equals(fingerprint)) {
+				if(members.isEmpty())
+					members = new HashSet<ServiceTemplate>();
+				members.add(st);
+			}
+		}
+		return new Divergence(epoch, versions, members);
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which may exactly match a NodeType,
+	 * i.e., those exposing all the capabilities, properties and interfaces of the NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of candidate ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getExactCandidates(NodeType n) {
+		FeatureSignature required = FeatureSignature.required(n, MatchMode.EXACT);
+		lock.readLock().lock();
+		try {
+			return members(getExactCandidates(n, required));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<BoundaryClass> getExactCandidates(NodeType n, FeatureSignature required) {
+		List<Set<BoundaryClass>> postings = new ArrayList<Set<BoundaryClass>>();
+		Set<Long> reqKeys = new HashSet<Long>();
+
+		lock.readLock().lock();
+		try {
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+				postings.add(lookup(capabilities, SymbolMap.pair(cDef.getNameId(), cDef.getCapabilityType().getNameId())));
+			for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+				postings.add(lookup(properties, pDef.getNameId()));
+			for(Interface inf : n.getInterfaces().getList())
+				postings.add(lookup(interfaces, inf.getNameId()));
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList())
+				reqKeys.add(SymbolMap.pair(rDef.getNameId(), rDef.getRequirementType().getNameId()));
+
+			return candidates(postings, reqKeys, required);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which may plug-in match a NodeType,
+	 * i.e., those exposing all the capabilities (possibly of derived types), properties and
+	 * operations of the NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of candidate ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getPlugInCandidates(NodeType n) {
+		FeatureSignature required = FeatureSignature.required(n, MatchMode.PLUG_IN);
+		lock.readLock().lock();
+		try {
+			return members(getPlugInCandidates(n, required));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<BoundaryClass> getPlugInCandidates(NodeType n, FeatureSignature required) {
+		List<Set<BoundaryClass>> postings = new ArrayList<Set<BoundaryClass>>();
+		Set<Long> reqKeys = new HashSet<Long>();
+
+		lock.readLock().lock();
+		try {
+			for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+				postings.add(lookup(derivedCapabilities, SymbolMap.pair(cDef.getNameId(), cDef.getCapabilityType().getNameId())));
+			for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+				postings.add(lookup(properties, pDef.getNameId()));
+			for(Interface inf : n.getInterfaces().getList()) {
+				for(Operation op : inf.getOperations())
+					postings.add(lookup(operations, op.getNameId()));
+			}
+			//A requirement of st is plug-in matched by those of n whose type is derived from its one.
+			for(RequirementDefinition rDef : n.getRequirementDefinitions().getList()) {
+				RequirementType rType = rDef.getRequirementType();
+				while(rType != null) {
+					reqKeys.add(SymbolMap.pair(rDef.getNameId(), rType.getNameId()));
+					rType = rType.derivedFrom();
+				}
+			}
+
+			return candidates(postings, reqKeys, required);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which computes the candidate equivalence classes (to be invoked while holding the read lock).
+	 *
+	 * @param postings Sets of classes which must all contain a candidate.
+	 * @param reqKeys Requirement keys which are satisfied by the NodeType.
+	 * @param required FeatureSignature of the NodeType.
+	 *
+	 * @return The List of candidate classes.
+	 */
+	private List<BoundaryClass> candidates(List<Set<BoundaryClass>> postings, Set<Long> reqKeys,
+			FeatureSignature required) {
+		if(postings.isEmpty())
+			return satisfiedRequirements(reqKeys);
+
+		//The intersection is computed by scanning the smallest posting set.
+		Set<BoundaryClass> smallest = postings.get(0);
+		for(Set<BoundaryClass> posting : postings) {
+			if(posting.size() < smallest.size())
+				smallest = posting;
+		}
+		List<BoundaryClass> found = new ArrayList<BoundaryClass>();
+		for(BoundaryClass cls : smallest) {
+			boolean inAll = true;
+			for(Set<BoundaryClass> posting : postings) {
+				if(posting != smallest && !posting.contains(cls)) {
+					inAll = false;
+					break;
+				}
+			}
+			//The signature also rejects those exposing requirements which cannot be satisfied.
+			if(inAll && required.admits(cls.signature))
+				found.add(cls);
+		}
+		return found;
+	}
+
+	/**
+	 * Method which retrieves the equivalence classes whose requirements are all satisfied
+	 * by the given keys (to be invoked while holding the read lock).
+	 *
+	 * @param reqKeys Requirement keys which are satisfied by the NodeType.
+	 *
+	 * @return The List of classes whose requirements are satisfied.
+	 */
+	private List<BoundaryClass> satisfiedRequirements(Set<Long> reqKeys) {
+		Map<BoundaryClass, Integer> hits = new HashMap<BoundaryClass, Integer>();
+		for(long k : reqKeys) {
+			for(BoundaryClass cls : lookup(requirements, k)) {
+				Integer h = hits.get(cls);
+				hits.put(cls, h == null ? 1 : h + 1);
+			}
+		}
+		List<BoundaryClass> found = new ArrayList<BoundaryClass>(withoutRequirements);
+		for(Map.Entry<BoundaryClass, Integer> h : hits.entrySet()) {
+			if(h.getValue() == h.getKey().requirementKeys)
+				found.add(h.getKey());
+		}
+		return found;
+	}
+
+	/**
+	 * Method which retrieves the members of a list of equivalence classes
+	 * (to be invoked while holding the read lock).
+	 *
+	 * @return The List of members, in registration order.
+	 */
+	private List<ServiceTemplate> members(List<BoundaryClass> classes) {
+		List<ServiceTemplate> members = new ArrayList<ServiceTemplate>();
+		for(BoundaryClass cls : classes)
+			members.addAll(cls.members);
+		return sorted(members);
+	}
+
+	/**
+	 * Method which sorts a collection of registered ServiceTemplate(s) by registration order.
+	 */
+	private List<ServiceTemplate> sorted(Collection<ServiceTemplate> templates) {
+		List<ServiceTemplate> list = new ArrayList<ServiceTemplate>(templates);
+		Collections.sort(list, new Comparator<ServiceTemplate>() {
+			@Override
+			public int compare(ServiceTemplate st1, ServiceTemplate st2) {
+				long s1 = entries.get(st1).sequence;
+				long s2 = entries.get(st2).sequence;
+				return (s1 < s2 ? -1 : (s1 == s2 ? 0 : 1));
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * Method which builds the index key of a named and typed element.
+	 */
+	static String key(String name, String typeName) {
+		return name + '\u001F' + typeName;
+	}
+
+	private static void post(SymbolMap<Set<BoundaryClass>> index, long key, BoundaryClass cls) {
+		Set<BoundaryClass> posting = index.get(key);
+		if(posting == null) {
+			posting = new LinkedHashSet<BoundaryClass>();
+			index.put(key, posting);
+		}
+		posting.add(cls);
+	}
+
+	private static void unpost(SymbolMap<Set<BoundaryClass>> index, long key, BoundaryClass cls) {
+		Set<BoundaryClass> posting = index.get(key);
+		if(posting == null)
+			return;
+		posting.remove(cls);
+		if(posting.isEmpty())
+			index.remove(key);
+	}
+
+	private static Set<BoundaryClass> lookup(SymbolMap<Set<BoundaryClass>> index, long key) {
+		Set<BoundaryClass> posting = index.get(key);
+		if(posting == null)
+			return Collections.emptySet();
+		return posting;
+	}
+
+	/**
+	 * Class which stores the registry information about a ServiceTemplate.
+	 */
+	private static class Entry {
+		/**
+		 * It stores the registration sequence number.
+		 */
+		private final long sequence;
+		/**
+		 * It stores the equivalence class of the ServiceTemplate.
+		 */
+		private final BoundaryClass cls;
+
+		private Entry(long sequence, BoundaryClass cls) {
+			this.sequence = sequence;
+			this.cls = cls;
+		}
+	}
+
+	/**
+	 * Class which models an equivalence class of ServiceTemplate(s) with (structurally) identical
+	 * boundary definitions.
+	 */
+	private static class BoundaryClass {
+		/**
+		 * It stores the fingerprint of the boundary definitions shared by the members.
+		 */
+		private final Fingerprint fingerprint;
+		/**
+		 * It stores the member against which NodeType(s) are matched.
+		 */
+		private ServiceTemplate representative;
+		/**
+		 * It stores the members of the class, in registration order.
+		 */
+		private final Set<ServiceTemplate> members;
+		/**
+		 * It stores the number of distinct "name, type" requirement keys.
+		 */
+		private int requirementKeys;
+		/**
+		 * It stores the signature of the features exposed by the members.
+		 */
+		private FeatureSignature signature;
+		/**
+		 * It stores the types on which the boundary definitions of the members depend, each with
+		 * the number of members depending on it.
+		 */
+		private final Map<EntityType, Integer> types;
+		/**
+		 * It stores the members which have diverged from the representative.
+		 */
+		private volatile Divergence diverged;
+
+		private BoundaryClass(Fingerprint fingerprint, ServiceTemplate representative) {
+			this.fingerprint = fingerprint;
+			this.representative = representative;
+			this.members = new LinkedHashSet<ServiceTemplate>();
+			this.types = new HashMap<EntityType, Integer>();
+			Set<ServiceTemplate> none = Collections.emptySet();
+			this.diverged = new Divergence(EntityType.epoch(), 0, none);
+		}
+
+		/**
+		 * Method which starts (or stops) tracking the types on which the boundary definitions of a member depend.
+		 *
+		 * @param st Member whose types are tracked.
+		 * @param delta 1 if the member joins the class, -1 if it leaves the class.
+		 */
+		private void track(ServiceTemplate st, int delta) {
+			BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+			Set<EntityType> dependencies = new HashSet<EntityType>();
+			for(Capability c : bounds.getCapabilities().getList())
+				c.getType().collectDependencies(dependencies);
+			for(Requirement r : bounds.getRequirements().getList())
+				r.getType().collectDependencies(dependencies);
+			for(Policy p : bounds.getPolicies().getList())
+				p.getType().collectDependencies(dependencies);
+			for(EntityType t : dependencies) {
+				Integer count = types.get(t);
+				int c = (count == null ? 0 : count) + delta;
+				if(c == 0)
+					types.remove(t);
+				else
+					types.put(t, c);
+			}
+		}
+
+		/**
+		 * Method which sums the versions of the tracked types (which changes whenever any of them
+		 * is changed, as versions only increase).
+		 */
+		private long versions() {
+			long versions = 0;
+			for(EntityType t : types.keySet())
+				versions += t.getVersion();
+			return versions;
+		}
+	}
+
+	/**
+	 * Class which models the members of an equivalence class diverged from its representative, at a type epoch
+	 * (when the versions of the types tracked by the class summed up to versions).
+	 */
+	private static class Divergence {
+		private final int epoch;
+		private final long versions;
+		private final Set<ServiceTemplate> members;
+
+		private Divergence(int epoch, long versions, Set<ServiceTemplate> members) {
+			this.epoch = epoch;
+			this.versions = versions;
+			this.members = members;
+		}
+	}
+}
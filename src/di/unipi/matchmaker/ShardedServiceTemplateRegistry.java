@@ -0,0 +1,367 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.Fingerprint;
+import di.unipi.model.tosca.NodeType;
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Class which models a registry of ServiceTemplate(s) partitioned in shards.
+ * <br>
+ * Each shard is a ServiceTemplateRegistry (with its own indexes and signatures), and each registered
+ * ServiceTemplate is placed in the shard already holding its equivalence class (i.e., the ServiceTemplate(s)
+ * with identical boundary definitions, which are hence matched once per query), if any, or in the shard
+ * holding the fewest classes. A query is compiled once, scattered to all
+ * shards on a (work-stealing) ForkJoinPool, and the matches found by the shards are gathered in
+ * registration order. Hence, each query still scans all the shards, but the (smaller) indexes of
+ * the shards are scanned in parallel. The pool is either created (and owned) by the registry, in
+ * which case it is released by close(), or given by the caller, who remains in charge of it.
+ * As for ServiceTemplateRegistry, the registered ServiceTemplate(s) must not be modified
+ * while registered.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ShardedServiceTemplateRegistry implements AutoCloseable {
+	/**
+	 * It stores the shards of the registry.
+	 */
+	private ServiceTemplateRegistry[] shards;
+	/**
+	 * It stores the placement of the registered ServiceTemplate(s).
+	 */
+	private Map<ServiceTemplate, Placement> placements;
+	/**
+	 * It stores the placement of the equivalence classes of the registered ServiceTemplate(s),
+	 * indexed by the fingerprint of their boundary definitions.
+	 */
+	private Map<Fingerprint, ClassPlacement> classes;
+	/**
+	 * It stores the number of equivalence classes placed in each shard.
+	 */
+	private int[] shardClasses;
+	/**
+	 * It stores the sequence number to be assigned to the next registered ServiceTemplate.
+	 */
+	private long nextSequence;
+	/**
+	 * It stores the pool on which the queries are scattered to the shards.
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * It indicates whether the pool has been created by the registry (and must hence be released by it).
+	 */
+	private boolean ownsPool;
+	/**
+	 * It guards the placements (queries share them, registrations are exclusive).
+	 */
+	private ReadWriteLock lock;
+
+	/**
+	 * Constructor (with one shard and one worker per available processor).
+	 */
+	public ShardedServiceTemplateRegistry() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor (with one worker per shard).
+	 * @param shards Number of shards of the registry.
+	 */
+	public ShardedServiceTemplateRegistry(int shards) {
+		this(shards, shards);
+	}
+
+	/**
+	 * Constructor.
+	 * @param shards Number of shards of the registry.
+	 * @param parallelism Number of workers querying the shards.
+	 */
+	public ShardedServiceTemplateRegistry(int shards, int parallelism) {
+		this(shards, newPool(shards, parallelism), true);
+	}
+
+	/**
+	 * Constructor (the pool is owned by the caller, and it is not released by close()).
+	 * @param shards Number of shards of the registry.
+	 * @param pool ForkJoinPool on which the queries are scattered to the shards.
+	 */
+	public ShardedServiceTemplateRegistry(int shards, ForkJoinPool pool) {
+		this(shards, pool, false);
+	}
+
+	private ShardedServiceTemplateRegistry(int shards, ForkJoinPool pool, boolean ownsPool) {
+		if(shards < 1)
+			throw new IllegalArgumentException("Shards must be positive");
+		if(pool == null)
+			throw new IllegalArgumentException("The pool cannot be null");
+		this.shards = new ServiceTemplateRegistry[shards];
+		for(int i = 0; i < shards; i++)
+			this.shards[i] = new ServiceTemplateRegistry();
+		this.placements = new HashMap<ServiceTemplate, Placement>();
+		this.classes = new HashMap<Fingerprint, ClassPlacement>();
+		this.shardClasses = new int[shards];
+		this.nextSequence = 0;
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	private static ForkJoinPool newPool(int shards, int parallelism) {
+		//(The arguments are checked before the pool is created, so that no pool is leaked.)
+		if(shards < 1 || parallelism < 1)
+			throw new IllegalArgumentException("Shards and parallelism must be positive");
+		return new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Method which provides access to the number of shards of the registry.
+	 * @return The number of shards.
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * Method which registers (and indexes) a ServiceTemplate in the shard holding its equivalence
+	 * class (or, if none, in the shard holding the fewest classes).
+	 *
+	 * @param st ServiceTemplate to be registered.
+	 *
+	 * @throws AlreadyPresentException If the ServiceTemplate is already registered.
+	 */
+	public void register(ServiceTemplate st) throws AlreadyPresentException {
+		lock.writeLock().lock();
+		try {
+			if(placements.containsKey(st))
+				throw new AlreadyPresentException("The service template <" + st.getName() + "> is already registered");
+			Fingerprint fingerprint = st.getBoundaryDefinitions().getFingerprint();
+			ClassPlacement cls = classes.get(fingerprint);
+			if(cls == null) {
+				int shard = 0;
+				for(int i = 1; i < shards.length; i++) {
+					if(shardClasses[i] < shardClasses[shard])
+						shard = i;
+				}
+				cls = new ClassPlacement(shard);
+			}
+			shards[cls.shard].register(st);
+			if(cls.members++ == 0) {
+				classes.put(fingerprint, cls);
+				shardClasses[cls.shard]++;
+			}
+			placements.put(st, new Placement(fingerprint, cls.shard, nextSequence++));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which removes a ServiceTemplate from the registry.
+	 *
+	 * @param st ServiceTemplate to be removed.
+	 *
+	 * @return true if the ServiceTemplate was registered, false otherwise.
+	 */
+	public boolean remove(ServiceTemplate st) {
+		lock.writeLock().lock();
+		try {
+			Placement p = placements.remove(st);
+			if(p == null)
+				return false;
+			shards[p.shard].remove(st);
+			ClassPlacement cls = classes.get(p.fingerprint);
+			if(--cls.members == 0) {
+				classes.remove(p.fingerprint);
+				shardClasses[p.shard]--;
+			}
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of registered ServiceTemplate(s).
+	 * @return The number of registered ServiceTemplate(s).
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return placements.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the registered ServiceTemplate(s).
+	 * @return The List of registered ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> getTemplates() {
+		lock.readLock().lock();
+		try {
+			return sorted(new ArrayList<ServiceTemplate>(placements.keySet()));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which exactly match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of exactly matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findExactMatches(NodeType n) {
+		return find(new CompiledNodeQuery(n, MatchMode.EXACT));
+	}
+
+	/**
+	 * Method which retrieves the registered ServiceTemplate(s) which plug-in match a NodeType.
+	 *
+	 * @param n NodeType to be matched.
+	 *
+	 * @return The List of plug-in matching ServiceTemplate(s), in registration order.
+	 */
+	public List<ServiceTemplate> findPlugInMatches(NodeType n) {
+		return find(new CompiledNodeQuery(n, MatchMode.PLUG_IN));
+	}
+
+	private List<ServiceTemplate> find(CompiledNodeQuery query) {
+		List<List<ServiceTemplate>> found = new ArrayList<List<ServiceTemplate>>(
+				Collections.<List<ServiceTemplate>>nCopies(shards.length, null));
+		lock.readLock().lock();
+		try {
+			pool.invoke(new ShardRange(query, found, 0, shards.length));
+			//The matches of the shards are gathered (and sorted) in registration order.
+			List<ServiceTemplate> merged = new ArrayList<ServiceTemplate>();
+			for(List<ServiceTemplate> shardFound : found)
+				merged.addAll(shardFound);
+			return (shards.length > 1 ? sorted(merged) : merged);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which stops the workers of the registry, if it owns its pool (pending queries are completed).
+	 */
+	public void shutdown() {
+		if(ownsPool)
+			pool.shutdown();
+	}
+
+	/**
+	 * Method which releases the pool of the registry, if it owns it (see shutdown()).
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	/**
+	 * Method which sorts a list of registered ServiceTemplate(s) by registration order
+	 * (to be invoked while holding the read lock).
+	 */
+	private List<ServiceTemplate> sorted(List<ServiceTemplate> templates) {
+		Collections.sort(templates, new Comparator<ServiceTemplate>() {
+			@Override
+			public int compare(ServiceTemplate st1, ServiceTemplate st2) {
+				long s1 = placements.get(st1).sequence;
+				long s2 = placements.get(st2).sequence;
+				return (s1 < s2 ? -1 : (s1 == s2 ? 0 : 1));
+			}
+		});
+		return templates;
+	}
+
+	/**
+	 * Class which stores the placement of a registered ServiceTemplate.
+	 */
+	private static class Placement {
+		/**
+		 * It stores the fingerprint of the boundary definitions of the ServiceTemplate (at registration).
+		 */
+		private final Fingerprint fingerprint;
+		/**
+		 * It stores the shard in which the ServiceTemplate is registered.
+		 */
+		private final int shard;
+		/**
+		 * It stores the registration sequence number.
+		 */
+		private final long sequence;
+
+		private Placement(Fingerprint fingerprint, int shard, long sequence) {
+			this.fingerprint = fingerprint;
+			this.shard = shard;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * Class which stores the placement of an equivalence class of registered ServiceTemplate(s).
+	 */
+	private static class ClassPlacement {
+		/**
+		 * It stores the shard in which the members of the class are registered.
+		 */
+		private final int shard;
+		/**
+		 * It stores the number of registered members of the class.
+		 */
+		private int members;
+
+		private ClassPlacement(int shard) {
+			this.shard = shard;
+			this.members = 0;
+		}
+	}
+
+	/**
+	 * Class which models the querying of a range of shards.
+	 */
+	@SuppressWarnings("serial")
+	private class ShardRange extends RecursiveAction {
+		private final CompiledNodeQuery query;
+		/**
+		 * It stores (by shard) the matches found.
+		 */
+		private final List<List<ServiceTemplate>> found;
+		private final int from;
+		private final int to;
+
+		private ShardRange(CompiledNodeQuery query, List<List<ServiceTemplate>> found, int from, int to) {
+			this.query = query;
+			this.found = found;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from == 1) {
+				found.set(from, shards[from].find(query));
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ShardRange(query, found, from, mid), new ShardRange(query, found, mid, to));
+		}
+	}
+}
@@ -0,0 +1,329 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a registry of standing queries, i.e., of NodeTypes subscribed to be notified
+ * of each published ServiceTemplate which matches them.
+ * <br>
+ * Each subscription is indexed by a single "anchor" feature that any matching ServiceTemplate must
+ * expose (the "name, type" of a capability definition, the name of a property definition, or the name of
+ * an interface, in exact mode, or of an operation, in plug-in mode), chosen as the least used anchor
+ * among those of the NodeType. Hence, a published ServiceTemplate is only checked (through the
+ * FeatureSignature and the CompiledNodeQuery of the subscriptions) against the subscriptions anchored
+ * to the features it exposes, plus those requiring no feature at all. The matches are delivered to the
+ * listeners of the subscriptions on an Executor, so that publishing is not delayed by the listeners
+ * (a match whose delivery is rejected by the Executor is delivered in the publishing thread).
+ * <br>
+ * Subscribing, unsubscribing and publishing can be performed concurrently.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class StandingQueryRegistry {
+	//Kinds of anchors.
+	private static final int CAPABILITY = 0;
+	private static final int PROPERTY = 1;
+	private static final int INTERFACE = 2;
+	private static final int OPERATION = 3;
+	private static final int NONE = 4;
+
+	/**
+	 * It stores the subscriptions anchored to each kind of feature, indexed by feature.
+	 */
+	private List<SymbolMap<List<Subscription>>> anchors;
+	/**
+	 * It stores the subscriptions requiring no feature (which are checked against all ServiceTemplate(s)).
+	 */
+	private List<Subscription> unanchored;
+	/**
+	 * It stores the number of subscriptions.
+	 */
+	private int size;
+	/**
+	 * It stores the Executor on which the matches are delivered.
+	 */
+	private Executor executor;
+	/**
+	 * It stores (if any) the TypeHierarchy to be exploited to check type derivations.
+	 */
+	private TypeHierarchy types;
+	/**
+	 * It stores the lock guarding the subscriptions.
+	 */
+	private ReadWriteLock lock;
+
+	/**
+	 * Constructor.
+	 * @param executor Executor on which the matches are delivered to the listeners.
+	 */
+	public StandingQueryRegistry(Executor executor) {
+		this(executor, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param executor Executor on which the matches are delivered to the listeners.
+	 * @param types TypeHierarchy to be exploited to check type derivations (or null).
+	 */
+	public StandingQueryRegistry(Executor executor, TypeHierarchy types) {
+		this.anchors = new ArrayList<SymbolMap<List<Subscription>>>(NONE);
+		for(int kind = 0; kind < NONE; kind++)
+			anchors.add(new SymbolMap<List<Subscription>>());
+		this.unanchored = new ArrayList<Subscription>();
+		this.size = 0;
+		this.executor = executor;
+		this.types = types;
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * Method which subscribes a NodeType, so that the ServiceTemplate(s) matching it (and published
+	 * after the subscription) are delivered to a listener.
+	 *
+	 * @param n NodeType to be matched.
+	 * @param mode Kind of matchmaking to be performed.
+	 * @param listener MatchListener to which the matches are delivered.
+	 *
+	 * @return The Subscription (to be used to unsubscribe).
+	 */
+	public Subscription subscribe(NodeType n, MatchMode mode, MatchListener listener) {
+		Subscription s = new Subscription(this, new CompiledNodeQuery(n, mode, types), listener);
+		lock.writeLock().lock();
+		try {
+			//The least used among the features required by n is chosen as anchor.
+			int bestKind = NONE;
+			long bestKey = 0;
+			int bestSize = Integer.MAX_VALUE;
+			for(long[] anchor : required(n, mode)) {
+				List<Subscription> anchored = anchors.get((int) anchor[0]).get(anchor[1]);
+				int anchoredSize = (anchored == null ? 0 : anchored.size());
+				if(anchoredSize < bestSize) {
+					bestKind = (int) anchor[0];
+					bestKey = anchor[1];
+					bestSize = anchoredSize;
+				}
+			}
+			s.kind = bestKind;
+			s.key = bestKey;
+			if(bestKind == NONE)
+				unanchored.add(s);
+			else {
+				List<Subscription> anchored = anchors.get(bestKind).get(bestKey);
+				if(anchored == null) {
+					anchored = new ArrayList<Subscription>(1);
+					anchors.get(bestKind).put(bestKey, anchored);
+				}
+				anchored.add(s);
+			}
+			s.active = true;
+			size++;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return s;
+	}
+
+	/**
+	 * Method which removes a subscription (the matches not yet delivered are discarded).
+	 *
+	 * @param s Subscription to be removed.
+	 *
+	 * @return true if s was subscribed (to this registry), false otherwise.
+	 */
+	public boolean unsubscribe(Subscription s) {
+		if(s == null || s.registry != this)
+			return false;
+		lock.writeLock().lock();
+		try {
+			if(!s.active)
+				return false;
+			List<Subscription> anchored = (s.kind == NONE ? unanchored : anchors.get(s.kind).get(s.key));
+			if(anchored == null || !anchored.remove(s))
+				return false;
+			if(anchored.isEmpty() && s.kind != NONE)
+				anchors.get(s.kind).remove(s.key);
+			s.active = false;
+			size--;
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which provides access to the number of subscriptions.
+	 * @return The number of subscriptions.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method which publishes a ServiceTemplate, delivering it (asynchronously) to the listeners of
+	 * the subscriptions it matches. If the Executor rejects the delivery to a listener, the
+	 * ServiceTemplate is delivered to such listener in the calling thread.
+	 *
+	 * @param st ServiceTemplate to be published.
+	 *
+	 * @return The number of subscriptions matched by st.
+	 */
+	public int publish(final ServiceTemplate st) {
+		List<Subscription> matched = new ArrayList<Subscription>();
+		lock.readLock().lock();
+		try {
+			//The candidates are the subscriptions anchored to the features exposed by st.
+			Set<Subscription> candidates = Collections.newSetFromMap(new IdentityHashMap<Subscription, Boolean>());
+			BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+			for(Capability c : bounds.getCapabilities().getList()) {
+				CapabilityType cType = c.getType();
+				while(cType != null) {
+					addAll(candidates, anchors.get(CAPABILITY).get(SymbolMap.pair(c.getNameId(), cType.getNameId())));
+					cType = cType.derivedFrom();
+				}
+			}
+			for(Property p : bounds.getProperties().getList())
+				addAll(candidates, anchors.get(PROPERTY).get(p.getNameId()));
+			for(Interface inf : bounds.getInterfaces().getList()) {
+				addAll(candidates, anchors.get(INTERFACE).get(inf.getNameId()));
+				for(Operation op : inf.getOperations())
+					addAll(candidates, anchors.get(OPERATION).get(op.getNameId()));
+			}
+			candidates.addAll(unanchored);
+
+			if(!candidates.isEmpty()) {
+				FeatureSignature signature = FeatureSignature.of(st);
+				for(Subscription s : candidates) {
+					if(s.query.getSignature().admits(signature) && s.query.matches(st))
+						matched.add(s);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		for(final Subscription s : matched) {
+			Runnable delivery = new Runnable() {
+				@Override
+				public void run() {
+					//(s may have been unsubscribed in the meanwhile.)
+					if(s.active)
+						s.listener.matched(s, st);
+				}
+			};
+			//(A rejected delivery must not prevent the delivery to the other listeners.)
+			try {
+				executor.execute(delivery);
+			} catch(RejectedExecutionException e) {
+				delivery.run();
+			}
+		}
+		return matched.size();
+	}
+
+	/**
+	 * Method which determines the anchors (i.e., "kind, key" pairs) that a ServiceTemplate
+	 * must expose to match a NodeType.
+	 */
+	private static List<long[]> required(NodeType n, MatchMode mode) {
+		List<long[]> required = new ArrayList<long[]>();
+		for(CapabilityDefinition cDef : n.getCapabilityDefinitions().getList())
+			required.add(new long[] { CAPABILITY, SymbolMap.pair(cDef.getNameId(), cDef.getCapabilityType().getNameId()) });
+		for(PropertyDefinition pDef : n.getPropertiesDefinition().getList())
+			required.add(new long[] { PROPERTY, pDef.getNameId() });
+		for(Interface inf : n.getInterfaces().getList()) {
+			//Plug-in matching only requires the operations to be exposed.
+			if(mode == MatchMode.EXACT)
+				required.add(new long[] { INTERFACE, inf.getNameId() });
+			else {
+				for(Operation op : inf.getOperations())
+					required.add(new long[] { OPERATION, op.getNameId() });
+			}
+		}
+		return required;
+	}
+
+	private static void addAll(Set<Subscription> candidates, List<Subscription> anchored) {
+		if(anchored != null)
+			candidates.addAll(anchored);
+	}
+
+	/**
+	 * Class which models the subscription of a NodeType to a StandingQueryRegistry.
+	 */
+	public static class Subscription {
+		/**
+		 * It stores the registry to which the NodeType is subscribed.
+		 */
+		private final StandingQueryRegistry registry;
+		/**
+		 * It stores the compiled NodeType.
+		 */
+		private final CompiledNodeQuery query;
+		/**
+		 * It stores the listener to which the matches are delivered.
+		 */
+		private final MatchListener listener;
+		/**
+		 * It stores the kind of the anchor of the subscription.
+		 */
+		private int kind;
+		/**
+		 * It stores the key of the anchor of the subscription.
+		 */
+		private long key;
+		/**
+		 * It indicates whether the subscription is active.
+		 */
+		private volatile boolean active;
+
+		private Subscription(StandingQueryRegistry registry, CompiledNodeQuery query, MatchListener listener) {
+			this.registry = registry;
+			this.query = query;
+			this.listener = listener;
+			this.active = false;
+		}
+
+		/**
+		 * Method which provides access to the subscribed NodeType.
+		 * @return The NodeType of the subscription.
+		 */
+		public NodeType getNodeType() {
+			return query.getNodeType();
+		}
+
+		/**
+		 * Method which provides access to the kind of matchmaking performed.
+		 * @return The MatchMode of the subscription.
+		 */
+		public MatchMode getMode() {
+			return query.getMode();
+		}
+
+		/**
+		 * Method which indicates whether the subscription is active (i.e., not yet unsubscribed).
+		 * @return true if the subscription is active, false otherwise.
+		 */
+		public boolean isActive() {
+			return active;
+		}
+	}
+}
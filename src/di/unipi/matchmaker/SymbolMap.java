@@ -0,0 +1,167 @@
+package di.unipi.matchmaker;
+
+import java.util.Arrays;
+
+/**
+ * Class which models a map whose keys are (pairs of) SymbolTable identifiers.
+ * <br>
+ * Keys are stored as primitive longs in an open addressing table (with linear probing),
+ * hence lookups neither box the keys nor hash strings. A pair of identifiers (e.g., the
+ * name and the type of a capability) is packed into a single key by pair().
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class SymbolMap<V> {
+	/**
+	 * It stores the key marking the free slots (identifiers are never negative).
+	 */
+	private static final long FREE = -1L;
+
+	/**
+	 * It stores the keys of the slots.
+	 */
+	private long[] keys;
+	/**
+	 * It stores the values of the slots.
+	 */
+	private Object[] values;
+	/**
+	 * It stores the number of mappings.
+	 */
+	private int size;
+
+	/**
+	 * Constructor.
+	 */
+	SymbolMap() {
+		this(8);
+	}
+
+	/**
+	 * Constructor.
+	 * @param expected Expected number of mappings.
+	 */
+	SymbolMap(int expected) {
+		int capacity = 16;
+		while(capacity < 2 * expected)
+			capacity <<= 1;
+		keys = new long[capacity];
+		Arrays.fill(keys, FREE);
+		values = new Object[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Method which packs a pair of identifiers into a key.
+	 *
+	 * @param nameId Identifier of the name of an element.
+	 * @param typeId Identifier of the name of the type of an element.
+	 *
+	 * @return The key of the pair.
+	 */
+	static long pair(int nameId, int typeId) {
+		return ((long) nameId << 32) | (typeId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Method which retrieves the value mapped to a key.
+	 *
+	 * @param key Key of the value.
+	 *
+	 * @return The value mapped to key, null if there is no such value.
+	 */
+	@SuppressWarnings("unchecked")
+	V get(long key) {
+		int mask = keys.length - 1;
+		for(int i = slot(key, mask); keys[i] != FREE; i = (i + 1) & mask) {
+			if(keys[i] == key)
+				return (V) values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Method which maps a value to a key (replacing the value previously mapped to it, if any).
+	 *
+	 * @param key Key of the value.
+	 * @param value Value to be mapped.
+	 */
+	void put(long key, V value) {
+		if(2 * (size + 1) > keys.length)
+			resize(2 * keys.length);
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while(keys[i] != FREE && keys[i] != key)
+			i = (i + 1) & mask;
+		if(keys[i] == FREE)
+			size++;
+		keys[i] = key;
+		values[i] = value;
+	}
+
+	/**
+	 * Method which removes the value mapped to a key.
+	 *
+	 * @param key Key of the value.
+	 */
+	void remove(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while(keys[i] != key) {
+			if(keys[i] == FREE)
+				return;
+			i = (i + 1) & mask;
+		}
+		//The following entries of the probing sequence are shifted back (so no tombstones are needed).
+		int j = i;
+		while(true) {
+			j = (j + 1) & mask;
+			if(keys[j] == FREE)
+				break;
+			int home = slot(keys[j], mask);
+			if(((j - home) & mask) >= ((j - i) & mask)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = FREE;
+		values[i] = null;
+		size--;
+	}
+
+	/**
+	 * Method which provides access to the number of mappings.
+	 * @return The number of mappings.
+	 */
+	int size() {
+		return size;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		Arrays.fill(keys, FREE);
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for(int k = 0; k < oldKeys.length; k++) {
+			if(oldKeys[k] == FREE)
+				continue;
+			int i = slot(oldKeys[k], mask);
+			while(keys[i] != FREE)
+				i = (i + 1) & mask;
+			keys[i] = oldKeys[k];
+			values[i] = oldValues[k];
+		}
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
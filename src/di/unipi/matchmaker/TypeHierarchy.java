@@ -0,0 +1,258 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.CyclicDerivationException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which indexes the "derivedFrom" hierarchies of CapabilityType(s), RequirementType(s),
+ * NodeType(s) and PolicyType(s).
+ * <br>
+ * Each added type is labelled with the interval [pre, post] of its visit in the derivation
+ * forest, hence checking whether a type is derived from another one boils down to comparing
+ * two pairs of integers. As for the matchmakers, types are identified by (kind and) name.
+ * The labels are recomputed (once) after adding new types.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class TypeHierarchy {
+	/**
+	 * It stores the nodes of the hierarchy, indexed by kind and name of the corresponding type.
+	 */
+	private Map<Long, Node> nodes;
+	/**
+	 * It stores the nodes of the hierarchy, in insertion order.
+	 */
+	private List<Node> nodeList;
+	/**
+	 * It stores the current labelling (null if it needs to be recomputed).
+	 */
+	private volatile Labels labels;
+
+	/**
+	 * Constructor.
+	 */
+	public TypeHierarchy() {
+		nodes = new ConcurrentHashMap<Long, Node>();
+		nodeList = new ArrayList<Node>();
+		labels = null;
+	}
+
+	/**
+	 * Method which adds a type (and the types from which it is derived) to the hierarchy.
+	 *
+	 * @param type EntityType to be added.
+	 *
+	 * @throws CyclicDerivationException If the type is (directly or indirectly) derived from itself.
+	 * @throws AlreadyDefinedException If a same named type is already defined with a different parent.
+	 */
+	public synchronized void add(EntityType type) throws CyclicDerivationException, AlreadyDefinedException {
+		//The whole chain is first checked, so that nothing is added if it is not valid.
+		List<EntityType> chain = new ArrayList<EntityType>();
+		Set<Long> visited = new HashSet<Long>();
+		EntityType t = type;
+		while(t != null) {
+			if(!visited.add(key(t)))
+				throw new CyclicDerivationException("The type <" + t.getName() + "> is derived from itself");
+			Node node = nodes.get(key(t));
+			if(node != null) {
+				String parentName = (t.derivedFrom() == null ? null : t.derivedFrom().getName());
+				String nodeParentName = (node.parent == null ? null : node.parent.name);
+				if(parentName == null ? nodeParentName != null : !parentName.equals(nodeParentName))
+					throw new AlreadyDefinedException("The type <" + t.getName() + "> is already defined with a different parent");
+				//The rest of the chain has already been checked and added.
+				break;
+			}
+			chain.add(t);
+			t = t.derivedFrom();
+		}
+
+		//The new types are added from the topmost one.
+		for(int i = chain.size() - 1; i >= 0; i--) {
+			t = chain.get(i);
+			Node parent = (t.derivedFrom() == null ? null : nodes.get(key(t.derivedFrom())));
+			Node node = new Node(nodeList.size(), t.getName(), parent);
+			if(parent != null)
+				parent.children.add(node);
+			nodes.put(key(t), node);
+			nodeList.add(node);
+		}
+		if(!chain.isEmpty())
+			labels = null;
+	}
+
+	/**
+	 * Method which adds a collection of types (and the types from which they are derived) to the hierarchy.
+	 *
+	 * @param types EntityType(s) to be added.
+	 *
+	 * @throws CyclicDerivationException If a type is (directly or indirectly) derived from itself.
+	 * @throws AlreadyDefinedException If a same named type is already defined with a different parent.
+	 */
+	public void addAll(Iterable<? extends EntityType> types) throws CyclicDerivationException, AlreadyDefinedException {
+		for(EntityType t : types)
+			add(t);
+	}
+
+	/**
+	 * Method which checks whether a type has been added to the hierarchy.
+	 *
+	 * @param type EntityType to be checked.
+	 *
+	 * @return true if the type belongs to the hierarchy, false otherwise.
+	 */
+	public boolean contains(EntityType type) {
+		return nodes.containsKey(key(type));
+	}
+
+	/**
+	 * Method which checks whether a type is derived from another one (or it is the same).
+	 * <br>
+	 * If any of the two types does not belong to the hierarchy, its "derivedFrom" chain is walked.
+	 *
+	 * @param type EntityType to be checked.
+	 * @param ancestor EntityType from which type should be derived.
+	 *
+	 * @return true if type is derived from ancestor, false otherwise.
+	 */
+	public boolean isDerivedFrom(EntityType type, EntityType ancestor) {
+		Node node = nodes.get(key(type));
+		Node ancestorNode = nodes.get(key(ancestor));
+		if(node == null || ancestorNode == null) {
+			EntityType t = type;
+			while(t != null) {
+				if(ancestor.getNameId() == t.getNameId())
+					return true;
+				t = t.derivedFrom();
+			}
+			return false;
+		}
+		Labels l = labels;
+		if(l == null || node.id >= l.pre.length || ancestorNode.id >= l.pre.length)
+			l = relabel();
+		return (l.pre[ancestorNode.id] <= l.pre[node.id] && l.post[node.id] <= l.post[ancestorNode.id]);
+	}
+
+	/**
+	 * Method which provides access to the depth of a type in the hierarchy.
+	 *
+	 * @param type EntityType whose depth is needed.
+	 *
+	 * @return The depth of the type (0 for base types), -1 if it does not belong to the hierarchy.
+	 */
+	public int depthOf(EntityType type) {
+		Node node = nodes.get(key(type));
+		if(node == null)
+			return -1;
+		int depth = 0;
+		while(node.parent != null) {
+			depth++;
+			node = node.parent;
+		}
+		return depth;
+	}
+
+	/**
+	 * Method which labels the nodes with the pre-/post-order numbers of a visit of the forest.
+	 *
+	 * @return The computed Labels.
+	 */
+	private synchronized Labels relabel() {
+		if(labels != null && labels.pre.length == nodeList.size())
+			return labels;
+		int[] pre = new int[nodeList.size()];
+		int[] post = new int[nodeList.size()];
+		int counter = 0;
+		//The visit is iterative, since derivation chains may be deep.
+		Deque<Node> stack = new ArrayDeque<Node>();
+		Deque<Integer> nextChild = new ArrayDeque<Integer>();
+		for(Node root : nodeList) {
+			if(root.parent != null)
+				continue;
+			pre[root.id] = counter++;
+			stack.push(root);
+			nextChild.push(0);
+			while(!stack.isEmpty()) {
+				Node top = stack.peek();
+				int c = nextChild.pop();
+				if(c < top.children.size()) {
+					nextChild.push(c + 1);
+					Node child = top.children.get(c);
+					pre[child.id] = counter++;
+					stack.push(child);
+					nextChild.push(0);
+				} else {
+					post[top.id] = counter++;
+					stack.pop();
+				}
+			}
+		}
+		labels = new Labels(pre, post);
+		return labels;
+	}
+
+	/**
+	 * Method which builds the key identifying a type (by interned name and kind).
+	 */
+	private static long key(EntityType t) {
+		return SymbolMap.pair(t.getNameId(), kindOf(t));
+	}
+
+	/**
+	 * Method which determines the kind of a type.
+	 */
+	private static int kindOf(EntityType t) {
+		if(t instanceof CapabilityType)
+			return 0;
+		if(t instanceof RequirementType)
+			return 1;
+		if(t instanceof NodeType)
+			return 2;
+		if(t instanceof PolicyType)
+			return 3;
+		return 4 + SymbolTable.intern(t.getClass().getName());
+	}
+
+	/**
+	 * Class which models a node of the hierarchy.
+	 */
+	private static class Node {
+		private final int id;
+		private final String name;
+		private final Node parent;
+		private final List<Node> children;
+
+		private Node(int id, String name, Node parent) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.children = new ArrayList<Node>();
+		}
+	}
+
+	/**
+	 * Class which stores (by node identifier) the pre-/post-order labels of the nodes.
+	 */
+	private static class Labels {
+		private final int[] pre;
+		private final int[] post;
+
+		private Labels(int[] pre, int[] post) {
+			this.pre = pre;
+			this.post = post;
+		}
+	}
+}
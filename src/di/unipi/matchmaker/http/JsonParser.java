@@ -0,0 +1,244 @@
+package di.unipi.matchmaker.http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.exceptions.InvalidDocumentException;
+
+/**
+ * Class which parses a JSON document.
+ * <br>
+ * The document is parsed into a tree of Map(s) (preserving the order of keys), List(s), String(s),
+ * Boolean(s) and null(s). Numbers are kept as String(s) (as they are written in the document).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+final class JsonParser {
+	/**
+	 * It stores the maximum nesting of arrays and objects.
+	 */
+	private static final int MAX_DEPTH = 64;
+
+	private final String text;
+	/**
+	 * It stores the position of the next character to be parsed.
+	 */
+	private int i;
+
+	private JsonParser(String text) {
+		this.text = text;
+		this.i = 0;
+	}
+
+	/**
+	 * Method which parses a JSON document.
+	 *
+	 * @param text The JSON document.
+	 *
+	 * @return The root of the parsed document.
+	 *
+	 * @throws InvalidDocumentException If the document is not valid JSON.
+	 */
+	static Object parse(String text) throws InvalidDocumentException {
+		JsonParser parser = new JsonParser(text);
+		Object root = parser.parseValue(0);
+		parser.skipSpaces();
+		if(parser.i < text.length())
+			throw parser.error("Unexpected content after the document");
+		return root;
+	}
+
+	private Object parseValue(int depth) throws InvalidDocumentException {
+		skipSpaces();
+		if(i == text.length())
+			throw error("A value is expected");
+		char c = text.charAt(i);
+		if(c == '{' || c == '[') {
+			if(depth == MAX_DEPTH)
+				throw error("Too deeply nested document");
+			return (c == '{' ? parseObject(depth + 1) : parseArray(depth + 1));
+		}
+		if(c == '"')
+			return parseString();
+		if(text.startsWith("true", i)) {
+			i += 4;
+			return Boolean.TRUE;
+		}
+		if(text.startsWith("false", i)) {
+			i += 5;
+			return Boolean.FALSE;
+		}
+		if(text.startsWith("null", i)) {
+			i += 4;
+			return null;
+		}
+		return parseNumber();
+	}
+
+	private Map<String, Object> parseObject(int depth) throws InvalidDocumentException {
+		i++;
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		skipSpaces();
+		if(consume('}'))
+			return map;
+		do {
+			skipSpaces();
+			if(i == text.length() || text.charAt(i) != '"')
+				throw error("A key is expected");
+			String key = parseString();
+			if(map.containsKey(key))
+				throw error("Duplicate key <" + key + ">");
+			skipSpaces();
+			if(!consume(':'))
+				throw error("':' expected");
+			map.put(key, parseValue(depth));
+			skipSpaces();
+		} while(consume(','));
+		if(!consume('}'))
+			throw error("',' or '}' expected");
+		return map;
+	}
+
+	private List<Object> parseArray(int depth) throws InvalidDocumentException {
+		i++;
+		List<Object> list = new ArrayList<Object>();
+		skipSpaces();
+		if(consume(']'))
+			return list;
+		do {
+			list.add(parseValue(depth));
+			skipSpaces();
+		} while(consume(','));
+		if(!consume(']'))
+			throw error("',' or ']' expected");
+		return list;
+	}
+
+	private String parseString() throws InvalidDocumentException {
+		i++;
+		StringBuilder s = new StringBuilder();
+		while(true) {
+			if(i == text.length())
+				throw error("Unterminated string");
+			char c = text.charAt(i++);
+			if(c == '"')
+				return s.toString();
+			if(c < 0x20)
+				throw error("Control character in string");
+			if(c != '\\') {
+				s.append(c);
+				continue;
+			}
+			if(i == text.length())
+				throw error("Unterminated string");
+			c = text.charAt(i++);
+			switch(c) {
+			case '"':
+			case '\\':
+			case '/':
+				s.append(c);
+				break;
+			case 'b':
+				s.append('\b');
+				break;
+			case 'f':
+				s.append('\f');
+				break;
+			case 'n':
+				s.append('\n');
+				break;
+			case 'r':
+				s.append('\r');
+				break;
+			case 't':
+				s.append('\t');
+				break;
+			case 'u':
+				int code = 0;
+				for(int j = 0; j < 4; j++) {
+					//(Only ASCII hexadecimal digits are allowed.)
+					char h = (i < text.length() ? text.charAt(i) : 'g');
+					int digit = (h <= 'f' ? Character.digit(h, 16) : -1);
+					if(digit < 0)
+						throw error("Invalid unicode escape");
+					code = 16 * code + digit;
+					i++;
+				}
+				s.append((char) code);
+				break;
+			default:
+				throw error("Invalid escape sequence");
+			}
+		}
+	}
+
+	private String parseNumber() throws InvalidDocumentException {
+		//number = [ "-" ] ( "0" / digit1-9 *digit ) [ "." 1*digit ] [ ( "e" / "E" ) [ "+" / "-" ] 1*digit ]
+		int start = i;
+		consume('-');
+		if(!consume('0') && digits() == 0) {
+			i = start;
+			throw error("A value is expected");
+		}
+		if(consume('.') && digits() == 0)
+			throw error("A digit is expected");
+		if(consume('e') || consume('E')) {
+			if(!consume('+'))
+				consume('-');
+			if(digits() == 0)
+				throw error("A digit is expected");
+		}
+		return text.substring(start, i);
+	}
+
+	/**
+	 * Method which skips a (possibly empty) sequence of decimal digits.
+	 *
+	 * @return The number of skipped digits.
+	 */
+	private int digits() {
+		int start = i;
+		while(i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9')
+			i++;
+		return i - start;
+	}
+
+	private void skipSpaces() {
+		while(i < text.length() && " \t\r\n".indexOf(text.charAt(i)) >= 0)
+			i++;
+	}
+
+	private boolean consume(char c) {
+		if(i == text.length() || text.charAt(i) != c)
+			return false;
+		i++;
+		return true;
+	}
+
+	private InvalidDocumentException error(String message) {
+		return new InvalidDocumentException(message + " (at character " + i + ")");
+	}
+
+	/**
+	 * Method which quotes a String as a JSON string.
+	 */
+	static String quote(String s) {
+		StringBuilder q = new StringBuilder(s.length() + 2).append('"');
+		for(int j = 0; j < s.length(); j++) {
+			char c = s.charAt(j);
+			if(c == '"' || c == '\\')
+				q.append('\\').append(c);
+			else if(c < 0x20)
+				q.append(String.format("\\u%04x", (int) c));
+			else
+				q.append(c);
+		}
+		return q.append('"').toString();
+	}
+}
@@ -0,0 +1,238 @@
+package di.unipi.matchmaker.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.matchmaker.MatchMode;
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.InvalidDocumentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models a (JSON) NodeType query.
+ * <br>
+ * A query is a JSON object of the form:
+ * <pre>
+ * { "name": "Server", "mode": "plug-in", "candidates": false,
+ *   "capabilities": [ { "name": "os", "type": "OSContainer" } ],
+ *   "requirements": [ { "name": "db", "type": "DBConnection" } ],
+ *   "properties": [ { "name": "port", "type": "java.lang.Integer" } ],
+ *   "interfaces": [ { "name": "lifecycle", "operations": [ { "name": "start",
+ *       "input": [ { "name": "cfg", "type": "java.lang.String", "required": true } ], "output": [] } ] } ] }
+ * </pre>
+ * where "mode" is either "exact" or "plug-in" (default), "candidates" indicates whether also the
+ * unmatched candidates must be reported, and types are resolved by name. Property types are only
+ * resolved among the known ones (through PropertyType.lookupKnown), hence no class is loaded.
+ * Capability and requirement types are resolved by a TypeResolver. A capability type which it does not
+ * resolve is only known by name (which suffices, as the types of the capabilities of a ServiceTemplate
+ * are checked to derive from it by name). Instead, plug-in matching checks the requirement types of the
+ * queried NodeType to derive from those of a ServiceTemplate, hence a plug-in query whose requirement
+ * types are not resolved is rejected (in exact mode, they are only known by name).
+ * <br>
+ * The names of a query are not interned (as queries are transient). A name which has never been
+ * interned is not the name of any element of the matched ServiceTemplate(s): if the query requires
+ * a ServiceTemplate to expose an element with such a name (or a capability of an unknown type), the
+ * query cannot be matched and no NodeType is built; otherwise, the name is replaced by UNKNOWN.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+final class MatchQuery {
+	/**
+	 * It stores the name replacing the names which have never been interned.
+	 */
+	static final String UNKNOWN = "\u0000unknown";
+	/**
+	 * It stores the type of the requirements whose type is unknown.
+	 */
+	private static final RequirementType UNKNOWN_REQUIREMENT_TYPE = new RequirementType(UNKNOWN);
+
+	/**
+	 * It stores the queried NodeType (null if the query cannot be matched).
+	 */
+	private final NodeType n;
+	private final MatchMode mode;
+	/**
+	 * It indicates whether also the unmatched candidates must be reported.
+	 */
+	private final boolean candidates;
+
+	private MatchQuery(NodeType n, MatchMode mode, boolean candidates) {
+		this.n = n;
+		this.mode = mode;
+		this.candidates = candidates;
+	}
+
+	/**
+	 * Method which provides access to the queried NodeType.
+	 * @return The NodeType of the query, null if it cannot be matched by any ServiceTemplate.
+	 */
+	NodeType getNodeType() {
+		return n;
+	}
+
+	MatchMode getMode() {
+		return mode;
+	}
+
+	boolean reportsCandidates() {
+		return candidates;
+	}
+
+	/**
+	 * Method which reads a query from its JSON document.
+	 *
+	 * @param json The JSON document.
+	 * @param resolver TypeResolver resolving the names of capability and requirement types.
+	 *
+	 * @return The MatchQuery.
+	 *
+	 * @throws InvalidDocumentException If the document is not a valid query.
+	 */
+	static MatchQuery read(String json, TypeResolver resolver) throws InvalidDocumentException {
+		Map<String, Object> root = object(JsonParser.parse(json), "query");
+		String modeName = optionalString(root, "mode");
+		MatchMode mode;
+		if(modeName == null || modeName.equals("plug-in"))
+			mode = MatchMode.PLUG_IN;
+		else if(modeName.equals("exact"))
+			mode = MatchMode.EXACT;
+		else
+			throw new InvalidDocumentException("Unknown mode <" + modeName + ">");
+		Object candidates = root.get("candidates");
+		if(candidates != null && !(candidates instanceof Boolean))
+			throw new InvalidDocumentException("<candidates> must be a boolean");
+
+		//The whole document is validated, even if the query turns out not to be matchable.
+		boolean matchable = true;
+		try {
+			NodeType.Builder builder = new NodeType.Builder(known(string(root, "name")));
+			for(Map<String, Object> c : objects(root, "capabilities")) {
+				String name = string(c, "name");
+				String typeName = string(c, "type");
+				CapabilityType cType = resolver.getCapabilityType(typeName);
+				if(cType == null && SymbolTable.lookup(typeName) >= 0)
+					cType = new CapabilityType(typeName);
+				if(SymbolTable.lookup(name) < 0 || cType == null)
+					matchable = false;
+				else
+					builder.addCapabilityDefinition(name, cType);
+			}
+			for(Map<String, Object> r : objects(root, "requirements")) {
+				String typeName = string(r, "type");
+				RequirementType rType = resolver.getRequirementType(typeName);
+				if(rType == null) {
+					if(mode == MatchMode.PLUG_IN)
+						throw new InvalidDocumentException("Unknown requirement type <" + typeName + "> (plug-in matching needs its derivations)");
+					rType = (SymbolTable.lookup(typeName) >= 0 ? new RequirementType(typeName) : UNKNOWN_REQUIREMENT_TYPE);
+				}
+				builder.addRequirementDefinition(known(string(r, "name")), rType);
+			}
+			for(Map<String, Object> p : objects(root, "properties")) {
+				String name = string(p, "name");
+				PropertyType pType = propertyType(p);
+				if(SymbolTable.lookup(name) < 0)
+					matchable = false;
+				else
+					builder.addPropertyDefinition(name, pType);
+			}
+			for(Map<String, Object> inf : objects(root, "interfaces")) {
+				String name = string(inf, "name");
+				//(Plug-in matching only requires the operations to be exposed.)
+				if(mode == MatchMode.EXACT && SymbolTable.lookup(name) < 0)
+					matchable = false;
+				List<Operation> ops = new ArrayList<Operation>();
+				for(Map<String, Object> op : objects(inf, "operations")) {
+					String opName = string(op, "name");
+					List<Parameter> input = parameters(op, "input");
+					List<Parameter> output = parameters(op, "output");
+					if(SymbolTable.lookup(opName) < 0)
+						matchable = false;
+					else
+						ops.add(new Operation(opName, input, output));
+				}
+				if(matchable)
+					builder.addInterface(new Interface(known(name), ops));
+			}
+			return new MatchQuery(matchable ? builder.build() : null, mode, Boolean.TRUE.equals(candidates));
+		} catch(AlreadyDefinedException e) {
+			throw new InvalidDocumentException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Method which provides the name to be given to an element of the queried NodeType (without
+	 * interning it).
+	 */
+	private static String known(String name) {
+		return (SymbolTable.lookup(name) >= 0 ? name : UNKNOWN);
+	}
+
+	private static List<Parameter> parameters(Map<String, Object> op, String key) throws InvalidDocumentException {
+		List<Parameter> params = new ArrayList<Parameter>();
+		for(Map<String, Object> p : objects(op, key)) {
+			Object required = p.get("required");
+			if(required != null && !(required instanceof Boolean))
+				throw new InvalidDocumentException("<required> must be a boolean");
+			params.add(new Parameter(known(string(p, "name")), propertyType(p), !Boolean.FALSE.equals(required)));
+		}
+		return params;
+	}
+
+	private static PropertyType propertyType(Map<String, Object> element) throws InvalidDocumentException {
+		String name = string(element, "type");
+		PropertyType type = PropertyType.lookupKnown(name);
+		if(type == null)
+			throw new InvalidDocumentException("Unknown property type <" + name + ">");
+		return type;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> object(Object value, String what) throws InvalidDocumentException {
+		if(!(value instanceof Map))
+			throw new InvalidDocumentException("<" + what + "> must be an object");
+		return (Map<String, Object>) value;
+	}
+
+	private static List<Map<String, Object>> objects(Map<String, Object> map, String key) throws InvalidDocumentException {
+		Object value = map.get(key);
+		if(value == null)
+			return Collections.emptyList();
+		if(!(value instanceof List))
+			throw new InvalidDocumentException("<" + key + "> must be an array");
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+		for(Object item : (List<?>) value)
+			list.add(object(item, key));
+		return list;
+	}
+
+	private static String string(Map<String, Object> map, String key) throws InvalidDocumentException {
+		String value = optionalString(map, key);
+		if(value == null || value.isEmpty())
+			throw new InvalidDocumentException("<" + key + "> is missing");
+		return value;
+	}
+
+	private static String optionalString(Map<String, Object> map, String key) throws InvalidDocumentException {
+		Object value = map.get(key);
+		if(value != null && !(value instanceof String))
+			throw new InvalidDocumentException("<" + key + "> must be a string");
+		return (String) value;
+	}
+
+	/**
+	 * Interface which models the resolution of (capability and requirement) type names.
+	 * <br>
+	 * A name is resolved to null if the type (together with the types from which it is derived) is not known.
+	 */
+	interface TypeResolver {
+		CapabilityType getCapabilityType(String name);
+
+		RequirementType getRequirementType(String name);
+	}
+}
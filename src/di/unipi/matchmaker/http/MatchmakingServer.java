@@ -0,0 +1,266 @@
+package di.unipi.matchmaker.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import di.unipi.matchmaker.MatchMode;
+import di.unipi.matchmaker.MatchResult;
+import di.unipi.matchmaker.ServiceTemplateRegistry;
+import di.unipi.model.exceptions.InvalidDocumentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which serves (exact and plug-in) matchmaking queries over HTTP, against the ServiceTemplate(s)
+ * of a ServiceTemplateRegistry.
+ * <br>
+ * A query is a JSON NodeType (see MatchQuery) POSTed to "/match". The matching ServiceTemplate(s) are
+ * found through the indexes of the registry (see ServiceTemplateRegistry.findPlugInMatches), and the
+ * results are streamed back (chunked), one JSON object per line, e.g.:
+ * <pre>
+ * {"template":"S1","matched":true,"capabilities":true,"requirements":true,"policies":true,"properties":true,"interfaces":true}
+ * </pre>
+ * Only the matching ServiceTemplate(s) are reported, unless the query asks for all the candidates (in which
+ * case only the unmatched candidates are verbosely matched, one at a time, to report the failing phases).
+ * Queries which cannot be matched by any ServiceTemplate (e.g., requiring capabilities of unknown types)
+ * are answered with no results. Invalid queries (e.g., referring to unknown property types, or plug-in
+ * queries referring to requirement types which are not among the given types) are answered with status
+ * 400 and a JSON object {"error": ...}.
+ * <br>
+ * The server keeps no per-query state, hence queries are served concurrently on the given Executor
+ * (e.g., a virtual thread per task executor, where available).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class MatchmakingServer {
+	/**
+	 * It stores the path on which queries are served.
+	 */
+	public static final String CONTEXT = "/match";
+	/**
+	 * It stores the maximum size (in bytes) of a query.
+	 */
+	private static final int MAX_QUERY_SIZE = 1 << 20;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * It stores the registry of the ServiceTemplate(s) to be matched.
+	 */
+	private ServiceTemplateRegistry registry;
+	/**
+	 * It stores the known capability types, indexed by name.
+	 */
+	private Map<String, CapabilityType> capabilityTypes;
+	/**
+	 * It stores the known requirement types, indexed by name.
+	 */
+	private Map<String, RequirementType> requirementTypes;
+	/**
+	 * It stores the Executor on which queries are served.
+	 */
+	private Executor executor;
+	/**
+	 * It stores the underlying HttpServer (null if the server is not started).
+	 */
+	private HttpServer server;
+
+	/**
+	 * Constructor (the types referenced by the queries are only known by name, hence plug-in queries
+	 * with requirements are rejected).
+	 * @param registry Registry of the ServiceTemplate(s) to be matched.
+	 * @param executor Executor on which queries are served.
+	 */
+	public MatchmakingServer(ServiceTemplateRegistry registry, Executor executor) {
+		this(registry, Collections.<EntityType>emptyList(), executor);
+	}
+
+	/**
+	 * Constructor.
+	 * @param registry Registry of the ServiceTemplate(s) to be matched.
+	 * @param types Types to which the names referenced by the queries are resolved (e.g., those of a reader).
+	 * @param executor Executor on which queries are served.
+	 */
+	public MatchmakingServer(ServiceTemplateRegistry registry, Collection<? extends EntityType> types, Executor executor) {
+		this.registry = registry;
+		this.capabilityTypes = new HashMap<String, CapabilityType>();
+		this.requirementTypes = new HashMap<String, RequirementType>();
+		for(EntityType t : types) {
+			if(t instanceof CapabilityType)
+				capabilityTypes.put(t.getName(), (CapabilityType) t);
+			else if(t instanceof RequirementType)
+				requirementTypes.put(t.getName(), (RequirementType) t);
+		}
+		this.executor = executor;
+		this.server = null;
+	}
+
+	/**
+	 * Method which starts the server.
+	 *
+	 * @param address Address on which the server listens (port 0 for an ephemeral port).
+	 *
+	 * @throws IOException If the server cannot be bound to address.
+	 */
+	public synchronized void start(InetSocketAddress address) throws IOException {
+		if(server != null)
+			throw new IllegalStateException("The server is already started");
+		server = HttpServer.create(address, 0);
+		server.createContext(CONTEXT, new MatchHandler());
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Method which provides access to the address on which the server listens.
+	 * @return The bound address, null if the server is not started.
+	 */
+	public synchronized InetSocketAddress getAddress() {
+		return (server == null ? null : server.getAddress());
+	}
+
+	/**
+	 * Method which stops the server.
+	 * @param delay Maximum time (in seconds) to wait for the queries being served.
+	 */
+	public synchronized void stop(int delay) {
+		if(server == null)
+			return;
+		server.stop(delay);
+		server = null;
+	}
+
+	/**
+	 * Method which writes the result of the matchmaking of a candidate as a JSON line.
+	 */
+	private static void write(Writer out, MatchResult r) throws IOException {
+		write(out, r.getServiceTemplate(), r.isMatched(), r.areCapabilitiesMatched(), r.areRequirementsMatched(),
+				r.arePoliciesMatched(), r.arePropertiesMatched(), r.areInterfacesMatched());
+	}
+
+	/**
+	 * Method which writes a matching candidate (whose phases are hence all matched) as a JSON line.
+	 */
+	private static void write(Writer out, ServiceTemplate st) throws IOException {
+		write(out, st, true, true, true, true, true, true);
+	}
+
+	private static void write(Writer out, ServiceTemplate st, boolean matched, boolean capabilities, boolean requirements,
+			boolean policies, boolean properties, boolean interfaces) throws IOException {
+		out.write("{\"template\":" + JsonParser.quote(st.getName()) +
+				",\"matched\":" + matched +
+				",\"capabilities\":" + capabilities +
+				",\"requirements\":" + requirements +
+				",\"policies\":" + policies +
+				",\"properties\":" + properties +
+				",\"interfaces\":" + interfaces + "}\n");
+	}
+
+	private static String readQuery(InputStream in) throws IOException, InvalidDocumentException {
+		ByteArrayOutputStream query = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while((read = in.read(buffer)) > 0) {
+			query.write(buffer, 0, read);
+			if(query.size() > MAX_QUERY_SIZE)
+				throw new InvalidDocumentException("The query exceeds " + MAX_QUERY_SIZE + " bytes");
+		}
+		return new String(query.toByteArray(), UTF8);
+	}
+
+	private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	/**
+	 * Class which serves the queries.
+	 */
+	private class MatchHandler implements HttpHandler, MatchQuery.TypeResolver {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				if(!exchange.getRequestMethod().equals("POST")) {
+					exchange.getResponseHeaders().set("Allow", "POST");
+					reply(exchange, 405, "{\"error\":\"Queries must be POSTed\"}");
+					return;
+				}
+				MatchQuery query;
+				try {
+					query = MatchQuery.read(readQuery(exchange.getRequestBody()), this);
+				} catch(InvalidDocumentException e) {
+					reply(exchange, 400, "{\"error\":" + JsonParser.quote(e.getMessage()) + "}");
+					return;
+				}
+
+				NodeType n = query.getNodeType();
+				MatchMode mode = query.getMode();
+				List<ServiceTemplate> matches;
+				List<ServiceTemplate> candidates;
+				if(n == null) {
+					matches = Collections.emptyList();
+					candidates = matches;
+				} else {
+					//The matches are found on the indexes of the registry (by a query compiled once).
+					matches = (mode == MatchMode.EXACT ? registry.findExactMatches(n) : registry.findPlugInMatches(n));
+					if(query.reportsCandidates())
+						candidates = (mode == MatchMode.EXACT ? registry.getExactCandidates(n) : registry.getPlugInCandidates(n));
+					else
+						candidates = matches;
+				}
+				Set<ServiceTemplate> matched = Collections.newSetFromMap(new IdentityHashMap<ServiceTemplate, Boolean>());
+				matched.addAll(matches);
+				exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+				//A zero length response is sent chunked.
+				exchange.sendResponseHeaders(200, 0);
+				Writer out = new OutputStreamWriter(exchange.getResponseBody(), UTF8);
+				for(ServiceTemplate st : candidates) {
+					//Only the unmatched candidates are verbosely matched (to report their failing phases).
+					if(matched.contains(st))
+						write(out, st);
+					else
+						write(out, mode.newMatchmaker(n, st).matchResult());
+					out.flush();
+				}
+				out.close();
+			} finally {
+				exchange.close();
+			}
+		}
+
+		//Only the given types are resolved (those only known by name are left to MatchQuery).
+		@Override
+		public CapabilityType getCapabilityType(String name) {
+			return capabilityTypes.get(name);
+		}
+
+		@Override
+		public RequirementType getRequirementType(String name) {
+			return requirementTypes.get(name);
+		}
+	}
+}
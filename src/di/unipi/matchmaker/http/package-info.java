@@ -0,0 +1,11 @@
+/**
+ * Package which provides an HTTP front end of the matchmakers, answering (JSON) NodeType queries
+ * against a preloaded catalog of ServiceTemplate(s).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+package di.unipi.matchmaker.http;
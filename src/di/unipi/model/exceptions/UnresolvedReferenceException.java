@@ -0,0 +1,23 @@
+package di.unipi.model.exceptions;
+
+/**
+ * Class which models the exception to be raised when a referenced TOSCA definition cannot be found.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@SuppressWarnings("serial")
+public class UnresolvedReferenceException extends Exception {
+	/**
+	 * Constructor.
+	 *
+	 * @param info Further information about the exception.
+	 */
+	public UnresolvedReferenceException(String info){
+		super(info);
+	}
+
+}
@@ -0,0 +1,49 @@
+package di.unipi.model.loader;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+
+/**
+ * Class which models a definition read from a document, whose loading may wait for (not yet loaded) types.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+abstract class Declaration {
+	/**
+	 * It stores the (kind and name of the) types referenced by the definition.
+	 */
+	final Set<String> dependencies = new LinkedHashSet<String>();
+	/**
+	 * It stores the referenced types which have not yet been loaded.
+	 */
+	final Set<String> missing = new LinkedHashSet<String>();
+
+	/**
+	 * Method which records a reference to a type.
+	 *
+	 * @param kind Kind of the referenced type.
+	 * @param name Name of the referenced type.
+	 */
+	void require(String kind, String name) {
+		dependencies.add(TypeTable.key(kind, name));
+	}
+
+	/**
+	 * Method which loads the definition (once all its references are resolved).
+	 *
+	 * @param table TypeTable containing the referenced types.
+	 *
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary (or an AppliesTo reference) is given twice.
+	 * @throws UnresolvedReferenceException If an element of a referenced type is not found.
+	 */
+	abstract void load(TypeTable table) throws AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException;
+}
@@ -0,0 +1,24 @@
+package di.unipi.model.loader;
+
+import di.unipi.model.tosca.ServiceTemplate;
+
+/**
+ * Interface which models the consumer of the ServiceTemplate(s) loaded by a reader.
+ * <br>
+ * Each ServiceTemplate is handed over as soon as it has been completely loaded (and all its
+ * references have been resolved), hence a reader does not need to keep it in memory.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public interface ServiceTemplateHandler {
+	/**
+	 * Method which consumes a loaded ServiceTemplate.
+	 *
+	 * @param st The loaded ServiceTemplate.
+	 */
+	public void handle(ServiceTemplate st);
+}
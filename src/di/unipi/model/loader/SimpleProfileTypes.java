@@ -0,0 +1,63 @@
+package di.unipi.model.loader;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.tosca.PropertyType;
+
+/**
+ * Class which maps the TOSCA Simple Profile (primitive) data types to the Java classes typing properties and parameters.
+ * <br>
+ * Complex data types are mapped to the PropertyType(s) defined with the same name (if any), to Object otherwise.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@SuppressWarnings("rawtypes")
+final class SimpleProfileTypes {
+	/**
+	 * It stores the Java classes corresponding to the data types.
+	 */
+	private static final Map<String, Class> CLASSES = new HashMap<String, Class>();
+
+	static {
+		CLASSES.put("string", String.class);
+		CLASSES.put("integer", Integer.class);
+		CLASSES.put("float", Double.class);
+		CLASSES.put("boolean", Boolean.class);
+		CLASSES.put("timestamp", Date.class);
+		CLASSES.put("version", String.class);
+		CLASSES.put("range", List.class);
+		CLASSES.put("list", List.class);
+		CLASSES.put("map", Map.class);
+		CLASSES.put("scalar-unit.size", String.class);
+		CLASSES.put("scalar-unit.time", String.class);
+		CLASSES.put("scalar-unit.frequency", String.class);
+		CLASSES.put("scalar-unit.bitrate", String.class);
+	}
+
+	private SimpleProfileTypes() { }
+
+	/**
+	 * Method which determines the PropertyType corresponding to a data type.
+	 *
+	 * @param type Name of the data type (possibly prefixed by "tosca:").
+	 *
+	 * @return The corresponding PropertyType (that defined with the same name for complex data
+	 * types, if any, Object otherwise).
+	 */
+	static PropertyType toPropertyType(String type) {
+		if(type == null)
+			return PropertyType.of(Object.class);
+		Class c = CLASSES.get(type.startsWith("tosca:") ? type.substring(6) : type);
+		if(c != null)
+			return PropertyType.of(c);
+		PropertyType t = PropertyType.lookup(type);
+		return (t != null ? t : PropertyType.of(Object.class));
+	}
+}
@@ -0,0 +1,188 @@
+package di.unipi.model.loader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models the declaration of a ServiceTemplate (read from a document).
+ * <br>
+ * Boundary capabilities and requirements are either typed directly, or mapped onto the definitions
+ * of a NodeType, and mapped interfaces take their operations from the substituted NodeType. Such
+ * NodeType(s) are referenced (as any other type), hence they are resolved when the declaration is loaded.
+ * Once loaded, the ServiceTemplate is handed over to a ServiceTemplateHandler.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class TemplateDeclaration extends Declaration {
+	final String name;
+	private final ServiceTemplateHandler handler;
+	final List<Property> properties = new ArrayList<Property>();
+	/**
+	 * It stores the boundary policies, as pairs "name, type".
+	 */
+	final List<String[]> policies = new ArrayList<String[]>();
+	/**
+	 * It stores the boundary requirements, as pairs "name, type".
+	 */
+	final List<String[]> requirements = new ArrayList<String[]>();
+	/**
+	 * It stores the boundary capabilities, as pairs "name, type".
+	 */
+	final List<String[]> capabilities = new ArrayList<String[]>();
+	final List<Interface> interfaces = new ArrayList<Interface>();
+	/**
+	 * It stores the boundary capabilities mapped onto capability definitions, as triples "name, node type, definition".
+	 */
+	private final List<String[]> capabilityMappings = new ArrayList<String[]>();
+	/**
+	 * It stores the boundary requirements mapped onto requirement definitions, as triples "name, node type, definition".
+	 */
+	private final List<String[]> requirementMappings = new ArrayList<String[]>();
+	/**
+	 * It stores the name of the substituted NodeType (null if none).
+	 */
+	private String substituted;
+	/**
+	 * It stores the names of the operations of the mapped interfaces, indexed by interface name.
+	 */
+	private final Map<String, List<String>> interfaceMappings = new LinkedHashMap<String, List<String>>();
+
+	/**
+	 * Constructor.
+	 * @param name Name of the declared ServiceTemplate.
+	 * @param handler ServiceTemplateHandler consuming the loaded ServiceTemplate.
+	 */
+	TemplateDeclaration(String name, ServiceTemplateHandler handler) {
+		this.name = name;
+		this.handler = handler;
+	}
+
+	void addPolicy(String name, String type) {
+		require(TypeTable.POLICY_TYPE, type);
+		policies.add(new String[] { name, type });
+	}
+
+	void addRequirement(String name, String type) {
+		require(TypeTable.REQUIREMENT_TYPE, type);
+		requirements.add(new String[] { name, type });
+	}
+
+	void addCapability(String name, String type) {
+		require(TypeTable.CAPABILITY_TYPE, type);
+		capabilities.add(new String[] { name, type });
+	}
+
+	/**
+	 * Method which maps a boundary capability onto a capability definition of a NodeType (or of its ancestors).
+	 * @param name Name of the boundary capability.
+	 * @param nodeType Name of the NodeType.
+	 * @param definition Name of the capability definition.
+	 */
+	void mapCapability(String name, String nodeType, String definition) {
+		require(TypeTable.NODE_TYPE, nodeType);
+		capabilityMappings.add(new String[] { name, nodeType, definition });
+	}
+
+	/**
+	 * Method which maps a boundary requirement onto a requirement definition of a NodeType (or of its ancestors).
+	 * @param name Name of the boundary requirement.
+	 * @param nodeType Name of the NodeType.
+	 * @param definition Name of the requirement definition.
+	 */
+	void mapRequirement(String name, String nodeType, String definition) {
+		require(TypeTable.NODE_TYPE, nodeType);
+		requirementMappings.add(new String[] { name, nodeType, definition });
+	}
+
+	/**
+	 * Method which sets the NodeType substituted by the ServiceTemplate.
+	 * @param nodeType Name of the substituted NodeType.
+	 */
+	void substitute(String nodeType) {
+		require(TypeTable.NODE_TYPE, nodeType);
+		substituted = nodeType;
+	}
+
+	/**
+	 * Method which maps a boundary interface onto (some of) the operations of the substituted NodeType.
+	 * @param name Name of the interface.
+	 * @param operations Names of the mapped operations.
+	 */
+	void mapInterface(String name, List<String> operations) {
+		interfaceMappings.put(name, operations);
+	}
+
+	@Override
+	void load(TypeTable table) throws AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		BoundaryDefinitions.Builder bounds = new BoundaryDefinitions.Builder();
+		for(String[] r : requirements)
+			bounds.add(new Requirement(r[0], table.getRequirementType(r[1])));
+		for(String[] r : requirementMappings)
+			bounds.add(new Requirement(r[0], requirementDefinition(table.getNodeType(r[1]), r[2]).getRequirementType()));
+		for(String[] c : capabilities)
+			bounds.add(new Capability(c[0], table.getCapabilityType(c[1])));
+		for(String[] c : capabilityMappings)
+			bounds.add(new Capability(c[0], capabilityDefinition(table.getNodeType(c[1]), c[2]).getCapabilityType()));
+		for(String[] pol : policies)
+			bounds.add(new Policy(pol[0], table.getPolicyType(pol[1])));
+		for(Property p : properties)
+			bounds.add(p);
+		for(Interface inf : interfaces)
+			bounds.add(inf);
+		for(Map.Entry<String, List<String>> inf : interfaceMappings.entrySet()) {
+			if(substituted == null)
+				throw new UnresolvedReferenceException("The interface <" + inf.getKey() + "> of " + name + " is mapped without a substituted NodeType");
+			List<Operation> ops = new ArrayList<Operation>();
+			for(String op : inf.getValue())
+				ops.add(operation(table.getNodeType(substituted), inf.getKey(), op));
+			bounds.add(new Interface(inf.getKey(), ops));
+		}
+		handler.handle(new ServiceTemplate(name, bounds.build()));
+	}
+
+	private CapabilityDefinition capabilityDefinition(NodeType n, String definition) throws UnresolvedReferenceException {
+		for(NodeType t = n; t != null; t = t.derivedFrom()) {
+			CapabilityDefinition cDef = t.getCapabilityDefinitions().getDefinition(definition);
+			if(cDef != null)
+				return cDef;
+		}
+		throw new UnresolvedReferenceException("The capability <" + definition + "> of the NodeType <" + n.getName() + "> is not defined");
+	}
+
+	private RequirementDefinition requirementDefinition(NodeType n, String definition) throws UnresolvedReferenceException {
+		for(NodeType t = n; t != null; t = t.derivedFrom()) {
+			RequirementDefinition rDef = t.getRequirementDefinitions().getDefinition(definition);
+			if(rDef != null)
+				return rDef;
+		}
+		throw new UnresolvedReferenceException("The requirement <" + definition + "> of the NodeType <" + n.getName() + "> is not defined");
+	}
+
+	/**
+	 * Method which retrieves an operation of (an interface of) a NodeType, or of its ancestors.
+	 */
+	private static Operation operation(NodeType n, String inf, String op) throws UnresolvedReferenceException {
+		for(NodeType t = n; t != null; t = t.derivedFrom()) {
+			for(Interface i : t.getInterfaces().getList()) {
+				if(!i.getName().equals(inf))
+					continue;
+				for(Operation o : i.getOperations()) {
+					if(o.getName().equals(op))
+						return o;
+				}
+			}
+		}
+		throw new UnresolvedReferenceException("The operation <" + inf + "." + op + "> of the NodeType <" + n.getName() + "> is not defined");
+	}
+}
@@ -0,0 +1,466 @@
+package di.unipi.model.loader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which loads TOSCA XML Definitions documents (by means of a streaming StAX parser).
+ * <br>
+ * The CapabilityType, RequirementType, NodeType and PolicyType elements are loaded into the
+ * corresponding types (which are kept by the reader, and can be referenced by the documents it
+ * reads later). The ServiceTemplate elements are loaded into ServiceTemplate(s) with their
+ * BoundaryDefinitions, and they are handed over to a ServiceTemplateHandler as soon as they are
+ * read. Hence, the memory needed to read a document only depends on its types (and not on the
+ * number of its ServiceTemplate(s)). Definitions referring to types which are defined later in the
+ * same document (e.g., through DerivedFrom) are kept until such types are read.
+ * <br>
+ * As for the TOSCA model, types are identified by their (local) names. Since properties and
+ * parameters are typed by Java classes, they are declared with (built-in) XML Schema types or Java
+ * class names: the properties of types are declared by PropertyDefinition elements (within
+ * PropertiesDefinition), those of boundaries by Property elements (within Properties). Boundary
+ * requirements and capabilities are typed either directly (by a "type" attribute) or through the
+ * requirements and capabilities of the node templates they refer to. Any other element is skipped.
+ * <br>
+ * A reader is not thread-safe.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ToscaXmlReader {
+	/**
+	 * It stores the factory of the StAX parsers.
+	 */
+	private XMLInputFactory factory;
+	/**
+	 * It stores the loaded types (and the declarations waiting for types).
+	 */
+	private TypeTable types;
+	/**
+	 * It stores the consumer of the ServiceTemplate(s) of the document being read.
+	 */
+	private ServiceTemplateHandler handler;
+
+	/**
+	 * It stores the number of bytes of the last read document.
+	 */
+	private long bytesRead;
+	/**
+	 * It stores the time (in nanoseconds) spent in reading the last document.
+	 */
+	private long readTime;
+
+	/**
+	 * Constructor.
+	 */
+	public ToscaXmlReader() {
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		types = new TypeTable();
+	}
+
+	/**
+	 * Method which reads a Definitions document, handing over its ServiceTemplate(s) as soon as they are loaded.
+	 *
+	 * @param in InputStream containing the document.
+	 * @param handler ServiceTemplateHandler consuming the loaded ServiceTemplate(s).
+	 *
+	 * @throws XMLStreamException If the document is not well-formed, or it contains invalid elements.
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary (or an AppliesTo reference) is given twice.
+	 * @throws UnresolvedReferenceException If a referenced definition is not found (or it is cyclically derived).
+	 */
+	public void read(InputStream in, ServiceTemplateHandler handler)
+			throws XMLStreamException, AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		long start = System.nanoTime();
+		CountingInputStream counter = new CountingInputStream(in);
+		XMLStreamReader xml = factory.createXMLStreamReader(counter);
+		this.handler = handler;
+		try {
+			while(xml.hasNext()) {
+				if(xml.next() != XMLStreamConstants.START_ELEMENT)
+					continue;
+				if(!"Definitions".equals(xml.getLocalName()))
+					throw new XMLStreamException("Unexpected element <" + xml.getLocalName() + ">", xml.getLocation());
+				readDefinitions(xml);
+			}
+			types.checkResolved();
+		} finally {
+			xml.close();
+			this.handler = null;
+			types.reset();
+			bytesRead = counter.getCount();
+			readTime = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Method which reads a Definitions document, collecting its ServiceTemplate(s).
+	 *
+	 * @param in InputStream containing the document.
+	 *
+	 * @return The List of loaded ServiceTemplate(s).
+	 *
+	 * @throws XMLStreamException If the document is not well-formed, or it contains invalid elements.
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary (or an AppliesTo reference) is given twice.
+	 * @throws UnresolvedReferenceException If a referenced definition is not found (or it is cyclically derived).
+	 */
+	public List<ServiceTemplate> read(InputStream in)
+			throws XMLStreamException, AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		final List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>();
+		read(in, new ServiceTemplateHandler() {
+			@Override
+			public void handle(ServiceTemplate st) {
+				sts.add(st);
+			}
+		});
+		return sts;
+	}
+
+	/**
+	 * Method which provides access to a loaded CapabilityType.
+	 * @param name Name of the CapabilityType.
+	 * @return The CapabilityType (null if it has not been loaded).
+	 */
+	public CapabilityType getCapabilityType(String name) {
+		return types.getCapabilityType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded RequirementType.
+	 * @param name Name of the RequirementType.
+	 * @return The RequirementType (null if it has not been loaded).
+	 */
+	public RequirementType getRequirementType(String name) {
+		return types.getRequirementType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded NodeType.
+	 * @param name Name of the NodeType.
+	 * @return The NodeType (null if it has not been loaded).
+	 */
+	public NodeType getNodeType(String name) {
+		return types.getNodeType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded PolicyType.
+	 * @param name Name of the PolicyType.
+	 * @return The PolicyType (null if it has not been loaded).
+	 */
+	public PolicyType getPolicyType(String name) {
+		return types.getPolicyType(name);
+	}
+
+	/**
+	 * Method which provides access to all the loaded types.
+	 * @return The (unmodifiable) Collection of loaded EntityType(s), in loading order.
+	 */
+	public Collection<EntityType> getTypes() {
+		return types.getTypes();
+	}
+
+	/**
+	 * Method which provides access to the size of the last read document.
+	 * @return The number of bytes read.
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * Method which provides access to the time spent in reading the last document.
+	 * @return The reading time (in nanoseconds), including the time spent by the handler.
+	 */
+	public long getReadTime() {
+		return readTime;
+	}
+
+	/**
+	 * Method which provides access to the throughput of the last read.
+	 * @return The number of megabytes (2^20 bytes) read per second.
+	 */
+	public double getThroughput() {
+		if(readTime == 0)
+			return 0;
+		return (bytesRead / (double) (1 << 20)) / (readTime / 1e9);
+	}
+
+	/**
+	 * Method which reads the content of a Definitions element.
+	 */
+	private void readDefinitions(XMLStreamReader xml)
+			throws XMLStreamException, AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		while(nextChild(xml)) {
+			String element = xml.getLocalName();
+			if(TypeTable.CAPABILITY_TYPE.equals(element) || TypeTable.REQUIREMENT_TYPE.equals(element) ||
+					TypeTable.NODE_TYPE.equals(element) || TypeTable.POLICY_TYPE.equals(element))
+				types.declare(readType(xml, element));
+			else if("ServiceTemplate".equals(element))
+				types.declare(readServiceTemplate(xml));
+			else
+				skip(xml);
+		}
+	}
+
+	/**
+	 * Method which reads a type (of the given kind).
+	 */
+	private TypeDeclaration readType(XMLStreamReader xml, String kind) throws XMLStreamException {
+		TypeDeclaration t = new TypeDeclaration(kind, attribute(xml, "name"));
+		while(nextChild(xml)) {
+			String element = xml.getLocalName();
+			if("DerivedFrom".equals(element)) {
+				t.derivedFrom(XmlSchemaTypes.localName(attribute(xml, "typeRef")));
+				skip(xml);
+			} else if("PropertiesDefinition".equals(element)) {
+				while(nextChild(xml)) {
+					if("PropertyDefinition".equals(xml.getLocalName()))
+						t.properties.add(new PropertyDefinition(attribute(xml, "name"), typeAttribute(xml)));
+					skip(xml);
+				}
+			} else if(TypeTable.NODE_TYPE.equals(kind) && "RequirementDefinitions".equals(element)) {
+				while(nextChild(xml)) {
+					if("RequirementDefinition".equals(xml.getLocalName()))
+						t.addRequirementDefinition(attribute(xml, "name"), XmlSchemaTypes.localName(attribute(xml, "requirementType")));
+					skip(xml);
+				}
+			} else if(TypeTable.NODE_TYPE.equals(kind) && "CapabilityDefinitions".equals(element)) {
+				while(nextChild(xml)) {
+					if("CapabilityDefinition".equals(xml.getLocalName()))
+						t.addCapabilityDefinition(attribute(xml, "name"), XmlSchemaTypes.localName(attribute(xml, "capabilityType")));
+					skip(xml);
+				}
+			} else if(TypeTable.NODE_TYPE.equals(kind) && "Interfaces".equals(element)) {
+				readInterfaces(xml, t.interfaces);
+			} else if(TypeTable.POLICY_TYPE.equals(kind) && "AppliesTo".equals(element)) {
+				while(nextChild(xml)) {
+					if("NodeTypeReference".equals(xml.getLocalName()))
+						t.addAppliesTo(XmlSchemaTypes.localName(attribute(xml, "typeRef")));
+					skip(xml);
+				}
+			} else
+				skip(xml);
+		}
+		return t;
+	}
+
+	/**
+	 * Method which reads a ServiceTemplate (and the types of the node templates of its topology).
+	 */
+	private TemplateDeclaration readServiceTemplate(XMLStreamReader xml) throws XMLStreamException, UnresolvedReferenceException {
+		String name = xml.getAttributeValue(null, "name");
+		TemplateDeclaration st = new TemplateDeclaration(name != null ? name : attribute(xml, "id"), handler);
+		List<String[]> requirements = new ArrayList<String[]>();
+		List<String[]> capabilities = new ArrayList<String[]>();
+		//Types of the requirements and capabilities of the node templates, indexed by identifier.
+		Map<String, String> topologyTypes = new HashMap<String, String>();
+		while(nextChild(xml)) {
+			String element = xml.getLocalName();
+			if("BoundaryDefinitions".equals(element))
+				readBoundaryDefinitions(xml, st, requirements, capabilities);
+			else if("TopologyTemplate".equals(element))
+				readTopologyTemplate(xml, topologyTypes);
+			else
+				skip(xml);
+		}
+
+		//References to the topology are resolved (the topology follows the boundary definitions).
+		resolve(st, requirements, topologyTypes, "requirement");
+		resolve(st, capabilities, topologyTypes, "capability");
+		for(String[] r : requirements)
+			st.addRequirement(r[0], r[1]);
+		for(String[] c : capabilities)
+			st.addCapability(c[0], c[1]);
+		return st;
+	}
+
+	private static void resolve(TemplateDeclaration st, List<String[]> refs, Map<String, String> topologyTypes, String what)
+			throws UnresolvedReferenceException {
+		for(String[] ref : refs) {
+			if(ref[1] != null)
+				continue;
+			ref[1] = topologyTypes.get(ref[2]);
+			if(ref[1] == null)
+				throw new UnresolvedReferenceException("The " + what + " reference <" + ref[2] +
+						"> of the ServiceTemplate <" + st.name + "> cannot be resolved");
+		}
+	}
+
+	/**
+	 * Method which reads the BoundaryDefinitions of a ServiceTemplate.
+	 */
+	private static void readBoundaryDefinitions(XMLStreamReader xml, TemplateDeclaration st,
+			List<String[]> requirements, List<String[]> capabilities) throws XMLStreamException {
+		while(nextChild(xml)) {
+			String element = xml.getLocalName();
+			if("Properties".equals(element)) {
+				while(nextChild(xml)) {
+					if("Property".equals(xml.getLocalName()))
+						st.properties.add(new Property(attribute(xml, "name"), typeAttribute(xml)));
+					skip(xml);
+				}
+			} else if("Policies".equals(element)) {
+				while(nextChild(xml)) {
+					if("Policy".equals(xml.getLocalName()))
+						st.addPolicy(attribute(xml, "name"), XmlSchemaTypes.localName(attribute(xml, "policyType")));
+					skip(xml);
+				}
+			} else if("Requirements".equals(element)) {
+				readReferences(xml, "Requirement", requirements);
+			} else if("Capabilities".equals(element)) {
+				readReferences(xml, "Capability", capabilities);
+			} else if("Interfaces".equals(element)) {
+				readInterfaces(xml, st.interfaces);
+			} else
+				skip(xml);
+		}
+	}
+
+	/**
+	 * Method which reads the (boundary) requirements or capabilities, as triples "name, type, ref".
+	 */
+	private static void readReferences(XMLStreamReader xml, String element, List<String[]> refs) throws XMLStreamException {
+		while(nextChild(xml)) {
+			if(element.equals(xml.getLocalName())) {
+				String type = xml.getAttributeValue(null, "type");
+				String ref = (type == null ? attribute(xml, "ref") : null);
+				refs.add(new String[] { attribute(xml, "name"), (type == null ? null : XmlSchemaTypes.localName(type)), ref });
+			}
+			skip(xml);
+		}
+	}
+
+	/**
+	 * Method which reads the types of the requirements and capabilities of the node templates of a topology.
+	 */
+	private static void readTopologyTemplate(XMLStreamReader xml, Map<String, String> topologyTypes) throws XMLStreamException {
+		while(nextChild(xml)) {
+			if(!"NodeTemplate".equals(xml.getLocalName())) {
+				skip(xml);
+				continue;
+			}
+			while(nextChild(xml)) {
+				String element = xml.getLocalName();
+				if("Requirements".equals(element) || "Capabilities".equals(element)) {
+					while(nextChild(xml)) {
+						String id = xml.getAttributeValue(null, "id");
+						String type = xml.getAttributeValue(null, "type");
+						if(id != null && type != null)
+							topologyTypes.put(id, XmlSchemaTypes.localName(type));
+						skip(xml);
+					}
+				} else
+					skip(xml);
+			}
+		}
+	}
+
+	/**
+	 * Method which reads a list of interfaces (with their operations).
+	 */
+	private static void readInterfaces(XMLStreamReader xml, List<Interface> interfaces) throws XMLStreamException {
+		while(nextChild(xml)) {
+			if(!"Interface".equals(xml.getLocalName())) {
+				skip(xml);
+				continue;
+			}
+			String name = attribute(xml, "name");
+			List<Operation> ops = new ArrayList<Operation>();
+			while(nextChild(xml)) {
+				if(!"Operation".equals(xml.getLocalName())) {
+					skip(xml);
+					continue;
+				}
+				String opName = attribute(xml, "name");
+				List<Parameter> in = new ArrayList<Parameter>();
+				List<Parameter> out = new ArrayList<Parameter>();
+				while(nextChild(xml)) {
+					String element = xml.getLocalName();
+					if("InputParameters".equals(element))
+						readParameters(xml, "InputParameter", in);
+					else if("OutputParameters".equals(element))
+						readParameters(xml, "OutputParameter", out);
+					else
+						skip(xml);
+				}
+				ops.add(new Operation(opName, in, out));
+			}
+			interfaces.add(new Interface(name, ops));
+		}
+	}
+
+	private static void readParameters(XMLStreamReader xml, String element, List<Parameter> params) throws XMLStreamException {
+		while(nextChild(xml)) {
+			if(element.equals(xml.getLocalName())) {
+				String required = xml.getAttributeValue(null, "required");
+				params.add(new Parameter(attribute(xml, "name"), typeAttribute(xml), !"no".equals(required)));
+			}
+			skip(xml);
+		}
+	}
+
+	/**
+	 * Method which moves to the next child of the current element.
+	 *
+	 * @return true if positioned on the start of a child, false if positioned on the end of the element.
+	 */
+	private static boolean nextChild(XMLStreamReader xml) throws XMLStreamException {
+		while(true) {
+			int event = xml.next();
+			if(event == XMLStreamConstants.START_ELEMENT)
+				return true;
+			if(event == XMLStreamConstants.END_ELEMENT)
+				return false;
+		}
+	}
+
+	/**
+	 * Method which skips (the rest of) the current element.
+	 */
+	private static void skip(XMLStreamReader xml) throws XMLStreamException {
+		int depth = 1;
+		while(depth > 0) {
+			int event = xml.next();
+			if(event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if(event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	private static String attribute(XMLStreamReader xml, String name) throws XMLStreamException {
+		String value = xml.getAttributeValue(null, name);
+		if(value == null)
+			throw new XMLStreamException("Missing attribute \"" + name + "\" of <" + xml.getLocalName() + ">", xml.getLocation());
+		return value;
+	}
+
+	private static PropertyType typeAttribute(XMLStreamReader xml) throws XMLStreamException {
+		String type = attribute(xml, "type");
+		PropertyType t = XmlSchemaTypes.toPropertyType(type);
+		if(t == null)
+			throw new XMLStreamException("Unknown type <" + type + ">", xml.getLocation());
+		return t;
+	}
+}
@@ -0,0 +1,522 @@
+package di.unipi.model.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.exceptions.InvalidDocumentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which loads TOSCA Simple Profile (YAML) documents, one document at a time.
+ * <br>
+ * The capability_types, node_types and policy_types of each document are loaded into the
+ * corresponding types (which are kept by the reader, together with the normative TOSCA root
+ * types, and can be referenced by the documents it reads later). Since the Simple Profile types
+ * requirements by the capabilities they need, each CapabilityType is paired with a same named
+ * (and equally derived) RequirementType, which types the requirements needing such capability.
+ * <br>
+ * The topology_template of a document with substitution_mappings is loaded into a ServiceTemplate,
+ * which is handed over to a ServiceTemplateHandler before reading the next document. Its boundary
+ * exposes the mapped capabilities and requirements (typed by the definitions in the node types of
+ * the mapped node templates), the inputs (as properties), the policies and the mapped interfaces
+ * (whose operations are those of the substituted node type). The ServiceTemplate is named after
+ * the "template_name" metadata (or after its position in the stream).
+ * <br>
+ * As any other reference, the node types of the mapped node templates, the substituted node type and
+ * the targets of policy types may be defined in later documents (the declarations referencing them
+ * are loaded as soon as they are defined). The targets of a policy type are node types, unless they
+ * are group types defined by the same or by a previous document.
+ * <br>
+ * Imports are not followed, and any other section is skipped. A reader is not thread-safe.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ToscaYamlReader {
+	/**
+	 * It stores the normative capability types (as pairs "name, parent").
+	 */
+	private static final String[][] NORMATIVE_CAPABILITY_TYPES = {
+		{ "tosca.capabilities.Root", null },
+		{ "tosca.capabilities.Node", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Container", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Compute", "tosca.capabilities.Container" },
+		{ "tosca.capabilities.Network", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Storage", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Endpoint", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Endpoint.Public", "tosca.capabilities.Endpoint" },
+		{ "tosca.capabilities.Endpoint.Admin", "tosca.capabilities.Endpoint" },
+		{ "tosca.capabilities.Endpoint.Database", "tosca.capabilities.Endpoint" },
+		{ "tosca.capabilities.Attachment", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.OperatingSystem", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.Scalable", "tosca.capabilities.Root" },
+		{ "tosca.capabilities.network.Bindable", "tosca.capabilities.Node" },
+		{ "tosca.capabilities.network.Linkable", "tosca.capabilities.Node" }
+	};
+	/**
+	 * It stores the normative node types (as pairs "name, parent").
+	 */
+	private static final String[][] NORMATIVE_NODE_TYPES = {
+		{ "tosca.nodes.Root", null },
+		{ "tosca.nodes.Compute", "tosca.nodes.Root" },
+		{ "tosca.nodes.SoftwareComponent", "tosca.nodes.Root" },
+		{ "tosca.nodes.WebServer", "tosca.nodes.SoftwareComponent" },
+		{ "tosca.nodes.WebApplication", "tosca.nodes.Root" },
+		{ "tosca.nodes.DBMS", "tosca.nodes.SoftwareComponent" },
+		{ "tosca.nodes.Database", "tosca.nodes.Root" },
+		{ "tosca.nodes.ObjectStorage", "tosca.nodes.Root" },
+		{ "tosca.nodes.BlockStorage", "tosca.nodes.Root" },
+		{ "tosca.nodes.Container.Runtime", "tosca.nodes.SoftwareComponent" },
+		{ "tosca.nodes.Container.Application", "tosca.nodes.Root" },
+		{ "tosca.nodes.LoadBalancer", "tosca.nodes.Root" },
+		{ "tosca.nodes.network.Network", "tosca.nodes.Root" },
+		{ "tosca.nodes.network.Port", "tosca.nodes.Root" }
+	};
+	/**
+	 * It stores the normative policy types (as pairs "name, parent").
+	 */
+	private static final String[][] NORMATIVE_POLICY_TYPES = {
+		{ "tosca.policies.Root", null },
+		{ "tosca.policies.Placement", "tosca.policies.Root" },
+		{ "tosca.policies.Scaling", "tosca.policies.Root" },
+		{ "tosca.policies.Update", "tosca.policies.Root" },
+		{ "tosca.policies.Performance", "tosca.policies.Root" }
+	};
+	/**
+	 * It stores the normative group types.
+	 */
+	private static final String[] NORMATIVE_GROUP_TYPES = { "tosca.groups.Root" };
+	/**
+	 * It stores the keys of an interface definition which do not define operations.
+	 */
+	private static final Set<String> INTERFACE_KEYWORDS = new HashSet<String>();
+
+	static {
+		Collections.addAll(INTERFACE_KEYWORDS, "type", "description", "inputs", "notifications", "derived_from", "metadata", "version");
+	}
+
+	/**
+	 * It stores the loaded types (and the declarations waiting for types).
+	 */
+	private TypeTable types;
+	/**
+	 * It stores the names of the group types (which are not loaded, but may be the targets of policy types).
+	 */
+	private Set<String> groupTypes;
+	/**
+	 * It stores the consumer of the ServiceTemplate(s) of the stream being read.
+	 */
+	private ServiceTemplateHandler handler;
+
+	/**
+	 * It stores the number of documents of the last read stream.
+	 */
+	private int documentsRead;
+	/**
+	 * It stores the number of bytes of the last read stream.
+	 */
+	private long bytesRead;
+	/**
+	 * It stores the time (in nanoseconds) spent in reading the last stream.
+	 */
+	private long readTime;
+
+	/**
+	 * Constructor.
+	 */
+	public ToscaYamlReader() {
+		types = new TypeTable();
+		groupTypes = new HashSet<String>();
+		Collections.addAll(groupTypes, NORMATIVE_GROUP_TYPES);
+		try {
+			for(String[] cType : NORMATIVE_CAPABILITY_TYPES)
+				declareCapabilityType(cType[0], cType[1], Collections.<String, Object>emptyMap());
+			for(String[] nType : NORMATIVE_NODE_TYPES)
+				types.declare(declaration(TypeTable.NODE_TYPE, nType[0], nType[1]));
+			for(String[] pType : NORMATIVE_POLICY_TYPES)
+				types.declare(declaration(TypeTable.POLICY_TYPE, pType[0], pType[1]));
+		} catch(InvalidDocumentException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		} catch(AlreadyPresentException e) {
+			throw new IllegalStateException(e);
+		} catch(UnresolvedReferenceException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method which reads a (multi-document) YAML stream, handing over its ServiceTemplate(s) as soon as they are loaded.
+	 *
+	 * @param in InputStream containing the (UTF-8 encoded) documents.
+	 * @param handler ServiceTemplateHandler consuming the loaded ServiceTemplate(s).
+	 *
+	 * @throws IOException If the stream cannot be read.
+	 * @throws InvalidDocumentException If a document is not valid.
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary is given twice.
+	 * @throws UnresolvedReferenceException If a referenced definition is not found (or it is cyclically derived).
+	 */
+	public void read(InputStream in, ServiceTemplateHandler handler) throws IOException, InvalidDocumentException,
+			AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		long start = System.nanoTime();
+		CountingInputStream counter = new CountingInputStream(in);
+		YamlParser parser = new YamlParser(new InputStreamReader(counter, "UTF-8"));
+		this.handler = handler;
+		documentsRead = 0;
+		try {
+			Object document;
+			while((document = parser.nextDocument()) != null) {
+				documentsRead++;
+				readDocument(map(document, "The document " + documentsRead));
+			}
+			types.checkResolved();
+		} finally {
+			this.handler = null;
+			types.reset();
+			bytesRead = counter.getCount();
+			readTime = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Method which reads a (multi-document) YAML stream, collecting its ServiceTemplate(s).
+	 *
+	 * @param in InputStream containing the (UTF-8 encoded) documents.
+	 *
+	 * @return The List of loaded ServiceTemplate(s).
+	 *
+	 * @throws IOException If the stream cannot be read.
+	 * @throws InvalidDocumentException If a document is not valid.
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary is given twice.
+	 * @throws UnresolvedReferenceException If a referenced definition is not found (or it is cyclically derived).
+	 */
+	public List<ServiceTemplate> read(InputStream in) throws IOException, InvalidDocumentException,
+			AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		final List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>();
+		read(in, new ServiceTemplateHandler() {
+			@Override
+			public void handle(ServiceTemplate st) {
+				sts.add(st);
+			}
+		});
+		return sts;
+	}
+
+	/**
+	 * Method which provides access to a loaded CapabilityType.
+	 * @param name Name of the CapabilityType.
+	 * @return The CapabilityType (null if it has not been loaded).
+	 */
+	public CapabilityType getCapabilityType(String name) {
+		return types.getCapabilityType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded RequirementType (paired with the same named CapabilityType).
+	 * @param name Name of the RequirementType.
+	 * @return The RequirementType (null if it has not been loaded).
+	 */
+	public RequirementType getRequirementType(String name) {
+		return types.getRequirementType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded NodeType.
+	 * @param name Name of the NodeType.
+	 * @return The NodeType (null if it has not been loaded).
+	 */
+	public NodeType getNodeType(String name) {
+		return types.getNodeType(name);
+	}
+
+	/**
+	 * Method which provides access to a loaded PolicyType.
+	 * @param name Name of the PolicyType.
+	 * @return The PolicyType (null if it has not been loaded).
+	 */
+	public PolicyType getPolicyType(String name) {
+		return types.getPolicyType(name);
+	}
+
+	/**
+	 * Method which provides access to all the loaded types.
+	 * @return The (unmodifiable) Collection of loaded EntityType(s), in loading order.
+	 */
+	public Collection<EntityType> getTypes() {
+		return types.getTypes();
+	}
+
+	/**
+	 * Method which provides access to the number of documents of the last read stream.
+	 * @return The number of (non-empty) documents read.
+	 */
+	public int getDocumentsRead() {
+		return documentsRead;
+	}
+
+	/**
+	 * Method which provides access to the size of the last read stream.
+	 * @return The number of bytes read.
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * Method which provides access to the time spent in reading the last stream.
+	 * @return The reading time (in nanoseconds), including the time spent by the handler.
+	 */
+	public long getReadTime() {
+		return readTime;
+	}
+
+	/**
+	 * Method which provides access to the throughput of the last read.
+	 * @return The number of megabytes (2^20 bytes) read per second.
+	 */
+	public double getThroughput() {
+		if(readTime == 0)
+			return 0;
+		return (bytesRead / (double) (1 << 20)) / (readTime / 1e9);
+	}
+
+	/**
+	 * Method which reads the types and the (substitutable) topology template of a document.
+	 */
+	private void readDocument(Map<String, Object> document) throws InvalidDocumentException,
+			AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		Map<String, Object> capabilityTypes = map(document.get("capability_types"), "capability_types");
+		for(Map.Entry<String, Object> cType : capabilityTypes.entrySet()) {
+			Map<String, Object> def = map(cType.getValue(), "The capability type " + cType.getKey());
+			declareCapabilityType(cType.getKey(), normalize(TypeTable.CAPABILITY_TYPE, string(def.get("derived_from"))), def);
+		}
+
+		Map<String, Object> nodeTypes = map(document.get("node_types"), "node_types");
+		for(Map.Entry<String, Object> nType : nodeTypes.entrySet())
+			types.declare(readNodeType(nType.getKey(), map(nType.getValue(), "The node type " + nType.getKey())));
+
+		groupTypes.addAll(map(document.get("group_types"), "group_types").keySet());
+
+		Map<String, Object> policyTypes = map(document.get("policy_types"), "policy_types");
+		for(Map.Entry<String, Object> pType : policyTypes.entrySet()) {
+			Map<String, Object> def = map(pType.getValue(), "The policy type " + pType.getKey());
+			TypeDeclaration t = declaration(TypeTable.POLICY_TYPE, pType.getKey(),
+					normalize(TypeTable.POLICY_TYPE, string(def.get("derived_from"))));
+			readProperties(t, def);
+			//Only the targets which are node types (and not groups) restrict the applicability.
+			for(Object target : list(def.get("targets"), "The targets of " + pType.getKey())) {
+				String targetType = string(target);
+				if(targetType == null)
+					throw new InvalidDocumentException("A target of " + pType.getKey() + " is empty");
+				if(!groupTypes.contains(targetType))
+					t.addAppliesTo(normalize(TypeTable.NODE_TYPE, targetType));
+			}
+			types.declare(t);
+		}
+
+		Map<String, Object> topology = map(document.get("topology_template"), "topology_template");
+		if(topology.get("substitution_mappings") != null) {
+			Map<String, Object> metadata = map(document.get("metadata"), "metadata");
+			String name = string(metadata.get("template_name"));
+			types.declare(readServiceTemplate(name != null ? name : "ServiceTemplate" + documentsRead, topology));
+		}
+	}
+
+	private TypeDeclaration readNodeType(String name, Map<String, Object> def) throws InvalidDocumentException {
+		TypeDeclaration t = declaration(TypeTable.NODE_TYPE, name, normalize(TypeTable.NODE_TYPE, string(def.get("derived_from"))));
+		readProperties(t, def);
+		for(Object item : list(def.get("requirements"), "The requirements of " + name)) {
+			Map.Entry<String, Object> rDef = entry(item, "A requirement of " + name);
+			String capability = (rDef.getValue() instanceof Map ?
+					string(map(rDef.getValue(), rDef.getKey()).get("capability")) : string(rDef.getValue()));
+			if(capability == null)
+				throw new InvalidDocumentException("The requirement <" + rDef.getKey() + "> of " + name + " does not specify its capability");
+			t.addRequirementDefinition(rDef.getKey(), normalize(TypeTable.CAPABILITY_TYPE, capability));
+		}
+		for(Map.Entry<String, Object> cDef : map(def.get("capabilities"), "The capabilities of " + name).entrySet()) {
+			String type = (cDef.getValue() instanceof Map ?
+					string(map(cDef.getValue(), cDef.getKey()).get("type")) : string(cDef.getValue()));
+			if(type == null)
+				throw new InvalidDocumentException("The capability <" + cDef.getKey() + "> of " + name + " does not specify its type");
+			t.addCapabilityDefinition(cDef.getKey(), normalize(TypeTable.CAPABILITY_TYPE, type));
+		}
+		for(Map.Entry<String, Object> inf : map(def.get("interfaces"), "The interfaces of " + name).entrySet()) {
+			Map<String, Object> infDef = map(inf.getValue(), "The interface " + inf.getKey());
+			Map<String, Object> opDefs = (infDef.containsKey("operations") ? map(infDef.get("operations"), "operations") : infDef);
+			List<Operation> ops = new ArrayList<Operation>();
+			for(Map.Entry<String, Object> op : opDefs.entrySet()) {
+				if(opDefs == infDef && INTERFACE_KEYWORDS.contains(op.getKey()))
+					continue;
+				List<Parameter> in = new ArrayList<Parameter>();
+				List<Parameter> out = new ArrayList<Parameter>();
+				if(op.getValue() instanceof Map) {
+					Map<String, Object> opDef = map(op.getValue(), op.getKey());
+					readParameters(map(opDef.get("inputs"), "The inputs of " + op.getKey()), in);
+					readParameters(map(opDef.get("outputs"), "The outputs of " + op.getKey()), out);
+				}
+				ops.add(new Operation(op.getKey(), in, out));
+			}
+			t.interfaces.add(new Interface(inf.getKey(), ops));
+		}
+		return t;
+	}
+
+	private TemplateDeclaration readServiceTemplate(String name, Map<String, Object> topology) throws InvalidDocumentException {
+		TemplateDeclaration st = new TemplateDeclaration(name, handler);
+		Map<String, Object> mappings = map(topology.get("substitution_mappings"), "The substitution_mappings of " + name);
+		Map<String, Object> nodeTemplates = map(topology.get("node_templates"), "The node_templates of " + name);
+
+		//The mapped definitions are resolved (in the node types of the node templates) when the declaration is loaded.
+		for(Map.Entry<String, Object> c : map(mappings.get("capabilities"), "The capability mappings of " + name).entrySet()) {
+			String[] target = target(c.getValue(), name, c.getKey());
+			st.mapCapability(c.getKey(), nodeTypeOf(nodeTemplates, target[0], name), target[1]);
+		}
+		for(Map.Entry<String, Object> r : map(mappings.get("requirements"), "The requirement mappings of " + name).entrySet()) {
+			String[] target = target(r.getValue(), name, r.getKey());
+			st.mapRequirement(r.getKey(), nodeTypeOf(nodeTemplates, target[0], name), target[1]);
+		}
+
+		for(Map.Entry<String, Object> input : map(topology.get("inputs"), "The inputs of " + name).entrySet()) {
+			Map<String, Object> def = map(input.getValue(), "The input " + input.getKey());
+			st.properties.add(new Property(input.getKey(), SimpleProfileTypes.toPropertyType(string(def.get("type")))));
+		}
+		for(Object item : list(topology.get("policies"), "The policies of " + name)) {
+			Map.Entry<String, Object> pol = entry(item, "A policy of " + name);
+			String type = string(map(pol.getValue(), "The policy " + pol.getKey()).get("type"));
+			if(type == null)
+				throw new InvalidDocumentException("The policy <" + pol.getKey() + "> of " + name + " does not specify its type");
+			st.addPolicy(pol.getKey(), normalize(TypeTable.POLICY_TYPE, type));
+		}
+
+		//The operations of the mapped interfaces are those of the substituted node type.
+		String substituted = normalize(TypeTable.NODE_TYPE, string(mappings.get("node_type")));
+		if(substituted == null)
+			throw new InvalidDocumentException("The substitution_mappings of " + name + " do not specify the node_type");
+		st.substitute(substituted);
+		for(Map.Entry<String, Object> inf : map(mappings.get("interfaces"), "The interface mappings of " + name).entrySet())
+			st.mapInterface(inf.getKey(), new ArrayList<String>(map(inf.getValue(), "The interface mapping " + inf.getKey()).keySet()));
+		return st;
+	}
+
+	/**
+	 * Method which declares a CapabilityType, together with the paired RequirementType.
+	 */
+	private void declareCapabilityType(String name, String parent, Map<String, Object> def)
+			throws InvalidDocumentException, AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		TypeDeclaration t = declaration(TypeTable.CAPABILITY_TYPE, name, parent);
+		readProperties(t, def);
+		types.declare(t);
+		types.declare(declaration(TypeTable.REQUIREMENT_TYPE, name, parent));
+	}
+
+	private static TypeDeclaration declaration(String kind, String name, String parent) {
+		TypeDeclaration t = new TypeDeclaration(kind, name);
+		if(parent != null)
+			t.derivedFrom(parent);
+		return t;
+	}
+
+	private static void readProperties(TypeDeclaration t, Map<String, Object> def) throws InvalidDocumentException {
+		for(Map.Entry<String, Object> p : map(def.get("properties"), "The properties of " + t.name).entrySet()) {
+			Map<String, Object> pDef = map(p.getValue(), "The property " + p.getKey());
+			t.properties.add(new PropertyDefinition(p.getKey(), SimpleProfileTypes.toPropertyType(string(pDef.get("type")))));
+		}
+	}
+
+	/**
+	 * Method which reads the parameters of an operation (untyped parameters, e.g., value assignments, are typed by Object).
+	 */
+	private static void readParameters(Map<String, Object> defs, List<Parameter> params) throws InvalidDocumentException {
+		for(Map.Entry<String, Object> p : defs.entrySet()) {
+			if(p.getValue() instanceof Map && ((Map<?, ?>) p.getValue()).containsKey("type")) {
+				Map<String, Object> pDef = map(p.getValue(), p.getKey());
+				params.add(new Parameter(p.getKey(), SimpleProfileTypes.toPropertyType(string(pDef.get("type"))),
+						!"false".equals(string(pDef.get("required")))));
+			} else
+				params.add(new Parameter(p.getKey(), Object.class));
+		}
+	}
+
+	/**
+	 * Method which retrieves the name of the node type of a node template.
+	 */
+	private static String nodeTypeOf(Map<String, Object> nodeTemplates, String nodeTemplate, String st) throws InvalidDocumentException {
+		if(!nodeTemplates.containsKey(nodeTemplate))
+			throw new InvalidDocumentException("The node template <" + nodeTemplate + "> of " + st + " is not defined");
+		String type = normalize(TypeTable.NODE_TYPE, string(map(nodeTemplates.get(nodeTemplate), nodeTemplate).get("type")));
+		if(type == null)
+			throw new InvalidDocumentException("The node template <" + nodeTemplate + "> of " + st + " does not specify its type");
+		return type;
+	}
+
+	/**
+	 * Method which reads the target "[node template, name]" of a substitution mapping.
+	 */
+	private static String[] target(Object mapping, String st, String name) throws InvalidDocumentException {
+		if(mapping instanceof Map)
+			mapping = ((Map<?, ?>) mapping).get("mapping");
+		List<Object> target = list(mapping, "The mapping of " + name);
+		if(target.size() != 2)
+			throw new InvalidDocumentException("The mapping of <" + name + "> in " + st + " is not a pair [node template, name]");
+		return new String[] { string(target.get(0)), string(target.get(1)) };
+	}
+
+	/**
+	 * Method which expands the "tosca:" short names of the normative types.
+	 */
+	private static String normalize(String kind, String name) {
+		if(name == null || !name.startsWith("tosca:"))
+			return name;
+		String prefix = (TypeTable.CAPABILITY_TYPE.equals(kind) ? "tosca.capabilities." :
+			TypeTable.NODE_TYPE.equals(kind) ? "tosca.nodes." : "tosca.policies.");
+		return prefix + name.substring(6);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object o, String what) throws InvalidDocumentException {
+		if(o == null)
+			return Collections.emptyMap();
+		if(!(o instanceof Map))
+			throw new InvalidDocumentException(what + " is not a mapping");
+		return (Map<String, Object>) o;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Object o, String what) throws InvalidDocumentException {
+		if(o == null)
+			return Collections.emptyList();
+		if(!(o instanceof List))
+			throw new InvalidDocumentException(what + " is not a sequence");
+		return (List<Object>) o;
+	}
+
+	private static Map.Entry<String, Object> entry(Object o, String what) throws InvalidDocumentException {
+		Map<String, Object> m = map(o, what);
+		if(m.size() != 1)
+			throw new InvalidDocumentException(what + " is not a single-key mapping");
+		return m.entrySet().iterator().next();
+	}
+
+	private static String string(Object o) throws InvalidDocumentException {
+		if(o != null && !(o instanceof String))
+			throw new InvalidDocumentException("The value " + o + " is not a scalar");
+		return (String) o;
+	}
+}
@@ -0,0 +1,109 @@
+package di.unipi.model.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which models the declaration of a type (read from a document).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class TypeDeclaration extends Declaration {
+	final String kind;
+	final String name;
+	/**
+	 * It stores the name of the type from which the declared type is derived (null if none).
+	 */
+	String parent;
+	final List<PropertyDefinition> properties = new ArrayList<PropertyDefinition>();
+	/**
+	 * It stores the requirement definitions of a NodeType, as pairs "name, type".
+	 */
+	final List<String[]> requirementDefinitions = new ArrayList<String[]>();
+	/**
+	 * It stores the capability definitions of a NodeType, as pairs "name, type".
+	 */
+	final List<String[]> capabilityDefinitions = new ArrayList<String[]>();
+	final List<Interface> interfaces = new ArrayList<Interface>();
+	/**
+	 * It stores the names of the NodeType(s) to which a PolicyType applies.
+	 */
+	final List<String> appliesTo = new ArrayList<String>();
+
+	/**
+	 * Constructor.
+	 * @param kind Kind of the declared type.
+	 * @param name Name of the declared type.
+	 */
+	TypeDeclaration(String kind, String name) {
+		this.kind = kind;
+		this.name = name;
+	}
+
+	/**
+	 * Method which sets the type from which the declared type is derived.
+	 * @param parent Name of the parent type.
+	 */
+	void derivedFrom(String parent) {
+		this.parent = parent;
+		require(kind, parent);
+	}
+
+	void addRequirementDefinition(String name, String type) {
+		require(TypeTable.REQUIREMENT_TYPE, type);
+		requirementDefinitions.add(new String[] { name, type });
+	}
+
+	void addCapabilityDefinition(String name, String type) {
+		require(TypeTable.CAPABILITY_TYPE, type);
+		capabilityDefinitions.add(new String[] { name, type });
+	}
+
+	void addAppliesTo(String nodeType) {
+		require(TypeTable.NODE_TYPE, nodeType);
+		appliesTo.add(nodeType);
+	}
+
+	@Override
+	void load(TypeTable table) throws AlreadyDefinedException, AlreadyPresentException {
+		EntityType t;
+		if(TypeTable.CAPABILITY_TYPE.equals(kind)) {
+			t = (parent == null ? new CapabilityType(name) : new CapabilityType(table.getCapabilityType(parent), name));
+		} else if(TypeTable.REQUIREMENT_TYPE.equals(kind)) {
+			t = (parent == null ? new RequirementType(name) : new RequirementType(table.getRequirementType(parent), name));
+		} else if(TypeTable.NODE_TYPE.equals(kind)) {
+			//Node types are frozen, so that large ones are built (and looked up) in linear time.
+			NodeType.Builder n = new NodeType.Builder(name);
+			if(parent != null)
+				n.derivedFrom(table.getNodeType(parent));
+			for(PropertyDefinition pDef : properties)
+				n.addPropertyDefinition(pDef.getName(), pDef.getPropertyType());
+			for(String[] rDef : requirementDefinitions)
+				n.addRequirementDefinition(rDef[0], table.getRequirementType(rDef[1]));
+			for(String[] cDef : capabilityDefinitions)
+				n.addCapabilityDefinition(cDef[0], table.getCapabilityType(cDef[1]));
+			for(Interface inf : interfaces)
+				n.addInterface(inf);
+			t = n.build();
+		} else {
+			PolicyType p = (parent == null ? new PolicyType(name) : new PolicyType(table.getPolicyType(parent), name));
+			for(String nodeType : appliesTo)
+				p.setApplicableTo(table.getNodeType(nodeType));
+			t = p;
+		}
+		//(Node types are built together with their property definitions.)
+		if(!TypeTable.NODE_TYPE.equals(kind)) {
+			for(PropertyDefinition pDef : properties)
+				t.getPropertiesDefinition().addDefinition(pDef.getName(), pDef.getPropertyType());
+		}
+		table.define(kind, t);
+	}
+}
@@ -0,0 +1,164 @@
+package di.unipi.model.loader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+import di.unipi.model.exceptions.AlreadyPresentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which stores the types loaded by a reader, and the declarations waiting for (not yet loaded) types.
+ * <br>
+ * As for the TOSCA model, types are identified by their kind and (local) name. A declaration is
+ * loaded as soon as all the types it references have been loaded.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class TypeTable {
+	static final String CAPABILITY_TYPE = "CapabilityType";
+	static final String REQUIREMENT_TYPE = "RequirementType";
+	static final String NODE_TYPE = "NodeType";
+	static final String POLICY_TYPE = "PolicyType";
+
+	/**
+	 * It stores the loaded types, indexed by kind and name.
+	 */
+	private Map<String, EntityType> types;
+	/**
+	 * It stores the declarations waiting for a (not yet loaded) type, indexed by its kind and name.
+	 */
+	private Map<String, List<Declaration>> waiting;
+	/**
+	 * It stores the declarations whose references are all resolved.
+	 */
+	private Deque<Declaration> ready;
+
+	/**
+	 * Constructor.
+	 */
+	TypeTable() {
+		types = new LinkedHashMap<String, EntityType>();
+		waiting = new HashMap<String, List<Declaration>>();
+		ready = new ArrayDeque<Declaration>();
+	}
+
+	static String key(String kind, String name) {
+		return kind + '\u001F' + name;
+	}
+
+	boolean contains(String kind, String name) {
+		return types.containsKey(key(kind, name));
+	}
+
+	CapabilityType getCapabilityType(String name) {
+		return (CapabilityType) types.get(key(CAPABILITY_TYPE, name));
+	}
+
+	RequirementType getRequirementType(String name) {
+		return (RequirementType) types.get(key(REQUIREMENT_TYPE, name));
+	}
+
+	NodeType getNodeType(String name) {
+		return (NodeType) types.get(key(NODE_TYPE, name));
+	}
+
+	PolicyType getPolicyType(String name) {
+		return (PolicyType) types.get(key(POLICY_TYPE, name));
+	}
+
+	Collection<EntityType> getTypes() {
+		return Collections.unmodifiableCollection(types.values());
+	}
+
+	/**
+	 * Method which declares a type or a ServiceTemplate, loading it (and any declaration waiting
+	 * for it) if all its references are resolved.
+	 *
+	 * @param d Declaration to be loaded.
+	 *
+	 * @throws AlreadyDefinedException If a type (or an element of a type) is defined twice.
+	 * @throws AlreadyPresentException If an element of a boundary (or an AppliesTo reference) is given twice.
+	 * @throws UnresolvedReferenceException If an element of a referenced type is not found.
+	 */
+	void declare(Declaration d) throws AlreadyDefinedException, AlreadyPresentException, UnresolvedReferenceException {
+		for(String dependency : d.dependencies) {
+			if(!types.containsKey(dependency) && d.missing.add(dependency)) {
+				List<Declaration> ds = waiting.get(dependency);
+				if(ds == null) {
+					ds = new ArrayList<Declaration>(1);
+					waiting.put(dependency, ds);
+				}
+				ds.add(d);
+			}
+		}
+		if(d.missing.isEmpty())
+			ready.add(d);
+		//Loading a type may resolve other declarations (which are then loaded too).
+		while(!ready.isEmpty())
+			ready.poll().load(this);
+	}
+
+	/**
+	 * Method which defines a loaded type, updating the declarations waiting for it.
+	 *
+	 * @param kind Kind of the type.
+	 * @param t The loaded EntityType.
+	 *
+	 * @throws AlreadyDefinedException If a same named type (of the same kind) is already defined.
+	 */
+	void define(String kind, EntityType t) throws AlreadyDefinedException {
+		String key = key(kind, t.getName());
+		if(types.containsKey(key))
+			throw new AlreadyDefinedException("The " + kind + " <" + t.getName() + "> is already defined");
+		types.put(key, t);
+		List<Declaration> ds = waiting.remove(key);
+		if(ds == null)
+			return;
+		for(Declaration d : ds) {
+			d.missing.remove(key);
+			if(d.missing.isEmpty())
+				ready.add(d);
+		}
+	}
+
+	/**
+	 * Method which checks that all the declarations have been loaded.
+	 *
+	 * @throws UnresolvedReferenceException If a referenced type is missing (or it is cyclically derived).
+	 */
+	void checkResolved() throws UnresolvedReferenceException {
+		if(waiting.isEmpty())
+			return;
+		StringBuilder missing = new StringBuilder();
+		int shown = 0;
+		for(String key : waiting.keySet()) {
+			if(shown++ == 10) {
+				missing.append(", ...");
+				break;
+			}
+			missing.append(shown > 1 ? ", " : "").append(key.replace('\u001F', ' '));
+		}
+		throw new UnresolvedReferenceException("The following definitions are missing (or cyclically derived): " + missing);
+	}
+
+	/**
+	 * Method which discards the declarations which are still waiting.
+	 */
+	void reset() {
+		waiting.clear();
+		ready.clear();
+	}
+}
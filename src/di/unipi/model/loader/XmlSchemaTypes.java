@@ -0,0 +1,99 @@
+package di.unipi.model.loader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import di.unipi.model.tosca.PropertyType;
+
+/**
+ * Class which maps the (built-in) XML Schema types to the Java classes typing properties and parameters.
+ * <br>
+ * The XML Schema built-in types which do not correspond to a Java class are mapped to the
+ * PropertyType(s) defined for them (e.g., "xs:dateTime"). Other types are interpreted as the
+ * names of defined PropertyType(s) or as (fully qualified) Java class names.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@SuppressWarnings("rawtypes")
+final class XmlSchemaTypes {
+	/**
+	 * It stores the Java classes corresponding to the XML Schema types (by local name).
+	 */
+	private static final Map<String, Class> CLASSES = new HashMap<String, Class>();
+	/**
+	 * It stores the XML Schema types (local names) corresponding to the Java classes.
+	 */
+	private static final Map<Class, String> NAMES = new HashMap<Class, String>();
+
+	static {
+		//The first type mapped to a class is its (canonical) name.
+		map("string", String.class);
+		map("normalizedString", String.class);
+		map("token", String.class);
+		map("anyURI", String.class);
+		map("boolean", Boolean.class);
+		map("byte", Byte.class);
+		map("short", Short.class);
+		map("int", Integer.class);
+		map("long", Long.class);
+		map("integer", BigInteger.class);
+		map("float", Float.class);
+		map("double", Double.class);
+		map("decimal", BigDecimal.class);
+		map("base64Binary", byte[].class);
+		map("anyType", Object.class);
+	}
+
+	private XmlSchemaTypes() { }
+
+	private static void map(String name, Class c) {
+		CLASSES.put(name, c);
+		if(!NAMES.containsKey(c))
+			NAMES.put(c, name);
+	}
+
+	/**
+	 * Method which determines the PropertyType corresponding to a type.
+	 *
+	 * @param type (Possibly prefixed) XML Schema type, name of a defined PropertyType, or Java class name.
+	 *
+	 * @return The corresponding PropertyType, null if there is no such type.
+	 */
+	static PropertyType toPropertyType(String type) {
+		Class c = CLASSES.get(localName(type));
+		if(c != null)
+			return PropertyType.of(c);
+		PropertyType t = PropertyType.forName(type);
+		return (t != null ? t : PropertyType.lookup("xs:" + localName(type)));
+	}
+
+	/**
+	 * Method which determines the type corresponding to a Java class.
+	 *
+	 * @param c Class whose type is needed.
+	 *
+	 * @return The XML Schema type (local name) of c, or its Java class name.
+	 */
+	static String toName(Class c) {
+		String name = NAMES.get(c);
+		return (name != null ? name : c.getName());
+	}
+
+	/**
+	 * Method which strips the (namespace) prefix from a qualified name.
+	 *
+	 * @param qname The qualified name.
+	 *
+	 * @return The local part of qname.
+	 */
+	static String localName(String qname) {
+		int colon = qname.indexOf(':');
+		return (colon < 0 ? qname : qname.substring(colon + 1));
+	}
+}
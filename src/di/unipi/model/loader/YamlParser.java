@@ -0,0 +1,507 @@
+package di.unipi.model.loader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import di.unipi.model.exceptions.InvalidDocumentException;
+
+/**
+ * Class which parses (one at a time) the documents of a YAML stream.
+ * <br>
+ * Each document is parsed into a tree of Map(s) (preserving the order of keys), List(s) and String(s)
+ * (null for empty and null scalars), and only one document at a time is kept in memory. The parser
+ * supports the subset of YAML used by TOSCA Simple Profile documents: block mappings and sequences,
+ * (single line or bracket-balanced) flow mappings and sequences, plain and quoted scalars, literal
+ * and folded block scalars, comments and document markers. Anchors, aliases and tags are not
+ * interpreted (they are read as plain scalars).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+final class YamlParser {
+	private BufferedReader in;
+	/**
+	 * It stores the number of lines read so far.
+	 */
+	private int lineNumber;
+	private boolean eof;
+
+	/**
+	 * It stores the lines of the document being parsed.
+	 */
+	private List<Line> lines;
+	/**
+	 * It stores the position of the current line.
+	 */
+	private int pos;
+
+	/**
+	 * Constructor.
+	 * @param reader Reader of the YAML stream.
+	 */
+	YamlParser(Reader reader) {
+		in = (reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader));
+		lineNumber = 0;
+		eof = false;
+	}
+
+	/**
+	 * Method which parses the next (non-empty) document of the stream.
+	 *
+	 * @return The root of the parsed document, null if there are no more documents.
+	 *
+	 * @throws IOException If the stream cannot be read.
+	 * @throws InvalidDocumentException If the document is not valid (w.r.t. the supported subset of YAML).
+	 */
+	Object nextDocument() throws IOException, InvalidDocumentException {
+		while(!eof) {
+			lines = readDocument();
+			pos = 0;
+			skipBlank();
+			if(pos == lines.size())
+				continue;
+			Object root = parseBlock();
+			skipBlank();
+			if(pos < lines.size())
+				throw error(lines.get(pos), "Unexpected content");
+			lines = null;
+			return root;
+		}
+		return null;
+	}
+
+	/**
+	 * Method which reads the lines of a document (until a document marker or the end of the stream).
+	 */
+	private List<Line> readDocument() throws IOException {
+		List<Line> doc = new ArrayList<Line>();
+		String raw;
+		while((raw = in.readLine()) != null) {
+			lineNumber++;
+			if(marker(raw, "---") || marker(raw, "..."))
+				return doc;
+			if(doc.isEmpty() && raw.startsWith("%"))
+				continue;
+			doc.add(new Line(lineNumber, raw));
+		}
+		eof = true;
+		return doc;
+	}
+
+	private static boolean marker(String raw, String marker) {
+		return raw.startsWith(marker) &&
+				(raw.length() == marker.length() || Character.isWhitespace(raw.charAt(marker.length())));
+	}
+
+	private void skipBlank() {
+		while(pos < lines.size() && lines.get(pos).content.isEmpty())
+			pos++;
+	}
+
+	/**
+	 * Method which parses the node starting at the current (non-blank) line.
+	 */
+	private Object parseBlock() throws InvalidDocumentException {
+		Line l = lines.get(pos);
+		if(isSequenceItem(l.content))
+			return parseSequence(l.indent);
+		if(keyEnd(l.content) >= 0)
+			return parseMapping(l.indent);
+		pos++;
+		return parseValue(l, l.content, l.indent - 1, false);
+	}
+
+	private Map<String, Object> parseMapping(int indent) throws InvalidDocumentException {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		while(true) {
+			skipBlank();
+			if(pos == lines.size())
+				break;
+			Line l = lines.get(pos);
+			if(l.indent < indent)
+				break;
+			if(l.indent > indent)
+				throw error(l, "Unexpected indentation");
+			int colon = keyEnd(l.content);
+			if(colon < 0)
+				throw error(l, "A mapping key is expected");
+			String key = scalar(l, l.content.substring(0, colon).trim());
+			if(map.containsKey(key))
+				throw error(l, "Duplicate key <" + key + ">");
+			pos++;
+			map.put(key, parseValue(l, l.content.substring(colon + 1).trim(), indent, true));
+		}
+		return map;
+	}
+
+	private List<Object> parseSequence(int indent) throws InvalidDocumentException {
+		List<Object> list = new ArrayList<Object>();
+		while(true) {
+			skipBlank();
+			if(pos == lines.size())
+				break;
+			Line l = lines.get(pos);
+			if(l.indent < indent || (l.indent == indent && !isSequenceItem(l.content)))
+				break;
+			if(l.indent > indent)
+				throw error(l, "Unexpected indentation");
+			String rest = l.content.substring(1);
+			int offset = 1;
+			while(offset < l.content.length() && l.content.charAt(offset) == ' ')
+				offset++;
+			rest = rest.trim();
+			if(!rest.isEmpty() && (isSequenceItem(rest) || keyEnd(rest) >= 0)) {
+				//A nested block starts on the same line of the item (e.g., "- key: value").
+				lines.set(pos, new Line(l.number, l.raw, indent + offset, rest));
+				list.add(parseBlock());
+			} else {
+				pos++;
+				list.add(parseValue(l, rest, indent, false));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Method which parses the value following a key (or a sequence indicator) at the given indentation.
+	 */
+	private Object parseValue(Line l, String value, int indent, boolean inMapping) throws InvalidDocumentException {
+		if(value.isEmpty()) {
+			skipBlank();
+			if(pos < lines.size()) {
+				Line next = lines.get(pos);
+				if(next.indent > indent)
+					return parseBlock();
+				//The items of a sequence in a mapping can be as indented as its key.
+				if(inMapping && next.indent == indent && isSequenceItem(next.content))
+					return parseSequence(indent);
+			}
+			return null;
+		}
+		char first = value.charAt(0);
+		if(first == '|' || first == '>')
+			return blockScalar(first == '|', value.indexOf('-') > 0, indent);
+		if(first == '[' || first == '{') {
+			StringBuilder flow = new StringBuilder(value);
+			while(!balanced(flow)) {
+				skipBlank();
+				if(pos == lines.size())
+					throw error(l, "Unterminated flow collection");
+				flow.append(' ').append(lines.get(pos++).content.trim());
+			}
+			FlowParser parser = new FlowParser(l, flow.toString());
+			Object result = parser.parseValue();
+			parser.skipSpaces();
+			if(parser.i < parser.text.length())
+				throw error(l, "Unexpected content after flow collection");
+			return result;
+		}
+		if(first == '"' || first == '\'')
+			return scalar(l, value);
+		//Plain scalars may continue on (more indented) lines.
+		StringBuilder plain = new StringBuilder(value);
+		while(true) {
+			skipBlank();
+			if(pos == lines.size() || lines.get(pos).indent <= indent)
+				break;
+			//(Mapping entries cannot continue a scalar.)
+			if(keyEnd(lines.get(pos).content) >= 0)
+				throw error(lines.get(pos), "Unexpected indentation");
+			plain.append(' ').append(lines.get(pos++).content.trim());
+		}
+		return scalar(l, plain.toString());
+	}
+
+	/**
+	 * Method which parses a literal (or folded) block scalar.
+	 */
+	private String blockScalar(boolean literal, boolean strip, int indent) {
+		StringBuilder text = new StringBuilder();
+		int contentIndent = -1;
+		boolean pendingBreak = false;
+		while(pos < lines.size()) {
+			Line l = lines.get(pos);
+			boolean blank = l.raw.trim().isEmpty();
+			if(!blank && l.indent <= indent)
+				break;
+			pos++;
+			if(blank) {
+				//A blank line is a line break (in literal scalars, the break of the previous line is kept too).
+				text.append('\n');
+				pendingBreak = pendingBreak && literal;
+				continue;
+			}
+			if(contentIndent < 0)
+				contentIndent = l.indent;
+			if(pendingBreak)
+				text.append(literal ? '\n' : ' ');
+			text.append(l.raw.substring(Math.min(contentIndent, l.indent)));
+			pendingBreak = true;
+		}
+		String s = text.toString();
+		while(s.endsWith("\n"))
+			s = s.substring(0, s.length() - 1);
+		return (strip || s.isEmpty() ? s : s + "\n");
+	}
+
+	private static boolean isSequenceItem(String content) {
+		return content.equals("-") || content.startsWith("- ");
+	}
+
+	/**
+	 * Method which finds the colon ending the key of a mapping entry.
+	 *
+	 * @return The position of the colon, -1 if the content is not a mapping entry.
+	 */
+	private static int keyEnd(String content) {
+		if(content.isEmpty())
+			return -1;
+		int i = 0;
+		char first = content.charAt(0);
+		if(first == '[' || first == '{')
+			return -1;
+		if(first == '"' || first == '\'') {
+			i = closingQuote(content, 0);
+			if(i < 0)
+				return -1;
+			i++;
+		}
+		for(; i < content.length(); i++) {
+			if(content.charAt(i) == ':' && (i + 1 == content.length() || content.charAt(i + 1) == ' '))
+				return i;
+			if(content.charAt(i) == '#' && i > 0 && content.charAt(i - 1) == ' ')
+				return -1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Method which finds the quote closing the quoted scalar starting at the given position.
+	 */
+	private static int closingQuote(String s, int start) {
+		char quote = s.charAt(start);
+		for(int i = start + 1; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(quote == '"' && c == '\\')
+				i++;
+			else if(c == quote) {
+				if(quote == '\'' && i + 1 < s.length() && s.charAt(i + 1) == '\'')
+					i++;
+				else
+					return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean balanced(CharSequence flow) {
+		int depth = 0;
+		String s = flow.toString();
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if((c == '"' || c == '\'') && (i == 0 || " [{,:".indexOf(s.charAt(i - 1)) >= 0)) {
+				int end = closingQuote(s, i);
+				if(end < 0)
+					return false;
+				i = end;
+			} else if(c == '[' || c == '{')
+				depth++;
+			else if(c == ']' || c == '}')
+				depth--;
+		}
+		return depth <= 0;
+	}
+
+	/**
+	 * Method which converts a (plain or quoted) scalar into a String (null for null scalars).
+	 */
+	private String scalar(Line l, String s) throws InvalidDocumentException {
+		if(s.isEmpty() || s.equals("~") || s.equals("null") || s.equals("Null") || s.equals("NULL"))
+			return null;
+		char first = s.charAt(0);
+		if(first != '"' && first != '\'')
+			return s;
+		int end = closingQuote(s, 0);
+		if(end != s.length() - 1)
+			throw error(l, "Invalid quoted scalar");
+		String body = s.substring(1, end);
+		if(first == '\'')
+			return body.replace("''", "'");
+		StringBuilder unescaped = new StringBuilder(body.length());
+		for(int i = 0; i < body.length(); i++) {
+			char c = body.charAt(i);
+			if(c != '\\' || i + 1 == body.length()) {
+				unescaped.append(c);
+				continue;
+			}
+			char e = body.charAt(++i);
+			switch(e) {
+				case 'n': unescaped.append('\n'); break;
+				case 't': unescaped.append('\t'); break;
+				case 'r': unescaped.append('\r'); break;
+				case '0': unescaped.append('\0'); break;
+				case 'u':
+					if(i + 4 >= body.length())
+						throw error(l, "Invalid escape sequence");
+					unescaped.append((char) Integer.parseInt(body.substring(i + 1, i + 5), 16));
+					i += 4;
+					break;
+				default: unescaped.append(e);
+			}
+		}
+		return unescaped.toString();
+	}
+
+	private InvalidDocumentException error(Line l, String message) {
+		return new InvalidDocumentException("Line " + l.number + ": " + message);
+	}
+
+	/**
+	 * Class which models a line of a document.
+	 */
+	private static class Line {
+		private final int number;
+		private final String raw;
+		/**
+		 * It stores the number of spaces indenting the line.
+		 */
+		private final int indent;
+		/**
+		 * It stores the content of the line (without indentation and comments).
+		 */
+		private final String content;
+
+		private Line(int number, String raw) {
+			this.number = number;
+			this.raw = raw;
+			int i = 0;
+			while(i < raw.length() && raw.charAt(i) == ' ')
+				i++;
+			this.indent = i;
+			this.content = stripComment(raw.substring(i)).trim();
+		}
+
+		private Line(int number, String raw, int indent, String content) {
+			this.number = number;
+			this.raw = raw;
+			this.indent = indent;
+			this.content = content;
+		}
+
+		private static String stripComment(String s) {
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				boolean tokenStart = (i == 0 || " [{,:-".indexOf(s.charAt(i - 1)) >= 0);
+				if((c == '"' || c == '\'') && tokenStart) {
+					int end = closingQuote(s, i);
+					if(end < 0)
+						return s;
+					i = end;
+				} else if(c == '#' && (i == 0 || Character.isWhitespace(s.charAt(i - 1))))
+					return s.substring(0, i);
+			}
+			return s;
+		}
+	}
+
+	/**
+	 * Class which parses a flow collection.
+	 */
+	private class FlowParser {
+		private final Line line;
+		private final String text;
+		private int i;
+
+		private FlowParser(Line line, String text) {
+			this.line = line;
+			this.text = text;
+			this.i = 0;
+		}
+
+		private void skipSpaces() {
+			while(i < text.length() && Character.isWhitespace(text.charAt(i)))
+				i++;
+		}
+
+		private Object parseValue() throws InvalidDocumentException {
+			skipSpaces();
+			if(i == text.length())
+				return null;
+			char c = text.charAt(i);
+			if(c == '[') {
+				i++;
+				List<Object> list = new ArrayList<Object>();
+				skipSpaces();
+				while(!consume(']')) {
+					list.add(parseValue());
+					skipSpaces();
+					if(!consume(',') && !(i < text.length() && text.charAt(i) == ']'))
+						throw error(line, "',' or ']' expected");
+					skipSpaces();
+				}
+				return list;
+			}
+			if(c == '{') {
+				i++;
+				Map<String, Object> map = new LinkedHashMap<String, Object>();
+				skipSpaces();
+				while(!consume('}')) {
+					String key = parseScalar(true);
+					skipSpaces();
+					Object value = null;
+					if(consume(':'))
+						value = parseValue();
+					map.put(key, value);
+					skipSpaces();
+					if(!consume(',') && !(i < text.length() && text.charAt(i) == '}'))
+						throw error(line, "',' or '}' expected");
+					skipSpaces();
+				}
+				return map;
+			}
+			return parseScalar(false);
+		}
+
+		private String parseScalar(boolean key) throws InvalidDocumentException {
+			skipSpaces();
+			if(i == text.length())
+				throw error(line, "Unterminated flow collection");
+			char c = text.charAt(i);
+			if(c == '"' || c == '\'') {
+				int end = closingQuote(text, i);
+				if(end < 0)
+					throw error(line, "Unterminated quoted scalar");
+				String s = scalar(line, text.substring(i, end + 1));
+				i = end + 1;
+				return s;
+			}
+			int start = i;
+			while(i < text.length()) {
+				c = text.charAt(i);
+				if(c == ',' || c == ']' || c == '}')
+					break;
+				if(c == ':' && (key || i + 1 == text.length() || " ,]}".indexOf(text.charAt(i + 1)) >= 0))
+					break;
+				i++;
+			}
+			return scalar(line, text.substring(start, i).trim());
+		}
+
+		private boolean consume(char c) throws InvalidDocumentException {
+			if(i == text.length())
+				throw error(line, "Unterminated flow collection");
+			if(text.charAt(i) != c)
+				return false;
+			i++;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,11 @@
+/**
+ * Package which provides the readers loading TOSCA definitions (from their textual representations)
+ * into the classes of di.unipi.model.tosca.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+package di.unipi.model.loader;
@@ -1,7 +1,12 @@
 package di.unipi.model.tosca;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import di.unipi.model.exceptions.AlreadyDefinedException;
 import di.unipi.model.exceptions.AlreadyPresentException;
@@ -9,6 +14,13 @@ import di.unipi.model.exceptions.AlreadyPresentException;
 /**
  * Class which models the "TBoundaryDefinitions" element type (defined in the XML schema of TOSCA).
  * <br>
+ * Each addition or removal of an element increments the version of the boundary definitions.
+ * Once trackChanges() has been invoked (i.e., once the boundary definitions are tracked), the changes
+ * are also recorded, so that they can be retrieved (by getChangesSince()) in time proportional
+ * to their number. Only the last MAX_RECORDED_CHANGES changes are kept, hence the trackers
+ * lagging further behind have to check (by areChangesRecordedSince()) whether their changes are
+ * still available, and otherwise re-read the boundary definitions from scratch.
+ * <br>
  * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
  *
  * @author http://www.di.unipi.it/~soldani
@@ -16,6 +28,11 @@ import di.unipi.model.exceptions.AlreadyPresentException;
  * @version 1.0
  */
 public class BoundaryDefinitions {
+	/**
+	 * It stores the maximum number of recorded changes (the oldest ones are dropped beyond it).
+	 */
+	public static final int MAX_RECORDED_CHANGES = 1024;
+
 	/**
 	 * It stores the requirements exposed by these boundary definitions.
 	 */
@@ -37,12 +54,155 @@ public class BoundaryDefinitions {
 	 */
 	private Interfaces interfaces;
 
+	/**
+	 * It indicates whether these boundary definitions are frozen (i.e., they cannot be modified).
+	 */
+	private boolean frozen;
+
+	/**
+	 * It stores the version of these boundary definitions (i.e., the number of changes made to them).
+	 */
+	private int version;
+	/**
+	 * It stores the changes made since they are tracked (null if they are not tracked).
+	 */
+	private List<Change> changes;
+	/**
+	 * It stores the version from which changes are recorded.
+	 */
+	private int firstRecorded;
+
+	/**
+	 * It stores the structural fingerprint of these boundary definitions (computed at version
+	 * fingerprintVersion and type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintVersion;
+	private int fingerprintEpoch;
+
+	/**
+	 * Constructor.
+	 */
 	public BoundaryDefinitions() {
 		this.requirements = new Requirements();
 		this.capabilities = new Capabilities();
 		this.policies = new Policies();
 		this.properties = new Properties();
 		this.interfaces = new Interfaces();
+		this.frozen = false;
+	}
+
+	/**
+	 * Constructor (of frozen boundary definitions).
+	 * @param builder Builder containing the elements of the boundary definitions.
+	 */
+	private BoundaryDefinitions(Builder builder) {
+		this.requirements = new Requirements(builder.requirements);
+		this.capabilities = new Capabilities(builder.capabilities);
+		this.policies = new Policies(builder.policies);
+		this.properties = new Properties(builder.properties);
+		this.interfaces = new Interfaces(builder.interfaces);
+		this.frozen = true;
+	}
+
+	/**
+	 * Method which checks whether these boundary definitions are frozen (i.e., built by a Builder).
+	 * @return true if the boundary definitions cannot be modified, false otherwise.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Method which provides access to the version of these boundary definitions.
+	 * @return The number of changes made to these boundary definitions.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Method which starts recording the changes made to these boundary definitions (if not yet recorded).
+	 * @return The version from which changes are (at least) recorded.
+	 */
+	public int trackChanges() {
+		if(changes == null) {
+			changes = new ArrayList<Change>();
+			firstRecorded = version;
+		}
+		return version;
+	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of these boundary definitions, which
+	 * combines (independently of their order) the fingerprints of their elements (recomputed only if
+	 * the boundary definitions, or a type, have changed since it was last computed).
+	 * @return The Fingerprint of the boundary definitions.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintVersion != version || fingerprintEpoch != epoch) {
+			Fingerprint.Multiset reqs = new Fingerprint.Multiset();
+			for(Requirement r : requirements.getList())
+				reqs.add(r.getFingerprint());
+			Fingerprint.Multiset caps = new Fingerprint.Multiset();
+			for(Capability c : capabilities.getList())
+				caps.add(c.getFingerprint());
+			Fingerprint.Multiset pols = new Fingerprint.Multiset();
+			for(Policy p : policies.getList())
+				pols.add(p.getFingerprint());
+			Fingerprint.Multiset props = new Fingerprint.Multiset();
+			for(Property p : properties.getList())
+				props.add(p.getFingerprint());
+			Fingerprint.Multiset infs = new Fingerprint.Multiset();
+			for(Interface inf : interfaces.getList())
+				infs.add(inf.getFingerprint());
+			fingerprint = new Fingerprint.Hasher("BoundaryDefinitions").add(reqs).add(caps).add(pols).add(props).add(infs).build();
+			fingerprintVersion = version;
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Method which retrieves the changes made to these boundary definitions since a given version.
+	 *
+	 * @param since Version (as returned by trackChanges() or getVersion()) from which changes are retrieved.
+	 *
+	 * @return The List of changes (in order) made after version since.
+	 */
+	public List<Change> getChangesSince(int since) {
+		if(!areChangesRecordedSince(since))
+			throw new IllegalArgumentException("The changes since version " + since + " have not been recorded");
+		return new ArrayList<Change>(changes.subList(since - firstRecorded, changes.size()));
+	}
+
+	/**
+	 * Method which checks whether the changes made to these boundary definitions since a given
+	 * version are (still) recorded.
+	 *
+	 * @param since Version (as returned by trackChanges() or getVersion()) from which changes are retrieved.
+	 *
+	 * @return true if getChangesSince(since) can retrieve the changes, false otherwise.
+	 */
+	public boolean areChangesRecordedSince(int since) {
+		return changes != null && since >= firstRecorded && since <= version;
+	}
+
+	/**
+	 * Method which records a change.
+	 */
+	private void changed(boolean added, Object element) {
+		version++;
+		if(changes != null) {
+			changes.add(new Change(version, added, element));
+			//The oldest half of the changes is dropped (hence, in amortized constant time).
+			if(changes.size() > MAX_RECORDED_CHANGES) {
+				int dropped = changes.size() / 2;
+				changes.subList(0, dropped).clear();
+				firstRecorded += dropped;
+			}
+		}
 	}
 	/**
 	 * Method which provides access to the set of requirements.
@@ -129,6 +289,51 @@ public class BoundaryDefinitions {
 		interfaces.add(intf);
 	}
 
+	/**
+	 * Method which removes a Requirement from the set of requirements.
+	 * @param r The Requirement to be removed.
+	 * @return true if r was present, false otherwise.
+	 */
+	public boolean remove(Requirement r) {
+		return requirements.removeReference(r);
+	}
+
+	/**
+	 * Method which removes a Capability from the set of capabilities.
+	 * @param c The Capability to be removed.
+	 * @return true if c was present, false otherwise.
+	 */
+	public boolean remove(Capability c) {
+		return capabilities.removeReference(c);
+	}
+
+	/**
+	 * Method which removes a Policy from the set of policies.
+	 * @param pol The Policy to be removed.
+	 * @return true if pol was present, false otherwise.
+	 */
+	public boolean remove(Policy pol) {
+		return policies.remove(pol);
+	}
+
+	/**
+	 * Method which removes a Property from the set of properties.
+	 * @param p The Property to be removed.
+	 * @return true if p was present, false otherwise.
+	 */
+	public boolean remove(Property p) {
+		return properties.removeReference(p);
+	}
+
+	/**
+	 * Method which removes an Interface from the set of interfaces.
+	 * @param intf The Interface to be removed.
+	 * @return true if intf was present, false otherwise.
+	 */
+	public boolean remove(Interface intf) {
+		return interfaces.remove(intf);
+	}
+
 	/**
      * Class which models the set of references to requirements in a "TBoundaryDefinitions" TOSCA element.
      *
@@ -143,6 +348,10 @@ public class BoundaryDefinitions {
          * It stores the set of references to requirements.
          */
         private List<Requirement> reqs;
+        /**
+         * It stores the requirements indexed by name (only if frozen, null otherwise).
+         */
+        private Map<String, Requirement> byName;
 
         /**
          * Constructor.
@@ -151,6 +360,21 @@ public class BoundaryDefinitions {
             reqs = new ArrayList<Requirement>();
         }
 
+        /**
+         * Constructor (of a frozen set of requirements).
+         *
+         * @param reqs The requirements to be contained (in order).
+         */
+        private Requirements(List<Requirement> reqs) {
+            this.reqs = Collections.unmodifiableList(new ArrayList<Requirement>(reqs));
+            byName = new HashMap<String, Requirement>(2 * reqs.size());
+            //As for the linear lookup, the first element with a given name is retrieved.
+            for(Requirement r : reqs) {
+                if(!byName.containsKey(r.getName()))
+                    byName.put(r.getName(), r);
+            }
+        }
+
         /**
          * Method which allows to add a new reference to a requirement.
          *
@@ -159,9 +383,28 @@ public class BoundaryDefinitions {
          * @throws AlreadyDefinedException
          */
         public void addReference(Requirement r) throws AlreadyPresentException{
+            if(byName != null)
+                throw new UnsupportedOperationException("The requirements are frozen");
             if(reqs.contains(r))
                 throw new AlreadyPresentException("The reference to requirement <" + r.getName() + " is already defined");
             reqs.add(r);
+            changed(true, r);
+        }
+
+        /**
+         * Method which allows to remove a reference to a requirement.
+         *
+         * @param r Requirement to be removed.
+         *
+         * @return true if r was present, false otherwise.
+         */
+        public boolean removeReference(Requirement r) {
+            if(byName != null)
+                throw new UnsupportedOperationException("The requirements are frozen");
+            if(!reqs.remove(r))
+                return false;
+            changed(false, r);
+            return true;
         }
 
         /**
@@ -172,6 +415,8 @@ public class BoundaryDefinitions {
          * @return A Requirement reference if the desired requirement is present, null otherwise.
          */
         public Requirement getReference(String name) {
+            if(byName != null)
+                return byName.get(name);
             for(Requirement r : reqs) {
                 if(r.getName().equals(name))
                     return r;
@@ -203,6 +448,10 @@ public class BoundaryDefinitions {
          * It stores the set of references to capabilities.
          */
         private List<Capability> caps;
+        /**
+         * It stores the capabilities indexed by name (only if frozen, null otherwise).
+         */
+        private Map<String, Capability> byName;
 
         /**
          * Constructor.
@@ -211,6 +460,21 @@ public class BoundaryDefinitions {
             caps = new ArrayList<Capability>();
         }
 
+        /**
+         * Constructor (of a frozen set of capabilities).
+         *
+         * @param caps The capabilities to be contained (in order).
+         */
+        private Capabilities(List<Capability> caps) {
+            this.caps = Collections.unmodifiableList(new ArrayList<Capability>(caps));
+            byName = new HashMap<String, Capability>(2 * caps.size());
+            //As for the linear lookup, the first element with a given name is retrieved.
+            for(Capability c : caps) {
+                if(!byName.containsKey(c.getName()))
+                    byName.put(c.getName(), c);
+            }
+        }
+
         /**
          * Method which allows to add a new reference to a capability.
          *
@@ -219,9 +483,28 @@ public class BoundaryDefinitions {
          * @throws AlreadyDefinedException
          */
         public void addReference(Capability c) throws AlreadyPresentException{
+            if(byName != null)
+                throw new UnsupportedOperationException("The capabilities are frozen");
             if(caps.contains(c))
                 throw new AlreadyPresentException("The capability <" + c.getName() + " is already defined");
             caps.add(c);
+            changed(true, c);
+        }
+
+        /**
+         * Method which allows to remove a reference to a capability.
+         *
+         * @param c Capability to be removed.
+         *
+         * @return true if c was present, false otherwise.
+         */
+        public boolean removeReference(Capability c) {
+            if(byName != null)
+                throw new UnsupportedOperationException("The capabilities are frozen");
+            if(!caps.remove(c))
+                return false;
+            changed(false, c);
+            return true;
         }
 
         /**
@@ -232,6 +515,8 @@ public class BoundaryDefinitions {
          * @return A Capability reference if the desired capability is present, null otherwise.
          */
         public Capability getReference(String name) {
+            if(byName != null)
+                return byName.get(name);
             for(Capability c : caps) {
                 if(c.getName().equals(name))
                     return c;
@@ -263,6 +548,10 @@ public class BoundaryDefinitions {
          * It stores the set of references to properties.
          */
         private List<Property> props;
+        /**
+         * It stores the properties indexed by name (only if frozen, null otherwise).
+         */
+        private Map<String, Property> byName;
 
         /**
          * Constructor.
@@ -271,6 +560,21 @@ public class BoundaryDefinitions {
             props = new ArrayList<Property>();
         }
 
+        /**
+         * Constructor (of a frozen set of properties).
+         *
+         * @param props The properties to be contained (in order).
+         */
+        private Properties(List<Property> props) {
+            this.props = Collections.unmodifiableList(new ArrayList<Property>(props));
+            byName = new HashMap<String, Property>(2 * props.size());
+            //As for the linear lookup, the first element with a given name is retrieved.
+            for(Property p : props) {
+                if(!byName.containsKey(p.getName()))
+                    byName.put(p.getName(), p);
+            }
+        }
+
         /**
          * Method which allows to add a new reference to a property.
          *
@@ -279,9 +583,28 @@ public class BoundaryDefinitions {
          * @throws AlreadyPresentException
          */
         public void addReference(Property p) throws AlreadyPresentException{
+            if(byName != null)
+                throw new UnsupportedOperationException("The properties are frozen");
             if(props.contains(p))
                 throw new AlreadyPresentException("The property <" + p.getName() + " is already defined");
             props.add(p);
+            changed(true, p);
+        }
+
+        /**
+         * Method which allows to remove a reference to a property.
+         *
+         * @param p Property to be removed.
+         *
+         * @return true if p was present, false otherwise.
+         */
+        public boolean removeReference(Property p) {
+            if(byName != null)
+                throw new UnsupportedOperationException("The properties are frozen");
+            if(!props.remove(p))
+                return false;
+            changed(false, p);
+            return true;
         }
 
         /**
@@ -292,6 +615,8 @@ public class BoundaryDefinitions {
          * @return A Property reference if the desired capability is present, null otherwise.
          */
         public Property getReference(String name) {
+            if(byName != null)
+                return byName.get(name);
             for(Property p : props) {
                 if(p.getName().equals(name))
                     return p;
@@ -323,6 +648,10 @@ public class BoundaryDefinitions {
          * It stores the set of policies.
          */
         private List<Policy> pols;
+        /**
+         * It indicates whether the set of policies is frozen.
+         */
+        private boolean frozen;
 
         /**
          * Constructor.
@@ -331,6 +660,16 @@ public class BoundaryDefinitions {
             pols = new ArrayList<Policy>();
         }
 
+        /**
+         * Constructor (of a frozen set of policies).
+         *
+         * @param pols The policies to be contained (in order).
+         */
+        private Policies(List<Policy> pols) {
+            this.pols = Collections.unmodifiableList(new ArrayList<Policy>(pols));
+            frozen = true;
+        }
+
         /**
          * Method which allows to add a new policy.
          *
@@ -339,9 +678,28 @@ public class BoundaryDefinitions {
          * @throws AlreadyPresentException
          */
         public void add(Policy pol) throws AlreadyPresentException{
+            if(frozen)
+                throw new UnsupportedOperationException("The policies are frozen");
             if(pols.contains(pol))
                 throw new AlreadyPresentException("The capability <" + pol.getName() + " is already defined");
             pols.add(pol);
+            changed(true, pol);
+        }
+
+        /**
+         * Method which allows to remove a policy.
+         *
+         * @param pol Policy to be removed.
+         *
+         * @return true if pol was present, false otherwise.
+         */
+        public boolean remove(Policy pol) {
+            if(frozen)
+                throw new UnsupportedOperationException("The policies are frozen");
+            if(!pols.remove(pol))
+                return false;
+            changed(false, pol);
+            return true;
         }
 
         /**
@@ -367,6 +725,10 @@ public class BoundaryDefinitions {
          * It stores the set of references to interfaces.
          */
         private List<Interface> interfaces;
+        /**
+         * It indicates whether the set of interfaces is frozen.
+         */
+        private boolean frozen;
 
         /**
          * Constructor.
@@ -375,6 +737,16 @@ public class BoundaryDefinitions {
             interfaces = new ArrayList<Interface>();
         }
 
+        /**
+         * Constructor (of a frozen set of interfaces).
+         *
+         * @param interfaces The interfaces to be contained (in order).
+         */
+        private Interfaces(List<Interface> interfaces) {
+            this.interfaces = Collections.unmodifiableList(new ArrayList<Interface>(interfaces));
+            frozen = true;
+        }
+
         /**
          * Method which allows to add a new reference to an interface.
          *
@@ -383,9 +755,28 @@ public class BoundaryDefinitions {
          * @throws AlreadyDefinedException
          */
         public void add(Interface intf) throws AlreadyDefinedException{
+            if(frozen)
+                throw new UnsupportedOperationException("The interfaces are frozen");
             if(interfaces.contains(intf))
                 throw new AlreadyDefinedException("The interface <" + intf.getName() + " is already defined");
             interfaces.add(intf);
+            changed(true, intf);
+        }
+
+        /**
+         * Method which allows to remove a interface.
+         *
+         * @param intf Interface to be removed.
+         *
+         * @return true if intf was present, false otherwise.
+         */
+        public boolean remove(Interface intf) {
+            if(frozen)
+                throw new UnsupportedOperationException("The interfaces are frozen");
+            if(!interfaces.remove(intf))
+                return false;
+            changed(false, intf);
+            return true;
         }
 
         /**
@@ -406,4 +797,180 @@ public class BoundaryDefinitions {
         	return interfaces;
         }
     }
+
+	/**
+	 * Class which models a change made to BoundaryDefinitions (i.e., the addition or the removal
+	 * of a Requirement, Capability, Policy, Property or Interface).
+	 */
+	public static class Change {
+		/**
+		 * It stores the version produced by the change.
+		 */
+		private final int version;
+		/**
+		 * It indicates whether the element has been added (or removed).
+		 */
+		private final boolean added;
+		/**
+		 * It stores the added (or removed) element.
+		 */
+		private final Object element;
+
+		/**
+		 * Constructor.
+		 * @param version Version produced by the change.
+		 * @param added Boolean which indicates whether the element has been added (or removed).
+		 * @param element The added (or removed) element.
+		 */
+		private Change(int version, boolean added, Object element) {
+			this.version = version;
+			this.added = added;
+			this.element = element;
+		}
+
+		/**
+		 * Method which provides access to the version produced by the change.
+		 * @return The version of the BoundaryDefinitions after the change.
+		 */
+		public int getVersion() {
+			return version;
+		}
+
+		/**
+		 * Method which indicates whether the change is an addition.
+		 * @return true if the element has been added, false if it has been removed.
+		 */
+		public boolean isAddition() {
+			return added;
+		}
+
+		/**
+		 * Method which provides access to the added (or removed) element.
+		 * @return The Requirement, Capability, Policy, Property or Interface which has been added (or removed).
+		 */
+		public Object getElement() {
+			return element;
+		}
+	}
+
+	/**
+	 * Class which builds (in linear time) frozen BoundaryDefinitions.
+	 * <br>
+	 * Elements added twice are detected in constant time (through an identity set, as the add methods
+	 * of BoundaryDefinitions reject the same element only). The built BoundaryDefinitions store their
+	 * elements in compact unmodifiable lists, retrieve requirements, capabilities and properties by name
+	 * in constant time, and cannot be modified (their add methods throw UnsupportedOperationException).
+	 */
+	public static class Builder {
+		/**
+		 * It stores the requirements to be exposed.
+		 */
+		private List<Requirement> requirements;
+		/**
+		 * It stores the capabilities to be exposed.
+		 */
+		private List<Capability> capabilities;
+		/**
+		 * It stores the policies to be exposed.
+		 */
+		private List<Policy> policies;
+		/**
+		 * It stores the properties to be exposed.
+		 */
+		private List<Property> properties;
+		/**
+		 * It stores the interfaces to be exposed.
+		 */
+		private List<Interface> interfaces;
+		/**
+		 * It stores (by identity) all the added elements.
+		 */
+		private Set<Object> added;
+
+		/**
+		 * Constructor.
+		 */
+		public Builder() {
+			requirements = new ArrayList<Requirement>();
+			capabilities = new ArrayList<Capability>();
+			policies = new ArrayList<Policy>();
+			properties = new ArrayList<Property>();
+			interfaces = new ArrayList<Interface>();
+			added = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		}
+
+		/**
+		 * Method which adds a Requirement.
+		 * @param r The Requirement to be added.
+		 * @return This Builder.
+		 * @throws AlreadyPresentException If the requirement has already been added.
+		 */
+		public Builder add(Requirement r) throws AlreadyPresentException {
+			if(!added.add(r))
+				throw new AlreadyPresentException("The reference to requirement <" + r.getName() + "> is already defined");
+			requirements.add(r);
+			return this;
+		}
+
+		/**
+		 * Method which adds a Capability.
+		 * @param c The Capability to be added.
+		 * @return This Builder.
+		 * @throws AlreadyPresentException If the capability has already been added.
+		 */
+		public Builder add(Capability c) throws AlreadyPresentException {
+			if(!added.add(c))
+				throw new AlreadyPresentException("The capability <" + c.getName() + "> is already defined");
+			capabilities.add(c);
+			return this;
+		}
+
+		/**
+		 * Method which adds a Policy.
+		 * @param pol The Policy to be added.
+		 * @return This Builder.
+		 * @throws AlreadyPresentException If the policy has already been added.
+		 */
+		public Builder add(Policy pol) throws AlreadyPresentException {
+			if(!added.add(pol))
+				throw new AlreadyPresentException("The policy <" + pol.getName() + "> is already defined");
+			policies.add(pol);
+			return this;
+		}
+
+		/**
+		 * Method which adds a Property.
+		 * @param p The Property to be added.
+		 * @return This Builder.
+		 * @throws AlreadyPresentException If the property has already been added.
+		 */
+		public Builder add(Property p) throws AlreadyPresentException {
+			if(!added.add(p))
+				throw new AlreadyPresentException("The property <" + p.getName() + "> is already defined");
+			properties.add(p);
+			return this;
+		}
+
+		/**
+		 * Method which adds an Interface.
+		 * @param intf The Interface to be added.
+		 * @return This Builder.
+		 * @throws AlreadyDefinedException If the interface has already been added.
+		 */
+		public Builder add(Interface intf) throws AlreadyDefinedException {
+			if(!added.add(intf))
+				throw new AlreadyDefinedException("The interface <" + intf.getName() + "> is already defined");
+			interfaces.add(intf);
+			return this;
+		}
+
+		/**
+		 * Method which builds the (frozen) BoundaryDefinitions containing the added elements.
+		 * The Builder can be further used, without affecting the built BoundaryDefinitions.
+		 * @return The built BoundaryDefinitions.
+		 */
+		public BoundaryDefinitions build() {
+			return new BoundaryDefinitions(this);
+		}
+	}
 }
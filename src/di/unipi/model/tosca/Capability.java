@@ -15,6 +15,17 @@ public class Capability extends EntityTemplate{
 	 */
 	protected String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	protected int nameId;
+
+	/**
+	 * It stores the structural fingerprint of the capability (computed at type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+
 	/**
 	 * Constructor.
 	 * @param name Name of the capability under definition.
@@ -23,6 +34,7 @@ public class Capability extends EntityTemplate{
 	public Capability(String name, CapabilityType cType) {
 		super(cType);
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 	}
 
 	/**
@@ -33,8 +45,30 @@ public class Capability extends EntityTemplate{
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the capability.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	@Override
 	public CapabilityType getType() {
 		return (CapabilityType) type;
 	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of the capability (recomputed only
+	 * if a type has changed since it was last computed).
+	 * @return The Fingerprint of the capability.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintEpoch != epoch) {
+			fingerprint = new Fingerprint.Hasher("Capability").add(name).add(getType().getFingerprint()).build();
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
 }
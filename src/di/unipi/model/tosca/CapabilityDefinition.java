@@ -15,11 +15,22 @@ public class CapabilityDefinition extends ExtensibleElements {
 	 */
 	private String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	private int nameId;
+
 	/**
 	 * It stores the type of the capability under definition.
 	 */
 	private CapabilityType capabilityType;
 
+	/**
+	 * It stores the structural fingerprint of the capability definition (computed at type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+
 	/**
 	 * Constructor.
 	 *
@@ -28,6 +39,7 @@ public class CapabilityDefinition extends ExtensibleElements {
 	 */
 	public CapabilityDefinition(String name, CapabilityType capabilityType){
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.capabilityType = capabilityType;
 	}
 
@@ -39,6 +51,14 @@ public class CapabilityDefinition extends ExtensibleElements {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the capability definition.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Provides access to the type of the capability under definition
 	 * @return Type of the capability under definition
@@ -47,6 +67,20 @@ public class CapabilityDefinition extends ExtensibleElements {
 		return capabilityType;
 	}
 
+	/**
+	 * Method which provides access to the structural fingerprint of the capability definition (recomputed only
+	 * if a type has changed since it was last computed).
+	 * @return The Fingerprint of the capability definition.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintEpoch != epoch) {
+			fingerprint = new Fingerprint.Hasher("CapabilityDefinition").add(name).add(capabilityType.getFingerprint()).build();
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
+
 //	@Override
 //	public boolean equals(Object obj) {
 //		CapabilityDefinition cDef = (CapabilityDefinition) obj;
@@ -1,6 +1,7 @@
 package di.unipi.model.tosca;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import di.unipi.model.exceptions.AlreadyDefinedException;
 
@@ -15,6 +16,12 @@ import di.unipi.model.exceptions.AlreadyDefinedException;
  */
 public abstract class EntityType extends ExtensibleElements {
 
+	/**
+	 * It stores the type epoch (i.e., the number of changes made to any type on whose fingerprint
+	 * other kinds of elements may depend), which invalidates the cached fingerprints.
+	 */
+	private static final AtomicInteger EPOCH = new AtomicInteger();
+
 	/**
 	 * It stores a reference to the parent type definition.
 	 */
@@ -25,11 +32,29 @@ public abstract class EntityType extends ExtensibleElements {
 	 */
 	protected String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	protected int nameId;
+
 	/**
 	 * It stores the definition of the properties exposed by the type under definition.
 	 */
 	protected EntityType.PropertiesDefinition propertiesDefinition;
 
+	/**
+	 * It stores the version of the type under definition (i.e., the number of changes made to its definitions).
+	 */
+	protected int version;
+
+	/**
+	 * It stores the structural fingerprint of the type (computed at type epoch fingerprintEpoch,
+	 * when the versions of the type and of its ancestors summed up to fingerprintLineage).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+	private int fingerprintLineage;
+
 	/**
 	 * Constructor.
 	 * @param derivedFrom EntityType from which the current one is derived.
@@ -38,6 +63,7 @@ public abstract class EntityType extends ExtensibleElements {
 	public EntityType(EntityType derivedFrom, String name) {
 		this.derivedFrom = derivedFrom;
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.propertiesDefinition = new PropertiesDefinition();
 	}
 
@@ -48,6 +74,7 @@ public abstract class EntityType extends ExtensibleElements {
 	public EntityType(String name) {
 		this.derivedFrom = null;
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.propertiesDefinition = new PropertiesDefinition();
 	}
 
@@ -57,6 +84,105 @@ public abstract class EntityType extends ExtensibleElements {
 	 */
 	public abstract EntityType derivedFrom();
 
+	/**
+	 * Method which provides access to the version of the considered entity type.
+	 * @return The number of changes made (through the add methods) to the definitions of the entity type.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Method which records a change of the definitions of the considered entity type.
+	 */
+	protected void changed() {
+		version++;
+		if(isFingerprintShared())
+			EPOCH.incrementAndGet();
+	}
+
+	/**
+	 * Method which determines whether the fingerprints of other kinds of elements (e.g., boundary definitions)
+	 * may depend on the fingerprint of the entity type, hence whether its changes advance the type epoch (the
+	 * types derived from it anyway recompute their fingerprints, as they check the versions of their ancestors).
+	 * @return true if other kinds of elements may depend on the fingerprint of the entity type, false otherwise.
+	 */
+	boolean isFingerprintShared() {
+		return true;
+	}
+
+	/**
+	 * Method which provides access to the type epoch.
+	 * @return The number of changes made to any type on whose fingerprint other kinds of elements may depend.
+	 */
+	public static int epoch() {
+		return EPOCH.get();
+	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of the considered entity type, which
+	 * combines its kind and name with the fingerprints of the type from which it is derived and of its
+	 * definitions (recomputed only if the type, one of its ancestors or a type on whose fingerprint other
+	 * kinds of elements may depend has changed since it was last computed).
+	 * @return The Fingerprint of the entity type.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = epoch();
+		int lineage = lineageVersion();
+		if(fingerprint == null || fingerprintEpoch != epoch || fingerprintLineage != lineage) {
+			Fingerprint.Hasher h = new Fingerprint.Hasher(getClass().getName()).add(name);
+			h.add(derivedFrom == null ? null : derivedFrom.getFingerprint());
+			Fingerprint.Multiset props = new Fingerprint.Multiset();
+			for(PropertyDefinition pDef : propertiesDefinition.getList())
+				props.add(pDef.getFingerprint());
+			h.add(props);
+			fingerprint(h);
+			fingerprint = h.build();
+			fingerprintEpoch = epoch;
+			fingerprintLineage = lineage;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Method which sums the versions of the entity type and of the types from which it is derived
+	 * (which changes whenever any of them is changed, as versions only increase).
+	 */
+	private int lineageVersion() {
+		int lineage = 0;
+		for(EntityType t = this; t != null; t = t.derivedFrom)
+			lineage += t.version;
+		return lineage;
+	}
+
+	/**
+	 * Method which collects the entity type together with the types on whose fingerprints its fingerprint
+	 * depends (i.e., the types from which it is derived and those referenced by its definitions), whose
+	 * changes are the only ones which may change its fingerprint (besides its own changes).
+	 *
+	 * @param types Set where the types are collected.
+	 */
+	public void collectDependencies(Set<EntityType> types) {
+		for(EntityType t = this; t != null && types.add(t); t = t.derivedFrom)
+			t.dependencies(types);
+	}
+
+	/**
+	 * Method which collects the types referenced by the definitions specific to the kind of the entity type.
+	 *
+	 * @param types Set where the types are collected.
+	 */
+	void dependencies(Set<EntityType> types) {
+	}
+
+	/**
+	 * Method which adds the definitions specific to the kind of the entity type to its fingerprint.
+	 *
+	 * @param h Hasher computing the fingerprint.
+	 */
+	void fingerprint(Fingerprint.Hasher h) {
+	}
+
 	/**
 	 * Method which provides access to the (qualified) name of the considered entity type.
 	 * @return Name of the considered entity type.
@@ -65,6 +191,14 @@ public abstract class EntityType extends ExtensibleElements {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the entity type.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Method which provides access to the defined properties of the considered entity type.
 	 * @return Defined properties of the considered entity type.
@@ -82,6 +216,10 @@ public abstract class EntityType extends ExtensibleElements {
 		 * It stores the set of property definitions.
 		 */
 		private List<PropertyDefinition> properties;
+		/**
+		 * It stores the property definitions indexed by name (only if frozen, null otherwise).
+		 */
+		private Map<String, PropertyDefinition> byName;
 
 		/**
 		 * Constructor.
@@ -90,6 +228,21 @@ public abstract class EntityType extends ExtensibleElements {
 			properties = new ArrayList<PropertyDefinition>();
 		}
 
+		/**
+		 * Constructor (of a frozen set of property definitions).
+		 *
+		 * @param properties The property definitions to be contained (in order).
+		 */
+		PropertiesDefinition(List<PropertyDefinition> properties) {
+			this.properties = Collections.unmodifiableList(new ArrayList<PropertyDefinition>(properties));
+			byName = new HashMap<String, PropertyDefinition>(2 * properties.size());
+			//As for the linear lookup, the first definition with a given name is retrieved.
+			for(PropertyDefinition pDef : properties) {
+				if(!byName.containsKey(pDef.getName()))
+					byName.put(pDef.getName(), pDef);
+			}
+		}
+
 		/**
 		 * Method which allows to add a new property definition.
 		 *
@@ -99,10 +252,31 @@ public abstract class EntityType extends ExtensibleElements {
 		 * @throws AlreadyDefinedException
 		 */
 		public void addDefinition(String name, Class type) throws AlreadyDefinedException{
+			if(byName != null)
+				throw new UnsupportedOperationException("The property definitions are frozen");
+			PropertyDefinition pDef = new PropertyDefinition(name, type);
+			if(properties.contains(pDef))
+				throw new AlreadyDefinedException("The property <" + name + ", " + type.toString() + " is already defined");
+			properties.add(pDef);
+			changed();
+		}
+
+		/**
+		 * Method which allows to add a new property definition (whose type is not necessarily a Java class).
+		 *
+		 * @param name Name of the property to be defined.
+		 * @param type PropertyType of the property to be defined.
+		 *
+		 * @throws AlreadyDefinedException
+		 */
+		public void addDefinition(String name, PropertyType type) throws AlreadyDefinedException{
+			if(byName != null)
+				throw new UnsupportedOperationException("The property definitions are frozen");
 			PropertyDefinition pDef = new PropertyDefinition(name, type);
 			if(properties.contains(pDef))
 				throw new AlreadyDefinedException("The property <" + name + ", " + type.toString() + " is already defined");
 			properties.add(pDef);
+			changed();
 		}
 
 		/**
@@ -113,6 +287,8 @@ public abstract class EntityType extends ExtensibleElements {
 		 * @return A PropertyDefinition if the desired property is present, null otherwise.
 		 */
 		public PropertyDefinition getDefinition(String name) {
+			if(byName != null)
+				return byName.get(name);
 			for(PropertyDefinition pDef : properties) {
 				if(pDef.getName().equals(name))
 					return pDef;
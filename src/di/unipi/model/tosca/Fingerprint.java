@@ -0,0 +1,170 @@
+package di.unipi.model.tosca;
+
+/**
+ * Class which models the (immutable) 128-bit structural fingerprint of a TOSCA element.
+ * <br>
+ * Fingerprints are computed bottom-up (as in a Merkle tree): the fingerprint of an element combines
+ * its own (kind, name and type) information with the fingerprints of the elements it contains or
+ * references. Ordered contents (e.g., the parameters of an operation) are combined in order, while
+ * unordered contents (e.g., the elements of a boundary) are combined as multisets. Hence, structurally
+ * identical elements have equal fingerprints, and (up to hash collisions) structurally different
+ * elements have different fingerprints. Unlike the elements themselves (which are compared by
+ * identity), fingerprints can be compared and hashed by content (e.g., to deduplicate elements, or
+ * to use them as keys).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public final class Fingerprint {
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private final long high;
+	private final long low;
+
+	/**
+	 * Constructor.
+	 * @param high Most significant 64 bits of the fingerprint.
+	 * @param low Least significant 64 bits of the fingerprint.
+	 */
+	public Fingerprint(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Method which provides access to the most significant 64 bits of the fingerprint.
+	 * @return The most significant 64 bits.
+	 */
+	public long getHigh() {
+		return high;
+	}
+
+	/**
+	 * Method which provides access to the least significant 64 bits of the fingerprint.
+	 * @return The least significant 64 bits.
+	 */
+	public long getLow() {
+		return low;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof Fingerprint))
+			return false;
+		Fingerprint f = (Fingerprint) obj;
+		return f.high == high && f.low == low;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) low;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+
+	/**
+	 * Method which (bijectively) mixes the bits of a long (finalizer of MurmurHash3).
+	 */
+	private static long mix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	/**
+	 * Class which computes a fingerprint from (a sequence of) values.
+	 */
+	static final class Hasher {
+		private long h1;
+		private long h2;
+		/**
+		 * It stores the number of values added to the hasher.
+		 */
+		private long length;
+
+		/**
+		 * Constructor.
+		 * @param kind Kind of the element whose fingerprint is computed.
+		 */
+		Hasher(String kind) {
+			h1 = 0;
+			h2 = 0;
+			length = 0;
+			add(kind);
+		}
+
+		Hasher add(long v) {
+			h1 = mix(h1 ^ (v * C1));
+			h2 = mix(h2 + (v * C2) + h1);
+			length++;
+			return this;
+		}
+
+		Hasher add(boolean b) {
+			return add(b ? 1 : 0);
+		}
+
+		Hasher add(String s) {
+			if(s == null)
+				return add(-1);
+			add(s.length());
+			long chunk = 0;
+			for(int i = 0; i < s.length(); i++) {
+				chunk = (chunk << 16) | s.charAt(i);
+				if((i & 3) == 3) {
+					add(chunk);
+					chunk = 0;
+				}
+			}
+			return add(chunk);
+		}
+
+		Hasher add(Fingerprint f) {
+			if(f == null)
+				return add(-1);
+			add(f.high);
+			return add(f.low);
+		}
+
+		/**
+		 * Method which adds the fingerprints of an unordered collection of elements.
+		 */
+		Hasher add(Multiset m) {
+			add(m.size);
+			add(m.high);
+			return add(m.low);
+		}
+
+		Fingerprint build() {
+			long a = mix(h1 ^ length);
+			long b = mix(h2 + a);
+			return new Fingerprint(b, mix(a + b));
+		}
+	}
+
+	/**
+	 * Class which combines (independently of their order) the fingerprints of a collection of elements.
+	 */
+	static final class Multiset {
+		private long high;
+		private long low;
+		private long size;
+
+		Multiset add(Fingerprint f) {
+			high += f.high;
+			low += f.low;
+			size++;
+			return this;
+		}
+	}
+}
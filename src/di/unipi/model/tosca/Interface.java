@@ -22,6 +22,16 @@ public class Interface {
      */
     private String name;
 
+    /**
+     * It stores the (interned) identifier of the name.
+     */
+    private int nameId;
+
+    /**
+     * It stores the (lazily computed) structural fingerprint of the interface.
+     */
+    private Fingerprint fingerprint;
+
     /**
      * Constructor.
      *
@@ -30,6 +40,7 @@ public class Interface {
      */
     public Interface(String name, List<Operation> operations) {
         this.name = name;
+        this.nameId = SymbolTable.intern(name);
         this.operations = operations;
     }
 
@@ -41,6 +52,14 @@ public class Interface {
     	return name;
     }
 
+    /**
+     * Method which provides access to the (interned) identifier of the name of the interface.
+     * @return The SymbolTable identifier of the name.
+     */
+    public int getNameId() {
+    	return nameId;
+    }
+
     /**
      * Method which provides access to the operations of the interface.
      * @return The operations of the interface.
@@ -49,6 +68,21 @@ public class Interface {
     	return operations;
     }
 
+    /**
+     * Method which provides access to the structural fingerprint of the interface (computed once),
+     * which combines those of its operations (independently of their order).
+     * @return The Fingerprint of the interface.
+     */
+    public Fingerprint getFingerprint() {
+    	if(fingerprint == null) {
+    		Fingerprint.Multiset ops = new Fingerprint.Multiset();
+    		for(Operation op : operations)
+    			ops.add(op.getFingerprint());
+    		fingerprint = new Fingerprint.Hasher("Interface").add(name).add(ops).build();
+    	}
+    	return fingerprint;
+    }
+
 //    @Override
 //    public boolean equals(Object obj) {
 //    	Interface inf = (Interface) obj;
@@ -1,7 +1,12 @@
 package di.unipi.model.tosca;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import di.unipi.model.exceptions.AlreadyDefinedException;
 
@@ -53,6 +58,18 @@ public class NodeType extends EntityType {
 		this.interfaces = new Interfaces();
 	}
 
+	/**
+	 * Constructor (of a frozen node type).
+	 * @param builder Builder containing the definitions of the node type.
+	 */
+	private NodeType(Builder builder) {
+		super(builder.derivedFrom, builder.name);
+		this.propertiesDefinition = new PropertiesDefinition(builder.propertyDefinitions);
+		this.requirementDefinitions = new RequirementDefinitions(builder.requirementDefinitions);
+		this.capabilityDefinitions = new CapabilityDefinitions(builder.capabilityDefinitions);
+		this.interfaces = new Interfaces(builder.interfaces);
+	}
+
 	/**
 	 * Method which provides access to the requirement definitions of the current node type.
 	 * @return The requirement definitions of the node type under consideration
@@ -82,6 +99,35 @@ public class NodeType extends EntityType {
 		return (NodeType) derivedFrom;
 	}
 
+	@Override
+	boolean isFingerprintShared() {
+		//PolicyType(s) only include the names of the NodeType(s) they apply to, and boundary definitions never
+		//include a NodeType, hence changing a NodeType must not invalidate the cached fingerprints of other elements.
+		return false;
+	}
+
+	@Override
+	void dependencies(Set<EntityType> types) {
+		for(RequirementDefinition rDef : requirementDefinitions.getList())
+			rDef.getRequirementType().collectDependencies(types);
+		for(CapabilityDefinition cDef : capabilityDefinitions.getList())
+			cDef.getCapabilityType().collectDependencies(types);
+	}
+
+	@Override
+	void fingerprint(Fingerprint.Hasher h) {
+		Fingerprint.Multiset reqs = new Fingerprint.Multiset();
+		for(RequirementDefinition rDef : requirementDefinitions.getList())
+			reqs.add(rDef.getFingerprint());
+		Fingerprint.Multiset caps = new Fingerprint.Multiset();
+		for(CapabilityDefinition cDef : capabilityDefinitions.getList())
+			caps.add(cDef.getFingerprint());
+		Fingerprint.Multiset infs = new Fingerprint.Multiset();
+		for(Interface inf : interfaces.getList())
+			infs.add(inf.getFingerprint());
+		h.add(reqs).add(caps).add(infs);
+	}
+
 	/**
 	 * Class which models the set of requirements defined in a "TNodeType" TOSCA element.
 	 *
@@ -96,6 +142,10 @@ public class NodeType extends EntityType {
 		 * It stores the set of requirement definitions.
 		 */
 		private List<RequirementDefinition> reqDefs;
+		/**
+		 * It stores the requirement definitions indexed by name (only if frozen, null otherwise).
+		 */
+		private Map<String, RequirementDefinition> byName;
 
 		/**
 		 * Constructor.
@@ -104,6 +154,21 @@ public class NodeType extends EntityType {
 			reqDefs = new ArrayList<RequirementDefinition>();
 		}
 
+		/**
+		 * Constructor (of a frozen set of requirement definitions).
+		 *
+		 * @param reqDefs The requirement definitions to be contained (in order).
+		 */
+		private RequirementDefinitions(List<RequirementDefinition> reqDefs) {
+			this.reqDefs = Collections.unmodifiableList(new ArrayList<RequirementDefinition>(reqDefs));
+			byName = new HashMap<String, RequirementDefinition>(2 * reqDefs.size());
+			//As for the linear lookup, the first definition with a given name is retrieved.
+			for(RequirementDefinition rDef : reqDefs) {
+				if(!byName.containsKey(rDef.getName()))
+					byName.put(rDef.getName(), rDef);
+			}
+		}
+
 		/**
 		 * Method which allows to add a new requirement definition.
 		 *
@@ -113,10 +178,13 @@ public class NodeType extends EntityType {
 		 * @throws AlreadyDefinedException
 		 */
 		public void addDefinition(String name, RequirementType type) throws AlreadyDefinedException{
+			if(byName != null)
+				throw new UnsupportedOperationException("The requirement definitions are frozen");
 			RequirementDefinition rDef = new RequirementDefinition(name, type);
 			if(reqDefs.contains(rDef))
 				throw new AlreadyDefinedException("The requirement <" + name + ", " + type.toString() + " is already defined");
 			reqDefs.add(rDef);
+			changed();
 		}
 
 		/**
@@ -127,6 +195,8 @@ public class NodeType extends EntityType {
 		 * @return A RequirementDefinition if the desired requirement is present, null otherwise.
 		 */
 		public RequirementDefinition getDefinition(String name) {
+			if(byName != null)
+				return byName.get(name);
 			for(RequirementDefinition rDef : reqDefs) {
 				if(rDef.getName().equals(name))
 					return rDef;
@@ -157,6 +227,10 @@ public class NodeType extends EntityType {
 		 * It stores the set of capability definitions.
 		 */
 		private List<CapabilityDefinition> capDefs;
+		/**
+		 * It stores the capability definitions indexed by name (only if frozen, null otherwise).
+		 */
+		private Map<String, CapabilityDefinition> byName;
 
 		/**
 		 * Constructor.
@@ -165,6 +239,21 @@ public class NodeType extends EntityType {
 			capDefs = new ArrayList<CapabilityDefinition>();
 		}
 
+		/**
+		 * Constructor (of a frozen set of capability definitions).
+		 *
+		 * @param capDefs The capability definitions to be contained (in order).
+		 */
+		private CapabilityDefinitions(List<CapabilityDefinition> capDefs) {
+			this.capDefs = Collections.unmodifiableList(new ArrayList<CapabilityDefinition>(capDefs));
+			byName = new HashMap<String, CapabilityDefinition>(2 * capDefs.size());
+			//As for the linear lookup, the first definition with a given name is retrieved.
+			for(CapabilityDefinition cDef : capDefs) {
+				if(!byName.containsKey(cDef.getName()))
+					byName.put(cDef.getName(), cDef);
+			}
+		}
+
 		/**
 		 * Method which allows to add a new capability definition.
 		 *
@@ -174,10 +263,13 @@ public class NodeType extends EntityType {
 		 * @throws AlreadyDefinedException
 		 */
 		public void addDefinition(String name, CapabilityType type) throws AlreadyDefinedException{
+			if(byName != null)
+				throw new UnsupportedOperationException("The capability definitions are frozen");
 			CapabilityDefinition cDef = new CapabilityDefinition(name, type);
 			if(capDefs.contains(cDef))
 				throw new AlreadyDefinedException("The capability <" + name + ", " + type.toString() + " is already defined");
 			capDefs.add(cDef);
+			changed();
 		}
 
 		/**
@@ -188,6 +280,8 @@ public class NodeType extends EntityType {
 		 * @return A CapabilityDefinition if the desired requirement is present, null otherwise.
 		 */
 		public CapabilityDefinition getDefinition(String name) {
+			if(byName != null)
+				return byName.get(name);
 			for(CapabilityDefinition cDef : capDefs) {
 				if(cDef.getName().equals(name))
 					return cDef;
@@ -218,6 +312,10 @@ public class NodeType extends EntityType {
 		 * It stores the set of interfaces.
 		 */
 		private List<Interface> interfaces;
+		/**
+		 * It indicates whether the set of interfaces is frozen.
+		 */
+		private boolean frozen;
 
 		/**
 		 * Constructor.
@@ -226,6 +324,16 @@ public class NodeType extends EntityType {
 			interfaces = new ArrayList<Interface>();
 		}
 
+		/**
+		 * Constructor (of a frozen set of interfaces).
+		 *
+		 * @param interfaces The interfaces to be contained (in order).
+		 */
+		private Interfaces(List<Interface> interfaces) {
+			this.interfaces = Collections.unmodifiableList(new ArrayList<Interface>(interfaces));
+			frozen = true;
+		}
+
 		/**
 		 * Method which allows to add a new interface.
 		 *
@@ -234,9 +342,12 @@ public class NodeType extends EntityType {
 		 * @throws AlreadyDefinedException
 		 */
 		public void add(Interface intf) throws AlreadyDefinedException{
+			if(frozen)
+				throw new UnsupportedOperationException("The interfaces are frozen");
 			if(interfaces.contains(intf))
 				throw new AlreadyDefinedException("The interface <" + intf.getName() + " is already defined");
 			interfaces.add(intf);
+			changed();
 		}
 
 		/**
@@ -248,4 +359,136 @@ public class NodeType extends EntityType {
 			return interfaces;
 		}
 	}
+
+	/**
+	 * Class which builds (in linear time) frozen NodeType(s).
+	 * <br>
+	 * As for the definitions of a mutable NodeType, definitions with the same name and type are accepted (since
+	 * they are distinct definitions), hence the Builder deliberately gives up detecting duplicate property,
+	 * requirement and capability definitions (and their add methods throw no AlreadyDefinedException).
+	 * Only interfaces added twice (i.e., the same Interface object) are detected, in constant time.
+	 * The built NodeType stores its definitions in compact unmodifiable lists, retrieves property, requirement
+	 * and capability definitions by name in constant time, and cannot be modified (the add methods of its
+	 * definitions throw UnsupportedOperationException).
+	 */
+	public static class Builder {
+		/**
+		 * It stores the name of the node type.
+		 */
+		private String name;
+		/**
+		 * It stores (if any) the NodeType from which the node type is derived.
+		 */
+		private NodeType derivedFrom;
+		/**
+		 * It stores the property definitions of the node type.
+		 */
+		private List<PropertyDefinition> propertyDefinitions;
+		/**
+		 * It stores the requirement definitions of the node type.
+		 */
+		private List<RequirementDefinition> requirementDefinitions;
+		/**
+		 * It stores the capability definitions of the node type.
+		 */
+		private List<CapabilityDefinition> capabilityDefinitions;
+		/**
+		 * It stores the interfaces of the node type.
+		 */
+		private List<Interface> interfaces;
+		/**
+		 * It stores (by identity) the added interfaces.
+		 */
+		private Set<Interface> addedInterfaces;
+
+		/**
+		 * Constructor.
+		 * @param name Name of the node type under definition.
+		 */
+		public Builder(String name) {
+			this.name = name;
+			this.derivedFrom = null;
+			propertyDefinitions = new ArrayList<PropertyDefinition>();
+			requirementDefinitions = new ArrayList<RequirementDefinition>();
+			capabilityDefinitions = new ArrayList<CapabilityDefinition>();
+			interfaces = new ArrayList<Interface>();
+			addedInterfaces = Collections.newSetFromMap(new IdentityHashMap<Interface, Boolean>());
+		}
+
+		/**
+		 * Method which sets the NodeType from which the node type is derived.
+		 * @param parent NodeType from which the node type under definition is derived.
+		 * @return This Builder.
+		 */
+		public Builder derivedFrom(NodeType parent) {
+			this.derivedFrom = parent;
+			return this;
+		}
+
+		/**
+		 * Method which adds a property definition.
+		 * @param name Name of the property to be defined.
+		 * @param type Type of the property to be defined.
+		 * @return This Builder.
+		 */
+		@SuppressWarnings("rawtypes")
+		public Builder addPropertyDefinition(String name, Class type) {
+			return addPropertyDefinition(name, PropertyType.of(type));
+		}
+
+		/**
+		 * Method which adds a property definition (whose type is not necessarily a Java class).
+		 * @param name Name of the property to be defined.
+		 * @param type PropertyType of the property to be defined.
+		 * @return This Builder.
+		 */
+		public Builder addPropertyDefinition(String name, PropertyType type) {
+			propertyDefinitions.add(new PropertyDefinition(name, type));
+			return this;
+		}
+
+		/**
+		 * Method which adds a requirement definition.
+		 * @param name Name of the requirement to be defined.
+		 * @param type Type of the requirement to be defined.
+		 * @return This Builder.
+		 */
+		public Builder addRequirementDefinition(String name, RequirementType type) {
+			requirementDefinitions.add(new RequirementDefinition(name, type));
+			return this;
+		}
+
+		/**
+		 * Method which adds a capability definition.
+		 * @param name Name of the capability to be defined.
+		 * @param type Type of the capability to be defined.
+		 * @return This Builder.
+		 */
+		public Builder addCapabilityDefinition(String name, CapabilityType type) {
+			capabilityDefinitions.add(new CapabilityDefinition(name, type));
+			return this;
+		}
+
+		/**
+		 * Method which adds an interface.
+		 * @param intf Interface to be added.
+		 * @return This Builder.
+		 * @throws AlreadyDefinedException If the interface has already been added.
+		 */
+		public Builder addInterface(Interface intf) throws AlreadyDefinedException {
+			if(!addedInterfaces.add(intf))
+				throw new AlreadyDefinedException("The interface <" + intf.getName() + "> is already defined");
+			interfaces.add(intf);
+			return this;
+		}
+
+		/**
+		 * Method which builds the (frozen) NodeType containing the added definitions.
+		 * The Builder can be further used, without affecting the built NodeType.
+		 * @return The built NodeType.
+		 */
+		public NodeType build() {
+			return new NodeType(this);
+		}
+	}
 }
@@ -27,6 +27,16 @@ public class Operation {
      */
     private String name;
 
+    /**
+     * It stores the (interned) identifier of the name.
+     */
+    private int nameId;
+
+    /**
+     * It stores the (lazily computed) structural fingerprint of the operation.
+     */
+    private Fingerprint fingerprint;
+
     /**
      * Constructor.
      *
@@ -36,6 +46,7 @@ public class Operation {
      */
     public Operation(String name, List<Parameter> inputParameters, List<Parameter> outputParameters) {
         this.name = name;
+        this.nameId = SymbolTable.intern(name);
         this.inputParameters = inputParameters;
         this.outputParameters = outputParameters;
     }
@@ -48,6 +59,14 @@ public class Operation {
     	return name;
     }
 
+    /**
+     * Method which provides access to the (interned) identifier of the name of the operation.
+     * @return The SymbolTable identifier of the name.
+     */
+    public int getNameId() {
+    	return nameId;
+    }
+
     /**
      * Method which provides access to the input parameters of the operation.
      * @return The input parameters of the operation.
@@ -64,6 +83,25 @@ public class Operation {
     	return outputParameters;
     }
 
+    /**
+     * Method which provides access to the structural fingerprint of the operation (computed once),
+     * which combines (in order) those of its input and output parameters.
+     * @return The Fingerprint of the operation.
+     */
+    public Fingerprint getFingerprint() {
+    	if(fingerprint == null) {
+    		Fingerprint.Hasher h = new Fingerprint.Hasher("Operation").add(name);
+    		h.add(inputParameters.size());
+    		for(Parameter p : inputParameters)
+    			h.add(p.getFingerprint());
+    		h.add(outputParameters.size());
+    		for(Parameter p : outputParameters)
+    			h.add(p.getFingerprint());
+    		fingerprint = h.build();
+    	}
+    	return fingerprint;
+    }
+
 //    @Override
 //    public boolean equals(Object obj) {
 //    	Operation op = (Operation) obj;
@@ -16,16 +16,30 @@ public class Parameter {
 	 */
 	private String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	private int nameId;
+
 	/**
 	 * It stores the type of the parameter.
 	 */
 	private Class type;
+	/**
+	 * It stores the PropertyType of the parameter.
+	 */
+	private PropertyType propertyType;
 
 	/**
 	 * It indicates whether the parameter is required.
 	 */
 	private boolean required;
 
+	/**
+	 * It stores the (lazily computed) structural fingerprint of the parameter.
+	 */
+	private Fingerprint fingerprint;
+
 	/**
 	 * Constructor.
 	 *
@@ -34,7 +48,9 @@ public class Parameter {
 	 */
 	public Parameter(String name, Class type) {
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.type = type;
+		this.propertyType = PropertyType.of(type);
 		this.required = true;
 	}
 
@@ -47,7 +63,24 @@ public class Parameter {
 	 */
 	public Parameter(String name, Class type, boolean required) {
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.type = type;
+		this.propertyType = PropertyType.of(type);
+		this.required = required;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name Name of the parameter.
+	 * @param propertyType PropertyType of the parameter.
+	 * @param required Boolean which indicates whether the parameter is required.
+	 */
+	public Parameter(String name, PropertyType propertyType, boolean required) {
+		this.name = name;
+		this.nameId = SymbolTable.intern(name);
+		this.type = propertyType.getJavaClass();
+		this.propertyType = propertyType;
 		this.required = required;
 	}
 
@@ -59,6 +92,14 @@ public class Parameter {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the parameter.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Provides access to the type of the parameter.
 	 * @return The type of the parameter.
@@ -67,6 +108,14 @@ public class Parameter {
 		return type;
 	}
 
+	/**
+	 * Provides access to the PropertyType of the parameter.
+	 * @return The PropertyType of the parameter.
+	 */
+	public PropertyType getPropertyType(){
+		return propertyType;
+	}
+
 	/**
 	 * Indicates whether the parameter is required.
 	 * @return A boolean which represents whether the parameter is required.
@@ -75,6 +124,16 @@ public class Parameter {
 		return required;
 	}
 
+	/**
+	 * Method which provides access to the structural fingerprint of the parameter (computed once).
+	 * @return The Fingerprint of the parameter.
+	 */
+	public Fingerprint getFingerprint() {
+		if(fingerprint == null)
+			fingerprint = new Fingerprint.Hasher("Parameter").add(name).add(propertyType.getName()).add(required).build();
+		return fingerprint;
+	}
+
 //	@Override
 //	public boolean equals(Object o) {
 //		Parameter p = (Parameter) o;
@@ -15,16 +15,28 @@ public class Policy extends ExtensibleElements {
 	 */
 	protected String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	protected int nameId;
+
 	/**
 	 * It stores the type of the policy under consideration.
 	 */
 	protected PolicyType type;
 
+	/**
+	 * It stores the structural fingerprint of the policy (computed at type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+
 	/**
 	 * Constructor.
 	 */
 	public Policy(String name, PolicyType type) {
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.type = type;
 	}
 
@@ -36,6 +48,14 @@ public class Policy extends ExtensibleElements {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the policy.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Method which provides access to the type of the current policy.
 	 * @return The PolicyType of the policy under consideration.
@@ -43,4 +63,18 @@ public class Policy extends ExtensibleElements {
 	public PolicyType getType() {
 		return type;
 	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of the policy (recomputed only
+	 * if a type has changed since it was last computed).
+	 * @return The Fingerprint of the policy.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintEpoch != epoch) {
+			fingerprint = new Fingerprint.Hasher("Policy").add(name).add(type.getFingerprint()).build();
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
 }
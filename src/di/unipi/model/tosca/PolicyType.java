@@ -44,11 +44,29 @@ public class PolicyType extends EntityType {
 		return (PolicyType) derivedFrom;
 	}
 
+	@Override
+	void fingerprint(Fingerprint.Hasher h) {
+		//Applicability is checked by name.
+		Fingerprint.Multiset nodeTypes = new Fingerprint.Multiset();
+		for(NodeType n : appliesTo.getList())
+			nodeTypes.add(new Fingerprint.Hasher("AppliesTo").add(n.getName()).build());
+		h.add(nodeTypes);
+	}
+
 	public void setApplicableTo(NodeType n) throws AlreadyPresentException {
 		if(appliesTo.getList().contains(n))
 			throw new AlreadyPresentException("The PolicyType [" + name + "] is already applicable to " + n.getName());
-		appliesTo.getList().add(n);
+		appliesTo.add(n);
+	}
+
+	/**
+	 * Provides access to the NodeType(s) to which the policy is applicable.
+	 * @return The AppliesTo of the PolicyType (empty if applicable to any NodeType).
+	 */
+	public AppliesTo getAppliesTo() {
+		return appliesTo;
 	}
+
 	/**
      * Method which checks whether a the current PolicyType is applicable
      * to a NodeType.
@@ -59,7 +77,7 @@ public class PolicyType extends EntityType {
     	if(appliesTo.getList().isEmpty())
     		return true;
     	for(NodeType appN : appliesTo.getList())
-    		if(appN.getName().equals(n.getName()))
+    		if(appN.getNameId() == n.getNameId())
     			return true;
     	return false;
     }
@@ -94,6 +112,7 @@ public class PolicyType extends EntityType {
 		 */
 		public void add(NodeType n) {
 			nodeTypeReference.add(n);
+			changed();
 		}
 
 		/*
@@ -15,10 +15,24 @@ public class PropertyDefinition {
 	 * It stores the name of the property under definition.
 	 */
 	private String name;
+
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	private int nameId;
 	/**
 	 * It stores the type of the property under definition.
 	 */
 	private Class type;
+	/**
+	 * It stores the PropertyType of the property under definition.
+	 */
+	private PropertyType propertyType;
+
+	/**
+	 * It stores the (lazily computed) structural fingerprint of the property definition.
+	 */
+	private Fingerprint fingerprint;
 
 	/**
 	 * Constructor.
@@ -28,7 +42,22 @@ public class PropertyDefinition {
 	 */
 	public PropertyDefinition(String name, Class type) {
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.type = type;
+		this.propertyType = PropertyType.of(type);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name Name of the property under definition.
+	 * @param propertyType PropertyType of the property under definition.
+	 */
+	public PropertyDefinition(String name, PropertyType propertyType) {
+		this.name = name;
+		this.nameId = SymbolTable.intern(name);
+		this.type = propertyType.getJavaClass();
+		this.propertyType = propertyType;
 	}
 
 	/**
@@ -40,6 +69,14 @@ public class PropertyDefinition {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the property definition.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Method which provides access to the type of the defined property.
 	 *
@@ -49,6 +86,25 @@ public class PropertyDefinition {
 		return type;
 	}
 
+	/**
+	 * Method which provides access to the PropertyType of the defined property.
+	 *
+	 * @return The PropertyType of the defined property.
+	 */
+	public PropertyType getPropertyType() {
+		return propertyType;
+	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of the property definition (computed once).
+	 * @return The Fingerprint of the property definition.
+	 */
+	public Fingerprint getFingerprint() {
+		if(fingerprint == null)
+			fingerprint = new Fingerprint.Hasher("PropertyDefinition").add(name).add(propertyType.getName()).build();
+		return fingerprint;
+	}
+
 //	@Override
 //	public boolean equals(Object obj) {
 //		PropertyDefinition pDef = (PropertyDefinition) obj;
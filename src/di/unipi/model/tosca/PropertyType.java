@@ -0,0 +1,308 @@
+package di.unipi.model.tosca;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import di.unipi.model.exceptions.AlreadyDefinedException;
+
+/**
+ * Class which models the type of a property (or parameter), as a node of the (global) lattice
+ * of property types.
+ * <br>
+ * Each Java class corresponds to a property type, whose parents are the direct supertypes of the
+ * class (so that assignability between property types is that of the corresponding classes).
+ * Property types which are not Java classes (e.g., the XML Schema built-in types "xs:dateTime"
+ * or "xs:NCName") can be defined by name, by declaring the property types from which they are
+ * derived and the Java class representing their values.
+ * <br>
+ * Each property type is assigned a dense identifier when it is created, after its parents, and it
+ * stores the set of its ancestors as a bitset indexed by identifier. Since a property type never
+ * gains parents, the bitset is computed once and assignability is a single bit lookup.
+ * Property types are unique (i.e., they can be compared by reference).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+@SuppressWarnings("rawtypes")
+public final class PropertyType {
+	/**
+	 * It stores the number of property types created so far.
+	 */
+	private static final AtomicInteger count = new AtomicInteger();
+	/**
+	 * It stores the property type of each Java class (computed on first access).
+	 */
+	private static final ClassValue<PropertyType> classes = new ClassValue<PropertyType>() {
+		@Override
+		protected PropertyType computeValue(Class<?> c) {
+			List<Class> supertypes = supertypes(c);
+			PropertyType[] parents = new PropertyType[supertypes.size()];
+			for(int i = 0; i < parents.length; i++)
+				parents[i] = of(supertypes.get(i));
+			return new PropertyType(c.getName(), c, parents);
+		}
+	};
+	/**
+	 * It stores the property types of the Java classes accessed so far, indexed by class name.
+	 */
+	private static final ConcurrentMap<String, PropertyType> accessed = new ConcurrentHashMap<String, PropertyType>();
+	/**
+	 * It stores the defined property types (which are not Java classes), indexed by name.
+	 */
+	private static final Map<String, PropertyType> defined = new ConcurrentHashMap<String, PropertyType>();
+	/**
+	 * It stores the primitive classes, indexed by name (as they cannot be loaded by name).
+	 */
+	private static final Map<String, Class> primitives = new HashMap<String, Class>();
+
+	static {
+		for(Class c : new Class[] { boolean.class, byte.class, char.class, short.class, int.class,
+				long.class, float.class, double.class, void.class })
+			primitives.put(c.getName(), c);
+		//The Java classes representing the values of the XML Schema built-in types are known from the start.
+		for(Class c : new Class[] { Boolean.class, Byte.class, Short.class, Integer.class, Long.class,
+				Float.class, Double.class, BigDecimal.class, byte[].class })
+			of(c);
+		//XML Schema built-in types which do not correspond to a Java class.
+		PropertyType string = of(String.class);
+		PropertyType integer = of(BigInteger.class);
+		PropertyType anySimpleType = builtIn("xs:anySimpleType", Object.class, of(Object.class));
+		for(String name : new String[] { "duration", "dateTime", "time", "date", "gYearMonth",
+				"gYear", "gMonthDay", "gDay", "gMonth", "QName", "NOTATION" })
+			builtIn("xs:" + name, String.class, anySimpleType);
+		builtIn("xs:hexBinary", byte[].class, anySimpleType);
+		builtIn("xs:language", String.class, string);
+		builtIn("xs:NMTOKEN", String.class, string);
+		PropertyType name = builtIn("xs:Name", String.class, string);
+		PropertyType ncname = builtIn("xs:NCName", String.class, name);
+		builtIn("xs:ID", String.class, ncname);
+		builtIn("xs:IDREF", String.class, ncname);
+		builtIn("xs:ENTITY", String.class, ncname);
+		PropertyType nonPositive = builtIn("xs:nonPositiveInteger", BigInteger.class, integer);
+		builtIn("xs:negativeInteger", BigInteger.class, nonPositive);
+		PropertyType nonNegative = builtIn("xs:nonNegativeInteger", BigInteger.class, integer);
+		builtIn("xs:positiveInteger", BigInteger.class, nonNegative);
+		PropertyType unsignedLong = builtIn("xs:unsignedLong", BigInteger.class, nonNegative);
+		PropertyType unsignedInt = builtIn("xs:unsignedInt", Long.class, unsignedLong);
+		PropertyType unsignedShort = builtIn("xs:unsignedShort", Integer.class, unsignedInt);
+		builtIn("xs:unsignedByte", Short.class, unsignedShort);
+	}
+
+	/**
+	 * It stores the (dense) identifier of the property type.
+	 */
+	private final int id;
+	/**
+	 * It stores the name of the property type.
+	 */
+	private final String name;
+	/**
+	 * It stores the Java class representing the values of the property type.
+	 */
+	private final Class javaClass;
+	/**
+	 * It stores the property types from which the property type is (directly) derived.
+	 */
+	private final List<PropertyType> parents;
+	/**
+	 * It stores the identifiers of the ancestors of the property type (itself included), as a bitset.
+	 */
+	private final long[] ancestors;
+
+	private PropertyType(String name, Class javaClass, PropertyType[] parents) {
+		//The identifier is assigned after those of the parents, hence it is the greatest ancestor.
+		this.id = count.getAndIncrement();
+		this.name = name;
+		this.javaClass = javaClass;
+		this.parents = Collections.unmodifiableList(Arrays.asList(parents));
+		this.ancestors = new long[(id >>> 6) + 1];
+		for(PropertyType parent : parents) {
+			for(int i = 0; i < parent.ancestors.length; i++)
+				ancestors[i] |= parent.ancestors[i];
+		}
+		ancestors[id >>> 6] |= 1L << id;
+	}
+
+	/**
+	 * Method which provides access to the property type of a Java class.
+	 *
+	 * @param c Java class whose property type is needed.
+	 *
+	 * @return The PropertyType of c.
+	 */
+	public static PropertyType of(Class c) {
+		PropertyType t = classes.get(c);
+		if(accessed.get(t.name) == null)
+			accessed.putIfAbsent(t.name, t);
+		return t;
+	}
+
+	/**
+	 * Method which defines a property type which is not a Java class.
+	 *
+	 * @param name Name of the property type (distinct from the names of Java classes).
+	 * @param javaClass Java class representing the values of the property type.
+	 * @param parents Property types from which the property type is derived.
+	 *
+	 * @return The defined PropertyType.
+	 *
+	 * @throws AlreadyDefinedException If a property type with the same name has already been defined.
+	 */
+	public static PropertyType define(String name, Class javaClass, PropertyType... parents) throws AlreadyDefinedException {
+		synchronized(defined) {
+			if(defined.containsKey(name))
+				throw new AlreadyDefinedException("The property type " + name + " is already defined");
+			PropertyType t = new PropertyType(name, javaClass, parents.clone());
+			defined.put(name, t);
+			return t;
+		}
+	}
+
+	private static PropertyType builtIn(String name, Class javaClass, PropertyType parent) {
+		try {
+			return define(name, javaClass, parent);
+		} catch(AlreadyDefinedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method which retrieves a defined property type (which is not a Java class) by name.
+	 *
+	 * @param name Name of the property type.
+	 *
+	 * @return The defined PropertyType named name, null if there is no such type.
+	 */
+	public static PropertyType lookup(String name) {
+		return defined.get(name);
+	}
+
+	/**
+	 * Method which retrieves a property type by name.
+	 * <br>
+	 * Defined property types are looked up before Java classes.
+	 *
+	 * @param name Name of the property type (or of the Java class).
+	 *
+	 * @return The PropertyType named name, null if there is no such type.
+	 */
+	public static PropertyType forName(String name) {
+		PropertyType t = defined.get(name);
+		if(t != null)
+			return t;
+		Class c = primitives.get(name);
+		if(c != null)
+			return of(c);
+		try {
+			return of(Class.forName(name));
+		} catch(ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Method which retrieves by name a property type which is already known, i.e., a defined property
+	 * type or the property type of a Java class already accessed (through of()).
+	 * <br>
+	 * Differently from forName(), no class is loaded (hence, it can resolve untrusted names).
+	 *
+	 * @param name Name of the property type (or of the Java class).
+	 *
+	 * @return The known PropertyType named name, null if there is no such type.
+	 */
+	public static PropertyType lookupKnown(String name) {
+		PropertyType t = defined.get(name);
+		return (t != null ? t : accessed.get(name));
+	}
+
+	/**
+	 * Method which determines the direct supertypes of a Java class (according to the assignability
+	 * of classes, hence including the covariant supertypes of arrays).
+	 */
+	private static List<Class> supertypes(Class c) {
+		List<Class> supertypes = new ArrayList<Class>();
+		if(c.isPrimitive())
+			return supertypes;
+		if(c.isArray() && !c.getComponentType().isPrimitive()) {
+			for(Class s : supertypes(c.getComponentType()))
+				supertypes.add(Array.newInstance(s, 0).getClass());
+		}
+		if(c.getSuperclass() != null)
+			supertypes.add(c.getSuperclass());
+		supertypes.addAll(Arrays.asList(c.getInterfaces()));
+		if(c.isInterface())
+			supertypes.add(Object.class);
+		return supertypes;
+	}
+
+	/**
+	 * Method which provides access to the (dense) identifier of the property type.
+	 * @return The identifier of the property type.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Method which provides access to the name of the property type.
+	 * @return The name of the property type (the class name, for Java classes).
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Method which provides access to the Java class representing the values of the property type.
+	 * @return The Java class of the property type.
+	 */
+	public Class getJavaClass() {
+		return javaClass;
+	}
+
+	/**
+	 * Method which indicates whether the property type is a Java class (rather than a defined type).
+	 * @return true if the property type is a Java class, false otherwise.
+	 */
+	public boolean isJavaClass() {
+		return defined.get(name) != this;
+	}
+
+	/**
+	 * Method which provides access to the property types from which the property type is (directly) derived.
+	 * @return The (unmodifiable) list of parents.
+	 */
+	public List<PropertyType> getParents() {
+		return parents;
+	}
+
+	/**
+	 * Method which determines whether the values of a property type are also values of this type
+	 * (i.e., whether this is t or one of its ancestors).
+	 *
+	 * @param t Property type to be checked.
+	 *
+	 * @return true if this is assignable from t, false otherwise.
+	 */
+	public boolean isAssignableFrom(PropertyType t) {
+		int word = id >>> 6;
+		return word < t.ancestors.length && (t.ancestors[word] & (1L << id)) != 0;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -13,6 +13,7 @@ public class Requirement extends EntityTemplate{
 	public Requirement(String name, RequirementType rType) {
 		super(rType);
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 	}
 
 	/**
@@ -20,6 +21,17 @@ public class Requirement extends EntityTemplate{
 	 */
 	protected String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	protected int nameId;
+
+	/**
+	 * It stores the structural fingerprint of the requirement (computed at type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+
 	/**
 	 * Method which provides access to the name of the current requirement.
 	 * @return The name of the requirement under consideration.
@@ -28,8 +40,30 @@ public class Requirement extends EntityTemplate{
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the requirement.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	@Override
 	public RequirementType getType() {
 		return (RequirementType) type;
 	}
+
+	/**
+	 * Method which provides access to the structural fingerprint of the requirement (recomputed only
+	 * if a type has changed since it was last computed).
+	 * @return The Fingerprint of the requirement.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintEpoch != epoch) {
+			fingerprint = new Fingerprint.Hasher("Requirement").add(name).add(getType().getFingerprint()).build();
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
 }
@@ -15,11 +15,22 @@ public class RequirementDefinition extends ExtensibleElements {
 	 */
 	private String name;
 
+	/**
+	 * It stores the (interned) identifier of the name.
+	 */
+	private int nameId;
+
 	/**
 	 * It stores the type of the requirement under definition.
 	 */
 	private RequirementType requirementType;
 
+	/**
+	 * It stores the structural fingerprint of the requirement definition (computed at type epoch fingerprintEpoch).
+	 */
+	private Fingerprint fingerprint;
+	private int fingerprintEpoch;
+
 	/**
 	 * Constructor.
 	 *
@@ -28,6 +39,7 @@ public class RequirementDefinition extends ExtensibleElements {
 	 */
 	public RequirementDefinition(String name, RequirementType requirementType){
 		this.name = name;
+		this.nameId = SymbolTable.intern(name);
 		this.requirementType = requirementType;
 	}
 
@@ -39,6 +51,14 @@ public class RequirementDefinition extends ExtensibleElements {
 		return name;
 	}
 
+	/**
+	 * Method which provides access to the (interned) identifier of the name of the requirement definition.
+	 * @return The SymbolTable identifier of the name.
+	 */
+	public int getNameId() {
+		return nameId;
+	}
+
 	/**
 	 * Provides access to the type of the requirement under definition
 	 * @return Type of the requirement under definition
@@ -47,6 +67,20 @@ public class RequirementDefinition extends ExtensibleElements {
 		return requirementType;
 	}
 
+	/**
+	 * Method which provides access to the structural fingerprint of the requirement definition (recomputed only
+	 * if a type has changed since it was last computed).
+	 * @return The Fingerprint of the requirement definition.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		int epoch = EntityType.epoch();
+		if(fingerprint == null || fingerprintEpoch != epoch) {
+			fingerprint = new Fingerprint.Hasher("RequirementDefinition").add(name).add(requirementType.getFingerprint()).build();
+			fingerprintEpoch = epoch;
+		}
+		return fingerprint;
+	}
+
 //	@Override
 //	public boolean equals(Object obj) {
 //		RequirementDefinition r = (RequirementDefinition) obj;
@@ -1,5 +1,7 @@
 package di.unipi.model.tosca;
 
+import java.util.Set;
+
 /**
  * Class which models the "TRequirementType" element type (defined in the XML schema of TOSCA).
  * <br>
@@ -74,4 +76,15 @@ public class RequirementType extends EntityType {
 	public RequirementType derivedFrom() {
 		return (RequirementType) derivedFrom;
 	}
+
+	@Override
+	void dependencies(Set<EntityType> types) {
+		if(requiredCapabilityType != null)
+			requiredCapabilityType.collectDependencies(types);
+	}
+
+	@Override
+	void fingerprint(Fingerprint.Hasher h) {
+		h.add(requiredCapabilityType == null ? null : requiredCapabilityType.getFingerprint());
+	}
 }
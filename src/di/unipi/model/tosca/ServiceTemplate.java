@@ -20,6 +20,12 @@ public class ServiceTemplate extends ExtensibleElements {
 	 */
 	protected BoundaryDefinitions bounds;
 
+	/**
+	 * It stores the structural fingerprint of the service template (computed from boundsFingerprint).
+	 */
+	private Fingerprint fingerprint;
+	private Fingerprint boundsFingerprint;
+
 	/**
 	 * Constructor.
 	 * @param name Name of the service template under definition.
@@ -29,6 +35,16 @@ public class ServiceTemplate extends ExtensibleElements {
 		bounds = new BoundaryDefinitions();
 	}
 
+	/**
+	 * Constructor.
+	 * @param name Name of the service template under definition.
+	 * @param bounds BoundaryDefinitions of the service template under definition (e.g., built by a BoundaryDefinitions.Builder).
+	 */
+	public ServiceTemplate(String name, BoundaryDefinitions bounds) {
+		this.name = name;
+		this.bounds = bounds;
+	}
+
 	/**
 	 * Method which provides access to the name of the current service template.
 	 * @return The name of the service template under consideration.
@@ -45,4 +61,20 @@ public class ServiceTemplate extends ExtensibleElements {
 		return bounds;
 	}
 
+	/**
+	 * Method which provides access to the structural fingerprint of the current service template,
+	 * which combines its name with the fingerprint of its boundary definitions.
+	 * (The fingerprint of the service template does not affect its identity: service templates are
+	 * still compared by reference.)
+	 * @return The Fingerprint of the service template under consideration.
+	 */
+	public synchronized Fingerprint getFingerprint() {
+		Fingerprint b = bounds.getFingerprint();
+		if(b != boundsFingerprint) {
+			fingerprint = new Fingerprint.Hasher("ServiceTemplate").add(name).add(b).build();
+			boundsFingerprint = b;
+		}
+		return fingerprint;
+	}
+
 }
@@ -0,0 +1,100 @@
+package di.unipi.model.tosca;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class which models the (global) table of symbols, interning the names of the TOSCA elements
+ * into dense int identifiers.
+ * <br>
+ * The names of types, capabilities, requirements, policies, properties, interfaces, operations
+ * and parameters are interned when the corresponding elements are built, hence two elements are
+ * same named if and only if they have the same name identifier. Identifiers are assigned in
+ * interning order (starting from 0) and are never released. They are only meaningful within
+ * the running JVM (i.e., they must not be persisted).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public final class SymbolTable {
+	/**
+	 * It stores the identifier of each interned name.
+	 */
+	private static final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	/**
+	 * It stores the interned names, indexed by identifier.
+	 */
+	private static volatile String[] names = new String[1024];
+	/**
+	 * It stores the number of interned names.
+	 */
+	private static volatile int size = 0;
+
+	private SymbolTable() {
+	}
+
+	/**
+	 * Method which interns a name.
+	 *
+	 * @param name Name to be interned.
+	 *
+	 * @return The identifier of name (-1 if name is null).
+	 */
+	public static int intern(String name) {
+		if(name == null)
+			return -1;
+		Integer id = ids.get(name);
+		if(id != null)
+			return id;
+		synchronized(ids) {
+			id = ids.get(name);
+			if(id == null) {
+				id = size;
+				if(id == names.length)
+					names = Arrays.copyOf(names, 2 * id);
+				names[id] = name;
+				//The name is published before its identifier.
+				size = id + 1;
+				ids.put(name, id);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Method which retrieves the identifier of a name, without interning it.
+	 *
+	 * @param name Name whose identifier is needed.
+	 *
+	 * @return The identifier of name, -1 if name has not been interned.
+	 */
+	public static int lookup(String name) {
+		Integer id = (name == null ? null : ids.get(name));
+		return (id == null ? -1 : id);
+	}
+
+	/**
+	 * Method which retrieves the name corresponding to an identifier.
+	 *
+	 * @param id Identifier of the name.
+	 *
+	 * @return The name whose identifier is id.
+	 */
+	public static String nameOf(int id) {
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("The symbol " + id + " is not defined");
+		return names[id];
+	}
+
+	/**
+	 * Method which provides access to the number of interned names.
+	 * @return The number of interned names.
+	 */
+	public static int size() {
+		return size;
+	}
+}
@@ -0,0 +1,189 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the CatalogSnapshot.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class CatalogSnapshotTest {
+	private static File tempFile() throws IOException {
+		File file = File.createTempFile("catalog", ".snapshot");
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static List<String> names(List<ServiceTemplate> sts) {
+		List<String> names = new ArrayList<String>();
+		for(ServiceTemplate st : sts)
+			names.add(st.getName());
+		return names;
+	}
+
+	private static List<String> sortedNames(List<ServiceTemplate> sts) {
+		List<String> names = names(sts);
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * Method which checks that a list of ServiceTemplate(s) contains no duplicates.
+	 */
+	private static void assertDistinct(List<ServiceTemplate> sts) {
+		List<String> names = names(sts);
+		assertEquals(names.toString(), names.size(), new HashSet<String>(names).size());
+	}
+
+	/**
+	 * Method which overwrites an int of a file.
+	 */
+	private static void writeInt(File file, long position, int value) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(position);
+			raf.writeInt(value);
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testTemplatesWithCapabilitiesSharingAnAncestorAreFoundOnce() throws Exception {
+		CapabilityType root = new CapabilityType("Root");
+		CapabilityType left = new CapabilityType(root, "Left");
+		CapabilityType right = new CapabilityType(root, "Right");
+		List<Parameter> none = Collections.emptyList();
+		Operation op = new Operation("op", none, none);
+		ServiceTemplate st = new ServiceTemplate("S");
+		//Two capabilities (with the same name) whose types share the ancestor Root.
+		st.getBoundaryDefinitions().add(new Capability("c", left));
+		st.getBoundaryDefinitions().add(new Capability("c", right));
+		//Operation and property names repeated within the same ServiceTemplate.
+		st.getBoundaryDefinitions().add(new Interface("A", Arrays.asList(op)));
+		st.getBoundaryDefinitions().add(new Interface("B", Arrays.asList(op)));
+		st.getBoundaryDefinitions().add(new Property("p", String.class));
+		st.getBoundaryDefinitions().add(new Property("p", String.class));
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		registry.register(st);
+		NodeType n = new NodeType.Builder("N")
+				.addCapabilityDefinition("c", root)
+				.build();
+
+		File file = tempFile();
+		CatalogSnapshot.write(file, registry, Arrays.asList(n));
+		CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+		assertEquals(Arrays.asList("S"), names(snapshot.findPlugInMatches(n)));
+		assertEquals(Arrays.asList("S"), names(snapshot.getPlugInCandidates(n)));
+		assertEquals(names(registry.findPlugInMatches(n)), names(snapshot.findPlugInMatches(n)));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(13, 10, 50);
+		File file = tempFile();
+		CatalogSnapshot.write(file, catalog.registry, catalog.nodeTypes);
+		CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+		List<ServiceTemplate> written = catalog.registry.getTemplates();
+		assertEquals(written.size(), snapshot.size());
+		assertEquals(names(written), names(snapshot.getTemplates()));
+		for(int id = 0; id < written.size(); id++) {
+			BoundaryDefinitions expected = written.get(id).getBoundaryDefinitions();
+			BoundaryDefinitions read = snapshot.getServiceTemplate(id).getBoundaryDefinitions();
+			assertEquals(expected.getCapabilities().getList().size(), read.getCapabilities().getList().size());
+			for(int i = 0; i < expected.getCapabilities().getList().size(); i++) {
+				Capability c = expected.getCapabilities().getList().get(i);
+				Capability d = read.getCapabilities().getList().get(i);
+				assertEquals(c.getName(), d.getName());
+				assertEquals(c.getType().getName(), d.getType().getName());
+			}
+			assertEquals(expected.getRequirements().getList().size(), read.getRequirements().getList().size());
+			assertEquals(expected.getProperties().getList().size(), read.getProperties().getList().size());
+			assertEquals(expected.getInterfaces().getList().size(), read.getInterfaces().getList().size());
+		}
+		//The types are shared by the materialized ServiceTemplate(s).
+		CapabilityType c5 = snapshot.getCapabilityType("C5");
+		assertNotNull(c5);
+		assertSame(c5, snapshot.getCapabilityType("C5"));
+		assertEquals("C5", c5.getName());
+		assertNotNull(snapshot.getNodeType("N0"));
+		assertNull(snapshot.getNodeType("Missing"));
+		assertEquals(names(written), names(snapshot.toRegistry().getTemplates()));
+	}
+
+	@Test
+	public void testSnapshotAnswersAsTheRegistry() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(42, 40, 300);
+		File file = tempFile();
+		CatalogSnapshot.write(file, catalog.registry, catalog.nodeTypes);
+		CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+		for(NodeType n : catalog.nodeTypes) {
+			assertEquals(n.getName(), sortedNames(catalog.registry.findExactMatches(n)), sortedNames(snapshot.findExactMatches(n)));
+			assertEquals(n.getName(), sortedNames(catalog.registry.findPlugInMatches(n)), sortedNames(snapshot.findPlugInMatches(n)));
+			assertEquals(n.getName(), sortedNames(catalog.registry.getExactCandidates(n)), sortedNames(snapshot.getExactCandidates(n)));
+			assertEquals(n.getName(), sortedNames(catalog.registry.getPlugInCandidates(n)), sortedNames(snapshot.getPlugInCandidates(n)));
+			assertDistinct(snapshot.findPlugInMatches(n));
+			assertDistinct(snapshot.getPlugInCandidates(n));
+		}
+	}
+
+	@Test
+	public void testReopen() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(7, 5, 20);
+		File file = tempFile();
+		CatalogSnapshot.write(file, catalog.registry, catalog.nodeTypes);
+		CatalogSnapshot first = CatalogSnapshot.open(file);
+		CatalogSnapshot second = CatalogSnapshot.open(file);
+		assertEquals(first.size(), second.size());
+		assertEquals(names(first.getTemplates()), names(second.getTemplates()));
+		for(NodeType n : catalog.nodeTypes)
+			assertEquals(names(first.findPlugInMatches(n)), names(second.findPlugInMatches(n)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongMagic() throws Exception {
+		File file = tempFile();
+		CatalogSnapshot.write(file, new RandomCatalog(1, 1, 1).registry, Collections.<EntityType>emptyList());
+		writeInt(file, 0, 0xCAFEBABE);
+		CatalogSnapshot.open(file);
+	}
+
+	@Test
+	public void testUnsupportedVersion() throws Exception {
+		File file = tempFile();
+		CatalogSnapshot.write(file, new RandomCatalog(1, 1, 1).registry, Collections.<EntityType>emptyList());
+		writeInt(file, 4, 99);
+		try {
+			CatalogSnapshot.open(file);
+			fail("The version should not be supported");
+		} catch(IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("99"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws Exception {
+		File file = tempFile();
+		writeInt(file, 0, CatalogSnapshot.MAGIC);
+		CatalogSnapshot.open(file);
+	}
+}
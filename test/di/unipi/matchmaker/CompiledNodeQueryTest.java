@@ -0,0 +1,119 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the CompiledNodeQuery.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class CompiledNodeQueryTest {
+
+	private static final Class<?>[] TYPES = { Integer.class, String.class };
+
+	/**
+	 * Method which creates a random operation (whose parameter names may be repeated).
+	 */
+	private static Operation operation(Random random) {
+		List<Parameter> in = new ArrayList<Parameter>();
+		int size = random.nextInt(3);
+		for(int i = 0; i < size; i++)
+			in.add(new Parameter(random.nextBoolean() ? "a" : "b", TYPES[random.nextInt(TYPES.length)]));
+		return new Operation(random.nextBoolean() ? "x" : "y", in, Collections.<Parameter>emptyList());
+	}
+
+	/**
+	 * Method which creates a random list of interfaces.
+	 */
+	private static List<Interface> interfaces(Random random) {
+		List<Interface> infs = new ArrayList<Interface>();
+		int size = random.nextInt(3);
+		for(int i = 0; i < size; i++) {
+			List<Operation> ops = new ArrayList<Operation>();
+			int opCount = 1 + random.nextInt(3);
+			for(int j = 0; j < opCount; j++)
+				ops.add(operation(random));
+			infs.add(new Interface(random.nextBoolean() ? "i" : "j", ops));
+		}
+		return infs;
+	}
+
+	private static Interface repeatedInterface() {
+		return new Interface("i", Arrays.asList(new Operation("op",
+				Arrays.asList(new Parameter("a", Integer.class), new Parameter("a", Integer.class)),
+				Collections.<Parameter>emptyList())));
+	}
+
+	private static Interface distinctInterface() {
+		return new Interface("i", Arrays.asList(new Operation("op",
+				Arrays.asList(new Parameter("a", Integer.class), new Parameter("b", Integer.class)),
+				Collections.<Parameter>emptyList())));
+	}
+
+	@Test
+	public void testRepeatedParameterNames() throws Exception {
+		NodeType n = new NodeType.Builder("N").addInterface(repeatedInterface()).build();
+		ServiceTemplate st = new ServiceTemplate("S");
+		st.getBoundaryDefinitions().add(distinctInterface());
+		assertTrue(new CompiledNodeQuery(n, MatchMode.EXACT).matches(st));
+		assertTrue(new CompiledNodeQuery(n, MatchMode.PLUG_IN).matches(st));
+
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		registry.register(st);
+		assertEquals(Arrays.asList(st), registry.findExactMatches(n));
+		assertEquals(Arrays.asList(st), registry.findPlugInMatches(n));
+
+		//The converse does not hold, as the parameter b is not exposed.
+		NodeType converse = new NodeType.Builder("C").addInterface(distinctInterface()).build();
+		ServiceTemplate other = new ServiceTemplate("T");
+		other.getBoundaryDefinitions().add(repeatedInterface());
+		assertFalse(new CompiledNodeQuery(converse, MatchMode.EXACT).matches(other));
+		assertFalse(new CompiledNodeQuery(converse, MatchMode.PLUG_IN).matches(other));
+	}
+
+	@Test
+	public void testAgreesWithMatchmakers() throws Exception {
+		Random random = new Random(42);
+		List<NodeType> nodeTypes = new ArrayList<NodeType>();
+		List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>();
+		for(int i = 0; i < 100; i++) {
+			NodeType.Builder builder = new NodeType.Builder("N" + i);
+			for(Interface inf : interfaces(random))
+				builder.addInterface(inf);
+			nodeTypes.add(builder.build());
+			ServiceTemplate st = new ServiceTemplate("S" + i);
+			for(Interface inf : interfaces(random))
+				st.getBoundaryDefinitions().add(inf);
+			sts.add(st);
+		}
+		int exact = 0, plugIn = 0;
+		for(NodeType n : nodeTypes) {
+			CompiledNodeQuery exactQuery = new CompiledNodeQuery(n, MatchMode.EXACT);
+			CompiledNodeQuery plugInQuery = new CompiledNodeQuery(n, MatchMode.PLUG_IN);
+			for(ServiceTemplate st : sts) {
+				boolean expected = new ExactMatchmaker(n, st).match();
+				assertEquals(expected, exactQuery.matches(st));
+				exact += (expected ? 1 : 0);
+				expected = new PlugInMatchmaker(n, st).match();
+				assertEquals(expected, plugInQuery.matches(st));
+				plugIn += (expected ? 1 : 0);
+			}
+		}
+		//(Both verdicts are exercised.)
+		assertTrue(exact > 0 && plugIn > exact && plugIn < nodeTypes.size() * sts.size());
+	}
+}
@@ -0,0 +1,97 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the IncrementalMatchmaker.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class IncrementalMatchmakerTest {
+
+	@Test
+	public void testUpdateAppliesTheRecordedChanges() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		ServiceTemplate st = new ServiceTemplate("S");
+		IncrementalMatchmaker matchmaker = new IncrementalMatchmaker(st, MatchMode.PLUG_IN);
+		assertFalse(matchmaker.track(n));
+
+		Capability c = new Capability("c", cType);
+		st.getBoundaryDefinitions().add(c);
+		assertEquals(Arrays.asList(n), matchmaker.update());
+		assertTrue(matchmaker.matches(n));
+		assertEquals(Collections.<NodeType>emptyList(), matchmaker.update());
+	}
+
+	@Test
+	public void testUpdateRematchesWhenTheChangesAreNoLongerRecorded() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		NodeType other = new NodeType.Builder("O").build();
+		ServiceTemplate st = new ServiceTemplate("S");
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		Capability c = new Capability("c", cType);
+		bounds.add(c);
+		IncrementalMatchmaker matchmaker = new IncrementalMatchmaker(st, MatchMode.PLUG_IN);
+		assertTrue(matchmaker.track(n));
+		//(Plug-in matchmaking allows the ServiceTemplate to expose further capabilities.)
+		assertTrue(matchmaker.track(other));
+
+		int since = bounds.getVersion();
+		for(int i = 0; i < BoundaryDefinitions.MAX_RECORDED_CHANGES; i++) {
+			bounds.remove(c);
+			bounds.add(c);
+		}
+		bounds.remove(c);
+		//The recorded changes are bounded.
+		assertFalse(bounds.areChangesRecordedSince(since));
+		assertTrue(bounds.areChangesRecordedSince(bounds.getVersion() - 1));
+
+		assertEquals(Arrays.asList(n), matchmaker.update());
+		assertEquals(MatchMode.PLUG_IN.newMatchmaker(n, st).match(), matchmaker.matches(n));
+		assertFalse(matchmaker.matches(n));
+		//The tracked NodeTypes (and their order) are preserved.
+		assertTrue(matchmaker.matches(other));
+		assertEquals(Arrays.asList(other), matchmaker.getMatches());
+
+		//The incremental updates are resumed.
+		bounds.add(c);
+		assertEquals(Arrays.asList(n), matchmaker.update());
+		assertEquals(Arrays.asList(n, other), matchmaker.getMatches());
+	}
+
+	@Test
+	public void testChangesRecordedOnlyOnceTracked() throws Exception {
+		ServiceTemplate st = new ServiceTemplate("S");
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		int since = bounds.getVersion();
+		bounds.add(new Property("p", String.class));
+		//Reading the version does not start recording the changes.
+		assertFalse(bounds.areChangesRecordedSince(since));
+		since = bounds.trackChanges();
+		bounds.add(new Property("q", String.class));
+		assertEquals(1, bounds.getChangesSince(since).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChangesNoLongerRecorded() throws Exception {
+		ServiceTemplate st = new ServiceTemplate("S");
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		int since = bounds.trackChanges();
+		for(int i = 0; i <= BoundaryDefinitions.MAX_RECORDED_CHANGES; i++)
+			bounds.add(new Property("p" + i, String.class));
+		bounds.getChangesSince(since);
+	}
+}
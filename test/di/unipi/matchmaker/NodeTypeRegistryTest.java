@@ -0,0 +1,107 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the NodeTypeRegistry.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class NodeTypeRegistryTest {
+
+	/**
+	 * Method which retrieves (in order) the NodeType(s) matched by a ServiceTemplate, by running
+	 * a matchmaker on each of them.
+	 */
+	private static List<NodeType> matches(List<NodeType> nodeTypes, ServiceTemplate st, MatchMode mode) {
+		List<NodeType> found = new ArrayList<NodeType>();
+		for(NodeType n : nodeTypes) {
+			if(mode.newMatchmaker(n, st).match())
+				found.add(n);
+		}
+		return found;
+	}
+
+	private static void assertAgree(NodeTypeRegistry registry, ServiceTemplate st) {
+		List<NodeType> nodeTypes = registry.getNodeTypes();
+		List<NodeType> exact = matches(nodeTypes, st, MatchMode.EXACT);
+		List<NodeType> plugIn = matches(nodeTypes, st, MatchMode.PLUG_IN);
+		assertEquals(st.getName(), exact, registry.findExactMatches(st));
+		assertEquals(st.getName(), plugIn, registry.findPlugInMatches(st));
+		assertTrue(registry.getExactCandidates(st).containsAll(exact));
+		assertTrue(registry.getPlugInCandidates(st).containsAll(plugIn));
+	}
+
+	@Test
+	public void testDerivedTypes() throws Exception {
+		CapabilityType base = new CapabilityType("Base");
+		CapabilityType derived = new CapabilityType(base, "Derived");
+		RequirementType rBase = new RequirementType("RBase");
+		RequirementType rDerived = new RequirementType(rBase, "RDerived");
+		NodeType baseCapability = new NodeType.Builder("B").addCapabilityDefinition("c", base).build();
+		NodeType derivedCapability = new NodeType.Builder("D").addCapabilityDefinition("c", derived).build();
+		NodeType derivedRequirement = new NodeType.Builder("R").addRequirementDefinition("r", rDerived).build();
+		NodeType featureless = new NodeType.Builder("F").build();
+		NodeTypeRegistry registry = new NodeTypeRegistry();
+		for(NodeType n : Arrays.asList(baseCapability, derivedCapability, derivedRequirement, featureless))
+			registry.register(n);
+
+		//A derived capability plug-in matches the base one (and only exactly matches the derived one).
+		ServiceTemplate st = new ServiceTemplate("S");
+		st.getBoundaryDefinitions().add(new Capability("c", derived));
+		assertEquals(Arrays.asList(derivedCapability), registry.findExactMatches(st));
+		//(Plug-in matching allows n to define requirements that st does not have.)
+		assertEquals(Arrays.asList(baseCapability, derivedCapability, derivedRequirement, featureless), registry.findPlugInMatches(st));
+		assertAgree(registry, st);
+
+		//A requirement of a base type is satisfied (in plug-in mode) by one of a derived type.
+		ServiceTemplate requiring = new ServiceTemplate("T");
+		requiring.getBoundaryDefinitions().add(new Requirement("r", rBase));
+		assertEquals(Collections.<NodeType>emptyList(), registry.findExactMatches(requiring));
+		assertEquals(Arrays.asList(derivedRequirement), registry.findPlugInMatches(requiring));
+		assertAgree(registry, requiring);
+
+		//The NodeType without features is exactly matched only by an empty ServiceTemplate.
+		ServiceTemplate empty = new ServiceTemplate("E");
+		assertEquals(Arrays.asList(featureless), registry.findExactMatches(empty));
+		assertEquals(Arrays.asList(derivedRequirement, featureless), registry.findPlugInMatches(empty));
+		assertAgree(registry, empty);
+	}
+
+	@Test
+	public void testAgreesWithMatchmakers() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(23, 80, 300);
+		NodeTypeRegistry registry = new NodeTypeRegistry();
+		for(NodeType n : catalog.nodeTypes)
+			registry.register(n);
+		//(The NodeTypes without features are registered as well.)
+		registry.register(new NodeType.Builder("Featureless").build());
+		int exact = 0, plugIn = 0;
+		for(ServiceTemplate st : catalog.registry.getTemplates()) {
+			assertAgree(registry, st);
+			exact += registry.findExactMatches(st).size();
+			plugIn += registry.findPlugInMatches(st).size();
+		}
+		//(Both verdicts are exercised.)
+		assertTrue(exact > 0 && plugIn > exact);
+
+		//The answers are still the same once some NodeType(s) are removed.
+		for(int i = 0; i < catalog.nodeTypes.size(); i += 3)
+			assertTrue(registry.remove(catalog.nodeTypes.get(i)));
+		for(ServiceTemplate st : catalog.registry.getTemplates())
+			assertAgree(registry, st);
+	}
+}
@@ -0,0 +1,84 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the OperationIndex.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class OperationIndexTest {
+
+	private static final String[] NAMES = { "a", "b", "a:b", "a,b" };
+	private static final Class<?>[] TYPES = { Integer.class, String.class };
+
+	/**
+	 * Method which creates a random list of parameters (whose names may be repeated).
+	 */
+	private static List<Parameter> parameters(Random random) {
+		List<Parameter> params = new ArrayList<Parameter>();
+		int size = random.nextInt(3);
+		for(int i = 0; i < size; i++)
+			params.add(new Parameter(NAMES[random.nextInt(NAMES.length)], TYPES[random.nextInt(TYPES.length)]));
+		return params;
+	}
+
+	private static Operation operation(String name, Parameter... in) {
+		return new Operation(name, Arrays.asList(in), Collections.<Parameter>emptyList());
+	}
+
+	@Test
+	public void testRepeatedParameterNames() throws Exception {
+		Operation repeated = operation("op", new Parameter("a", Integer.class), new Parameter("a", Integer.class));
+		Operation distinct = operation("op", new Parameter("a", Integer.class), new Parameter("b", Integer.class));
+		OperationIndex index = new OperationIndex(Arrays.asList(new Interface("i", Arrays.asList(distinct))));
+		assertEquals(Arrays.asList(distinct), index.get(repeated));
+		assertTrue(OperationIndex.matches(repeated, distinct));
+		assertFalse(OperationIndex.matches(distinct, repeated));
+	}
+
+	@Test
+	public void testPlugInVerdictsAgree() throws Exception {
+		Operation repeated = operation("op", new Parameter("a", Integer.class), new Parameter("a", Integer.class));
+		Operation distinct = operation("op", new Parameter("a", Integer.class), new Parameter("b", Integer.class));
+		NodeType n = new NodeType.Builder("N").addInterface(new Interface("i", Arrays.asList(repeated))).build();
+		ServiceTemplate st = new ServiceTemplate("S");
+		st.getBoundaryDefinitions().add(new Interface("i", Arrays.asList(distinct)));
+		assertTrue(new PlugInMatchmaker(n, st).match());
+		assertTrue(new PlugInMatchmaker(n, st).matches());
+	}
+
+	@Test
+	public void testAgreesWithExactMatchmaker() throws Exception {
+		Random random = new Random(42);
+		ExactMatchmaker matchmaker = new ExactMatchmaker(new NodeType.Builder("N").build(), new ServiceTemplate("S"));
+		List<Operation> ops = new ArrayList<Operation>();
+		for(int i = 0; i < 200; i++)
+			ops.add(new Operation(random.nextBoolean() ? "x" : "y", parameters(random), parameters(random)));
+		OperationIndex index = new OperationIndex(Arrays.asList(new Interface("i", ops)));
+		for(Operation op1 : ops) {
+			List<Operation> candidates = index.get(op1);
+			for(Operation op2 : ops) {
+				boolean expected = matchmaker.match(op1, op2);
+				assertEquals(expected, OperationIndex.matches(op1, op2));
+				//The index never discards a matching operation.
+				if(expected)
+					assertTrue(candidates.contains(op2));
+			}
+		}
+	}
+}
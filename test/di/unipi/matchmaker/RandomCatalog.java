@@ -0,0 +1,108 @@
+package di.unipi.matchmaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which generates a (deterministic) random catalog, to check the matchmaking structures
+ * against each other.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+class RandomCatalog {
+	/**
+	 * It stores the Java classes used to type the properties and parameters of the random catalogs.
+	 */
+	private static final Class<?>[] CLASSES = { Object.class, Number.class, Integer.class, String.class, CharSequence.class };
+
+	private final Random random;
+	private final List<CapabilityType> capabilityTypes = new ArrayList<CapabilityType>();
+	private final List<RequirementType> requirementTypes = new ArrayList<RequirementType>();
+	private final List<Operation> operations = new ArrayList<Operation>();
+	/**
+	 * It stores the NodeType(s) of the catalog.
+	 */
+	final List<NodeType> nodeTypes = new ArrayList<NodeType>();
+	/**
+	 * It stores the registry containing the ServiceTemplate(s) of the catalog.
+	 */
+	final ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+
+	/**
+	 * Constructor.
+	 * @param seed Seed of the random catalog.
+	 * @param nodes Number of NodeType(s) to be generated.
+	 * @param templates Number of ServiceTemplate(s) to be generated (and registered).
+	 */
+	RandomCatalog(long seed, int nodes, int templates) throws Exception {
+		random = new Random(seed);
+		for(int i = 0; i < 6; i++)
+			capabilityTypes.add(i == 0 ? new CapabilityType("C0") : new CapabilityType(capabilityTypes.get(random.nextInt(i)), "C" + i));
+		for(int i = 0; i < 6; i++)
+			requirementTypes.add(i == 0 ? new RequirementType("R0") : new RequirementType(requirementTypes.get(random.nextInt(i)), "R" + i));
+		for(int i = 0; i < 6; i++) {
+			List<Parameter> in = new ArrayList<Parameter>();
+			if(random.nextBoolean())
+				in.add(new Parameter("x", CLASSES[random.nextInt(2)]));
+			List<Parameter> out = new ArrayList<Parameter>();
+			if(random.nextInt(3) == 0)
+				out.add(new Parameter("y", CLASSES[random.nextInt(2)]));
+			operations.add(new Operation("op" + (i % 4), in, out));
+		}
+		for(int i = 0; i < nodes; i++)
+			nodeTypes.add(nodeType("N" + i));
+		for(int i = 0; i < templates; i++)
+			registry.register(serviceTemplate("S" + i));
+	}
+
+	private Interface newInterface() {
+		List<Operation> ops = new ArrayList<Operation>();
+		int k = 1 + random.nextInt(2);
+		for(int i = 0; i < k; i++) {
+			Operation op = operations.get(random.nextInt(operations.size()));
+			if(!ops.contains(op))
+				ops.add(op);
+		}
+		return new Interface("I" + random.nextInt(3), ops);
+	}
+
+	private NodeType nodeType(String name) throws Exception {
+		NodeType.Builder b = new NodeType.Builder(name);
+		int k = random.nextInt(3);
+		for(int i = 0; i < k; i++)
+			b.addCapabilityDefinition("c" + i, capabilityTypes.get(random.nextInt(6)));
+		k = random.nextInt(3);
+		for(int i = 0; i < k; i++)
+			b.addRequirementDefinition("r" + i, requirementTypes.get(random.nextInt(6)));
+		k = random.nextInt(3);
+		for(int i = 0; i < k; i++)
+			b.addPropertyDefinition("p" + i, CLASSES[random.nextInt(5)]);
+		if(random.nextBoolean())
+			b.addInterface(newInterface());
+		return b.build();
+	}
+
+	private ServiceTemplate serviceTemplate(String name) throws Exception {
+		ServiceTemplate st = new ServiceTemplate(name);
+		BoundaryDefinitions bounds = st.getBoundaryDefinitions();
+		int k = random.nextInt(4);
+		for(int i = 0; i < k; i++)
+			bounds.add(new Capability("c" + i, capabilityTypes.get(random.nextInt(6))));
+		k = random.nextInt(3);
+		for(int i = 0; i < k; i++)
+			bounds.add(new Requirement("r" + i, requirementTypes.get(random.nextInt(6))));
+		k = random.nextInt(4);
+		for(int i = 0; i < k; i++)
+			bounds.add(new Property("p" + i, CLASSES[random.nextInt(5)]));
+		if(random.nextBoolean())
+			bounds.add(newInterface());
+		return st;
+	}
+}
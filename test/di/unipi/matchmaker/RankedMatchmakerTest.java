@@ -0,0 +1,120 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the RankedMatchmaker.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class RankedMatchmakerTest {
+
+	/**
+	 * Method which retrieves the k best RankedMatch(es) by ranking all the ServiceTemplate(s),
+	 * stably sorting them by penalty and truncating the result to k.
+	 */
+	private static List<RankedMatch> fullSort(RankedMatchmaker ranker, List<ServiceTemplate> sts, int k) {
+		List<RankedMatch> all = new ArrayList<RankedMatch>();
+		for(ServiceTemplate st : sts)
+			all.add(ranker.rank(st));
+		Collections.sort(all, new Comparator<RankedMatch>() {
+			@Override
+			public int compare(RankedMatch m1, RankedMatch m2) {
+				return Double.compare(m1.getPenalty(), m2.getPenalty());
+			}
+		});
+		return all.subList(0, Math.min(k, all.size()));
+	}
+
+	private static void assertSameRanking(List<RankedMatch> expected, List<RankedMatch> actual) {
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i).getServiceTemplate(), actual.get(i).getServiceTemplate());
+			assertEquals(expected.get(i).getPenalty(), actual.get(i).getPenalty(), 0);
+			for(MatchPhase phase : MatchPhase.values())
+				assertEquals(expected.get(i).getUnmatched(phase), actual.get(i).getUnmatched(phase));
+		}
+	}
+
+	@Test
+	public void testTopAgreesWithFullSort() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(19, 30, 200);
+		List<ServiceTemplate> sts = catalog.registry.getTemplates();
+		int[] ks = { 1, 3, 10, 200, 500 };
+		for(NodeType n : catalog.nodeTypes) {
+			for(MatchMode mode : MatchMode.values()) {
+				RankedMatchmaker ranker = new RankedMatchmaker(n, mode);
+				for(int k : ks)
+					assertSameRanking(fullSort(ranker, sts, k), ranker.top(sts, k));
+				//(Also with weighted and ignored phases.)
+				ranker.setWeight(MatchPhase.CAPABILITIES, 2.5);
+				ranker.setWeight(MatchPhase.PROPERTIES, 0);
+				for(int k : ks)
+					assertSameRanking(fullSort(ranker, sts, k), ranker.top(sts, k));
+			}
+		}
+	}
+
+	@Test
+	public void testTiesAreBrokenByOrder() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).addPropertyDefinition("p", String.class).build();
+		List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>();
+		for(int i = 0; i < 6; i++) {
+			ServiceTemplate st = new ServiceTemplate("S" + i);
+			//Even templates only miss the property, odd ones also miss the capability.
+			if(i % 2 == 0)
+				st.getBoundaryDefinitions().add(new Capability("c", cType));
+			sts.add(st);
+		}
+		RankedMatchmaker ranker = new RankedMatchmaker(n, MatchMode.PLUG_IN);
+		List<RankedMatch> top = ranker.top(sts, 4);
+		assertSameRanking(fullSort(ranker, sts, 4), top);
+		assertSame(sts.get(0), top.get(0).getServiceTemplate());
+		assertSame(sts.get(2), top.get(1).getServiceTemplate());
+		assertSame(sts.get(4), top.get(2).getServiceTemplate());
+		assertSame(sts.get(1), top.get(3).getServiceTemplate());
+		assertEquals(1, top.get(0).getPenalty(), 0);
+		assertEquals(2, top.get(3).getPenalty(), 0);
+	}
+
+	@Test
+	public void testPrunedTemplatesDoNotEnterTheTop() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		ServiceTemplate match = new ServiceTemplate("M");
+		match.getBoundaryDefinitions().add(new Capability("c", cType));
+		//A later template matching as well ties with the first one, and it is pruned by the threshold.
+		ServiceTemplate tie = new ServiceTemplate("T");
+		tie.getBoundaryDefinitions().add(new Capability("c", cType));
+		//Exact matching prunes (by cardinalities) the templates exposing many capabilities.
+		ServiceTemplate large = new ServiceTemplate("L");
+		for(int i = 0; i < 5; i++)
+			large.getBoundaryDefinitions().add(new Capability("c" + i, cType));
+		List<ServiceTemplate> sts = new ArrayList<ServiceTemplate>();
+		sts.add(large);
+		sts.add(match);
+		sts.add(tie);
+		for(MatchMode mode : MatchMode.values()) {
+			RankedMatchmaker ranker = new RankedMatchmaker(n, mode);
+			List<RankedMatch> top = ranker.top(sts, 1);
+			assertEquals(1, top.size());
+			assertSame(match, top.get(0).getServiceTemplate());
+			assertTrue(top.get(0).isMatch());
+			assertSameRanking(fullSort(ranker, sts, 2), ranker.top(sts, 2));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the ServiceTemplateRegistry.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ServiceTemplateRegistryTest {
+
+	/**
+	 * Method which creates a ServiceTemplate exposing a capability and a policy (of a distinct PolicyType object).
+	 */
+	private static ServiceTemplate template(String name, CapabilityType cType, PolicyType pType) throws Exception {
+		ServiceTemplate st = new ServiceTemplate(name);
+		st.getBoundaryDefinitions().add(new Capability("c", cType));
+		st.getBoundaryDefinitions().add(new Policy("p", pType));
+		return st;
+	}
+
+	@Test
+	public void testIdenticalTemplatesShareAClass() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		ServiceTemplate s1 = template("S1", cType, new PolicyType("P"));
+		ServiceTemplate s2 = template("S2", cType, new PolicyType("P"));
+		registry.register(s1);
+		registry.register(s2);
+		assertEquals(1, registry.getClassCount());
+		assertEquals(Arrays.asList(s1, s2), registry.findPlugInMatches(n));
+	}
+
+	@Test
+	public void testMembersWhoseTypesChangeAreMatchedOnTheirOwn() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		NodeType other = new NodeType.Builder("O").build();
+		PolicyType p1 = new PolicyType("P");
+		PolicyType p2 = new PolicyType("P");
+		PolicyType p3 = new PolicyType("P");
+		ServiceTemplate s1 = template("S1", cType, p1);
+		ServiceTemplate s2 = template("S2", cType, p2);
+		ServiceTemplate s3 = template("S3", cType, p3);
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		registry.register(s1);
+		registry.register(s2);
+		registry.register(s3);
+		assertEquals(Arrays.asList(s1, s2, s3), registry.findPlugInMatches(n));
+
+		//The policy of a (non representative) member is no more applicable to n.
+		p2.setApplicableTo(other);
+		assertFalse(MatchMode.PLUG_IN.newMatchmaker(n, s2).match());
+		assertEquals(Arrays.asList(s1, s3), registry.findPlugInMatches(n));
+		//(The policies of the other members are applicable to any NodeType.)
+		assertEquals(Arrays.asList(s1, s2, s3), registry.findPlugInMatches(other));
+
+		//The policy of the representative is no more applicable to n.
+		p1.setApplicableTo(other);
+		assertEquals(Arrays.asList(s3), registry.findPlugInMatches(n));
+		assertEquals(Arrays.asList(s1, s2, s3), registry.findPlugInMatches(other));
+		registry.remove(s3);
+		assertEquals(Collections.<ServiceTemplate>emptyList(), registry.findPlugInMatches(n));
+	}
+
+	@Test
+	public void testMembersJoiningAfterTypeChangesAreMatchedOnTheirOwn() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType n = new NodeType.Builder("N").addCapabilityDefinition("c", cType).build();
+		NodeType other = new NodeType.Builder("O").build();
+		PolicyType p1 = new PolicyType("P");
+		ServiceTemplate s1 = template("S1", cType, p1);
+		ServiceTemplateRegistry registry = new ServiceTemplateRegistry();
+		registry.register(s1);
+		assertEquals(Arrays.asList(s1), registry.findPlugInMatches(n));
+
+		//s2 joins the class of s1 (by the fingerprint of its creation), though the policy of s1 has changed.
+		p1.setApplicableTo(other);
+		ServiceTemplate s2 = template("S2", cType, new PolicyType("P"));
+		ServiceTemplate s3 = template("S3", cType, new PolicyType("P"));
+		new CapabilityType("U").getPropertiesDefinition().addDefinition("u", String.class);
+		registry.register(s2);
+		registry.register(s3);
+		assertEquals(Arrays.asList(s2, s3), registry.findPlugInMatches(n));
+		assertEquals(Arrays.asList(s1, s2, s3), registry.findPlugInMatches(other));
+
+		//Once the representative is removed, another member represents the class.
+		registry.remove(s1);
+		assertEquals(Arrays.asList(s2, s3), registry.findPlugInMatches(n));
+		registry.remove(s2);
+		assertEquals(Arrays.asList(s3), registry.findPlugInMatches(n));
+		assertEquals(1, registry.getClassCount());
+	}
+}
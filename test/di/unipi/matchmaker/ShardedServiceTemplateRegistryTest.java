@@ -0,0 +1,74 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the ShardedServiceTemplateRegistry.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ShardedServiceTemplateRegistryTest {
+
+	private static void assertSameAnswers(ServiceTemplateRegistry registry, ShardedServiceTemplateRegistry sharded,
+			List<NodeType> nodeTypes) {
+		assertEquals(registry.getTemplates(), sharded.getTemplates());
+		for(NodeType n : nodeTypes) {
+			assertEquals(n.getName(), registry.findExactMatches(n), sharded.findExactMatches(n));
+			assertEquals(n.getName(), registry.findPlugInMatches(n), sharded.findPlugInMatches(n));
+		}
+	}
+
+	@Test
+	public void testAgreesWithUnshardedRegistry() throws Exception {
+		RandomCatalog catalog = new RandomCatalog(31, 40, 400);
+		ServiceTemplateRegistry registry = catalog.registry;
+		ShardedServiceTemplateRegistry sharded = new ShardedServiceTemplateRegistry(4, 2);
+		try {
+			for(ServiceTemplate st : registry.getTemplates())
+				sharded.register(st);
+			assertEquals(registry.size(), sharded.size());
+			assertSameAnswers(registry, sharded, catalog.nodeTypes);
+
+			//The answers are still the same once some ServiceTemplate(s) are removed.
+			List<ServiceTemplate> templates = registry.getTemplates();
+			for(int i = 0; i < templates.size(); i += 3) {
+				assertTrue(registry.remove(templates.get(i)));
+				assertTrue(sharded.remove(templates.get(i)));
+			}
+			assertSameAnswers(registry, sharded, catalog.nodeTypes);
+		} finally {
+			sharded.close();
+		}
+	}
+
+	@Test
+	public void testExternalPoolIsNotReleased() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			RandomCatalog catalog = new RandomCatalog(5, 5, 30);
+			ShardedServiceTemplateRegistry sharded = new ShardedServiceTemplateRegistry(3, pool);
+			for(ServiceTemplate st : catalog.registry.getTemplates())
+				sharded.register(st);
+			sharded.close();
+			assertFalse(pool.isShutdown());
+			//(Another registry can still use the pool.)
+			ShardedServiceTemplateRegistry other = new ShardedServiceTemplateRegistry(2, pool);
+			for(ServiceTemplate st : catalog.registry.getTemplates())
+				other.register(st);
+			assertSameAnswers(catalog.registry, other, catalog.nodeTypes);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
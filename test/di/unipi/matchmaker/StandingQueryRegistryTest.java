@@ -0,0 +1,113 @@
+package di.unipi.matchmaker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the StandingQueryRegistry.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class StandingQueryRegistryTest {
+	/**
+	 * It stores an Executor running the deliveries in the calling thread.
+	 */
+	private static final Executor DIRECT = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	/**
+	 * Class which records the delivered matches.
+	 */
+	private static class Recorder implements MatchListener {
+		private final List<String> delivered = new ArrayList<String>();
+
+		@Override
+		public synchronized void matched(StandingQueryRegistry.Subscription s, ServiceTemplate st) {
+			delivered.add(s.getNodeType().getName() + "->" + st.getName());
+		}
+	}
+
+	private static NodeType nodeType(String name, CapabilityType cType) throws Exception {
+		return new NodeType.Builder(name).addCapabilityDefinition("c", cType).build();
+	}
+
+	@Test
+	public void testUnsubscribe() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		StandingQueryRegistry registry = new StandingQueryRegistry(DIRECT);
+		StandingQueryRegistry.Subscription s = registry.subscribe(nodeType("N", cType), MatchMode.PLUG_IN, new Recorder());
+		assertEquals(1, registry.size());
+		assertTrue(registry.unsubscribe(s));
+		assertFalse(s.isActive());
+		assertEquals(0, registry.size());
+		//Unsubscribing twice.
+		assertFalse(registry.unsubscribe(s));
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void testUnsubscribeForeignSubscription() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		StandingQueryRegistry registry = new StandingQueryRegistry(DIRECT);
+		StandingQueryRegistry other = new StandingQueryRegistry(DIRECT);
+		registry.subscribe(nodeType("N", cType), MatchMode.PLUG_IN, new Recorder());
+		StandingQueryRegistry.Subscription foreign = other.subscribe(nodeType("M", cType), MatchMode.PLUG_IN, new Recorder());
+		StandingQueryRegistry.Subscription unanchored = other.subscribe(new NodeType.Builder("E").build(), MatchMode.PLUG_IN, new Recorder());
+
+		assertFalse(registry.unsubscribe(foreign));
+		assertFalse(registry.unsubscribe(unanchored));
+		assertFalse(registry.unsubscribe(null));
+		assertEquals(1, registry.size());
+		//(The foreign subscriptions are left untouched.)
+		assertTrue(foreign.isActive());
+		assertTrue(other.unsubscribe(foreign));
+		assertTrue(other.unsubscribe(unanchored));
+	}
+
+	@Test
+	public void testRejectedDeliveriesArePerformedByThePublisher() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		//An Executor rejecting every other delivery.
+		final List<Runnable> queued = new ArrayList<Runnable>();
+		Executor rejecting = new Executor() {
+			private int count = 0;
+
+			@Override
+			public void execute(Runnable command) {
+				if(count++ % 2 == 0)
+					throw new RejectedExecutionException();
+				queued.add(command);
+			}
+		};
+		StandingQueryRegistry registry = new StandingQueryRegistry(rejecting);
+		Recorder recorder = new Recorder();
+		for(int i = 0; i < 4; i++)
+			registry.subscribe(nodeType("N" + i, cType), MatchMode.PLUG_IN, recorder);
+
+		ServiceTemplate st = new ServiceTemplate("S");
+		st.getBoundaryDefinitions().add(new Capability("c", cType));
+		assertEquals(4, registry.publish(st));
+		//The rejected deliveries have already been performed, and the others are queued.
+		assertEquals(2, recorder.delivered.size());
+		assertEquals(2, queued.size());
+		for(Runnable command : queued)
+			command.run();
+		assertEquals(4, recorder.delivered.size());
+	}
+}
@@ -0,0 +1,116 @@
+package di.unipi.matchmaker.http;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import di.unipi.model.exceptions.InvalidDocumentException;
+
+/**
+ * Class which tests the JsonParser.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class JsonParserTest {
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object o) {
+		assertTrue("An object is expected: " + o, o instanceof Map);
+		return (Map<String, Object>) o;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Object o) {
+		assertTrue("An array is expected: " + o, o instanceof List);
+		return (List<Object>) o;
+	}
+
+	/**
+	 * Method which checks that a JSON document is rejected.
+	 */
+	private static void assertInvalid(String json) {
+		try {
+			JsonParser.parse(json);
+			fail("The document should be invalid: " + json);
+		} catch(InvalidDocumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("(at character "));
+		}
+	}
+
+	@Test
+	public void testValues() throws Exception {
+		Map<String, Object> root = map(JsonParser.parse(
+				" { \"b\" : true, \"a\": [ false, null, \"s\", 1 ], \"o\": { } , \"e\": [] }\r\n"));
+		//The order of the keys is preserved.
+		assertEquals(Arrays.asList("b", "a", "o", "e"), new ArrayList<String>(root.keySet()));
+		assertEquals(Boolean.TRUE, root.get("b"));
+		assertEquals(Arrays.<Object>asList(Boolean.FALSE, null, "s", "1"), root.get("a"));
+		assertTrue(map(root.get("o")).isEmpty());
+		assertTrue(list(root.get("e")).isEmpty());
+		assertEquals("x", JsonParser.parse("\"x\""));
+		assertNull(JsonParser.parse("null"));
+	}
+
+	@Test
+	public void testNumbers() throws Exception {
+		//Numbers are kept as written.
+		for(String number : new String[] { "0", "-0", "7", "-12", "3.25", "0.5", "1e5", "1E+5", "-2.5e-3", "10E0" })
+			assertEquals(number, JsonParser.parse(number));
+		assertEquals(Arrays.<Object>asList("1", "-2"), JsonParser.parse("[1,-2]"));
+		for(String number : new String[] { "+1", "01", "-", "1.", ".5", "1e", "1e+", "-.5", "0x10", "1.5.2", "--1",
+				"Infinity", "NaN", "1d", "[+1]" })
+			assertInvalid(number);
+	}
+
+	@Test
+	public void testEscapes() throws Exception {
+		assertEquals("q\" b\\ s/ \b\f\n\r\t A\u00e8\u20ac",
+				JsonParser.parse("\"q\\\" b\\\\ s\\/ \\b\\f\\n\\r\\t \\u0041\\u00E8\\u20ac\""));
+		//(Surrogate pairs are kept as they are.)
+		assertEquals("\ud83d\ude00", JsonParser.parse("\"\\ud83d\\ude00\""));
+		assertInvalid("\"\\x\"");
+		assertInvalid("\"\\u12\"");
+		assertInvalid("\"\\u+041\"");
+		assertInvalid("\"\\u00g1\"");
+		//(Non ASCII digits are not hexadecimal digits.)
+		assertInvalid("\"\\u\u0661\u0662\u0663\u0664\"");
+		assertInvalid("\"\\");
+		assertInvalid("\"tab\there\"");
+		assertEquals("\"q\\\"\\\\\\u000a\"", JsonParser.quote("q\"\\\n"));
+	}
+
+	@Test
+	public void testNesting() throws Exception {
+		StringBuilder nested = new StringBuilder();
+		for(int i = 0; i < 64; i++)
+			nested.append('[');
+		for(int i = 0; i < 64; i++)
+			nested.append(']');
+		Object root = JsonParser.parse(nested.toString());
+		for(int i = 1; i < 64; i++)
+			root = list(root).get(0);
+		assertTrue(list(root).isEmpty());
+		//Too deeply nested documents are rejected.
+		assertInvalid("[" + nested + "]");
+		assertInvalid("{\"a\":" + nested.toString().replace("[]", "[{}]") + "}");
+	}
+
+	@Test
+	public void testMalformedDocuments() throws Exception {
+		String[] malformed = {
+				"", "   ", "{", "}", "[", "[1,]", "[1 2]", "{\"a\" 1}", "{\"a\":1,}", "{a:1}", "{\"a\":1 \"b\":2}",
+				"{\"a\":1,\"a\":2}", "\"open", "tru", "nul", "[] []", "{} x", "'single'", "[1]]"
+		};
+		for(String json : malformed)
+			assertInvalid(json);
+	}
+}
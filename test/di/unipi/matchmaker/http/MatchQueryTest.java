@@ -0,0 +1,114 @@
+package di.unipi.matchmaker.http;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import di.unipi.matchmaker.MatchMode;
+import di.unipi.model.exceptions.InvalidDocumentException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the MatchQuery.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class MatchQueryTest {
+	/**
+	 * It stores a TypeResolver knowing a capability and a requirement type.
+	 */
+	private static final MatchQuery.TypeResolver RESOLVER = new MatchQuery.TypeResolver() {
+		private final CapabilityType os = new CapabilityType("test.OSContainer");
+		private final RequirementType db = new RequirementType("test.DBConnection");
+
+		@Override
+		public CapabilityType getCapabilityType(String name) {
+			return (name.equals(os.getName()) ? os : null);
+		}
+
+		@Override
+		public RequirementType getRequirementType(String name) {
+			return (name.equals(db.getName()) ? db : null);
+		}
+	};
+
+	static {
+		//The names of the elements of the matched ServiceTemplate(s).
+		SymbolTable.intern("os");
+		SymbolTable.intern("port");
+		SymbolTable.intern("start");
+		PropertyType.of(Integer.class);
+	}
+
+	@Test
+	public void testKnownQuery() throws Exception {
+		MatchQuery query = MatchQuery.read("{ \"name\": \"q\", \"mode\": \"exact\", \"candidates\": true," +
+				" \"capabilities\": [ { \"name\": \"os\", \"type\": \"test.OSContainer\" } ]," +
+				" \"requirements\": [ { \"name\": \"db\", \"type\": \"test.DBConnection\" } ]," +
+				" \"properties\": [ { \"name\": \"port\", \"type\": \"java.lang.Integer\" }, { \"name\": \"port\", \"type\": \"xs:dateTime\" } ] }",
+				RESOLVER);
+		assertEquals(MatchMode.EXACT, query.getMode());
+		assertTrue(query.reportsCandidates());
+		NodeType n = query.getNodeType();
+		assertNotNull(n);
+		assertEquals("test.OSContainer", n.getCapabilityDefinitions().getList().get(0).getCapabilityType().getName());
+		assertSame(PropertyType.of(Integer.class), n.getPropertiesDefinition().getList().get(0).getPropertyType());
+		assertSame(PropertyType.lookup("xs:dateTime"), n.getPropertiesDefinition().getList().get(1).getPropertyType());
+	}
+
+	@Test
+	public void testUnknownNamesAreNotInterned() throws Exception {
+		int symbols = SymbolTable.size();
+		String unique = "q" + System.nanoTime();
+		//Unknown names which do not prevent matching are replaced.
+		MatchQuery query = MatchQuery.read("{ \"name\": \"" + unique + "\"," +
+				" \"requirements\": [ { \"name\": \"" + unique + "r\", \"type\": \"test.DBConnection\" } ]," +
+				" \"interfaces\": [ { \"name\": \"" + unique + "i\", \"operations\": [ { \"name\": \"start\"," +
+				" \"input\": [ { \"name\": \"" + unique + "p\", \"type\": \"java.lang.String\" } ] } ] } ] }", RESOLVER);
+		NodeType n = query.getNodeType();
+		assertNotNull(n);
+		assertEquals(MatchQuery.UNKNOWN, n.getName());
+		assertEquals(MatchQuery.UNKNOWN, n.getRequirementDefinitions().getList().get(0).getName());
+		assertEquals(MatchQuery.UNKNOWN, n.getInterfaces().getList().get(0).getName());
+		//Unknown names which prevent matching make the query unmatchable.
+		assertNull(MatchQuery.read("{ \"name\": \"q\", \"capabilities\": [ { \"name\": \"" + unique + "\", \"type\": \"test.OSContainer\" } ] }", RESOLVER).getNodeType());
+		assertNull(MatchQuery.read("{ \"name\": \"q\", \"capabilities\": [ { \"name\": \"os\", \"type\": \"" + unique + "\" } ] }", RESOLVER).getNodeType());
+		assertNull(MatchQuery.read("{ \"name\": \"q\", \"properties\": [ { \"name\": \"" + unique + "\", \"type\": \"java.lang.String\" } ] }", RESOLVER).getNodeType());
+		assertNull(MatchQuery.read("{ \"name\": \"q\", \"interfaces\": [ { \"name\": \"i\", \"operations\": [ { \"name\": \"" + unique + "\" } ] } ] }", RESOLVER).getNodeType());
+		assertNull(MatchQuery.read("{ \"name\": \"q\", \"mode\": \"exact\", \"interfaces\": [ { \"name\": \"" + unique + "\" } ] }", RESOLVER).getNodeType());
+		assertEquals(-1, SymbolTable.lookup(unique));
+		assertEquals(symbols, SymbolTable.size());
+	}
+
+	@Test
+	public void testRequirementTypesOnlyKnownByName() throws Exception {
+		String unique = "t" + System.nanoTime();
+		//Exact matching only compares the names of requirement types.
+		NodeType n = MatchQuery.read("{ \"name\": \"q\", \"mode\": \"exact\"," +
+				" \"requirements\": [ { \"name\": \"db\", \"type\": \"" + unique + "\" } ] }", RESOLVER).getNodeType();
+		assertEquals(MatchQuery.UNKNOWN, n.getRequirementDefinitions().getList().get(0).getRequirementType().getName());
+		//Plug-in matching needs the types from which a requirement type is derived.
+		try {
+			MatchQuery.read("{ \"name\": \"q\", \"requirements\": [ { \"name\": \"db\", \"type\": \"start\" } ] }", RESOLVER);
+			fail("A requirement type only known by name has been accepted");
+		} catch(InvalidDocumentException e) {
+			assertTrue(e.getMessage().contains("<start>"));
+		}
+	}
+
+	@Test(expected = InvalidDocumentException.class)
+	public void testPropertyTypesNotYetKnown() throws Exception {
+		MatchQuery.read("{ \"name\": \"q\", \"properties\": [ { \"name\": \"port\", \"type\": \"java.util.concurrent.Phaser\" } ] }", RESOLVER);
+	}
+
+	@Test(expected = InvalidDocumentException.class)
+	public void testUnmatchableQueriesAreValidated() throws Exception {
+		//(The query cannot be matched, but its property type is unknown.)
+		MatchQuery.read("{ \"name\": \"q\", \"capabilities\": [ { \"name\": \"missing\", \"type\": \"x\" } ]," +
+				" \"properties\": [ { \"name\": \"port\", \"type\": \"no.such.Type\" } ] }", RESOLVER);
+	}
+}
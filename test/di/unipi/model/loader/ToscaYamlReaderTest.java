@@ -0,0 +1,175 @@
+package di.unipi.model.loader;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import di.unipi.model.exceptions.InvalidDocumentException;
+import di.unipi.model.exceptions.UnresolvedReferenceException;
+import di.unipi.model.tosca.*;
+
+/**
+ * Class which tests the ToscaYamlReader.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class ToscaYamlReaderTest {
+	/**
+	 * It stores a document declaring a node type (derived from a node type declared later).
+	 */
+	private static final String APP_TYPE =
+			"node_types:\n" +
+			"  my.nodes.App:\n" +
+			"    derived_from: my.nodes.Base\n" +
+			"    capabilities:\n" +
+			"      endpoint: tosca.capabilities.Endpoint\n" +
+			"    interfaces:\n" +
+			"      Standard:\n" +
+			"        create:\n" +
+			"          inputs:\n" +
+			"            url: { type: string }\n" +
+			"            retries: { type: integer, required: false }\n";
+	/**
+	 * It stores a document declaring a ServiceTemplate substituting my.nodes.App.
+	 */
+	private static final String APP_TEMPLATE =
+			"metadata:\n" +
+			"  template_name: shop\n" +
+			"topology_template:\n" +
+			"  substitution_mappings:\n" +
+			"    node_type: my.nodes.App\n" +
+			"    capabilities:\n" +
+			"      endpoint: [ app, endpoint ]\n" +
+			"    requirements:\n" +
+			"      host: [ app, host ]\n" +
+			"    interfaces:\n" +
+			"      Standard: { create: deploy, start: boot }\n" +
+			"  node_templates:\n" +
+			"    app: { type: my.nodes.App }\n";
+	/**
+	 * It stores a document declaring the parent of my.nodes.App.
+	 */
+	private static final String BASE_TYPE =
+			"node_types:\n" +
+			"  my.nodes.Base:\n" +
+			"    requirements:\n" +
+			"      - host: tosca.capabilities.Compute\n" +
+			"    interfaces:\n" +
+			"      Standard:\n" +
+			"        start: scripts/start.sh\n";
+
+	private static List<ServiceTemplate> read(ToscaYamlReader reader, String... documents) throws Exception {
+		StringBuilder yaml = new StringBuilder();
+		for(String document : documents)
+			yaml.append("---\n").append(document);
+		return reader.read(new ByteArrayInputStream(yaml.toString().getBytes("UTF-8")));
+	}
+
+	private static Operation operation(Interface inf, String name) {
+		for(Operation op : inf.getOperations()) {
+			if(op.getName().equals(name))
+				return op;
+		}
+		return null;
+	}
+
+	@Test
+	public void testMappingsWaitForTheParentsOfNodeTypes() throws Exception {
+		ToscaYamlReader reader = new ToscaYamlReader();
+		//The ServiceTemplate is read before the parent of its node type is declared.
+		List<ServiceTemplate> sts = read(reader, APP_TYPE, APP_TEMPLATE, BASE_TYPE);
+		assertEquals(1, sts.size());
+		BoundaryDefinitions bounds = sts.get(0).getBoundaryDefinitions();
+		assertEquals("shop", sts.get(0).getName());
+		assertEquals("tosca.capabilities.Endpoint", bounds.getCapabilities().getList().get(0).getType().getName());
+		//Inherited definitions are resolved too.
+		assertEquals("tosca.capabilities.Compute", bounds.getRequirements().getList().get(0).getType().getName());
+	}
+
+	@Test
+	public void testMappedInterfacesTakeTheSignaturesOfTheSubstitutedNodeType() throws Exception {
+		ToscaYamlReader reader = new ToscaYamlReader();
+		List<ServiceTemplate> sts = read(reader, APP_TYPE, APP_TEMPLATE, BASE_TYPE);
+		Interface standard = sts.get(0).getBoundaryDefinitions().getInterfaces().getList().get(0);
+		assertEquals(2, standard.getOperations().size());
+		Operation create = operation(standard, "create");
+		assertEquals(2, create.getInputParameters().size());
+		assertEquals("url", create.getInputParameters().get(0).getName());
+		assertTrue(create.getInputParameters().get(0).isRequired());
+		assertFalse(create.getInputParameters().get(1).isRequired());
+		//(The operation is the one of the substituted node type.)
+		assertSame(operation(reader.getNodeType("my.nodes.App").getInterfaces().getList().get(0), "create"), create);
+		assertNotNull(operation(standard, "start"));
+	}
+
+	@Test(expected = UnresolvedReferenceException.class)
+	public void testUnresolvedSubstitutedNodeType() throws Exception {
+		read(new ToscaYamlReader(), APP_TYPE, BASE_TYPE, APP_TEMPLATE.replace("node_type: my.nodes.App", "node_type: my.nodes.Missing"));
+	}
+
+	@Test(expected = InvalidDocumentException.class)
+	public void testMissingSubstitutedNodeType() throws Exception {
+		read(new ToscaYamlReader(), APP_TYPE, BASE_TYPE, APP_TEMPLATE.replace("node_type: my.nodes.App", ""));
+	}
+
+	@Test(expected = UnresolvedReferenceException.class)
+	public void testUnknownMappedOperation() throws Exception {
+		read(new ToscaYamlReader(), APP_TYPE, BASE_TYPE, APP_TEMPLATE.replace("start: boot", "stop: halt"));
+	}
+
+	@Test(expected = UnresolvedReferenceException.class)
+	public void testUnknownMappedCapability() throws Exception {
+		read(new ToscaYamlReader(), APP_TYPE, BASE_TYPE, APP_TEMPLATE.replace("[ app, endpoint ]", "[ app, missing ]"));
+	}
+
+	@Test(expected = UnresolvedReferenceException.class)
+	public void testUnresolvedNodeTypeOfNodeTemplate() throws Exception {
+		read(new ToscaYamlReader(), APP_TYPE, APP_TEMPLATE);
+	}
+
+	@Test
+	public void testRepeatedRequirementDefinitions() throws Exception {
+		ToscaYamlReader reader = new ToscaYamlReader();
+		//(As before the builders, same named definitions with the same type are accepted.)
+		read(reader,
+				"node_types:\n" +
+				"  my.nodes.Multi:\n" +
+				"    requirements:\n" +
+				"      - host: tosca.capabilities.Compute\n" +
+				"      - host: tosca.capabilities.Compute\n");
+		assertEquals(2, reader.getNodeType("my.nodes.Multi").getRequirementDefinitions().getList().size());
+	}
+
+	@Test
+	public void testPolicyTargetsDeclaredLater() throws Exception {
+		ToscaYamlReader reader = new ToscaYamlReader();
+		read(reader,
+				"group_types:\n" +
+				"  my.groups.Tier: { derived_from: tosca.groups.Root }\n" +
+				"policy_types:\n" +
+				"  my.policies.Gold:\n" +
+				"    targets: [ my.nodes.App, my.groups.Tier, tosca.groups.Root ]\n",
+				APP_TYPE, BASE_TYPE);
+		PolicyType gold = reader.getPolicyType("my.policies.Gold");
+		assertNotNull(gold);
+		//The target node type is kept (and the group types are skipped).
+		assertEquals(1, gold.getAppliesTo().getList().size());
+		assertTrue(gold.isApplicableTo(reader.getNodeType("my.nodes.App")));
+		assertFalse(gold.isApplicableTo(reader.getNodeType("my.nodes.Base")));
+	}
+
+	@Test(expected = UnresolvedReferenceException.class)
+	public void testUnresolvedPolicyTarget() throws Exception {
+		read(new ToscaYamlReader(),
+				"policy_types:\n" +
+				"  my.policies.Gold:\n" +
+				"    targets: [ my.nodes.Missing ]\n");
+	}
+}
@@ -0,0 +1,255 @@
+package di.unipi.model.loader;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import di.unipi.model.exceptions.InvalidDocumentException;
+
+/**
+ * Class which tests the YamlParser.
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class YamlParserTest {
+	/**
+	 * Method which parses all the documents of a YAML stream.
+	 */
+	private static List<Object> parseAll(String yaml) throws IOException, InvalidDocumentException {
+		YamlParser parser = new YamlParser(new StringReader(yaml));
+		List<Object> documents = new ArrayList<Object>();
+		Object document;
+		while((document = parser.nextDocument()) != null)
+			documents.add(document);
+		return documents;
+	}
+
+	/**
+	 * Method which parses a single-document YAML stream.
+	 */
+	private static Object parse(String yaml) throws IOException, InvalidDocumentException {
+		List<Object> documents = parseAll(yaml);
+		assertEquals(1, documents.size());
+		return documents.get(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object o) {
+		assertTrue("A mapping is expected: " + o, o instanceof Map);
+		return (Map<String, Object>) o;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Object o) {
+		assertTrue("A sequence is expected: " + o, o instanceof List);
+		return (List<Object>) o;
+	}
+
+	/**
+	 * Method which checks that parsing a YAML stream fails at the given line.
+	 */
+	private static void assertInvalid(String yaml, int line) throws IOException {
+		try {
+			parseAll(yaml);
+			fail("The document should be invalid");
+		} catch(InvalidDocumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line " + line + ":"));
+		}
+	}
+
+	@Test
+	public void testBlockMappings() throws Exception {
+		Map<String, Object> root = map(parse(
+				"b: 1\n" +
+				"a:\n" +
+				"  nested: value\n" +
+				"  deeper:\n" +
+				"    key: x\n" +
+				"c:\n"));
+		//The order of the keys is preserved.
+		assertEquals(Arrays.asList("b", "a", "c"), new ArrayList<String>(root.keySet()));
+		assertEquals("1", root.get("b"));
+		assertEquals("value", map(root.get("a")).get("nested"));
+		assertEquals("x", map(map(root.get("a")).get("deeper")).get("key"));
+		assertNull(root.get("c"));
+		assertTrue(root.containsKey("c"));
+	}
+
+	@Test
+	public void testBlockSequences() throws Exception {
+		Map<String, Object> root = map(parse(
+				"indented:\n" +
+				"  - a\n" +
+				"  - b\n" +
+				"compact:\n" +
+				"- c\n" +
+				"- - nested\n" +
+				"  - items\n" +
+				"mappings:\n" +
+				"  - name: x\n" +
+				"    type: t\n" +
+				"  - single: y\n" +
+				"  -\n"));
+		assertEquals(Arrays.<Object>asList("a", "b"), root.get("indented"));
+		List<Object> compact = list(root.get("compact"));
+		assertEquals("c", compact.get(0));
+		assertEquals(Arrays.<Object>asList("nested", "items"), compact.get(1));
+		List<Object> mappings = list(root.get("mappings"));
+		assertEquals(3, mappings.size());
+		assertEquals("x", map(mappings.get(0)).get("name"));
+		assertEquals("t", map(mappings.get(0)).get("type"));
+		assertEquals("y", map(mappings.get(1)).get("single"));
+		assertNull(mappings.get(2));
+	}
+
+	@Test
+	public void testFlowCollections() throws Exception {
+		Map<String, Object> root = map(parse(
+				"seq: [ a, 'b, c', \"d\" ]\n" +
+				"map: { x: 1, y: [ 2, 3 ], z: { w: } }\n" +
+				"empty: [ ]\n" +
+				"multiline: [ one,\n" +
+				"    two,\n" +
+				"    three ]\n" +
+				"url: { u: http://host:80/x }\n"));
+		assertEquals(Arrays.<Object>asList("a", "b, c", "d"), root.get("seq"));
+		Map<String, Object> m = map(root.get("map"));
+		assertEquals("1", m.get("x"));
+		assertEquals(Arrays.<Object>asList("2", "3"), m.get("y"));
+		assertTrue(map(m.get("z")).containsKey("w"));
+		assertNull(map(m.get("z")).get("w"));
+		assertTrue(list(root.get("empty")).isEmpty());
+		assertEquals(Arrays.<Object>asList("one", "two", "three"), root.get("multiline"));
+		assertEquals("http://host:80/x", map(root.get("url")).get("u"));
+	}
+
+	@Test
+	public void testQuotedScalars() throws Exception {
+		Map<String, Object> root = map(parse(
+				"single: 'it''s # not a comment'\n" +
+				"double: \"tab\\tnew\\nline \\\"q\\\" \\u0041\"\n" +
+				"\"quoted key\": v\n" +
+				"'colon: key': w\n" +
+				"plain: it's fine\n" +
+				"empty: ''\n"));
+		assertEquals("it's # not a comment", root.get("single"));
+		assertEquals("tab\tnew\nline \"q\" A", root.get("double"));
+		assertEquals("v", root.get("quoted key"));
+		assertEquals("w", root.get("colon: key"));
+		assertEquals("it's fine", root.get("plain"));
+		assertEquals("", root.get("empty"));
+	}
+
+	@Test
+	public void testNullsAndComments() throws Exception {
+		Map<String, Object> root = map(parse(
+				"# a comment\n" +
+				"a: ~  # trailing comment\n" +
+				"b: null\n" +
+				"c: NULL\n" +
+				"d: 'null'\n" +
+				"e: value#not-a-comment\n" +
+				"\n" +
+				"   # an indented comment\n" +
+				"f: x\n"));
+		assertNull(root.get("a"));
+		assertNull(root.get("b"));
+		assertNull(root.get("c"));
+		assertEquals("null", root.get("d"));
+		assertEquals("value#not-a-comment", root.get("e"));
+		assertEquals("x", root.get("f"));
+		assertEquals(6, root.size());
+	}
+
+	@Test
+	public void testBlockScalars() throws Exception {
+		Map<String, Object> root = map(parse(
+				"literal: |\n" +
+				"  line one\n" +
+				"    indented # kept\n" +
+				"\n" +
+				"  line three\n" +
+				"folded: >\n" +
+				"  folded\n" +
+				"  text\n" +
+				"stripped: |-\n" +
+				"  no newline\n" +
+				"plain: a plain\n" +
+				"  multi-line scalar\n" +
+				"next: x\n"));
+		assertEquals("line one\n  indented # kept\n\nline three\n", root.get("literal"));
+		assertEquals("folded text\n", root.get("folded"));
+		assertEquals("no newline", root.get("stripped"));
+		assertEquals("a plain multi-line scalar", root.get("plain"));
+		assertEquals("x", root.get("next"));
+	}
+
+	@Test
+	public void testMultipleDocuments() throws Exception {
+		List<Object> documents = parseAll(
+				"%YAML 1.2\n" +
+				"---\n" +
+				"a: 1\n" +
+				"...\n" +
+				"---\n" +
+				"# an empty document is skipped\n" +
+				"---\n" +
+				"b: 2\n" +
+				"--- \n" +
+				"- c\n");
+		assertEquals(3, documents.size());
+		assertEquals("1", map(documents.get(0)).get("a"));
+		assertEquals("2", map(documents.get(1)).get("b"));
+		assertEquals(Arrays.<Object>asList("c"), documents.get(2));
+	}
+
+	@Test
+	public void testDocumentsAreParsedOneAtATime() throws Exception {
+		YamlParser parser = new YamlParser(new StringReader("a: 1\n---\nb: [\n"));
+		assertEquals("1", map(parser.nextDocument()).get("a"));
+		try {
+			parser.nextDocument();
+			fail("The second document should be invalid");
+		} catch(InvalidDocumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3:"));
+		}
+	}
+
+	@Test
+	public void testEmptyStream() throws Exception {
+		assertTrue(parseAll("").isEmpty());
+		assertTrue(parseAll("# only a comment\n\n---\n...\n").isEmpty());
+	}
+
+	@Test
+	public void testErrorPositions() throws Exception {
+		//Duplicate keys.
+		assertInvalid("a: 1\nb: 2\na: 3\n", 3);
+		//Unexpected indentation.
+		assertInvalid("a:\n  b: 1\n    c: 2\n", 3);
+		assertInvalid("a:\n    b: 1\n  c: 2\n", 3);
+		//A line which is neither a mapping entry nor a sequence item.
+		assertInvalid("a: 1\njust text\n", 2);
+		//Unterminated (or malformed) flow collections.
+		assertInvalid("a: 1\nb: [ x, y\n", 2);
+		assertInvalid("a: [ x y ] z\n", 1);
+		assertInvalid("a: { x: 1 y: 2 }\n", 1);
+		//Malformed quoted scalars.
+		assertInvalid("a: 'open\n", 1);
+		assertInvalid("a: \"x\" trailing\n", 1);
+		assertInvalid("a: \"\\u00\"\n", 1);
+		//Line numbers account for the previous documents.
+		assertInvalid("a: 1\n---\nb: 2\nb: 3\n", 4);
+	}
+}
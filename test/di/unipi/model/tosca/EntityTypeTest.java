@@ -0,0 +1,52 @@
+package di.unipi.model.tosca;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Class which tests the (cached) fingerprints of the EntityType(s).
+ * <br>
+ * Copyright 2013 Jacopo Soldani (Computer Science department, University of Pisa)
+ *
+ * @author http://www.di.unipi.it/~soldani
+ *
+ * @version 1.0
+ */
+public class EntityTypeTest {
+
+	@Test
+	public void testNodeTypeChangesKeepTheEpoch() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		NodeType parent = new NodeType("P");
+		NodeType child = new NodeType(parent, "N");
+		Fingerprint parentFingerprint = parent.getFingerprint();
+		Fingerprint childFingerprint = child.getFingerprint();
+
+		int epoch = EntityType.epoch();
+		parent.getCapabilityDefinitions().addDefinition("c", cType);
+		parent.getPropertiesDefinition().addDefinition("p", String.class);
+		new NodeType.Builder("O").addCapabilityDefinition("c", cType).build();
+		assertEquals(epoch, EntityType.epoch());
+
+		//The fingerprints of the changed NodeType, and of those derived from it, are anyway recomputed.
+		assertFalse(parentFingerprint.equals(parent.getFingerprint()));
+		assertFalse(childFingerprint.equals(child.getFingerprint()));
+		NodeType same = new NodeType(new NodeType.Builder("P").addCapabilityDefinition("c", cType)
+				.addPropertyDefinition("p", String.class).build(), "N");
+		assertEquals(same.getFingerprint(), child.getFingerprint());
+	}
+
+	@Test
+	public void testSharedTypeChangesAdvanceTheEpoch() throws Exception {
+		CapabilityType cType = new CapabilityType("C");
+		RequirementType rType = new RequirementType("R", cType);
+		Fingerprint requirementFingerprint = rType.getFingerprint();
+
+		int epoch = EntityType.epoch();
+		cType.getPropertiesDefinition().addDefinition("p", String.class);
+		assertTrue(EntityType.epoch() != epoch);
+		//(The RequirementType depends on the changed CapabilityType, though it is not derived from it.)
+		assertFalse(requirementFingerprint.equals(rType.getFingerprint()));
+	}
+}